@@ -6,9 +6,12 @@ import org.example.business.validators.TransactionValidator;
 import org.example.shared.dto.BillDTO;
 import org.example.shared.dto.BillItemDTO;
 import org.example.shared.dto.ItemDTO;
+import org.example.persistence.gateways.CartStore;
 import org.example.persistence.gateways.ItemGateway;
+import org.example.business.managers.StockReservationManager;
 import org.example.business.managers.WebsiteInventoryManager;
 import org.example.core.state.CheckoutContext;
+import org.example.core.state.CheckoutSessionRegistry;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -20,11 +23,26 @@ public class OnlineStoreFacade {
     
     private final ItemGateway itemGateway;
     private final WebsiteInventoryManager websiteInventory;
-    private CheckoutContext currentCart;
+    private final StockReservationManager reservations;
+    private final CartStore cartStore;
+    // Open carts by web session id; the session id also owns the cart's stock holds
+    private final CheckoutSessionRegistry carts;
 
     private OnlineStoreFacade() {
-        this.itemGateway = ItemGateway.getInstance();
-        this.websiteInventory = WebsiteInventoryManager.getInstance();
+        this(ItemGateway.getInstance(), WebsiteInventoryManager.getInstance(), StockReservationManager.getInstance(),
+                CartStore.getInstance());
+    }
+
+    // Visible for tests
+    OnlineStoreFacade(ItemGateway itemGateway, WebsiteInventoryManager websiteInventory,
+                      StockReservationManager reservations, CartStore cartStore) {
+        this.itemGateway = itemGateway;
+        this.websiteInventory = websiteInventory;
+        this.reservations = reservations;
+        this.cartStore = cartStore;
+        this.carts = new CheckoutSessionRegistry(SystemConfig.CHECKOUT_SESSION_IDLE_TIMEOUT_MS,
+                SystemConfig.CHECKOUT_SESSION_MAX, SystemConfig.CHECKOUT_SESSION_SWEEP_INTERVAL_MS,
+                (sessionId, cart) -> reservations.releaseAll(sessionId));
     }
 
     public static OnlineStoreFacade getInstance() {
@@ -39,14 +57,15 @@ public class OnlineStoreFacade {
     }
 
     // Start new shopping cart
-    public void createCart(int customerId, String customerName, String customerPhone, String address) {
+    public void createCart(String sessionId, int customerId, String customerName, String customerPhone, String address) {
         // Validate that we're creating an online cart
         String transactionType = SystemConfig.TRANSACTION_ONLINE;
         if (!TransactionValidator.isValidTransactionType(transactionType)) {
             throw new IllegalStateException("Invalid transaction type for online store");
         }
         
-        currentCart = new CheckoutContext(transactionType);
+        // Replacing an open cart evicts it, which releases its holds
+        CheckoutContext currentCart = carts.open(sessionId, new CheckoutContext(transactionType));
         currentCart.setCustomerId(customerId);
         currentCart.setCustomerName(customerName);
         currentCart.setCustomerPhone(customerPhone);
@@ -55,10 +74,8 @@ public class OnlineStoreFacade {
     }
 
     // Add item to cart
-    public boolean addToCart(String itemCode, int quantity) {
-        if (currentCart == null) {
-            throw new IllegalStateException("No active cart. Call createCart() first.");
-        }
+    public boolean addToCart(String sessionId, String itemCode, int quantity) {
+        CheckoutContext currentCart = requireCart(sessionId);
 
         try {
             // Check item exists
@@ -68,7 +85,9 @@ public class OnlineStoreFacade {
                 return false;
             }
 
-            if (!websiteInventory.hasEnoughStock(item.getId(), quantity)) {
+            // Hold the cart's new total so other carts cannot take the same units
+            int heldQuantity = reservations.getHeldQuantity(sessionId, item.getId());
+            if (!reservations.hold(sessionId, item.getId(), heldQuantity + quantity)) {
                 System.err.println("Insufficient stock for item: " + itemCode);
                 return false;
             }
@@ -84,19 +103,17 @@ public class OnlineStoreFacade {
     }
 
     // Update cart item quantity
-    public boolean updateCartItem(String itemCode, int newQuantity) {
-        if (currentCart == null) {
-            throw new IllegalStateException("No active cart");
-        }
+    public boolean updateCartItem(String sessionId, String itemCode, int newQuantity) {
+        CheckoutContext currentCart = requireCart(sessionId);
 
         try {
             if (newQuantity <= 0) {
-                removeFromCart(itemCode);
+                removeFromCart(sessionId, itemCode);
                 return true;
             }
 
             ItemDTO item = itemGateway.findByCode(itemCode);
-            if (item != null && !websiteInventory.hasEnoughStock(item.getId(), newQuantity)) {
+            if (item != null && !reservations.hold(sessionId, item.getId(), newQuantity)) {
                 System.err.println("Insufficient stock for quantity: " + newQuantity);
                 return false;
             }
@@ -111,18 +128,19 @@ public class OnlineStoreFacade {
         }
     }
 
-    public void removeFromCart(String itemCode) {
-        if (currentCart == null) {
-            throw new IllegalStateException("No active cart");
+    public void removeFromCart(String sessionId, String itemCode) {
+        CheckoutContext currentCart = requireCart(sessionId);
+        for (BillItemDTO item : currentCart.getItems()) {
+            if (item.getItemCode().equals(itemCode)) {
+                reservations.release(sessionId, item.getItemId());
+            }
         }
         currentCart.removeItem(itemCode);
         System.out.println("Removed " + itemCode + " from cart");
     }
 
-    public void applyPromoCode(String promoCode, double discountPercentage) {
-        if (currentCart == null) {
-            throw new IllegalStateException("No active cart");
-        }
+    public void applyPromoCode(String sessionId, String promoCode, double discountPercentage) {
+        CheckoutContext currentCart = requireCart(sessionId);
         
         // Simple promo code validation (in real implementation, would check database)
         if (promoCode != null && !promoCode.trim().isEmpty()) {
@@ -131,14 +149,13 @@ public class OnlineStoreFacade {
         }
     }
 
-    public void setDeliveryAddress(String address) {
-        if (currentCart == null) {
-            throw new IllegalStateException("No active cart");
-        }
+    public void setDeliveryAddress(String sessionId, String address) {
+        CheckoutContext currentCart = requireCart(sessionId);
         currentCart.setDeliveryAddress(address);
     }
 
-    public CartSummary getCartSummary() {
+    public CartSummary getCartSummary(String sessionId) {
+        CheckoutContext currentCart = carts.get(sessionId);
         if (currentCart == null) {
             return new CartSummary();
         }
@@ -159,73 +176,104 @@ public class OnlineStoreFacade {
         return SystemConfig.SHIPPING_COST;
     }
 
-    public BillDTO processOrder() {
-        if (currentCart == null) {
-            throw new IllegalStateException("No active cart");
-        }
+    public BillDTO processOrder(String sessionId) {
+        CheckoutContext currentCart = requireCart(sessionId);
 
-        try {
-            // Validate this is an online transaction
-            String transactionType = currentCart.getTransactionType();
-            if (!SystemConfig.TRANSACTION_ONLINE.equals(transactionType)) {
-                throw new IllegalStateException("OnlineStoreFacade can only process ONLINE transactions");
-            }
+        // Guards against the same session submitting twice; other carts are not held up
+        synchronized (currentCart) {
+            try {
+                // Validate this is an online transaction
+                String transactionType = currentCart.getTransactionType();
+                if (!SystemConfig.TRANSACTION_ONLINE.equals(transactionType)) {
+                    throw new IllegalStateException("OnlineStoreFacade can only process ONLINE transactions");
+                }
             
-            // Validate cash payment (should be 0 for cash-on-delivery)
-            if (!TransactionValidator.isCashPaymentValid(transactionType, 0)) {
-                throw new IllegalStateException("Invalid payment setup for online transaction");
-            }
+                // Validate cash payment (should be 0 for cash-on-delivery)
+                if (!TransactionValidator.isCashPaymentValid(transactionType, 0)) {
+                    throw new IllegalStateException("Invalid payment setup for online transaction");
+                }
             
-            // Calculate final total including shipping
-            double orderTotal = currentCart.calculateTotal();
-            double shipping = calculateShipping(orderTotal);
+                // Calculate final total including shipping
+                double orderTotal = currentCart.calculateTotal();
+                double shipping = calculateShipping(orderTotal);
             
-            // SYOS only accepts cash payments - order will be cash on delivery
-            // No payment processed online, payment will be collected on delivery
+                // SYOS only accepts cash payments - order will be cash on delivery
+                // No payment processed online, payment will be collected on delivery
             
-            currentCart.generateBill();
+                currentCart.generateBill();
             
-            BillDTO bill = currentCart.getGeneratedBill();
+                BillDTO bill = currentCart.getGeneratedBill();
             
-            // Ensure correct store type for online transaction
-            String expectedStoreType = TransactionValidator.getStoreTypeForTransaction(transactionType);
-            if (!expectedStoreType.equals(bill.getStoreType())) {
-                System.out.println("Setting correct store type: " + expectedStoreType);
-            }
+                // Ensure correct store type for online transaction
+                String expectedStoreType = TransactionValidator.getStoreTypeForTransaction(transactionType);
+                if (!expectedStoreType.equals(bill.getStoreType())) {
+                    System.out.println("Setting correct store type: " + expectedStoreType);
+                }
             
-            // Update website inventory (separate from store stock)
-            updateWebsiteStockLevels(currentCart.getItems());
+                // Update website inventory (separate from store stock)
+                updateWebsiteStockLevels(sessionId, currentCart.getItems());
             
-            sendOrderConfirmation(bill, shipping, "CASH_ON_DELIVERY", "PENDING_DELIVERY");
+                sendOrderConfirmation(bill, currentCart.getCustomerName(), shipping, "CASH_ON_DELIVERY", "PENDING_DELIVERY");
             
-            currentCart = null;
+                carts.close(sessionId);
             
-            return bill;
+                return bill;
             
-        } catch (Exception e) {
-            System.err.println("Error processing order: " + e.getMessage());
-            return null;
+            } catch (Exception e) {
+                System.err.println("Error processing order: " + e.getMessage());
+                return null;
+            }
         }
     }
 
-    public void abandonCart() {
-        if (currentCart != null) {
+    public void abandonCart(String sessionId) {
+        if (carts.close(sessionId) != null) {
             System.out.println("Shopping cart abandoned");
-            currentCart = null;
+            reservations.releaseAll(sessionId);
         }
     }
 
-    public String saveCartForLater() {
+    public CheckoutSessionRegistry.SessionStats getSessionStats() {
+        return carts.getStats();
+    }
+
+    // Save the cart so it can be restored by id later, even after a restart
+    public String saveCartForLater(String sessionId) {
+        CheckoutContext currentCart = carts.get(sessionId);
         if (currentCart == null) {
             return null;
         }
         
-        // In real implementation, would save to database
-        String cartId = "CART_" + System.currentTimeMillis();
+        List<CartStore.CartLine> lines = new ArrayList<>();
+        for (BillItemDTO item : currentCart.getItems()) {
+            lines.add(new CartStore.CartLine(item.getItemCode(), item.getQuantity()));
+        }
+        String cartId = cartStore.newCartId();
+        cartStore.save(cartId, currentCart.getCustomerId(), lines);
         System.out.println("Cart saved for later with ID: " + cartId);
         return cartId;
     }
 
+    // Reopen a saved cart for a session; items that are no longer in stock are left out
+    public boolean restoreCart(String sessionId, String cartId, String customerName, String customerPhone,
+                               String address) {
+        try {
+            CartStore.Cart saved = cartStore.get(cartId);
+            if (saved == null) {
+                System.err.println("Saved cart not found: " + cartId);
+                return false;
+            }
+            createCart(sessionId, saved.getCustomerId(), customerName, customerPhone, address);
+            for (CartStore.CartLine line : saved.getLines()) {
+                addToCart(sessionId, line.getItemCode(), line.getQuantity());
+            }
+            return true;
+        } catch (Exception e) {
+            System.err.println("Error restoring cart: " + e.getMessage());
+            return false;
+        }
+    }
+
     public List<ItemDTO> browseItems() {
         try {
             return itemGateway.findAll();
@@ -235,19 +283,10 @@ public class OnlineStoreFacade {
         }
     }
 
-    // Search items by name
+    // Search items by code or name, best matches first
     public List<ItemDTO> searchItems(String searchTerm) {
         try {
-            List<ItemDTO> allItems = itemGateway.findAll();
-            List<ItemDTO> results = new ArrayList<>();
-            
-            String lowerSearchTerm = searchTerm.toLowerCase();
-            for (ItemDTO item : allItems) {
-                if (item.getName().toLowerCase().contains(lowerSearchTerm)) {
-                    results.add(item);
-                }
-            }
-            return results;
+            return itemGateway.search(searchTerm, Integer.MAX_VALUE);
         } catch (Exception e) {
             System.err.println("Error searching items: " + e.getMessage());
             return new ArrayList<>();
@@ -262,7 +301,7 @@ public class OnlineStoreFacade {
                 return null;
             }
             
-            int stockQuantity = websiteInventory.getWebsiteStock(item.getId());
+            int stockQuantity = websiteInventory.getAvailableToSell(item.getId());
             boolean inStock = stockQuantity > 0;
             
             return new ItemDetailDTO(item, stockQuantity, inStock);
@@ -273,18 +312,29 @@ public class OnlineStoreFacade {
         }
     }
 
-    private void updateWebsiteStockLevels(List<BillItemDTO> items) throws SQLException, ClassNotFoundException {
+    // Turn the cart's holds into decrements of the website shelf (separate from store shelves)
+    private void updateWebsiteStockLevels(String sessionId, List<BillItemDTO> items) throws SQLException, ClassNotFoundException {
         for (BillItemDTO item : items) {
-            // Update website inventory (separate from store shelves)
-            WebsiteInventoryManager.getInstance().reduceStock(item.getItemId(), item.getQuantity());
+            if (!reservations.commit(sessionId, item.getItemId(), item.getQuantity())) {
+                System.err.println("Insufficient website stock for item " + item.getItemCode()
+                        + " after its hold expired");
+            }
+        }
+    }
+
+    private CheckoutContext requireCart(String sessionId) {
+        CheckoutContext cart = carts.get(sessionId);
+        if (cart == null) {
+            throw new IllegalStateException("No active cart. Call createCart() first.");
         }
+        return cart;
     }
 
-    private void sendOrderConfirmation(BillDTO bill, double shipping, String paymentMethod, String paymentReference) {
+    private void sendOrderConfirmation(BillDTO bill, String customerName, double shipping, String paymentMethod, String paymentReference) {
         System.out.println("\n=== ORDER CONFIRMATION ===");
         System.out.println("Order placed successfully!");
         System.out.println("Invoice Number: " + bill.getInvoiceNumber());
-        System.out.println("Customer: " + (currentCart != null ? currentCart.getCustomerName() : "N/A"));
+        System.out.println("Customer: " + (customerName != null ? customerName : "N/A"));
         System.out.println("Total Amount: Rs." + String.format("%.2f", bill.getFullPrice()));
         System.out.println("Shipping Cost: Rs." + String.format("%.2f", shipping));
         System.out.println("Grand Total: Rs." + String.format("%.2f", bill.getFullPrice() + shipping));
@@ -9,6 +9,7 @@ import org.example.shared.dto.ItemDTO;
 import org.example.persistence.gateways.ItemGateway;
 import org.example.business.managers.StockManager;
 import org.example.core.state.CheckoutContext;
+import org.example.core.state.CheckoutSessionRegistry;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -20,11 +21,15 @@ public class POSFacade {
     
     private final ItemGateway itemGateway;
     private final StockManager stockManager;
-    private CheckoutContext currentCheckout;
+    // Open checkouts, one per till
+    private final CheckoutSessionRegistry checkouts;
 
     private POSFacade() {
         this.itemGateway = ItemGateway.getInstance();
         this.stockManager = StockManager.getInstance();
+        this.checkouts = new CheckoutSessionRegistry(SystemConfig.CHECKOUT_SESSION_IDLE_TIMEOUT_MS,
+                SystemConfig.CHECKOUT_SESSION_MAX, SystemConfig.CHECKOUT_SESSION_SWEEP_INTERVAL_MS,
+                (terminalId, checkout) -> System.out.println("Checkout session on " + terminalId + " expired"));
     }
 
     public static POSFacade getInstance() {
@@ -38,7 +43,7 @@ public class POSFacade {
         return instance;
     }
 
-    public void startCheckout(String transactionType) {
+    public void startCheckout(String terminalId, String transactionType) {
         // Validate transaction type
         if (!TransactionValidator.isValidTransactionType(transactionType)) {
             throw new IllegalArgumentException("Invalid transaction type: " + transactionType + 
@@ -51,12 +56,13 @@ public class POSFacade {
                 "Online transactions should use OnlineStoreFacade");
         }
         
-        currentCheckout = new CheckoutContext(transactionType);
-        System.out.println("Started new " + transactionType + " checkout session");
+        checkouts.open(terminalId, new CheckoutContext(transactionType));
+        System.out.println("Started new " + transactionType + " checkout session on " + terminalId);
     }
 
-    public void addItemToCheckout(String itemCode, int quantity) {
-        if (currentCheckout == null) {
+    public void addItemToCheckout(String terminalId, String itemCode, int quantity) {
+        CheckoutContext checkout = checkouts.get(terminalId);
+        if (checkout == null) {
             throw new IllegalStateException("No active checkout session. Call startCheckout() first.");
         }
 
@@ -70,111 +76,109 @@ public class POSFacade {
                 throw new IllegalArgumentException("Insufficient stock for item: " + itemCode);
             }
 
-            currentCheckout.addItem(itemCode, quantity);
+            checkout.addItem(itemCode, quantity);
         } catch (Exception e) {
             System.err.println("Error adding item: " + e.getMessage());
         }
     }
 
-    public void removeItemFromCheckout(String itemCode) {
-        if (currentCheckout == null) {
-            throw new IllegalStateException("No active checkout session");
-        }
-        currentCheckout.removeItem(itemCode);
+    public void removeItemFromCheckout(String terminalId, String itemCode) {
+        requireCheckout(terminalId).removeItem(itemCode);
     }
-    public void applyDiscount(double discount) {
-        if (currentCheckout == null) {
-            throw new IllegalStateException("No active checkout session");
-        }
-        currentCheckout.applyDiscount(discount);
+    public void applyDiscount(String terminalId, double discount) {
+        requireCheckout(terminalId).applyDiscount(discount);
     }
 
     // Set customer information for current checkout
-    public void setCustomer(int customerId, String customerName, String customerPhone) {
-        if (currentCheckout == null) {
-            throw new IllegalStateException("No active checkout session");
-        }
-        currentCheckout.setCustomerId(customerId);
-        currentCheckout.setCustomerName(customerName);
-        currentCheckout.setCustomerPhone(customerPhone);
+    public void setCustomer(String terminalId, int customerId, String customerName, String customerPhone) {
+        CheckoutContext checkout = requireCheckout(terminalId);
+        checkout.setCustomerId(customerId);
+        checkout.setCustomerName(customerName);
+        checkout.setCustomerPhone(customerPhone);
     }
 
     // Process payment and complete transaction
-    public BillDTO completeTransaction(double cashTendered) {
-        if (currentCheckout == null) {
-            throw new IllegalStateException("No active checkout session");
-        }
-
-        try {
-            // Validate cash payment for transaction type
-            String transactionType = currentCheckout.getTransactionType();
-            if (!TransactionValidator.isCashPaymentValid(transactionType, cashTendered)) {
-                throw new IllegalArgumentException("Invalid cash amount for " + transactionType + 
-                    " transaction. COUNTER transactions require cash > 0");
-            }
+    public BillDTO completeTransaction(String terminalId, double cashTendered) {
+        CheckoutContext checkout = requireCheckout(terminalId);
+
+        // A till completes one sale at a time; other tills are not held up
+        synchronized (checkout) {
+            try {
+                // Validate cash payment for transaction type
+                String transactionType = checkout.getTransactionType();
+                if (!TransactionValidator.isCashPaymentValid(transactionType, cashTendered)) {
+                    throw new IllegalArgumentException("Invalid cash amount for " + transactionType + 
+                        " transaction. COUNTER transactions require cash > 0");
+                }
             
-            currentCheckout.processPayment(cashTendered);
-            currentCheckout.generateBill();
-            BillDTO bill = currentCheckout.getGeneratedBill();
+                checkout.processPayment(cashTendered);
+                checkout.generateBill();
+                BillDTO bill = checkout.getGeneratedBill();
             
-            // Ensure proper store type is set
-            String expectedStoreType = TransactionValidator.getStoreTypeForTransaction(transactionType);
-            if (!expectedStoreType.equals(bill.getStoreType())) {
-                System.out.println("Correcting store type from " + bill.getStoreType() + " to " + expectedStoreType);
-            }
+                // Ensure proper store type is set
+                String expectedStoreType = TransactionValidator.getStoreTypeForTransaction(transactionType);
+                if (!expectedStoreType.equals(bill.getStoreType())) {
+                    System.out.println("Correcting store type from " + bill.getStoreType() + " to " + expectedStoreType);
+                }
             
-            updateStockLevels(currentCheckout.getItems());
-            currentCheckout.printBill();
-            currentCheckout = null;
+                updateStockLevels(checkout.getItems());
+                checkout.printBill();
+                checkouts.close(terminalId);
             
-            return bill;
+                return bill;
             
-        } catch (Exception e) {
-            System.err.println("Error completing transaction: " + e.getMessage());
-            return null;
+            } catch (Exception e) {
+                System.err.println("Error completing transaction: " + e.getMessage());
+                return null;
+            }
         }
     }
 
     
     // Get current checkout total
-    public double getCurrentTotal() {
-        if (currentCheckout == null) {
+    public double getCurrentTotal(String terminalId) {
+        CheckoutContext checkout = checkouts.get(terminalId);
+        if (checkout == null) {
             return 0.0;
         }
-        return currentCheckout.calculateTotal();
+        return checkout.calculateTotal();
     }
 
     // Get current checkout items
-    public List<BillItemDTO> getCurrentItems() {
-        if (currentCheckout == null) {
+    public List<BillItemDTO> getCurrentItems(String terminalId) {
+        CheckoutContext checkout = checkouts.get(terminalId);
+        if (checkout == null) {
             return new ArrayList<>();
         }
-        return new ArrayList<>(currentCheckout.getItems());
+        return new ArrayList<>(checkout.getItems());
     }
 
     // Cancel current checkout
-    public void cancelCheckout() {
-        if (currentCheckout != null) {
-            currentCheckout = null;
-            System.out.println("Checkout session cancelled");
+    public void cancelCheckout(String terminalId) {
+        if (checkouts.close(terminalId) != null) {
+            System.out.println("Checkout session cancelled on " + terminalId);
         }
     }
 
+    public CheckoutSessionRegistry.SessionStats getSessionStats() {
+        return checkouts.getStats();
+    }
+
     // Quick sale method for simple transactions
-    public BillDTO quickSale(String itemCode, int quantity, int customerId, 
+    public BillDTO quickSale(String terminalId, String itemCode, int quantity, int customerId,
                             String customerName, String customerPhone, 
                             double discount, double cashTendered) {
         try {
-            startCheckout("COUNTER");
-            setCustomer(customerId, customerName, customerPhone);
-            addItemToCheckout(itemCode, quantity);
+            startCheckout(terminalId, "COUNTER");
+            setCustomer(terminalId, customerId, customerName, customerPhone);
+            addItemToCheckout(terminalId, itemCode, quantity);
             if (discount > 0) {
-                applyDiscount(discount);
+                applyDiscount(terminalId, discount);
             }
-            return completeTransaction(cashTendered);
+            return completeTransaction(terminalId, cashTendered);
         } catch (Exception e) {
             System.err.println("Error in quick sale: " + e.getMessage());
-            cancelCheckout();
+            cancelCheckout(terminalId);
             return null;
         }
     }
@@ -201,6 +205,14 @@ public class POSFacade {
         }
     }
 
+    private CheckoutContext requireCheckout(String terminalId) {
+        CheckoutContext checkout = checkouts.get(terminalId);
+        if (checkout == null) {
+            throw new IllegalStateException("No active checkout session");
+        }
+        return checkout;
+    }
+
     private void updateStockLevels(List<BillItemDTO> items) throws SQLException, ClassNotFoundException {
         for (BillItemDTO item : items) {
             stockManager.reduceStock(item.getItemId(), item.getQuantity());
@@ -0,0 +1,119 @@
+package org.example.business.managers;
+
+import org.example.core.config.SystemConfig;
+import org.example.core.state.CheckoutContext;
+import org.example.core.state.CheckoutSessionRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Saved web carts that hold stock, tracked as checkout sessions keyed by cart id.
+ *
+ * CartServlet touches a cart's session before each save, and the order or the cart's
+ * deletion closes it. A cart left idle for SystemConfig.CHECKOUT_SESSION_IDLE_TIMEOUT_MS,
+ * or pushed out when more than CHECKOUT_SESSION_MAX carts are open, has its holds
+ * released, so abandoned or mass-created carts cannot keep stock from other shoppers.
+ *
+ * Each holder (a signed-in customer, or else a browser session) holds stock for one
+ * cart at a time: touching a second cart for the same holder releases the first one's
+ * holds. The first cart is still saved and is held again when it is next touched.
+ */
+public class OnlineCartSessions {
+    private static OnlineCartSessions instance;
+    private static final Object lock = new Object();
+
+    private final StockReservationManager reservations;
+    private final CheckoutSessionRegistry sessions;
+    private final Map<String, String> holderByCart;
+    private final Map<String, String> cartByHolder;
+
+    private OnlineCartSessions() {
+        this(StockReservationManager.getInstance(), SystemConfig.CHECKOUT_SESSION_IDLE_TIMEOUT_MS,
+                SystemConfig.CHECKOUT_SESSION_MAX, SystemConfig.CHECKOUT_SESSION_SWEEP_INTERVAL_MS);
+    }
+
+    // Visible for tests
+    OnlineCartSessions(StockReservationManager reservations, long idleTimeoutMillis, int maxSessions,
+                       long sweepIntervalMillis) {
+        Map<String, String> holderByCart = new ConcurrentHashMap<>();
+        Map<String, String> cartByHolder = new ConcurrentHashMap<>();
+        this.reservations = reservations;
+        this.holderByCart = holderByCart;
+        this.cartByHolder = cartByHolder;
+        this.sessions = new CheckoutSessionRegistry(idleTimeoutMillis, maxSessions, sweepIntervalMillis,
+                (cartId, context) -> {
+                    reservations.releaseAll(cartId);
+                    forget(cartId, holderByCart, cartByHolder);
+                });
+    }
+
+    public static OnlineCartSessions getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new OnlineCartSessions();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Mark a cart as in use by a holder, opening its session if it has none: a new cart,
+     * one that went idle, or one saved before a restart. If the holder was holding
+     * another cart, that cart's holds are released. Call before taking holds for the cart.
+     */
+    public void touch(String cartId, int customerId, String holder) {
+        if (sessions.get(cartId) != null && holder.equals(holderByCart.get(cartId))) {
+            return;
+        }
+        // Opening over a session evicts it, so two saves of one cart must not both open
+        synchronized (this) {
+            String previousHolder = holderByCart.put(cartId, holder);
+            if (previousHolder != null && !previousHolder.equals(holder)) {
+                cartByHolder.remove(previousHolder, cartId);
+            }
+            String previousCart = cartByHolder.put(holder, cartId);
+            if (previousCart != null && !previousCart.equals(cartId) && holderByCart.remove(previousCart, holder)) {
+                sessions.close(previousCart);
+                reservations.releaseAll(previousCart);
+            }
+            if (sessions.get(cartId) == null) {
+                CheckoutContext context = new CheckoutContext(SystemConfig.TRANSACTION_ONLINE);
+                context.setCustomerId(customerId);
+                sessions.open(cartId, context);
+            }
+        }
+    }
+
+    /**
+     * The cart's order committed; its units already came off the shelf with the bill
+     */
+    public void complete(String cartId) {
+        sessions.close(cartId);
+        reservations.completeAll(cartId);
+        forget(cartId, holderByCart, cartByHolder);
+    }
+
+    /**
+     * The cart was deleted without an order
+     */
+    public void abandon(String cartId) {
+        sessions.close(cartId);
+        reservations.releaseAll(cartId);
+        forget(cartId, holderByCart, cartByHolder);
+    }
+
+    // Static so the eviction listener does not capture a half-built instance
+    private static void forget(String cartId, Map<String, String> holderByCart, Map<String, String> cartByHolder) {
+        String holder = holderByCart.remove(cartId);
+        if (holder != null) {
+            cartByHolder.remove(holder, cartId);
+        }
+    }
+
+    public CheckoutSessionRegistry.SessionStats getStats() {
+        return sessions.getStats();
+    }
+}
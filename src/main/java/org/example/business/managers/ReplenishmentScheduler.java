@@ -0,0 +1,450 @@
+package org.example.business.managers;
+
+import org.example.business.services.DualInventoryService;
+import org.example.business.services.DualInventoryService.RestockLine;
+import org.example.business.services.DualInventoryService.ShelfType;
+import org.example.core.config.SystemConfig;
+import org.example.core.state.DataVersions;
+import org.example.core.state.DataVersions.Domain;
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.shared.dto.ItemDTO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps STORE and WEBSITE shelves stocked from the warehouse without waiting for a
+ * manager to act on the items-need-shelving report.
+ *
+ * A shelf is due when it falls below its minimum: per item and shelf type from the
+ * shelf_target table, otherwise SystemConfig.REPLENISH_DEFAULT_MIN. Shelves become due
+ * two ways: a periodic scan of all shelves, and the ShelfLedger decrement listener,
+ * which reacts as soon as a sale takes a shelf below its minimum. A shelf is queued at
+ * most once however often it is triggered.
+ *
+ * A single background thread drains the queue in batches through
+ * DualInventoryService.stockToShelves, filling each shelf up to its maximum (or what the
+ * warehouse holds). Lines are rate limited to REPLENISH_MAX_LINES_PER_MINUTE so a large
+ * backlog never crowds out checkout for connections. Shelves the warehouse cannot fill
+ * are left alone for REPLENISH_FAILURE_BACKOFF_MS.
+ */
+public class ReplenishmentScheduler {
+    private static ReplenishmentScheduler instance;
+    private static final Object lock = new Object();
+
+    private final DatabaseConnection dbConnection;
+    private final DualInventoryService inventoryService;
+    private final ShelfLedger shelfLedger;
+    private final StockBatchIndex stockBatchIndex;
+    private final ItemGateway itemGateway;
+    private final int defaultMin;
+    private final int defaultMax;
+    private final int batchSize;
+    private final int maxLinesPerMinute;
+    private final long failureBackoffMillis;
+
+    // Overrides from shelf_target, by shelf key; replaced wholesale on each scan
+    private volatile Map<String, Target> targets = new HashMap<>();
+    // Shelves waiting to be refilled, in trigger order; queued keeps each shelf in once
+    private final ConcurrentLinkedQueue<PendingShelf> queue = new ConcurrentLinkedQueue<>();
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Long> backoffUntil = new ConcurrentHashMap<>();
+
+    // Rate limiting; only touched by the scheduler thread
+    private double lineTokens;
+    private long lastRefillNanos;
+
+    private ScheduledExecutorService executor;
+
+    // Statistics
+    private final AtomicLong triggerCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong scanCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong filledCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong unitsMoved = new AtomicLong();
+
+    private ReplenishmentScheduler() {
+        this(DatabaseConnection.getInstance(), DualInventoryService.getInstance(), ShelfLedger.getInstance(),
+                StockBatchIndex.getInstance(), ItemGateway.getInstance(),
+                SystemConfig.REPLENISH_DEFAULT_MIN, SystemConfig.REPLENISH_DEFAULT_MAX,
+                SystemConfig.REPLENISH_BATCH_SIZE, SystemConfig.REPLENISH_MAX_LINES_PER_MINUTE,
+                SystemConfig.REPLENISH_FAILURE_BACKOFF_MS);
+    }
+
+    // Visible for tests
+    ReplenishmentScheduler(DatabaseConnection dbConnection, DualInventoryService inventoryService,
+                           ShelfLedger shelfLedger, StockBatchIndex stockBatchIndex, ItemGateway itemGateway,
+                           int defaultMin, int defaultMax, int batchSize, int maxLinesPerMinute,
+                           long failureBackoffMillis) {
+        if (defaultMax < defaultMin) {
+            throw new IllegalArgumentException("Replenishment max must not be below min");
+        }
+        this.dbConnection = dbConnection;
+        this.inventoryService = inventoryService;
+        this.shelfLedger = shelfLedger;
+        this.stockBatchIndex = stockBatchIndex;
+        this.itemGateway = itemGateway;
+        this.defaultMin = defaultMin;
+        this.defaultMax = defaultMax;
+        this.batchSize = batchSize;
+        this.maxLinesPerMinute = maxLinesPerMinute;
+        this.failureBackoffMillis = failureBackoffMillis;
+        this.lineTokens = maxLinesPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    public static ReplenishmentScheduler getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new ReplenishmentScheduler();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start scanning and draining in the background; does nothing if already running
+     */
+    public synchronized void start(long scanIntervalMillis, long drainIntervalMillis) {
+        if (executor != null) {
+            return;
+        }
+        try {
+            ensureTargetTable();
+        } catch (Exception e) {
+            System.err.println("Replenishment: could not create shelf_target table: " + e.getMessage());
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "syos-replenisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runScan, 0, scanIntervalMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::runDrain, drainIntervalMillis, drainIntervalMillis, TimeUnit.MILLISECONDS);
+        shelfLedger.setDecrementListener(this::afterDecrement);
+        System.out.println("Replenishment scheduler started (scan every " + scanIntervalMillis + "ms)");
+    }
+
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        shelfLedger.setDecrementListener(null);
+        executor.shutdownNow();
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Queue a shelf for a refill check. Cheap and safe to call from request threads;
+     * a shelf already queued, or backing off after a failed fill, is not queued again.
+     */
+    public void trigger(int itemId, String shelfType) {
+        String key = key(itemId, shelfType);
+        Long until = backoffUntil.get(key);
+        if (until != null) {
+            if (System.currentTimeMillis() < until) {
+                return;
+            }
+            backoffUntil.remove(key, until);
+        }
+        triggerCount.incrementAndGet();
+        if (queued.add(key)) {
+            queue.add(new PendingShelf(key, itemId, shelfType));
+        } else {
+            coalescedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Set an item's shelf minimum and maximum, overriding the defaults
+     */
+    public void setTarget(int itemId, String shelfType, int minQuantity, int maxQuantity)
+            throws SQLException, ClassNotFoundException {
+        if (minQuantity < 0 || maxQuantity < minQuantity) {
+            throw new IllegalArgumentException("Shelf target needs 0 <= min <= max");
+        }
+        String query = """
+            INSERT INTO shelf_target (item_id, shelf_type, min_quantity, max_quantity) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE min_quantity = VALUES(min_quantity), max_quantity = VALUES(max_quantity)
+            """;
+        try (Connection connection = dbConnection.connect();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, itemId);
+            statement.setString(2, shelfType);
+            statement.setInt(3, minQuantity);
+            statement.setInt(4, maxQuantity);
+            statement.executeUpdate();
+        }
+        Map<String, Target> updated = new HashMap<>(targets);
+        updated.put(key(itemId, shelfType), new Target(minQuantity, maxQuantity));
+        targets = updated;
+    }
+
+    public ReplenishmentStats getStats() {
+        ReplenishmentStats stats = new ReplenishmentStats();
+        stats.running = isRunning();
+        stats.queuedShelves = queued.size();
+        stats.backingOffShelves = backoffUntil.size();
+        stats.triggerCount = triggerCount.get();
+        stats.coalescedCount = coalescedCount.get();
+        stats.scanCount = scanCount.get();
+        stats.batchCount = batchCount.get();
+        stats.filledCount = filledCount.get();
+        stats.failedCount = failedCount.get();
+        stats.throttledCount = throttledCount.get();
+        stats.unitsMoved = unitsMoved.get();
+        return stats;
+    }
+
+    private void afterDecrement(int itemId, String shelfType, int remainingQuantity) {
+        if (remainingQuantity < targetFor(itemId, shelfType).min) {
+            trigger(itemId, shelfType);
+        }
+    }
+
+    // Scheduled tasks must not throw, or the executor stops running them
+    private void runScan() {
+        try {
+            scan();
+        } catch (Exception e) {
+            System.err.println("Replenishment scan failed: " + e.getMessage());
+        }
+    }
+
+    private void runDrain() {
+        try {
+            drain();
+        } catch (Exception e) {
+            System.err.println("Replenishment drain failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reload shelf targets and queue every shelf below its minimum
+     */
+    // Visible for tests
+    void scan() throws SQLException, ClassNotFoundException {
+        String targetQuery = "SELECT item_id, shelf_type, min_quantity, max_quantity FROM shelf_target";
+        // Every item on both shelf types, so an item that never had a WEBSITE row is still found
+        String dueQuery = """
+            SELECT i.id AS item_id, t.type AS shelf_type
+            FROM items i
+            CROSS JOIN (SELECT 'STORE' AS type UNION ALL SELECT 'WEBSITE') t
+            LEFT JOIN shelf s ON s.item_id = i.id AND s.type = t.type
+            LEFT JOIN shelf_target st ON st.item_id = i.id AND st.shelf_type = t.type
+            WHERE COALESCE(s.quantity, 0) < COALESCE(st.min_quantity, ?)
+            """;
+
+        try (Connection connection = dbConnection.connect()) {
+            Map<String, Target> loaded = new HashMap<>();
+            try (PreparedStatement statement = connection.prepareStatement(targetQuery);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    loaded.put(key(resultSet.getInt("item_id"), resultSet.getString("shelf_type")),
+                            new Target(resultSet.getInt("min_quantity"), resultSet.getInt("max_quantity")));
+                }
+            }
+            targets = loaded;
+
+            try (PreparedStatement statement = connection.prepareStatement(dueQuery)) {
+                statement.setInt(1, defaultMin);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        trigger(resultSet.getInt("item_id"), resultSet.getString("shelf_type"));
+                    }
+                }
+            }
+        }
+        scanCount.incrementAndGet();
+    }
+
+    /**
+     * Refill queued shelves in batches, within the line rate limit. Returns the lines sent.
+     */
+    // Visible for tests
+    int drain() {
+        refillTokens();
+        int sent = 0;
+        while (!queue.isEmpty()) {
+            if (lineTokens < 1) {
+                throttledCount.incrementAndGet();
+                break;
+            }
+
+            List<RestockLine> lines = new ArrayList<>();
+            List<String> lineKeys = new ArrayList<>();
+            PendingShelf shelf;
+            while (lines.size() < batchSize && lineTokens >= 1 && (shelf = queue.poll()) != null) {
+                queued.remove(shelf.key);
+                RestockLine line = planLine(shelf);
+                if (line != null) {
+                    lines.add(line);
+                    lineKeys.add(shelf.key);
+                    lineTokens -= 1;
+                }
+            }
+            if (lines.isEmpty()) {
+                continue;
+            }
+
+            inventoryService.stockToShelves(lines);
+            // Committed by now; lets pages polling shelves and stock see the move
+            DataVersions.getInstance().bump(Domain.SHELVES, Domain.STOCK);
+            batchCount.incrementAndGet();
+            sent += lines.size();
+            for (int i = 0; i < lines.size(); i++) {
+                RestockLine line = lines.get(i);
+                if (line.isSuccess()) {
+                    filledCount.incrementAndGet();
+                    unitsMoved.addAndGet(line.getQuantity());
+                } else {
+                    failedCount.incrementAndGet();
+                    backOff(lineKeys.get(i));
+                    System.err.println("Replenishment of " + line.getItemCode() + " to " + line.getShelfType()
+                            + " failed: " + line.getMessage());
+                }
+            }
+        }
+        return sent;
+    }
+
+    // The line that tops a shelf up to its maximum, or null if it no longer needs one
+    private RestockLine planLine(PendingShelf shelf) {
+        try {
+            Target target = targetFor(shelf.itemId, shelf.shelfType);
+            int current = shelfLedger.getQuantity(shelf.itemId, shelf.shelfType);
+            if (current >= target.min) {
+                return null;
+            }
+            int warehouse = stockBatchIndex.getAvailableQuantity(shelf.itemId);
+            int quantity = Math.min(target.max - current, warehouse);
+            if (quantity <= 0) {
+                backOff(shelf.key);
+                return null;
+            }
+            ItemDTO item = itemGateway.findById(shelf.itemId);
+            if (item == null) {
+                return null;
+            }
+            return new RestockLine(item.getCode(), quantity, ShelfType.valueOf(shelf.shelfType));
+        } catch (Exception e) {
+            System.err.println("Replenishment: could not plan item " + shelf.itemId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void backOff(String key) {
+        backoffUntil.put(key, System.currentTimeMillis() + failureBackoffMillis);
+    }
+
+    private void refillTokens() {
+        long now = System.nanoTime();
+        double earned = (now - lastRefillNanos) * maxLinesPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        lineTokens = Math.min(maxLinesPerMinute, lineTokens + earned);
+        lastRefillNanos = now;
+    }
+
+    private Target targetFor(int itemId, String shelfType) {
+        Target target = targets.get(key(itemId, shelfType));
+        return target != null ? target : new Target(defaultMin, defaultMax);
+    }
+
+    private void ensureTargetTable() throws SQLException, ClassNotFoundException {
+        String ddl = """
+            CREATE TABLE IF NOT EXISTS shelf_target (
+                item_id INT NOT NULL,
+                shelf_type VARCHAR(16) NOT NULL,
+                min_quantity INT NOT NULL,
+                max_quantity INT NOT NULL,
+                PRIMARY KEY (item_id, shelf_type)
+            )
+            """;
+        try (Connection connection = dbConnection.connect();
+             Statement statement = connection.createStatement()) {
+            statement.execute(ddl);
+        }
+    }
+
+    private static String key(int itemId, String shelfType) {
+        return itemId + ":" + shelfType;
+    }
+
+    private static class Target {
+        private final int min;
+        private final int max;
+
+        private Target(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    private static class PendingShelf {
+        private final String key;
+        private final int itemId;
+        private final String shelfType;
+
+        private PendingShelf(String key, int itemId, String shelfType) {
+            this.key = key;
+            this.itemId = itemId;
+            this.shelfType = shelfType;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of replenishment statistics
+     */
+    public static class ReplenishmentStats {
+        private boolean running;
+        private int queuedShelves;
+        private int backingOffShelves;
+        private long triggerCount;
+        private long coalescedCount;
+        private long scanCount;
+        private long batchCount;
+        private long filledCount;
+        private long failedCount;
+        private long throttledCount;
+        private long unitsMoved;
+
+        // Getters
+        public boolean isRunning() { return running; }
+        public int getQueuedShelves() { return queuedShelves; }
+        public int getBackingOffShelves() { return backingOffShelves; }
+        public long getTriggerCount() { return triggerCount; }
+        public long getCoalescedCount() { return coalescedCount; }
+        public long getScanCount() { return scanCount; }
+        public long getBatchCount() { return batchCount; }
+        public long getFilledCount() { return filledCount; }
+        public long getFailedCount() { return failedCount; }
+        public long getThrottledCount() { return throttledCount; }
+        public long getUnitsMoved() { return unitsMoved; }
+    }
+}
@@ -1,24 +1,88 @@
 package org.example.business.managers;
 
+import org.example.core.config.SystemConfig;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Runs background request work in one of two modes:
+ * PLATFORM - a fixed thread pool fed from a bounded queue
+ * VIRTUAL  - one virtual thread per request, bounded by an admission limit
+ *
+ * In both modes at most dbPermits tasks run their body at once, so blocking JDBC
+ * calls never ask for more connections than the pool holds. Work that does not
+ * fit is rejected instead of queued without bound; callers see false from
+ * submitRequest() or a future failed with RejectedExecutionException.
+ */
 public class RequestQueueManager {
     private static RequestQueueManager instance;
     private static final Object lock = new Object();
-    
+
+    public enum ExecutionMode {
+        PLATFORM, VIRTUAL;
+
+        public static ExecutionMode fromConfig(String value) {
+            return "virtual".equalsIgnoreCase(value) ? VIRTUAL : PLATFORM;
+        }
+    }
+
+    private final ExecutionMode mode;
+    private final int maxThreads;
+    private final int queueCapacity;
     private final BlockingQueue<Runnable> requestQueue;
     private final ExecutorService executor;
-    private final int MAX_THREADS = 10;
-    private final int MAX_QUEUE_SIZE = 100;
-    
+    // Bounds the tasks allowed to use the database at the same time
+    private final Semaphore dbPermits;
+    // Virtual mode only: bounds running plus waiting tasks, as the executor itself has no queue
+    private final Semaphore admissionPermits;
+
+    // Statistics
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong completedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
     private RequestQueueManager() {
-        this.requestQueue = new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
-        this.executor = Executors.newFixedThreadPool(MAX_THREADS);
+        this(ExecutionMode.fromConfig(SystemConfig.REQUEST_EXECUTION_MODE), SystemConfig.REQUEST_MAX_THREADS,
+                SystemConfig.REQUEST_QUEUE_CAPACITY, SystemConfig.REQUEST_DB_PERMITS);
+    }
+
+    // Visible for tests
+    RequestQueueManager(ExecutionMode mode, int maxThreads, int queueCapacity, int dbPermitCount) {
+        if (maxThreads <= 0 || queueCapacity < 0 || dbPermitCount <= 0) {
+            throw new IllegalArgumentException("Thread, queue and permit limits must be positive");
+        }
+        this.mode = mode;
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        this.dbPermits = new Semaphore(dbPermitCount, true);
+
+        if (mode == ExecutionMode.VIRTUAL) {
+            this.requestQueue = null;
+            this.admissionPermits = new Semaphore(dbPermitCount + queueCapacity);
+            this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("syos-request-", 0).factory());
+        } else {
+            // A zero-capacity LinkedBlockingQueue is not allowed; one slot behaves the same for a full pool
+            this.requestQueue = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+            this.admissionPermits = null;
+            this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 0L, TimeUnit.MILLISECONDS,
+                    requestQueue, new ThreadPoolExecutor.AbortPolicy());
+        }
+        System.out.println("Request queue started in " + mode + " mode (threads: " + maxThreads
+                + ", queue: " + queueCapacity + ", db permits: " + dbPermitCount + ")");
     }
-    
+
     public static RequestQueueManager getInstance() {
         if (instance == null) {
             synchronized (lock) {
@@ -29,20 +93,140 @@ public class RequestQueueManager {
         }
         return instance;
     }
-    
-    public void submitRequest(Runnable task) {
-        executor.submit(task);
+
+    /**
+     * Queue fire-and-forget work; returns false if the queue is full and the task was rejected
+     */
+    public boolean submitRequest(Runnable task) {
+        return dispatch(() -> {
+            try {
+                runWithDbPermit(() -> {
+                    task.run();
+                    return null;
+                });
+            } catch (Exception e) {
+                System.err.println("Request task failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Queue work that produces a result. The future fails with RejectedExecutionException
+     * if the queue is full, so callers can answer with a retry instead of waiting.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        boolean accepted = dispatch(() -> {
+            try {
+                future.complete(runWithDbPermit(task));
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        if (!accepted) {
+            future.completeExceptionally(new RejectedExecutionException("Request queue is full"));
+        }
+        return future;
+    }
+
+    private boolean dispatch(Runnable work) {
+        if (admissionPermits != null && !admissionPermits.tryAcquire()) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        Runnable tracked = () -> {
+            try {
+                work.run();
+            } finally {
+                completedCount.incrementAndGet();
+                if (admissionPermits != null) {
+                    admissionPermits.release();
+                }
+            }
+        };
+        try {
+            executor.execute(tracked);
+            submittedCount.incrementAndGet();
+            return true;
+        } catch (RejectedExecutionException e) {
+            if (admissionPermits != null) {
+                admissionPermits.release();
+            }
+            rejectedCount.incrementAndGet();
+            return false;
+        }
     }
-    
+
+    private <T> T runWithDbPermit(Callable<T> task) throws Exception {
+        dbPermits.acquire();
+        activeCount.incrementAndGet();
+        try {
+            return task.call();
+        } finally {
+            activeCount.decrementAndGet();
+            dbPermits.release();
+        }
+    }
+
     public boolean isQueueFull() {
+        if (admissionPermits != null) {
+            return admissionPermits.availablePermits() == 0;
+        }
         return requestQueue.remainingCapacity() == 0;
     }
-    
+
     public int getQueueSize() {
+        if (admissionPermits != null) {
+            return dbPermits.getQueueLength();
+        }
         return requestQueue.size();
     }
-    
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public QueueStats getStats() {
+        QueueStats stats = new QueueStats();
+        stats.mode = mode.name();
+        stats.maxThreads = maxThreads;
+        stats.queueCapacity = queueCapacity;
+        stats.queueSize = getQueueSize();
+        stats.activeCount = activeCount.get();
+        stats.availableDbPermits = dbPermits.availablePermits();
+        stats.submittedCount = submittedCount.get();
+        stats.completedCount = completedCount.get();
+        stats.rejectedCount = rejectedCount.get();
+        return stats;
+    }
+
     public void shutdown() {
         executor.shutdown();
     }
+
+    /**
+     * Point-in-time snapshot of request queue statistics
+     */
+    public static class QueueStats {
+        private String mode;
+        private int maxThreads;
+        private int queueCapacity;
+        private int queueSize;
+        private int activeCount;
+        private int availableDbPermits;
+        private long submittedCount;
+        private long completedCount;
+        private long rejectedCount;
+
+        // Getters
+        public String getMode() { return mode; }
+        public int getMaxThreads() { return maxThreads; }
+        public int getQueueCapacity() { return queueCapacity; }
+        public int getQueueSize() { return queueSize; }
+        public int getActiveCount() { return activeCount; }
+        public int getAvailableDbPermits() { return availableDbPermits; }
+        public long getSubmittedCount() { return submittedCount; }
+        public long getCompletedCount() { return completedCount; }
+        public long getRejectedCount() { return rejectedCount; }
+    }
 }
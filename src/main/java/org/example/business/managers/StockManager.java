@@ -58,33 +58,18 @@ public class StockManager {
         return stockGateway.hasEnoughStock(itemId, requiredQuantity);
     }
 
+    /**
+     * Take quantity off the item's batches in FIFO order, in one transaction
+     */
     public void reduceStock(int itemId, int quantity) throws SQLException, ClassNotFoundException {
-        List<StockDTO> stockBatches = stockGateway.findByItemId(itemId);
+        List<StockGateway.BatchConsumption> consumptions = stockGateway.consumeFifo(itemId, quantity);
         
-        if (stockBatches.isEmpty()) {
-            throw new IllegalStateException("No stock available for item ID: " + itemId);
+        if (consumptions.isEmpty() && quantity > 0) {
+            throw new IllegalStateException("Insufficient stock for item ID: " + itemId + ". Required: " + quantity);
         }
 
-        int remainingToReduce = quantity;
-        
-        // Use FIFO - reduce from oldest stock first
-        for (StockDTO stock : stockBatches) {
-            if (remainingToReduce <= 0) break;
-            
-            int currentQuantity = stock.getQuantity();
-            if (currentQuantity > 0) {
-                int toReduce = Math.min(remainingToReduce, currentQuantity);
-                int newQuantity = currentQuantity - toReduce;
-                
-                stockGateway.updateQuantity(stock.getId(), newQuantity);
-                remainingToReduce -= toReduce;
-                
-                System.out.println("Reduced " + toReduce + " units from stock ID: " + stock.getId());
-            }
-        }
-
-        if (remainingToReduce > 0) {
-            throw new IllegalStateException("Insufficient stock. Could not reduce " + remainingToReduce + " units");
+        for (StockGateway.BatchConsumption consumption : consumptions) {
+            System.out.println("Reduced " + consumption.getQuantity() + " units from stock ID: " + consumption.getStockId());
         }
     }
 
@@ -0,0 +1,294 @@
+package org.example.business.managers;
+
+import org.example.core.config.SystemConfig;
+import org.example.persistence.gateways.ShelfLedger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Soft holds on WEBSITE shelf stock for items sitting in online carts.
+ *
+ * A hold sets aside units for one cart so another customer cannot add the same last
+ * units; available-to-sell is the ledger quantity minus all active holds, computed in
+ * memory. Holds are not written to the database: the shelf is only decremented when a
+ * hold is committed at order time.
+ *
+ * Each hold lives for SystemConfig.RESERVATION_TTL_MS from its last change. Expiry is
+ * handled by a hashed timer wheel: a hold is filed in the slot for its deadline tick and
+ * the background thread only looks at one slot per tick, so the cost of expiring holds
+ * does not grow with the number of carts.
+ */
+public class StockReservationManager {
+    private static StockReservationManager instance;
+    private static final Object lock = new Object();
+
+    private final ShelfLedger shelfLedger;
+    private final long tickMillis;
+    private final long ttlTicks;
+
+    // Active holds by owner and item, and the units held per item across all owners
+    private final ConcurrentHashMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> heldByItem = new ConcurrentHashMap<>();
+
+    // Timer wheel; a hold sits in the slot for its deadline tick modulo the wheel size
+    private final List<Set<Hold>> wheel;
+    private final AtomicLong currentTick = new AtomicLong();
+
+    private ScheduledExecutorService executor;
+
+    // Statistics
+    private final AtomicLong holdCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong committedCount = new AtomicLong();
+    private final AtomicLong releasedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    private StockReservationManager() {
+        this(ShelfLedger.getInstance(), SystemConfig.RESERVATION_TTL_MS, SystemConfig.RESERVATION_TICK_MS,
+                SystemConfig.RESERVATION_WHEEL_SIZE);
+        start();
+    }
+
+    // Visible for tests
+    StockReservationManager(ShelfLedger shelfLedger, long ttlMillis, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Reservation tick and wheel size must be positive");
+        }
+        this.shelfLedger = shelfLedger;
+        this.tickMillis = tickMillis;
+        this.ttlTicks = Math.max(1, (ttlMillis + tickMillis - 1) / tickMillis);
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    public static StockReservationManager getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new StockReservationManager();
+                }
+            }
+        }
+        return instance;
+    }
+
+    private synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "syos-reservations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Hold quantity units of an item for owner, replacing any hold it already has and
+     * restarting its expiry. Fails, leaving the old hold in place, if the shelf minus
+     * everyone else's holds cannot cover it. A quantity of zero or less releases the hold.
+     */
+    public boolean hold(String owner, int itemId, int quantity) throws SQLException, ClassNotFoundException {
+        if (quantity <= 0) {
+            release(owner, itemId);
+            return true;
+        }
+        // Read before taking the item's lock so a ledger load never runs inside it
+        int shelfQuantity = shelfLedger.getQuantity(itemId, SystemConfig.STORE_TYPE_WEBSITE);
+        String key = key(owner, itemId);
+        boolean[] granted = {false};
+
+        heldByItem.compute(itemId, (id, held) -> {
+            int totalHeld = held == null ? 0 : held;
+            Hold existing = holds.get(key);
+            int ownHeld = existing == null ? 0 : existing.quantity;
+            if (shelfQuantity - (totalHeld - ownHeld) < quantity) {
+                return held;
+            }
+            Hold hold = new Hold(owner, itemId, quantity, currentTick.get() + ttlTicks);
+            if (existing != null) {
+                slotFor(existing.deadlineTick).remove(existing);
+            }
+            holds.put(key, hold);
+            slotFor(hold.deadlineTick).add(hold);
+            granted[0] = true;
+            return totalHeld - ownHeld + quantity;
+        });
+
+        if (granted[0]) {
+            holdCount.incrementAndGet();
+        } else {
+            rejectedCount.incrementAndGet();
+        }
+        return granted[0];
+    }
+
+    /**
+     * Take the units off the WEBSITE shelf and drop the hold. The decrement is attempted
+     * even if the hold has already expired, and fails only if the shelf cannot cover it.
+     */
+    public boolean commit(String owner, int itemId, int quantity) throws SQLException, ClassNotFoundException {
+        boolean decremented = shelfLedger.decrement(itemId, SystemConfig.STORE_TYPE_WEBSITE, quantity);
+        if (removeHold(key(owner, itemId), null) != null) {
+            committedCount.incrementAndGet();
+        }
+        return decremented;
+    }
+
+    /**
+     * Drop every hold of an owner whose order already took the units off the shelf in
+     * the caller's own transaction
+     */
+    public void completeAll(String owner) {
+        for (Hold hold : holds.values()) {
+            if (hold.owner.equals(owner) && removeHold(key(owner, hold.itemId), null) != null) {
+                committedCount.incrementAndGet();
+            }
+        }
+    }
+
+    public void release(String owner, int itemId) {
+        if (removeHold(key(owner, itemId), null) != null) {
+            releasedCount.incrementAndGet();
+        }
+    }
+
+    // Drop every hold owned by a cart, e.g. when it is abandoned
+    public void releaseAll(String owner) {
+        for (Hold hold : holds.values()) {
+            if (hold.owner.equals(owner)) {
+                release(owner, hold.itemId);
+            }
+        }
+    }
+
+    public int getHeldQuantity(String owner, int itemId) {
+        Hold hold = holds.get(key(owner, itemId));
+        return hold == null ? 0 : hold.quantity;
+    }
+
+    // Units held by all carts for an item
+    public int getHeldQuantity(int itemId) {
+        return heldByItem.getOrDefault(itemId, 0);
+    }
+
+    /**
+     * WEBSITE shelf quantity less everything held by carts
+     */
+    public int getAvailableToSell(int itemId) throws SQLException, ClassNotFoundException {
+        int shelfQuantity = shelfLedger.getQuantity(itemId, SystemConfig.STORE_TYPE_WEBSITE);
+        return Math.max(0, shelfQuantity - getHeldQuantity(itemId));
+    }
+
+    // Visible for tests
+    void tick() {
+        long tick = currentTick.incrementAndGet();
+        Set<Hold> slot = slotFor(tick);
+        for (Hold hold : slot) {
+            // Holds further out than one turn of the wheel share the slot; leave them
+            if (hold.deadlineTick <= tick && removeHold(key(hold.owner, hold.itemId), hold) != null) {
+                expiredCount.incrementAndGet();
+            }
+        }
+    }
+
+    // Remove the hold under key, or only if it is still the given hold
+    private Hold removeHold(String key, Hold expected) {
+        Hold current = holds.get(key);
+        if (current == null || (expected != null && current != expected)) {
+            return null;
+        }
+        Hold[] removed = {null};
+        heldByItem.computeIfPresent(current.itemId, (id, held) -> {
+            if (holds.remove(key, current)) {
+                slotFor(current.deadlineTick).remove(current);
+                removed[0] = current;
+                int remaining = held - current.quantity;
+                return remaining > 0 ? remaining : null;
+            }
+            return held;
+        });
+        return removed[0];
+    }
+
+    private Set<Hold> slotFor(long tick) {
+        return wheel.get((int) (tick % wheel.size()));
+    }
+
+    private static String key(String owner, int itemId) {
+        return owner + ":" + itemId;
+    }
+
+    public ReservationStats getStats() {
+        int heldUnits = 0;
+        for (int held : heldByItem.values()) {
+            heldUnits += held;
+        }
+        return new ReservationStats(holds.size(), heldUnits, holdCount.get(), rejectedCount.get(),
+                committedCount.get(), releasedCount.get(), expiredCount.get());
+    }
+
+    // One cart's hold on one item
+    private static final class Hold {
+        private final String owner;
+        private final int itemId;
+        private final int quantity;
+        private final long deadlineTick;
+
+        private Hold(String owner, int itemId, int quantity, long deadlineTick) {
+            this.owner = owner;
+            this.itemId = itemId;
+            this.quantity = quantity;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    public static class ReservationStats {
+        private final int activeHolds;
+        private final int heldUnits;
+        private final long holdCount;
+        private final long rejectedCount;
+        private final long committedCount;
+        private final long releasedCount;
+        private final long expiredCount;
+
+        public ReservationStats(int activeHolds, int heldUnits, long holdCount, long rejectedCount,
+                                long committedCount, long releasedCount, long expiredCount) {
+            this.activeHolds = activeHolds;
+            this.heldUnits = heldUnits;
+            this.holdCount = holdCount;
+            this.rejectedCount = rejectedCount;
+            this.committedCount = committedCount;
+            this.releasedCount = releasedCount;
+            this.expiredCount = expiredCount;
+        }
+
+        // Getters
+        public int getActiveHolds() { return activeHolds; }
+        public int getHeldUnits() { return heldUnits; }
+        public long getHoldCount() { return holdCount; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getCommittedCount() { return committedCount; }
+        public long getReleasedCount() { return releasedCount; }
+        public long getExpiredCount() { return expiredCount; }
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.business.managers;
 
+import org.example.core.config.SystemConfig;
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ShelfLedger;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -74,6 +76,7 @@ public class WebsiteInventoryManager {
                         insertStatement.addBatch();
                     }
                     insertStatement.executeBatch();
+                    ShelfLedger.getInstance().invalidateAll();
                     System.out.println("Website inventory initialized successfully");
                 }
             } finally {
@@ -87,21 +90,7 @@ public class WebsiteInventoryManager {
     // Check if enough stock is available on website
     public boolean hasEnoughStock(int itemId, int quantity) {
         try {
-            Connection connection = dbConnection.connect();
-            String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = 'WEBSITE'";
-            
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setInt(1, itemId);
-                try (ResultSet resultSet = statement.executeQuery()) {
-                    if (resultSet.next()) {
-                        int currentStock = resultSet.getInt("quantity");
-                        return currentStock >= quantity;
-                    }
-                    return false; // Item not found in website inventory
-                }
-            } finally {
-                dbConnection.closeConnection(connection);
-            }
+            return ShelfLedger.getInstance().hasAvailable(itemId, SystemConfig.STORE_TYPE_WEBSITE, quantity);
         } catch (Exception e) {
             System.err.println("Error checking website stock: " + e.getMessage());
             return false;
@@ -111,40 +100,14 @@ public class WebsiteInventoryManager {
     // Reduce website stock after purchase
     public boolean reduceStock(int itemId, int quantity) {
         try {
-            Connection connection = dbConnection.connect();
-            
-            // First check current stock
-            String checkQuery = "SELECT quantity FROM shelf WHERE item_id = ? AND type = 'WEBSITE'";
-            try (PreparedStatement checkStatement = connection.prepareStatement(checkQuery)) {
-                checkStatement.setInt(1, itemId);
-                try (ResultSet resultSet = checkStatement.executeQuery()) {
-                    if (resultSet.next()) {
-                        int currentStock = resultSet.getInt("quantity");
-                        if (currentStock >= quantity) {
-                            // Update stock
-                            String updateQuery = "UPDATE shelf SET quantity = quantity - ? WHERE item_id = ? AND type = 'WEBSITE'";
-                            try (PreparedStatement updateStatement = connection.prepareStatement(updateQuery)) {
-                                updateStatement.setInt(1, quantity);
-                                updateStatement.setInt(2, itemId);
-                                int rowsAffected = updateStatement.executeUpdate();
-                                
-                                if (rowsAffected > 0) {
-                                    System.out.println("Website inventory reduced for item " + itemId + ": " + quantity + " units");
-                                    return true;
-                                }
-                            }
-                        } else {
-                            System.err.println("Insufficient website stock for item " + itemId + ": requested " + quantity + ", available " + currentStock);
-                            return false;
-                        }
-                    } else {
-                        System.err.println("Item " + itemId + " not found in website inventory");
-                        return false;
-                    }
-                }
-            } finally {
-                dbConnection.closeConnection(connection);
+            ShelfLedger shelfLedger = ShelfLedger.getInstance();
+            if (shelfLedger.decrement(itemId, SystemConfig.STORE_TYPE_WEBSITE, quantity)) {
+                System.out.println("Website inventory reduced for item " + itemId + ": " + quantity + " units");
+                return true;
             }
+            System.err.println("Insufficient website stock for item " + itemId + ": requested " + quantity
+                    + ", available " + shelfLedger.getQuantity(itemId, SystemConfig.STORE_TYPE_WEBSITE));
+            return false;
         } catch (Exception e) {
             System.err.println("Error reducing website stock: " + e.getMessage());
         }
@@ -165,6 +128,7 @@ public class WebsiteInventoryManager {
                 statement.setInt(1, itemId);
                 statement.setInt(2, quantity);
                 int rowsAffected = statement.executeUpdate();
+                ShelfLedger.getInstance().invalidate(itemId, SystemConfig.STORE_TYPE_WEBSITE);
                 
                 if (rowsAffected > 0) {
                     System.out.println("Website inventory increased for item " + itemId + ": " + quantity + " units");
@@ -180,26 +144,23 @@ public class WebsiteInventoryManager {
     // Get current website stock for an item
     public int getWebsiteStock(int itemId) {
         try {
-            Connection connection = dbConnection.connect();
-            String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = 'WEBSITE'";
-            
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setInt(1, itemId);
-                try (ResultSet resultSet = statement.executeQuery()) {
-                    if (resultSet.next()) {
-                        return resultSet.getInt("quantity");
-                    }
-                    return 0; // Item not found
-                }
-            } finally {
-                dbConnection.closeConnection(connection);
-            }
+            return ShelfLedger.getInstance().getQuantity(itemId, SystemConfig.STORE_TYPE_WEBSITE);
         } catch (Exception e) {
             System.err.println("Error getting website stock: " + e.getMessage());
             return 0;
         }
     }
 
+    // Website stock not held by online carts
+    public int getAvailableToSell(int itemId) {
+        try {
+            return StockReservationManager.getInstance().getAvailableToSell(itemId);
+        } catch (Exception e) {
+            System.err.println("Error getting available website stock: " + e.getMessage());
+            return 0;
+        }
+    }
+
     // Get all website inventory
     public Map<Integer, Integer> getAllWebsiteInventory() {
         Map<Integer, Integer> inventory = new HashMap<>();
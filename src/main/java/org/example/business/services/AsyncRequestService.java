@@ -11,12 +11,13 @@ public class AsyncRequestService {
         this.queueManager = RequestQueueManager.getInstance();
     }
     
+    // Runs on the request queue rather than the common pool, which blocking JDBC calls would starve
     public <T> CompletableFuture<T> processAsync(Supplier<T> task) {
-        return CompletableFuture.supplyAsync(task::get);
+        return queueManager.submit(task::get);
     }
     
-    public void processRequest(Runnable task) {
-        queueManager.submitRequest(task);
+    public boolean processRequest(Runnable task) {
+        return queueManager.submitRequest(task);
     }
     
     public boolean canAcceptRequest() {
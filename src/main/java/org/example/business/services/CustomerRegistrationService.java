@@ -2,6 +2,7 @@ package org.example.business.services;
 
 import org.example.persistence.models.Customer;
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CustomerDirectory;
 
 import java.sql.*;
 
@@ -27,6 +28,9 @@ public class CustomerRegistrationService {
                 try (ResultSet rs = pstmt.getGeneratedKeys()) {
                     if (rs.next()) {
                         int customerId = rs.getInt(1);
+                        Customer customer = new Customer(name, contactNumber);
+                        customer.setId(customerId);
+                        CustomerDirectory.getInstance().registered(customer, false);
                         System.out.println("Customer registered successfully. ID: " + customerId);
                         return customerId;
                     }
@@ -1,8 +1,11 @@
 package org.example.business.services;
 
 import org.example.persistence.gateways.ItemGateway;
-import org.example.persistence.models.StockBatch;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.persistence.gateways.StockGateway;
 import org.example.shared.dto.ItemDTO;
+import org.example.shared.dto.StockDTO;
 import org.example.persistence.database.DatabaseConnection;
 
 import java.sql.*;
@@ -16,9 +19,11 @@ public class DualInventoryService {
     private static DualInventoryService instance;
     private static final Object lock = new Object();
     
-    private final StockBatchService stockBatchService;
+    private final StockGateway stockGateway;
+    private final StockBatchIndex stockBatchIndex;
     private final ItemGateway itemGateway;
     private final DatabaseConnection dbConnection;
+    private final ShelfLedger shelfLedger;
     
     public enum ShelfType {
         STORE, WEBSITE
@@ -50,10 +55,52 @@ public class DualInventoryService {
         public void setLowStockShelf(ShelfType lowStockShelf) { this.lowStockShelf = lowStockShelf; }
     }
     
+    /**
+     * One item to move from the warehouse to a shelf, and how it went
+     */
+    public static class RestockLine {
+        private final String itemCode;
+        private final int quantity;
+        private final ShelfType shelfType;
+        private int itemId;
+        private boolean success;
+        private String message;
+        private List<StockGateway.BatchConsumption> consumptions = new ArrayList<>();
+        
+        public RestockLine(String itemCode, int quantity, ShelfType shelfType) {
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+            this.shelfType = shelfType;
+        }
+        
+        private void fail(String message) {
+            this.success = false;
+            this.message = message;
+            this.consumptions = new ArrayList<>();
+        }
+        
+        // Getters
+        public String getItemCode() { return itemCode; }
+        public int getQuantity() { return quantity; }
+        public ShelfType getShelfType() { return shelfType; }
+        public boolean isSuccess() { return success; }
+        public String getMessage() { return message; }
+        public List<StockGateway.BatchConsumption> getConsumptions() { return consumptions; }
+    }
+    
     private DualInventoryService() {
-        this.stockBatchService = StockBatchService.getInstance();
-        this.itemGateway = ItemGateway.getInstance();
-        this.dbConnection = DatabaseConnection.getInstance();
+        this(StockGateway.getInstance(), StockBatchIndex.getInstance(), ItemGateway.getInstance(),
+                DatabaseConnection.getInstance(), ShelfLedger.getInstance());
+    }
+    
+    // Visible for tests
+    DualInventoryService(StockGateway stockGateway, StockBatchIndex stockBatchIndex, ItemGateway itemGateway,
+                         DatabaseConnection dbConnection, ShelfLedger shelfLedger) {
+        this.stockGateway = stockGateway;
+        this.stockBatchIndex = stockBatchIndex;
+        this.itemGateway = itemGateway;
+        this.dbConnection = dbConnection;
+        this.shelfLedger = shelfLedger;
     }
     
     public static DualInventoryService getInstance() {
@@ -71,87 +118,180 @@ public class DualInventoryService {
      * Stock items to shelf using FIFO batch selection
      */
     public boolean stockToShelf(String itemCode, int quantity, ShelfType shelfType) {
-        try {
-            // Get best batches using FIFO logic
-            List<StockBatch> selectedBatches = stockBatchService.getAvailableBatchesForSale(itemCode, quantity);
-            
-            int totalAvailable = selectedBatches.stream()
-                    .mapToInt(StockBatch::getCurrentQuantity)
-                    .sum();
-            
-            if (totalAvailable < quantity) {
-                throw new IllegalArgumentException("Insufficient stock in warehouse. Available: " + totalAvailable + ", Required: " + quantity);
+        RestockLine line = new RestockLine(itemCode, quantity, shelfType);
+        stockToShelves(List.of(line));
+        return line.isSuccess();
+    }
+    
+    /**
+     * Stock many items to their shelves in one transaction, e.g. for opening or nightly
+     * replenishment. All items' batches are locked with one query and every line is planned
+     * against them in memory, FIFO; a line that cannot be filled is marked failed and
+     * skipped without affecting the others. Shelf ids are resolved once for all lines, and
+     * the stock decrements, shelf updates and shelf_stock movements are each sent as one
+     * JDBC batch. Results are recorded on the lines themselves.
+     */
+    public List<RestockLine> stockToShelves(List<RestockLine> lines) {
+        List<RestockLine> pending = new ArrayList<>();
+        for (RestockLine line : lines) {
+            try {
+                ItemDTO itemDTO = itemGateway.findByCode(line.getItemCode());
+                if (itemDTO == null) {
+                    line.fail("Item not found: " + line.getItemCode());
+                } else if (line.getQuantity() <= 0) {
+                    line.fail("Quantity must be positive");
+                } else {
+                    line.itemId = itemDTO.getId();
+                    pending.add(line);
+                }
+            } catch (Exception e) {
+                line.fail(e.getMessage());
             }
-            
+        }
+        if (pending.isEmpty()) {
+            return lines;
+        }
+        // Lines are applied in item order so concurrent restocks lock shelf rows in the same order
+        pending.sort(Comparator.comparingInt((RestockLine line) -> line.itemId)
+                .thenComparing(line -> line.getShelfType().name()));
+        
+        List<RestockLine> filled = new ArrayList<>();
+        try {
             Connection connection = dbConnection.connect();
             try {
                 connection.setAutoCommit(false);
                 
-                ItemDTO itemDTO = itemGateway.findByCode(itemCode);
-                if (itemDTO == null) {
-                    throw new IllegalArgumentException("Item not found: " + itemCode);
+                // Lock every item's batches with one query and plan all lines against them in memory
+                Set<Integer> itemIds = new TreeSet<>();
+                for (RestockLine line : pending) {
+                    itemIds.add(line.itemId);
                 }
+                Map<Integer, List<StockDTO>> batchesByItem = stockGateway.lockFifoBatches(connection, itemIds);
                 
-                // Update shelf inventory
-                String updateShelfQuery = """
-                    INSERT INTO shelf (item_id, quantity, type) VALUES (?, ?, ?)
-                    ON DUPLICATE KEY UPDATE quantity = quantity + ?
-                """;
-                PreparedStatement shelfStmt = connection.prepareStatement(updateShelfQuery);
-                shelfStmt.setInt(1, itemDTO.getId());
-                shelfStmt.setInt(2, quantity);
-                shelfStmt.setString(3, shelfType.name());
-                shelfStmt.setInt(4, quantity);
-                shelfStmt.executeUpdate();
-                
-                // Record shelf stock movements for tracking
-                for (StockBatch batch : selectedBatches) {
-                    int batchQuantityUsed = batch.getCurrentQuantity();
-                    
-                    // Get shelf ID
-                    String getShelfIdQuery = "SELECT id FROM shelf WHERE item_id = ? AND type = ?";
-                    PreparedStatement getShelfStmt = connection.prepareStatement(getShelfIdQuery);
-                    getShelfStmt.setInt(1, itemDTO.getId());
-                    getShelfStmt.setString(2, shelfType.name());
-                    ResultSet shelfRs = getShelfStmt.executeQuery();
-                    
-                    if (shelfRs.next()) {
-                        int shelfId = shelfRs.getInt("id");
-                        
-                        // Record movement in shelf_stock tracking table
-                        String trackingQuery = "INSERT INTO shelf_stock (stock_id, shelf_id, quantity_moved) VALUES (?, ?, ?)";
-                        PreparedStatement trackStmt = connection.prepareStatement(trackingQuery);
-                        trackStmt.setInt(1, batch.getId());
-                        trackStmt.setInt(2, shelfId);
-                        trackStmt.setInt(3, batchQuantityUsed);
-                        trackStmt.executeUpdate();
-                        trackStmt.close();
+                List<StockGateway.BatchConsumption> allConsumptions = new ArrayList<>();
+                for (RestockLine line : pending) {
+                    List<StockDTO> batches = batchesByItem.getOrDefault(line.itemId, new ArrayList<>());
+                    List<StockGateway.BatchConsumption> consumptions = StockGateway.planFifo(batches, line.getQuantity());
+                    if (consumptions.isEmpty()) {
+                        int available = batches.stream().mapToInt(StockDTO::getQuantity).sum();
+                        line.fail("Insufficient stock in warehouse. Available: " + available
+                                + ", Required: " + line.getQuantity());
+                    } else {
+                        line.consumptions = consumptions;
+                        allConsumptions.addAll(consumptions);
+                        filled.add(line);
                     }
-                    getShelfStmt.close();
                 }
                 
-                // Reduce stock quantities using existing service
-                boolean stockReduced = stockBatchService.processSale(itemCode, quantity);
-                if (!stockReduced) {
-                    connection.rollback();
-                    return false;
+                if (!filled.isEmpty()) {
+                    if (!stockGateway.applyConsumptions(connection, allConsumptions)) {
+                        throw new SQLException("Stock changed while it was being restocked");
+                    }
+
+                    Map<String, Integer> shelfIds = resolveShelfIds(connection, filled);
+                    
+                    try (PreparedStatement shelfStmt = connection.prepareStatement(
+                                 "UPDATE shelf SET quantity = quantity + ? WHERE id = ?");
+                         PreparedStatement trackStmt = connection.prepareStatement(
+                                 "INSERT INTO shelf_stock (stock_id, shelf_id, quantity_moved) VALUES (?, ?, ?)")) {
+                        for (RestockLine line : filled) {
+                            int shelfId = shelfIds.get(shelfKey(line.itemId, line.getShelfType()));
+                            shelfStmt.setInt(1, line.getQuantity());
+                            shelfStmt.setInt(2, shelfId);
+                            shelfStmt.addBatch();
+                            
+                            // Record movement in shelf_stock tracking table
+                            for (StockGateway.BatchConsumption consumption : line.consumptions) {
+                                trackStmt.setInt(1, consumption.getStockId());
+                                trackStmt.setInt(2, shelfId);
+                                trackStmt.setInt(3, consumption.getQuantity());
+                                trackStmt.addBatch();
+                            }
+                        }
+                        shelfStmt.executeBatch();
+                        trackStmt.executeBatch();
+                    }
                 }
                 
                 connection.commit();
-                shelfStmt.close();
-                return true;
+                for (RestockLine line : filled) {
+                    line.success = true;
+                }
                 
             } catch (Exception e) {
                 connection.rollback();
-                return false;
+                for (RestockLine line : filled) {
+                    line.fail("Restock failed: " + e.getMessage());
+                }
+                return lines;
             } finally {
                 connection.setAutoCommit(true);
                 dbConnection.closeConnection(connection);
             }
             
         } catch (Exception e) {
-            return false;
+            for (RestockLine line : pending) {
+                line.fail("Restock failed: " + e.getMessage());
+            }
+            return lines;
+        }
+        
+        for (RestockLine line : filled) {
+            shelfLedger.invalidate(line.itemId, line.getShelfType().name());
+            stockBatchIndex.invalidateItem(line.itemId);
+        }
+        return lines;
+    }
+    
+    /**
+     * Shelf row id per item and shelf type, creating empty shelf rows that do not exist yet
+     */
+    private Map<String, Integer> resolveShelfIds(Connection connection, List<RestockLine> lines) throws SQLException {
+        Set<Integer> itemIds = new TreeSet<>();
+        for (RestockLine line : lines) {
+            itemIds.add(line.itemId);
+        }
+        
+        Map<String, Integer> shelfIds = loadShelfIds(connection, itemIds);
+        boolean created = false;
+        try (PreparedStatement insertStmt = connection.prepareStatement(
+                "INSERT IGNORE INTO shelf (item_id, quantity, type) VALUES (?, 0, ?)")) {
+            for (RestockLine line : lines) {
+                if (!shelfIds.containsKey(shelfKey(line.itemId, line.getShelfType()))) {
+                    insertStmt.setInt(1, line.itemId);
+                    insertStmt.setString(2, line.getShelfType().name());
+                    insertStmt.addBatch();
+                    created = true;
+                }
+            }
+            if (created) {
+                insertStmt.executeBatch();
+            }
+        }
+        return created ? loadShelfIds(connection, itemIds) : shelfIds;
+    }
+    
+    private Map<String, Integer> loadShelfIds(Connection connection, Set<Integer> itemIds) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(itemIds.size(), "?"));
+        String query = "SELECT id, item_id, type FROM shelf WHERE item_id IN (" + placeholders + ")";
+        Map<String, Integer> shelfIds = new HashMap<>();
+        
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            int index = 1;
+            for (int itemId : itemIds) {
+                stmt.setInt(index++, itemId);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    shelfIds.put(shelfKey(rs.getInt("item_id"), ShelfType.valueOf(rs.getString("type"))), rs.getInt("id"));
+                }
+            }
         }
+        return shelfIds;
+    }
+    
+    private static String shelfKey(int itemId, ShelfType shelfType) {
+        return itemId + ":" + shelfType.name();
     }
     
     /**
@@ -208,6 +348,7 @@ public class DualInventoryService {
                 checkStmt.close();
                 reduceStmt.close();
                 addStmt.close();
+                shelfLedger.invalidateItem(itemDTO.getId());
                 return true;
                 
             } catch (Exception e) {
@@ -233,21 +374,7 @@ public class DualInventoryService {
                 return 0;
             }
             
-            Connection connection = dbConnection.connect();
-            String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = ?";
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, itemDTO.getId());
-            stmt.setString(2, shelfType.name());
-            ResultSet rs = stmt.executeQuery();
-            
-            int quantity = 0;
-            if (rs.next()) {
-                quantity = rs.getInt("quantity");
-            }
-            
-            stmt.close();
-            dbConnection.closeConnection(connection);
-            return quantity;
+            return shelfLedger.getQuantity(itemDTO.getId(), shelfType.name());
             
         } catch (Exception e) {
             return 0;
@@ -259,28 +386,13 @@ public class DualInventoryService {
      */
     public boolean processSaleFromShelf(String itemCode, int quantity, ShelfType shelfType) {
         try {
-            int availableQuantity = getShelfQuantity(itemCode, shelfType);
-            if (availableQuantity < quantity) {
-                return false;
-            }
-            
             ItemDTO itemDTO = itemGateway.findByCode(itemCode);
             if (itemDTO == null) {
                 return false;
             }
             
-            Connection connection = dbConnection.connect();
-            String updateQuery = "UPDATE shelf SET quantity = quantity - ? WHERE item_id = ? AND type = ?";
-            PreparedStatement stmt = connection.prepareStatement(updateQuery);
-            stmt.setInt(1, quantity);
-            stmt.setInt(2, itemDTO.getId());
-            stmt.setString(3, shelfType.name());
-            
-            int rowsUpdated = stmt.executeUpdate();
-            
-            stmt.close();
-            dbConnection.closeConnection(connection);
-            return rowsUpdated > 0;
+            // Availability check and decrement happen atomically in the ledger
+            return shelfLedger.decrement(itemDTO.getId(), shelfType.name(), quantity);
             
         } catch (Exception e) {
             return false;
@@ -291,8 +403,7 @@ public class DualInventoryService {
      * Get comprehensive dual inventory overview
      */
     public List<ShelfInventory> getDualInventoryOverview() {
-        try {
-            Connection connection = dbConnection.connect();
+        try (Connection connection = dbConnection.connect()) {
             String query = """
                 SELECT 
                     i.id as item_id,
@@ -331,7 +442,6 @@ public class DualInventoryService {
             }
             
             stmt.close();
-            dbConnection.closeConnection(connection);
             return inventoryList;
             
         } catch (Exception e) {
@@ -343,8 +453,7 @@ public class DualInventoryService {
      * Get low stock alerts for specific shelf type
      */
     public List<ShelfInventory> getLowStockAlerts(ShelfType shelfType, int minimumQuantity) {
-        try {
-            Connection connection = dbConnection.connect();
+        try (Connection connection = dbConnection.connect()) {
             String query = """
                 SELECT 
                     i.id as item_id,
@@ -383,7 +492,6 @@ public class DualInventoryService {
             }
             
             stmt.close();
-            dbConnection.closeConnection(connection);
             return lowStockItems;
             
         } catch (Exception e) {
@@ -408,7 +516,6 @@ public class DualInventoryService {
                 return new ArrayList<>();
             }
             
-            Connection connection = dbConnection.connect();
             String query = """
                 SELECT 
                     ss.quantity_moved,
@@ -424,27 +531,27 @@ public class DualInventoryService {
                 LIMIT ?
             """;
             
-            PreparedStatement stmt = connection.prepareStatement(query);
-            stmt.setInt(1, itemDTO.getId());
-            stmt.setInt(2, limit);
-            ResultSet rs = stmt.executeQuery();
+            try (Connection connection = dbConnection.connect();
+                 PreparedStatement stmt = connection.prepareStatement(query)) {
+                stmt.setInt(1, itemDTO.getId());
+                stmt.setInt(2, limit);
+                ResultSet rs = stmt.executeQuery();
             
-            List<Map<String, Object>> movements = new ArrayList<>();
+                List<Map<String, Object>> movements = new ArrayList<>();
             
-            while (rs.next()) {
-                Map<String, Object> movement = new HashMap<>();
-                movement.put("quantityMoved", rs.getInt("quantity_moved"));
-                movement.put("moveDate", rs.getTimestamp("move_date"));
-                movement.put("shelfType", rs.getString("shelf_type"));
-                movement.put("batchPurchaseDate", rs.getDate("date_of_purchase"));
-                movement.put("batchExpiryDate", rs.getDate("date_of_expiry"));
-                movements.add(movement);
+                while (rs.next()) {
+                    Map<String, Object> movement = new HashMap<>();
+                    movement.put("quantityMoved", rs.getInt("quantity_moved"));
+                    movement.put("moveDate", rs.getTimestamp("move_date"));
+                    movement.put("shelfType", rs.getString("shelf_type"));
+                    movement.put("batchPurchaseDate", rs.getDate("date_of_purchase"));
+                    movement.put("batchExpiryDate", rs.getDate("date_of_expiry"));
+                    movements.add(movement);
+                }
+                
+                return movements;
             }
             
-            stmt.close();
-            dbConnection.closeConnection(connection);
-            return movements;
-            
         } catch (Exception e) {
             return new ArrayList<>();
         }
@@ -2,6 +2,7 @@ package org.example.business.services;
 
 import org.example.persistence.gateways.StockGateway;
 import org.example.persistence.gateways.ItemGateway;
+import org.example.persistence.gateways.StockBatchIndex;
 import org.example.persistence.models.StockBatch;
 import org.example.persistence.models.Item;
 import org.example.shared.dto.StockDTO;
@@ -19,10 +20,17 @@ public class StockBatchService {
     
     private final StockGateway stockGateway;
     private final ItemGateway itemGateway;
+    private final StockBatchIndex stockBatchIndex;
     
     private StockBatchService() {
-        this.stockGateway = StockGateway.getInstance();
-        this.itemGateway = ItemGateway.getInstance();
+        this(StockGateway.getInstance(), ItemGateway.getInstance(), StockBatchIndex.getInstance());
+    }
+    
+    // Visible for tests
+    StockBatchService(StockGateway stockGateway, ItemGateway itemGateway, StockBatchIndex stockBatchIndex) {
+        this.stockGateway = stockGateway;
+        this.itemGateway = itemGateway;
+        this.stockBatchIndex = stockBatchIndex;
     }
     
     public static StockBatchService getInstance() {
@@ -64,7 +72,8 @@ public class StockBatchService {
     
     /**
      * Get items for sale using FIFO and expiry-based selection
-     * Automatically selects best batches based on expiry dates
+     * Batches come from StockBatchIndex, already ordered near-expiry first, then by
+     * expiry and purchase date
      */
     public List<StockBatch> getAvailableBatchesForSale(String itemCode, int requiredQuantity) {
         try {
@@ -73,50 +82,10 @@ public class StockBatchService {
                 return new ArrayList<>();
             }
             
-            List<StockDTO> stockDTOs = stockGateway.getAllByItemId(itemDTO.getId());
-            List<StockBatch> batches = stockDTOs.stream()
-                    .map(this::convertToStockBatch)
-                    .filter(batch -> batch.isAvailable() && !batch.isExpired())
-                    .collect(Collectors.toList());
-            
-            // Sort by FIFO strategy: earliest expiry first, then earliest purchase
-            batches.sort((a, b) -> {
-                // First priority: near expiry items (within 7 days)
-                boolean aIsNearExpiry = a.isNearExpiry();
-                boolean bIsNearExpiry = b.isNearExpiry();
-                
-                if (aIsNearExpiry && !bIsNearExpiry) return -1;
-                if (!aIsNearExpiry && bIsNearExpiry) return 1;
-                
-                // Second priority: expiry date (earliest first)
-                int expiryComparison = a.getExpiryDate().compareTo(b.getExpiryDate());
-                if (expiryComparison != 0) return expiryComparison;
-                
-                // Third priority: purchase date (earliest first)
-                return a.getPurchaseDate().compareTo(b.getPurchaseDate());
-            });
-            
-            // Select batches to fulfill the required quantity
             List<StockBatch> selectedBatches = new ArrayList<>();
-            int remainingQuantity = requiredQuantity;
-            
-            for (StockBatch batch : batches) {
-                if (remainingQuantity <= 0) break;
-                
-                int availableInBatch = Math.min(batch.getCurrentQuantity(), remainingQuantity);
-                if (availableInBatch > 0) {
-                    StockBatch selectedBatch = new StockBatch();
-                    selectedBatch.setId(batch.getId());
-                    selectedBatch.setItem(batch.getItem());
-                    selectedBatch.setCurrentQuantity(availableInBatch);
-                    selectedBatch.setExpiryDate(batch.getExpiryDate());
-                    selectedBatch.setPurchaseDate(batch.getPurchaseDate());
-                    
-                    selectedBatches.add(selectedBatch);
-                    remainingQuantity -= availableInBatch;
-                }
+            for (StockBatchIndex.Allocation allocation : stockBatchIndex.select(itemDTO.getId(), requiredQuantity)) {
+                selectedBatches.add(convertToStockBatch(allocation));
             }
-            
             return selectedBatches;
         } catch (Exception e) {
             return new ArrayList<>();
@@ -125,31 +94,43 @@ public class StockBatchService {
     
     /**
      * Process sale and reduce stock quantities
+     * The batches are taken off the index first, so concurrent sales of the same item
+     * never pick the same units, then written through in one transaction
      */
     public boolean processSale(String itemCode, int quantity) {
+        int itemId = 0;
         try {
-            List<StockBatch> selectedBatches = getAvailableBatchesForSale(itemCode, quantity);
-            
-            int totalAvailable = selectedBatches.stream()
-                    .mapToInt(StockBatch::getCurrentQuantity)
-                    .sum();
+            ItemDTO itemDTO = itemGateway.findByCode(itemCode);
+            if (itemDTO == null) {
+                return false;
+            }
+            itemId = itemDTO.getId();
             
-            if (totalAvailable < quantity) {
-                throw new IllegalArgumentException("Insufficient stock. Available: " + totalAvailable + ", Required: " + quantity);
+            List<StockBatchIndex.Allocation> allocations = stockBatchIndex.reserve(itemId, quantity);
+            if (allocations.isEmpty() && quantity > 0) {
+                throw new IllegalArgumentException("Insufficient stock. Available: "
+                        + stockBatchIndex.getAvailableQuantity(itemId) + ", Required: " + quantity);
             }
             
             // Update stock quantities in database
-            for (StockBatch batch : selectedBatches) {
-                StockDTO stockDTO = stockGateway.getById(batch.getId());
-                int newQuantity = stockDTO.getQuantity() - batch.getCurrentQuantity();
-                stockDTO.setQuantity(newQuantity);
-                stockDTO.setAvailability(newQuantity > 0);
-                
-                stockGateway.update(stockDTO);
+            List<StockGateway.BatchConsumption> consumptions = new ArrayList<>();
+            for (StockBatchIndex.Allocation allocation : allocations) {
+                consumptions.add(new StockGateway.BatchConsumption(allocation.getStockId(),
+                        allocation.getQuantity(), allocation.getRemainingQuantity()));
+            }
+            if (!stockGateway.consume(consumptions)) {
+                // The stock table changed behind the index; reload it on next use
+                stockBatchIndex.invalidateItem(itemId);
+                return false;
             }
             
             return true;
+        } catch (IllegalArgumentException e) {
+            return false;
         } catch (Exception e) {
+            if (itemId != 0) {
+                stockBatchIndex.invalidateItem(itemId);
+            }
             return false;
         }
     }
@@ -268,6 +249,20 @@ public class StockBatchService {
     }
     
     // Helper Methods - Convert between DTOs and Models
+    private StockBatch convertToStockBatch(StockBatchIndex.Allocation allocation) {
+        StockBatch batch = new StockBatch();
+        batch.setId(allocation.getStockId());
+        
+        Item item = new Item(allocation.getItemCode(), allocation.getItemName(), 0.0);
+        item.setId(allocation.getItemId());
+        batch.setItem(item);
+        
+        batch.setCurrentQuantity(allocation.getQuantity());
+        batch.setExpiryDate(convertToDate(allocation.getExpiryDate()));
+        batch.setPurchaseDate(convertToDate(allocation.getPurchaseDate()));
+        return batch;
+    }
+    
     private StockBatch convertToStockBatch(StockDTO dto) {
         try {
             StockBatch batch = new StockBatch();
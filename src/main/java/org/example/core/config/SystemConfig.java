@@ -23,6 +23,101 @@ public class SystemConfig {
     public static final String ROLE_STORE_MANAGER = "storemanager";
     public static final String ROLE_MANAGER = "manager";
 
+    // Database Connection Pool (override with -Dsyos.db.pool.* system properties)
+    public static final int DB_POOL_MIN_IDLE = Integer.getInteger("syos.db.pool.minIdle", 5);
+    public static final int DB_POOL_MAX_SIZE = Integer.getInteger("syos.db.pool.maxSize", 30);
+    public static final long DB_POOL_BORROW_TIMEOUT_MS = Long.getLong("syos.db.pool.borrowTimeoutMs", 5000L);
+    public static final long DB_POOL_IDLE_TIMEOUT_MS = Long.getLong("syos.db.pool.idleTimeoutMs", 300000L);
+    public static final long DB_POOL_VALIDATION_BYPASS_MS = Long.getLong("syos.db.pool.validationBypassMs", 500L);
+    public static final int DB_POOL_VALIDATION_TIMEOUT_SECONDS = Integer.getInteger("syos.db.pool.validationTimeoutSeconds", 2);
+    public static final long DB_POOL_HOUSEKEEPING_INTERVAL_MS = Long.getLong("syos.db.pool.housekeepingIntervalMs", 30000L);
+    public static final long DB_POOL_LEAK_DETECTION_THRESHOLD_MS = Long.getLong("syos.db.pool.leakDetectionThresholdMs", 30000L);
+    // Reclaims connections with no statement activity for this long; 0 (the default) leaves them to their borrower
+    public static final long DB_POOL_ABANDONED_TIMEOUT_MS = Long.getLong("syos.db.pool.abandonedTimeoutMs", 0L);
+    public static final long DB_POOL_LEAK_CHECK_INTERVAL_MS = Long.getLong("syos.db.pool.leakCheckIntervalMs", 5000L);
+    // Prepared statements cached per pooled connection (0 disables the cache)
+    public static final int DB_POOL_STATEMENT_CACHE_SIZE = Integer.getInteger("syos.db.pool.statementCacheSize", 64);
+
+    // Item Catalog Cache (max size 0 disables the cache)
+    public static final int ITEM_CACHE_MAX_SIZE = Integer.getInteger("syos.cache.items.maxSize", 10000);
+    public static final long ITEM_CACHE_TTL_MS = Long.getLong("syos.cache.items.ttlMs", 300000L);
+
+    // Invoice Numbers (reserved from the invoice_sequence table in blocks)
+    public static final int INVOICE_BLOCK_SIZE = Integer.getInteger("syos.invoice.blockSize", 100);
+
+    // Request Execution ("platform" = fixed thread pool, "virtual" = one virtual thread per request)
+    public static final String REQUEST_EXECUTION_MODE = System.getProperty("syos.requests.executionMode", "platform");
+    public static final int REQUEST_MAX_THREADS = Integer.getInteger("syos.requests.maxThreads", 10);
+    public static final int REQUEST_QUEUE_CAPACITY = Integer.getInteger("syos.requests.queueCapacity", 100);
+    // Requests allowed to use the database at once; defaults to the pool size
+    public static final int REQUEST_DB_PERMITS = Integer.getInteger("syos.requests.dbPermits", DB_POOL_MAX_SIZE);
+
+    // Admission Control (concurrent requests per endpoint group; limits adapt between min and max)
+    public static final int ADMISSION_CHECKOUT_INITIAL_LIMIT = Integer.getInteger("syos.admission.checkout.initialLimit", 20);
+    public static final int ADMISSION_CHECKOUT_MIN_LIMIT = Integer.getInteger("syos.admission.checkout.minLimit", 4);
+    public static final int ADMISSION_CHECKOUT_MAX_LIMIT = Integer.getInteger("syos.admission.checkout.maxLimit", DB_POOL_MAX_SIZE);
+    public static final long ADMISSION_CHECKOUT_TARGET_LATENCY_MS = Long.getLong("syos.admission.checkout.targetLatencyMs", 500L);
+    public static final int ADMISSION_REPORTS_INITIAL_LIMIT = Integer.getInteger("syos.admission.reports.initialLimit", 4);
+    public static final int ADMISSION_REPORTS_MIN_LIMIT = Integer.getInteger("syos.admission.reports.minLimit", 1);
+    public static final int ADMISSION_REPORTS_MAX_LIMIT = Integer.getInteger("syos.admission.reports.maxLimit", 8);
+    public static final long ADMISSION_REPORTS_TARGET_LATENCY_MS = Long.getLong("syos.admission.reports.targetLatencyMs", 3000L);
+    public static final int ADMISSION_RETRY_AFTER_SECONDS = Integer.getInteger("syos.admission.retryAfterSeconds", 2);
+
+    // Streamed JSON responses (rows fetched per round trip, response buffer in characters)
+    public static final int STREAM_FETCH_SIZE = Integer.getInteger("syos.stream.fetchSize", 500);
+    public static final int STREAM_BUFFER_CHARS = Integer.getInteger("syos.stream.bufferChars", 8192);
+
+    // Keyset Pagination (rows per page when the client does not ask, and the most it may ask for)
+    public static final int PAGE_SIZE_DEFAULT = Integer.getInteger("syos.page.defaultSize", 50);
+    public static final int PAGE_SIZE_MAX = Integer.getInteger("syos.page.maxSize", 500);
+
+    // Bulk Restock (most lines accepted in one request; they share one transaction)
+    public static final int RESTOCK_MAX_LINES = Integer.getInteger("syos.restock.maxLines", 500);
+
+    // Auto-Replenishment (refill shelves from the warehouse when they fall below their minimum)
+    public static final boolean REPLENISH_ENABLED = Boolean.parseBoolean(System.getProperty("syos.replenish.enabled", "true"));
+    // Shelf targets for items without a shelf_target row
+    public static final int REPLENISH_DEFAULT_MIN = Integer.getInteger("syos.replenish.defaultMin", REORDER_THRESHOLD);
+    public static final int REPLENISH_DEFAULT_MAX = Integer.getInteger("syos.replenish.defaultMax", REORDER_THRESHOLD * 2);
+    public static final long REPLENISH_SCAN_INTERVAL_MS = Long.getLong("syos.replenish.scanIntervalMs", 60000L);
+    public static final long REPLENISH_DRAIN_INTERVAL_MS = Long.getLong("syos.replenish.drainIntervalMs", 5000L);
+    // Lines per stockToShelves call, and the sustained rate of lines per minute
+    public static final int REPLENISH_BATCH_SIZE = Integer.getInteger("syos.replenish.batchSize", 25);
+    public static final int REPLENISH_MAX_LINES_PER_MINUTE = Integer.getInteger("syos.replenish.maxLinesPerMinute", 120);
+    // How long an item the warehouse could not fill is left alone
+    public static final long REPLENISH_FAILURE_BACKOFF_MS = Long.getLong("syos.replenish.failureBackoffMs", 600000L);
+
+    // Online Cart Reservations (soft holds on WEBSITE stock; expired by a timer wheel of tick-sized slots)
+    public static final long RESERVATION_TTL_MS = Long.getLong("syos.reservations.ttlMs", 900000L);
+    public static final long RESERVATION_TICK_MS = Long.getLong("syos.reservations.tickMs", 1000L);
+    public static final int RESERVATION_WHEEL_SIZE = Integer.getInteger("syos.reservations.wheelSize", 512);
+    // Units of one item a single cart may hold; anything above is left on the shelf
+    public static final int RESERVATION_MAX_UNITS_PER_LINE = Integer.getInteger("syos.reservations.maxUnitsPerLine", 20);
+
+    // Checkout Sessions (open carts per till or web session; idle ones are evicted and the count is capped)
+    public static final long CHECKOUT_SESSION_IDLE_TIMEOUT_MS = Long.getLong("syos.checkout.sessionIdleTimeoutMs", 1800000L);
+    public static final int CHECKOUT_SESSION_MAX = Integer.getInteger("syos.checkout.maxSessions", 10000);
+    public static final long CHECKOUT_SESSION_SWEEP_INTERVAL_MS = Long.getLong("syos.checkout.sweepIntervalMs", 60000L);
+
+    // Saved Carts (kept in memory, written behind to the cart tables once per flush interval)
+    public static final long CART_FLUSH_INTERVAL_MS = Long.getLong("syos.carts.flushIntervalMs", 2000L);
+    public static final long CART_CACHE_TTL_MS = Long.getLong("syos.carts.cacheTtlMs", 1800000L);
+    public static final int CART_MAX_LINES = Integer.getInteger("syos.carts.maxLines", 200);
+    // Carts not saved for this long are deleted; checked at most once per purge interval
+    public static final long CART_ABANDONED_TTL_MS = Long.getLong("syos.carts.abandonedTtlMs", 2592000000L);
+    public static final long CART_PURGE_INTERVAL_MS = Long.getLong("syos.carts.purgeIntervalMs", 3600000L);
+
+    // Discount Codes (validated against an in-memory snapshot, reloaded after edits or once it is this old)
+    public static final long DISCOUNT_CODE_MAX_AGE_MS = Long.getLong("syos.discounts.maxAgeMs", 300000L);
+
+    // HTTP Caching (ETag/304 for catalog, stock and report endpoints; browser cache lifetime of static assets)
+    public static final boolean HTTP_CACHE_ENABLED = Boolean.parseBoolean(System.getProperty("syos.httpCache.enabled", "true"));
+    public static final int STATIC_ASSET_MAX_AGE_SECONDS = Integer.getInteger("syos.httpCache.staticMaxAgeSeconds", 3600);
+
+    // Response Compression (gzip/deflate for text responses at least this large; static files are also pre-compressed at build time)
+    public static final boolean COMPRESSION_ENABLED = Boolean.parseBoolean(System.getProperty("syos.compression.enabled", "true"));
+    public static final int COMPRESSION_MIN_BYTES = Integer.getInteger("syos.compression.minBytes", 1024);
+
     private SystemConfig() {
         // Utility class
     }
@@ -0,0 +1,201 @@
+package org.example.core.state;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Open checkouts keyed by terminal or web session id, so each till and shopper works on
+ * its own CheckoutContext instead of one shared cart.
+ *
+ * Sessions untouched for longer than the idle timeout are evicted; idle sessions are
+ * swept at most once per sweep interval, piggybacking on open(). The number of open
+ * sessions is capped: opening one more when full first sweeps, then evicts the least
+ * recently used session. The eviction listener lets the owner release anything a
+ * session was holding, such as stock reservations.
+ */
+public class CheckoutSessionRegistry {
+    private final long idleTimeoutMillis;
+    private final int maxSessions;
+    private final long sweepIntervalMillis;
+    private final LongSupplier clock;
+    private final EvictionListener evictionListener;
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweepMillis = new AtomicLong();
+
+    // Statistics
+    private final AtomicLong openedCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong idleEvictionCount = new AtomicLong();
+    private final AtomicLong capacityEvictionCount = new AtomicLong();
+
+    public CheckoutSessionRegistry(long idleTimeoutMillis, int maxSessions, long sweepIntervalMillis,
+                                   EvictionListener evictionListener) {
+        this(idleTimeoutMillis, maxSessions, sweepIntervalMillis, evictionListener, System::currentTimeMillis);
+    }
+
+    // Visible for tests
+    CheckoutSessionRegistry(long idleTimeoutMillis, int maxSessions, long sweepIntervalMillis,
+                            EvictionListener evictionListener, LongSupplier clock) {
+        if (maxSessions <= 0) {
+            throw new IllegalArgumentException("Checkout session limit must be positive");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxSessions = maxSessions;
+        this.sweepIntervalMillis = sweepIntervalMillis;
+        this.evictionListener = evictionListener;
+        this.clock = clock;
+        this.lastSweepMillis.set(clock.getAsLong());
+    }
+
+    /**
+     * Open a checkout for a session, replacing (and evicting) any checkout it already had
+     */
+    public CheckoutContext open(String sessionId, CheckoutContext context) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            throw new IllegalArgumentException("Session id is required");
+        }
+        long now = clock.getAsLong();
+        long lastSweep = lastSweepMillis.get();
+        if (now - lastSweep >= sweepIntervalMillis && lastSweepMillis.compareAndSet(lastSweep, now)) {
+            evictIdle();
+        }
+        if (!sessions.containsKey(sessionId) && sessions.size() >= maxSessions) {
+            makeRoom();
+        }
+
+        Session previous = sessions.put(sessionId, new Session(context, now));
+        if (previous != null) {
+            notifyEvicted(sessionId, previous.context);
+        }
+        openedCount.incrementAndGet();
+        return context;
+    }
+
+    /**
+     * The session's checkout, or null if it has none or it has gone idle; marks it as used
+     */
+    public CheckoutContext get(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (now - session.lastAccessMillis > idleTimeoutMillis) {
+            if (sessions.remove(sessionId, session)) {
+                idleEvictionCount.incrementAndGet();
+                notifyEvicted(sessionId, session.context);
+            }
+            return null;
+        }
+        session.lastAccessMillis = now;
+        return session.context;
+    }
+
+    // Close a session normally, e.g. after its bill is generated; no eviction callback
+    public CheckoutContext close(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session == null) {
+            return null;
+        }
+        closedCount.incrementAndGet();
+        return session.context;
+    }
+
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            Session session = entry.getValue();
+            if (now - session.lastAccessMillis > idleTimeoutMillis && sessions.remove(entry.getKey(), session)) {
+                idleEvictionCount.incrementAndGet();
+                notifyEvicted(entry.getKey(), session.context);
+            }
+        }
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Sweep idle sessions, then drop least recently used ones until there is room for one more
+    private void makeRoom() {
+        evictIdle();
+        while (sessions.size() >= maxSessions) {
+            Map.Entry<String, Session> oldest = null;
+            for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+                if (oldest == null || entry.getValue().lastAccessMillis < oldest.getValue().lastAccessMillis) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            if (sessions.remove(oldest.getKey(), oldest.getValue())) {
+                capacityEvictionCount.incrementAndGet();
+                notifyEvicted(oldest.getKey(), oldest.getValue().context);
+            }
+        }
+    }
+
+    private void notifyEvicted(String sessionId, CheckoutContext context) {
+        if (evictionListener == null) {
+            return;
+        }
+        try {
+            evictionListener.onEvicted(sessionId, context);
+        } catch (Exception e) {
+            System.err.println("Error releasing evicted checkout " + sessionId + ": " + e.getMessage());
+        }
+    }
+
+    public SessionStats getStats() {
+        return new SessionStats(sessions.size(), maxSessions, openedCount.get(), closedCount.get(),
+                idleEvictionCount.get(), capacityEvictionCount.get());
+    }
+
+    private static final class Session {
+        private final CheckoutContext context;
+        private volatile long lastAccessMillis;
+
+        private Session(CheckoutContext context, long lastAccessMillis) {
+            this.context = context;
+            this.lastAccessMillis = lastAccessMillis;
+        }
+    }
+
+    /**
+     * Called when a session is dropped without being closed
+     */
+    public interface EvictionListener {
+        void onEvicted(String sessionId, CheckoutContext context);
+    }
+
+    public static class SessionStats {
+        private final int openSessions;
+        private final int maxSessions;
+        private final long openedCount;
+        private final long closedCount;
+        private final long idleEvictionCount;
+        private final long capacityEvictionCount;
+
+        public SessionStats(int openSessions, int maxSessions, long openedCount, long closedCount,
+                            long idleEvictionCount, long capacityEvictionCount) {
+            this.openSessions = openSessions;
+            this.maxSessions = maxSessions;
+            this.openedCount = openedCount;
+            this.closedCount = closedCount;
+            this.idleEvictionCount = idleEvictionCount;
+            this.capacityEvictionCount = capacityEvictionCount;
+        }
+
+        // Getters
+        public int getOpenSessions() { return openSessions; }
+        public int getMaxSessions() { return maxSessions; }
+        public long getOpenedCount() { return openedCount; }
+        public long getClosedCount() { return closedCount; }
+        public long getIdleEvictionCount() { return idleEvictionCount; }
+        public long getCapacityEvictionCount() { return capacityEvictionCount; }
+    }
+}
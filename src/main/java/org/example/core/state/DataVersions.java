@@ -0,0 +1,99 @@
+package org.example.core.state;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Version stamps for each data domain, used as HTTP validators.
+ *
+ * Every committed write to a domain bumps its version, so a response built from a set
+ * of domains can be tagged with their versions and revalidated without touching the
+ * database: if none of the versions moved, the client's copy is still current.
+ *
+ * Versions must be bumped after the write commits. A bump before the commit could let
+ * a reader tag the old data with the new version, and that copy would then be served
+ * as current until the next write. Each bump also moves the domain's modification
+ * time forward by at least one second, so Last-Modified changes with every write even
+ * though HTTP dates only have second precision.
+ */
+public class DataVersions {
+    private static DataVersions instance;
+    private static final Object lock = new Object();
+
+    public enum Domain {
+        ITEMS, SHELVES, STOCK, BILLS
+    }
+
+    // Distinguishes this run's versions from those handed out before a restart
+    private final String bootId;
+    private final Map<Domain, Long> versions = new EnumMap<>(Domain.class);
+    private final Map<Domain, Long> modifiedSeconds = new EnumMap<>(Domain.class);
+
+    private DataVersions() {
+        this(UUID.randomUUID().toString().substring(0, 8), System.currentTimeMillis());
+    }
+
+    // Visible for tests
+    DataVersions(String bootId, long startMillis) {
+        this.bootId = bootId;
+        for (Domain domain : Domain.values()) {
+            versions.put(domain, 0L);
+            modifiedSeconds.put(domain, startMillis / 1000);
+        }
+    }
+
+    public static DataVersions getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new DataVersions();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Record a committed write to each of the given domains
+     */
+    public synchronized void bump(Domain... domains) {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        for (Domain domain : domains) {
+            versions.merge(domain, 1L, Long::sum);
+            modifiedSeconds.put(domain, Math.max(nowSeconds, modifiedSeconds.get(domain) + 1));
+        }
+    }
+
+    public synchronized long getVersion(Domain domain) {
+        return versions.get(domain);
+    }
+
+    /**
+     * Versions and modification time of the given domains, read together
+     */
+    public synchronized Stamp stamp(Domain... domains) {
+        StringBuilder tag = new StringBuilder(bootId);
+        long latest = 0;
+        for (Domain domain : domains) {
+            tag.append('-').append(Character.toLowerCase(domain.name().charAt(0))).append(versions.get(domain));
+            latest = Math.max(latest, modifiedSeconds.get(domain));
+        }
+        return new Stamp(tag.toString(), latest * 1000);
+    }
+
+    // Tags are unquoted and equal only if none of the domains changed; times are on a whole second
+    public static class Stamp {
+        private final String tag;
+        private final long lastModified;
+
+        public Stamp(String tag, long lastModified) {
+            this.tag = tag;
+            this.lastModified = lastModified;
+        }
+
+        // Getters
+        public String getTag() { return tag; }
+        public long getLastModified() { return lastModified; }
+    }
+}
@@ -49,9 +49,8 @@ public class PaymentPendingState implements CheckoutState {
                 bill.getBillItems().add(item);
             }
 
-            // Save to database
-            billGateway.insert(bill);
-            billGateway.insertBillItems(bill.getBillItems());
+            // Save to database; the bill, its items and the rollup commit together
+            billGateway.insertWithItems(bill);
 
             context.setGeneratedBill(bill);
             System.out.println("Bill generated successfully. Invoice: " + invoiceNumber);
@@ -0,0 +1,604 @@
+package org.example.persistence.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool used by DatabaseConnection.
+ * Physical connections are kept open between gateway calls; callers receive a
+ * lightweight handle whose close() returns the connection to the pool.
+ *
+ * With an abandoned timeout set, a borrowed connection that has seen no call and no
+ * statement execute for that long is taken back. Activity, not borrow time, is what
+ * counts, so a long report or rebuild that keeps executing is left alone.
+ */
+public final class ConnectionPool {
+
+    private final String url;
+    private final Properties properties;
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationBypassMillis;
+    private final int validationTimeoutSeconds;
+    private final long leakDetectionThresholdMillis;
+    private final long abandonedTimeoutMillis;
+    private final int statementCacheSize;
+
+    // Idle connections, most recently returned first so hot connections stay warm
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    // Handles currently borrowed, scanned for leaks
+    private final Set<ConnectionHandle> borrowedHandles = ConcurrentHashMap.newKeySet();
+    // One permit per connection that may be handed out
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+
+    // Statistics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong leakWarningCount = new AtomicLong();
+    private final AtomicLong reclaimedCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final AtomicLong statementCacheEvictions = new AtomicLong();
+
+    private volatile boolean shutdown;
+
+    public ConnectionPool(String url, Properties properties, PoolConfig config) {
+        if (config.getMaxSize() <= 0) {
+            throw new IllegalArgumentException("Pool max size must be positive");
+        }
+        if (config.getMinIdle() < 0 || config.getMinIdle() > config.getMaxSize()) {
+            throw new IllegalArgumentException("Pool min idle must be between 0 and max size");
+        }
+        this.url = url;
+        this.properties = properties;
+        this.minIdle = config.getMinIdle();
+        this.maxSize = config.getMaxSize();
+        this.borrowTimeoutMillis = config.getBorrowTimeoutMillis();
+        this.idleTimeoutMillis = config.getIdleTimeoutMillis();
+        this.validationBypassMillis = config.getValidationBypassMillis();
+        this.validationTimeoutSeconds = config.getValidationTimeoutSeconds();
+        this.leakDetectionThresholdMillis = config.getLeakDetectionThresholdMillis();
+        this.abandonedTimeoutMillis = config.getAbandonedTimeoutMillis();
+        this.statementCacheSize = config.getStatementCacheSize();
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "syos-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::runHousekeeping,
+                config.getHousekeepingIntervalMillis(), config.getHousekeepingIntervalMillis(), TimeUnit.MILLISECONDS);
+        if (leakDetectionThresholdMillis > 0 || abandonedTimeoutMillis > 0) {
+            this.housekeeper.scheduleWithFixedDelay(this::detectLeaks,
+                    config.getLeakCheckIntervalMillis(), config.getLeakCheckIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Borrow a connection, waiting at most the configured borrow timeout
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis
+                        + "ms waiting for a database connection (active=" + getActiveCount() + ", max=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        totalWaitNanos.addAndGet(System.nanoTime() - waitStart);
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idleConnections.pollFirst()) != null) {
+                if (validate(pooled)) {
+                    break;
+                }
+                validationFailureCount.incrementAndGet();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            borrowCount.incrementAndGet();
+            ConnectionHandle handle = new ConnectionHandle(pooled);
+            borrowedHandles.add(handle);
+            return handle.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of connections currently handed out to callers
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    public PoolStats getStats() {
+        PoolStats stats = new PoolStats();
+        stats.maxSize = maxSize;
+        stats.minIdle = minIdle;
+        stats.totalConnections = totalConnections.get();
+        stats.activeConnections = getActiveCount();
+        stats.idleConnections = getIdleCount();
+        stats.waitingThreads = permits.getQueueLength();
+        stats.borrowCount = borrowCount.get();
+        stats.createdCount = createdCount.get();
+        stats.destroyedCount = destroyedCount.get();
+        stats.timeoutCount = timeoutCount.get();
+        stats.validationFailureCount = validationFailureCount.get();
+        stats.leakWarningCount = leakWarningCount.get();
+        stats.reclaimedCount = reclaimedCount.get();
+        stats.suspectedLeakCount = countSuspectedLeaks();
+        stats.statementCacheSize = statementCacheSize;
+        stats.statementCacheHits = statementCacheHits.get();
+        stats.statementCacheMisses = statementCacheMisses.get();
+        stats.statementCacheEvictions = statementCacheEvictions.get();
+        long borrows = stats.borrowCount;
+        stats.averageWaitMillis = borrows == 0 ? 0.0 : (totalWaitNanos.get() / 1_000_000.0) / borrows;
+        return stats;
+    }
+
+    /**
+     * Close all idle connections and stop background housekeeping.
+     * Connections still in use are closed when their handle is returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * Scan borrowed connections: warn once about those held past the leak threshold
+     * and force-reclaim those idle past the abandoned timeout.
+     */
+    void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (ConnectionHandle handle : borrowedHandles) {
+            long heldMillis = now - handle.borrowedAt;
+            long idleMillis = now - handle.lastActiveAt;
+
+            if (abandonedTimeoutMillis > 0 && idleMillis > abandonedTimeoutMillis) {
+                if (handle.reclaim()) {
+                    reclaimedCount.incrementAndGet();
+                    System.err.println("Reclaimed abandoned connection idle for " + idleMillis + "ms (held "
+                            + heldMillis + "ms) by thread '" + handle.borrowerThread + "', borrowed at "
+                            + borrowSite(handle));
+                }
+            } else if (leakDetectionThresholdMillis > 0 && heldMillis > leakDetectionThresholdMillis
+                    && !handle.leakReported) {
+                handle.leakReported = true;
+                leakWarningCount.incrementAndGet();
+                System.err.println("Possible connection leak: connection held for " + heldMillis + "ms by thread '"
+                        + handle.borrowerThread + "', borrowed at " + borrowSite(handle));
+            }
+        }
+    }
+
+    private int countSuspectedLeaks() {
+        if (leakDetectionThresholdMillis <= 0) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (ConnectionHandle handle : borrowedHandles) {
+            if (now - handle.borrowedAt > leakDetectionThresholdMillis) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // The first frame outside the pool, i.e. the code that asked for the connection
+    private static String borrowSite(ConnectionHandle handle) {
+        for (StackTraceElement frame : handle.borrowSite.getStackTrace()) {
+            String className = frame.getClassName();
+            if (!className.startsWith(ConnectionPool.class.getName())
+                    && !className.equals(DatabaseConnection.class.getName())) {
+                return frame.toString();
+            }
+        }
+        return "unknown";
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, properties);
+        totalConnections.incrementAndGet();
+        createdCount.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close pooled connection: " + e.getMessage());
+        }
+    }
+
+    // Like destroy(), but never blocks on a statement the borrower may still be running
+    private void abort(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        try {
+            pooled.physical.abort(command -> {
+                Thread thread = new Thread(command, "syos-pool-abort");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        } catch (SQLException e) {
+            System.err.println("Failed to abort reclaimed connection: " + e.getMessage());
+        }
+    }
+
+    // Connections used very recently are trusted without a round trip to the server
+    private boolean validate(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastReturnedAt < validationBypassMillis) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void giveBack(PooledConnection pooled) {
+        try {
+            boolean reusable = !shutdown && !pooled.physical.isClosed() && resetState(pooled.physical);
+            if (reusable) {
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idleConnections.offerFirst(pooled);
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Undo anything a caller may have left behind before the next borrower sees it
+    private boolean resetState(Connection physical) {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void runHousekeeping() {
+        try {
+            evictIdleConnections();
+            fillToMinIdle();
+        } catch (RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> snapshot = new ArrayList<>(idleConnections);
+        // Oldest idle connections sit at the tail of the deque
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            if (totalConnections.get() <= minIdle) {
+                break;
+            }
+            PooledConnection pooled = snapshot.get(i);
+            if (now - pooled.lastReturnedAt > idleTimeoutMillis && idleConnections.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    private void fillToMinIdle() {
+        while (!shutdown && totalConnections.get() < minIdle) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                PooledConnection pooled = create();
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idleConnections.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("Failed to pre-create pooled connection: " + e.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool, with its prepared statement cache.
+     * Cached statements live as long as the physical connection does.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private volatile long lastReturnedAt;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCacheSize > 0
+                    ? new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses,
+                            statementCacheEvictions)
+                    : null;
+            this.lastReturnedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Per-borrow view of a pooled connection. close() returns the physical
+     * connection to the pool exactly once; afterwards the handle reports closed.
+     * The borrow site is recorded so leaked connections can be traced back.
+     */
+    private final class ConnectionHandle implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final Connection proxy;
+        private final long borrowedAt;
+        // Last call on the connection or statement execute; only kept while the reaper is on
+        private volatile long lastActiveAt;
+        private final String borrowerThread;
+        private final Throwable borrowSite;
+        private volatile boolean leakReported;
+        // Statements created through this handle, closed when the connection goes back
+        private final List<Statement> openStatements = new ArrayList<>();
+        private boolean closed;
+
+        private ConnectionHandle(PooledConnection pooled) {
+            this.pooled = pooled;
+            this.borrowedAt = System.currentTimeMillis();
+            this.lastActiveAt = borrowedAt;
+            this.borrowerThread = Thread.currentThread().getName();
+            this.borrowSite = new Throwable("Connection borrowed here");
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    this);
+        }
+
+        // Return the connection normally; false if it was already closed or reclaimed
+        private synchronized boolean release() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            borrowedHandles.remove(this);
+            closeOpenStatements();
+            giveBack(pooled);
+            return true;
+        }
+
+        // Take the connection away from its borrower; its state is unknown so it is discarded
+        private synchronized boolean reclaim() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            borrowedHandles.remove(this);
+            abort(pooled);
+            permits.release();
+            return true;
+        }
+
+        private void closeOpenStatements() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    // Statement is discarded either way
+                }
+            }
+            openStatements.clear();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    synchronized (this) {
+                        return closed || pooled.physical.isClosed();
+                    }
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(pooled.physical)) {
+                        return pooled.physical;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            synchronized (this) {
+                if (closed) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+            }
+            if (abandonedTimeoutMillis > 0) {
+                lastActiveAt = System.currentTimeMillis();
+            }
+            if (isCacheablePrepare(method)) {
+                int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                PreparedStatement cached = pooled.statementCache.prepare(
+                        pooled.physical, this.proxy, (String) args[0], autoGeneratedKeys);
+                if (cached != null) {
+                    synchronized (this) {
+                        openStatements.add(cached);
+                    }
+                    return trackExecutes(cached);
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                synchronized (this) {
+                    openStatements.add((Statement) result);
+                }
+                return trackExecutes((Statement) result);
+            }
+            return result;
+        }
+
+        // With the reaper on, statement executes count as activity on this connection
+        private Statement trackExecutes(Statement statement) {
+            if (abandonedTimeoutMillis <= 0) {
+                return statement;
+            }
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                    (statementProxy, method, args) -> {
+                        if (method.getName().startsWith("execute")) {
+                            lastActiveAt = System.currentTimeMillis();
+                        }
+                        try {
+                            return method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) are served from the cache
+        private boolean isCacheablePrepare(Method method) {
+            if (pooled.statementCache == null || !method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            return parameterTypes.length == 1
+                    || (parameterTypes.length == 2 && parameterTypes[1] == int.class);
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of pool statistics
+     */
+    public static class PoolStats {
+        private int maxSize;
+        private int minIdle;
+        private int totalConnections;
+        private int activeConnections;
+        private int idleConnections;
+        private int waitingThreads;
+        private long borrowCount;
+        private long createdCount;
+        private long destroyedCount;
+        private long timeoutCount;
+        private long validationFailureCount;
+        private long leakWarningCount;
+        private long reclaimedCount;
+        private int suspectedLeakCount;
+        private double averageWaitMillis;
+        private int statementCacheSize;
+        private long statementCacheHits;
+        private long statementCacheMisses;
+        private long statementCacheEvictions;
+
+        // Getters
+        public int getMaxSize() { return maxSize; }
+        public int getMinIdle() { return minIdle; }
+        public int getTotalConnections() { return totalConnections; }
+        public int getActiveConnections() { return activeConnections; }
+        public int getIdleConnections() { return idleConnections; }
+        public int getWaitingThreads() { return waitingThreads; }
+        public long getBorrowCount() { return borrowCount; }
+        public long getCreatedCount() { return createdCount; }
+        public long getDestroyedCount() { return destroyedCount; }
+        public long getTimeoutCount() { return timeoutCount; }
+        public long getValidationFailureCount() { return validationFailureCount; }
+        public long getLeakWarningCount() { return leakWarningCount; }
+        public long getReclaimedCount() { return reclaimedCount; }
+        public int getSuspectedLeakCount() { return suspectedLeakCount; }
+        public double getAverageWaitMillis() { return averageWaitMillis; }
+        public int getStatementCacheSize() { return statementCacheSize; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+        public long getStatementCacheEvictions() { return statementCacheEvictions; }
+
+        public double getStatementCacheHitRatio() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStats{total=" + totalConnections + ", active=" + activeConnections
+                    + ", idle=" + idleConnections + ", waiting=" + waitingThreads
+                    + ", borrows=" + borrowCount + ", timeouts=" + timeoutCount
+                    + ", suspectedLeaks=" + suspectedLeakCount + ", reclaimed=" + reclaimedCount
+                    + ", statementCacheHits=" + statementCacheHits + ", statementCacheMisses=" + statementCacheMisses + "}";
+        }
+    }
+}
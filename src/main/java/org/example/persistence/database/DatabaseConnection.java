@@ -1,7 +1,8 @@
 package org.example.persistence.database;
 
+import org.example.core.config.SystemConfig;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 
@@ -9,11 +10,14 @@ public class DatabaseConnection {
     private static DatabaseConnection instance;
     private static final Object lock = new Object();
 
-    // Database configuration with connection pooling
-    private final String url = "jdbc:mysql://localhost:3306/syos?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC&maxActive=100&maxIdle=30&minIdle=5&initialSize=10&removeAbandonedTimeout=60&removeAbandoned=true";
+    // Database configuration
+    private final String url = "jdbc:mysql://localhost:3306/syos?useSSL=false&allowPublicKeyRetrieval=true&serverTimezone=UTC";
     private final String username = "root";
     private final String password = "9900@tahir";
 
+    // Created on first use so the driver is only loaded when a connection is needed
+    private volatile ConnectionPool pool;
+
     private DatabaseConnection() {
         // Private constructor to prevent instantiation
     }
@@ -29,24 +33,12 @@ public class DatabaseConnection {
         return instance;
     }
 
+    // Borrow a pooled connection; closing it returns it to the pool
     public Connection connect() throws ClassNotFoundException, SQLException {
-        Class.forName("com.mysql.cj.jdbc.Driver");
-
-        // Connection properties for better performance under load
-        Properties props = new Properties();
-        props.setProperty("user", username);
-        props.setProperty("password", password);
-        props.setProperty("useSSL", "false");
-        props.setProperty("allowPublicKeyRetrieval", "true");
-        props.setProperty("serverTimezone", "UTC");
-        props.setProperty("autoReconnect", "true");
-        props.setProperty("maxReconnects", "3");
-        props.setProperty("initialTimeout", "2");
-
-        return DriverManager.getConnection(url, props);
+        return getPool().borrow();
     }
 
-    // Clean up database connections to prevent memory leaks
+    // Return a connection to the pool
     public void closeConnection(Connection connection) {
         try {
             if (connection != null && !connection.isClosed()) {
@@ -57,4 +49,52 @@ public class DatabaseConnection {
         }
     }
 
+    // Current pool statistics for monitoring
+    public ConnectionPool.PoolStats getPoolStats() throws ClassNotFoundException {
+        return getPool().getStats();
+    }
+
+    // Close all pooled connections (application shutdown)
+    public void shutdown() {
+        synchronized (lock) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
+            }
+        }
+    }
+
+    private ConnectionPool getPool() throws ClassNotFoundException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (lock) {
+                current = pool;
+                if (current == null) {
+                    Class.forName("com.mysql.cj.jdbc.Driver");
+                    current = new ConnectionPool(url, buildConnectionProperties(), new PoolConfig());
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Connection properties for better performance under load
+    private Properties buildConnectionProperties() {
+        Properties props = new Properties();
+        props.setProperty("user", username);
+        props.setProperty("password", password);
+        props.setProperty("useSSL", "false");
+        props.setProperty("allowPublicKeyRetrieval", "true");
+        props.setProperty("serverTimezone", "UTC");
+        props.setProperty("connectTimeout", "5000");
+        props.setProperty("tcpKeepAlive", "true");
+        // Real server-side prepares, so statements cached by the pool skip re-parsing
+        if (SystemConfig.DB_POOL_STATEMENT_CACHE_SIZE > 0) {
+            props.setProperty("useServerPrepStmts", "true");
+        }
+        // Statements that set a fetch size read rows through a server-side cursor in batches
+        props.setProperty("useCursorFetch", "true");
+        return props;
+    }
 }
@@ -0,0 +1,92 @@
+package org.example.persistence.database;
+
+import org.example.core.config.SystemConfig;
+
+/**
+ * Tuning settings for ConnectionPool.
+ * Defaults come from SystemConfig; tests and tools can override them fluently.
+ */
+public class PoolConfig {
+    private int minIdle = SystemConfig.DB_POOL_MIN_IDLE;
+    private int maxSize = SystemConfig.DB_POOL_MAX_SIZE;
+    private long borrowTimeoutMillis = SystemConfig.DB_POOL_BORROW_TIMEOUT_MS;
+    private long idleTimeoutMillis = SystemConfig.DB_POOL_IDLE_TIMEOUT_MS;
+    private long validationBypassMillis = SystemConfig.DB_POOL_VALIDATION_BYPASS_MS;
+    private int validationTimeoutSeconds = SystemConfig.DB_POOL_VALIDATION_TIMEOUT_SECONDS;
+    private long housekeepingIntervalMillis = SystemConfig.DB_POOL_HOUSEKEEPING_INTERVAL_MS;
+    private long leakDetectionThresholdMillis = SystemConfig.DB_POOL_LEAK_DETECTION_THRESHOLD_MS;
+    private long abandonedTimeoutMillis = SystemConfig.DB_POOL_ABANDONED_TIMEOUT_MS;
+    private long leakCheckIntervalMillis = SystemConfig.DB_POOL_LEAK_CHECK_INTERVAL_MS;
+    private int statementCacheSize = SystemConfig.DB_POOL_STATEMENT_CACHE_SIZE;
+
+    public PoolConfig withMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+        return this;
+    }
+
+    public PoolConfig withMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public PoolConfig withBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        return this;
+    }
+
+    public PoolConfig withIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        return this;
+    }
+
+    public PoolConfig withValidationBypassMillis(long validationBypassMillis) {
+        this.validationBypassMillis = validationBypassMillis;
+        return this;
+    }
+
+    public PoolConfig withValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        return this;
+    }
+
+    public PoolConfig withHousekeepingIntervalMillis(long housekeepingIntervalMillis) {
+        this.housekeepingIntervalMillis = housekeepingIntervalMillis;
+        return this;
+    }
+
+    // 0 disables leak warnings
+    public PoolConfig withLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) {
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        return this;
+    }
+
+    // 0 disables forced reclaiming of abandoned connections
+    public PoolConfig withAbandonedTimeoutMillis(long abandonedTimeoutMillis) {
+        this.abandonedTimeoutMillis = abandonedTimeoutMillis;
+        return this;
+    }
+
+    public PoolConfig withLeakCheckIntervalMillis(long leakCheckIntervalMillis) {
+        this.leakCheckIntervalMillis = leakCheckIntervalMillis;
+        return this;
+    }
+
+    // 0 disables prepared statement caching
+    public PoolConfig withStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    // Getters
+    public int getMinIdle() { return minIdle; }
+    public int getMaxSize() { return maxSize; }
+    public long getBorrowTimeoutMillis() { return borrowTimeoutMillis; }
+    public long getIdleTimeoutMillis() { return idleTimeoutMillis; }
+    public long getValidationBypassMillis() { return validationBypassMillis; }
+    public int getValidationTimeoutSeconds() { return validationTimeoutSeconds; }
+    public long getHousekeepingIntervalMillis() { return housekeepingIntervalMillis; }
+    public long getLeakDetectionThresholdMillis() { return leakDetectionThresholdMillis; }
+    public long getAbandonedTimeoutMillis() { return abandonedTimeoutMillis; }
+    public long getLeakCheckIntervalMillis() { return leakCheckIntervalMillis; }
+    public int getStatementCacheSize() { return statementCacheSize; }
+}
@@ -0,0 +1,238 @@
+package org.example.persistence.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements belonging to one physical pooled connection.
+ * Callers get a proxy whose close() puts the statement back in the cache, so the
+ * same SQL text is prepared once per connection and reused across borrows.
+ * Fetch size, row limit and query timeout set by one borrower are put back to the
+ * driver defaults on check-in, so they do not carry over to the next.
+ */
+class StatementCache {
+    private final int maxSize;
+    private final AtomicLong hitCounter;
+    private final AtomicLong missCounter;
+    private final AtomicLong evictionCounter;
+
+    // Access-ordered so the least recently used statement is evicted first
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(int maxSize, AtomicLong hitCounter, AtomicLong missCounter, AtomicLong evictionCounter) {
+        this.maxSize = maxSize;
+        this.hitCounter = hitCounter;
+        this.missCounter = missCounter;
+        this.evictionCounter = evictionCounter;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    eldest.getValue().evict();
+                    evictionCounter.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Prepare (or reuse) a statement for the given SQL.
+     * Returns null when the cached statement for this SQL is already in use
+     * by the current borrower; the caller should then prepare an uncached one.
+     */
+    synchronized PreparedStatement prepare(Connection physical, Connection owner, String sql,
+                                           int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys + ":" + sql;
+        CachedStatement cached = statements.get(key);
+        if (cached != null) {
+            if (cached.inUse) {
+                missCounter.incrementAndGet();
+                return null;
+            }
+            hitCounter.incrementAndGet();
+            return cached.checkOut(owner);
+        }
+
+        missCounter.incrementAndGet();
+        PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        cached = new CachedStatement(statement);
+        statements.put(key, cached);
+        return cached.checkOut(owner);
+    }
+
+    /**
+     * A physical prepared statement. Each checkout gets its own lease proxy so a
+     * caller holding on to a closed statement cannot affect the next borrower.
+     */
+    private static final class CachedStatement {
+        private final PreparedStatement physical;
+        // Settings as prepared, restored on check-in
+        private final int defaultFetchSize;
+        private final long defaultMaxRows;
+        private final int defaultQueryTimeout;
+        // Result sets opened during the current checkout, closed with the statement
+        private final List<ResultSet> openResultSets = new ArrayList<>();
+        private Lease currentLease;
+        private boolean inUse;
+        private boolean evicted;
+        private boolean settingsChanged;
+
+        private CachedStatement(PreparedStatement physical) throws SQLException {
+            this.physical = physical;
+            this.defaultFetchSize = physical.getFetchSize();
+            this.defaultMaxRows = physical.getLargeMaxRows();
+            this.defaultQueryTimeout = physical.getQueryTimeout();
+        }
+
+        private synchronized PreparedStatement checkOut(Connection owner) {
+            inUse = true;
+            currentLease = new Lease(this, owner);
+            return currentLease.proxy;
+        }
+
+        private synchronized boolean isCurrent(Lease lease) {
+            return inUse && currentLease == lease;
+        }
+
+        // Logical close: reset the statement and make it available for the next caller
+        private synchronized void checkIn(Lease lease) {
+            if (!isCurrent(lease)) {
+                return;
+            }
+            inUse = false;
+            currentLease = null;
+            for (ResultSet resultSet : openResultSets) {
+                try {
+                    resultSet.close();
+                } catch (SQLException e) {
+                    // Result set is discarded either way
+                }
+            }
+            openResultSets.clear();
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.clearWarnings();
+                if (settingsChanged) {
+                    physical.setFetchSize(defaultFetchSize);
+                    physical.setLargeMaxRows(defaultMaxRows);
+                    physical.setQueryTimeout(defaultQueryTimeout);
+                    settingsChanged = false;
+                }
+            } catch (SQLException e) {
+                evicted = true;
+                closePhysical();
+            }
+        }
+
+        // Dropped from the cache; close now unless a borrower still holds it
+        private synchronized void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private synchronized void trackResultSet(ResultSet resultSet) {
+            openResultSets.add(resultSet);
+        }
+
+        private synchronized void markSettingsChanged() {
+            settingsChanged = true;
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close cached statement: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Borrower-facing view of a cached statement for a single checkout
+     */
+    private static final class Lease implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private final PreparedStatement proxy;
+
+        private Lease(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    cached.checkIn(this);
+                    return null;
+                case "isClosed":
+                    return !cached.isCurrent(this) || cached.physical.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.physical + "]";
+                case "setFetchSize":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setQueryTimeout":
+                    if (cached.isCurrent(this)) {
+                        cached.markSettingsChanged();
+                    }
+                    break;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(cached.physical)) {
+                        return cached.physical;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (!cached.isCurrent(this)) {
+                throw new SQLException("Statement has already been closed");
+            }
+            Object result;
+            try {
+                result = method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet) {
+                cached.trackResultSet((ResultSet) result);
+            }
+            return result;
+        }
+    }
+}
@@ -30,6 +30,113 @@ public class BillGateway {
 
     public void insert(BillDTO bill) throws SQLException, ClassNotFoundException {
         Connection connection = dbConnection.connect();
+        try {
+            insert(connection, bill);
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    public void insertBillItems(List<BillItemDTO> billItems) throws SQLException, ClassNotFoundException {
+        Connection connection = dbConnection.connect();
+        try {
+            insertBillItems(connection, billItems);
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Insert a bill, its items and its sales rollup in one transaction, so a failure
+     * part way leaves neither a bill without items nor a bill missing from the rollup
+     */
+    public void insertWithItems(BillDTO bill) throws SQLException, ClassNotFoundException {
+        Connection connection = dbConnection.connect();
+        try {
+            connection.setAutoCommit(false);
+            insert(connection, bill);
+            for (BillItemDTO item : bill.getBillItems()) {
+                item.setBillId(bill.getId());
+            }
+            insertBillItems(connection, bill.getBillItems());
+            SalesRollupGateway.getInstance().recordBill(connection, bill);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Delete a bill and its items and take it out of the sales rollup in one transaction.
+     * Returns false if there is no such bill.
+     */
+    public boolean delete(int billId) throws SQLException, ClassNotFoundException {
+        Connection connection = dbConnection.connect();
+        try {
+            connection.setAutoCommit(false);
+            BillDTO bill = null;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT fullPrice, discount, billDate, transactionType, storeType FROM bill WHERE id = ? FOR UPDATE")) {
+                statement.setInt(1, billId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        bill = new BillDTO();
+                        bill.setId(billId);
+                        bill.setFullPrice(resultSet.getDouble("fullPrice"));
+                        bill.setDiscount(resultSet.getDouble("discount"));
+                        bill.setBillDate(resultSet.getDate("billDate").toLocalDate());
+                        bill.setTransactionType(resultSet.getString("transactionType"));
+                        bill.setStoreType(resultSet.getString("storeType"));
+                    }
+                }
+            }
+            if (bill == null) {
+                connection.rollback();
+                return false;
+            }
+
+            List<BillItemDTO> items = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT item_id, quantity, totalPrice FROM billItem WHERE bill_id = ?")) {
+                statement.setInt(1, billId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        BillItemDTO item = new BillItemDTO();
+                        item.setBillId(billId);
+                        item.setItemId(resultSet.getInt("item_id"));
+                        item.setQuantity(resultSet.getInt("quantity"));
+                        item.setTotalPrice(resultSet.getDouble("totalPrice"));
+                        items.add(item);
+                    }
+                }
+            }
+            bill.setBillItems(items);
+
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM billItem WHERE bill_id = ?")) {
+                statement.setInt(1, billId);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM bill WHERE id = ?")) {
+                statement.setInt(1, billId);
+                statement.executeUpdate();
+            }
+            SalesRollupGateway.getInstance().removeBill(connection, bill);
+            connection.commit();
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    private void insert(Connection connection, BillDTO bill) throws SQLException {
         String query = "INSERT INTO bill (customer_id, customer_type, invoiceNumber, fullPrice, discount, cashTendered, changeAmount, billDate, transactionType, storeType) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         try (PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
@@ -50,13 +157,10 @@ public class BillGateway {
             if (generatedKeys.next()) {
                 bill.setId(generatedKeys.getInt(1));
             }
-        } finally {
-            dbConnection.closeConnection(connection);
         }
     }
 
-    public void insertBillItems(List<BillItemDTO> billItems) throws SQLException, ClassNotFoundException {
-        Connection connection = dbConnection.connect();
+    private void insertBillItems(Connection connection, List<BillItemDTO> billItems) throws SQLException {
         String query = "INSERT INTO billItem (item_id, bill_id, quantity, itemPrice, totalPrice) VALUES (?, ?, ?, ?, ?)";
 
         try (PreparedStatement statement = connection.prepareStatement(query)) {
@@ -69,26 +173,11 @@ public class BillGateway {
                 statement.addBatch();
             }
             statement.executeBatch();
-        } finally {
-            dbConnection.closeConnection(connection);
         }
     }
 
     public String generateInvoiceNumberDB() throws SQLException, ClassNotFoundException {
-        Connection connection = dbConnection.connect();
-        String query = "SELECT IFNULL(MAX(CAST(invoiceNumber AS UNSIGNED)), 0) + 1 AS nextSerial FROM bill WHERE invoiceNumber REGEXP '^[0-9]+$'";
-
-        try (PreparedStatement statement = connection.prepareStatement(query);
-                ResultSet resultSet = statement.executeQuery()) {
-
-            if (resultSet.next()) {
-                return String.valueOf(resultSet.getInt("nextSerial"));
-            }
-        } finally {
-            dbConnection.closeConnection(connection);
-        }
-
-        return "1";
+        return InvoiceSequence.getInstance().nextInvoiceNumber();
     }
 
     public List<BillDTO> findByDateRange(String startDate, String endDate) throws SQLException, ClassNotFoundException {
@@ -228,7 +317,11 @@ public class BillGateway {
      * Generate unique invoice number
      */
     public String generateInvoiceNumber() {
-        return "INV-" + String.format("%06d", System.currentTimeMillis() % 1000000);
+        try {
+            return InvoiceSequence.getInstance().nextInvoiceNumber();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to allocate invoice number", e);
+        }
     }
 
     /**
@@ -0,0 +1,491 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+import org.example.persistence.database.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saved shopping carts, kept in memory and written behind to the cart and cart_item
+ * tables.
+ *
+ * Saves only replace the in-memory cart and mark it dirty. A background thread flushes
+ * dirty carts every SystemConfig.CART_FLUSH_INTERVAL_MS, writing each cart's latest
+ * contents once in a single batched transaction, so a burst of add/remove clicks on one
+ * cart costs one write per interval. Carts not in memory, e.g. after a restart, are
+ * loaded from the database on first access. Clean carts untouched for
+ * CART_CACHE_TTL_MS are dropped from memory after a flush.
+ *
+ * Carts not saved for SystemConfig.CART_ABANDONED_TTL_MS are abandoned: at most once
+ * per CART_PURGE_INTERVAL_MS the flush thread deletes them from memory and from both
+ * tables, so carts that were never checked out do not pile up.
+ *
+ * Saves made since the last flush are lost if the process dies; stop() flushes them on
+ * an orderly shutdown.
+ */
+public class CartStore {
+    private static CartStore instance;
+    private static final Object lock = new Object();
+
+    private final DatabaseConnection dbConnection;
+    private final long cacheTtlMillis;
+    private final long abandonedTtlMillis;
+    private long lastPurgeMillis;
+
+    // Working set, and the carts changed or deleted since the last flush
+    private final ConcurrentHashMap<String, Cart> carts = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService executor;
+
+    // Statistics
+    private final AtomicLong saveCount = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong purgedCount = new AtomicLong();
+
+    private CartStore() {
+        this(DatabaseConnection.getInstance(), SystemConfig.CART_CACHE_TTL_MS, SystemConfig.CART_ABANDONED_TTL_MS);
+    }
+
+    // Visible for tests
+    CartStore(DatabaseConnection dbConnection, long cacheTtlMillis, long abandonedTtlMillis) {
+        this.dbConnection = dbConnection;
+        this.cacheTtlMillis = cacheTtlMillis;
+        this.abandonedTtlMillis = abandonedTtlMillis;
+    }
+
+    public static CartStore getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new CartStore();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Start flushing in the background; does nothing if already running
+     */
+    public synchronized void start(long flushIntervalMillis) {
+        if (executor != null) {
+            return;
+        }
+        try {
+            ensureTables();
+        } catch (Exception e) {
+            System.err.println("Cart store: could not create cart tables: " + e.getMessage());
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "syos-cart-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runFlush, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        System.out.println("Cart store started (flush every " + flushIntervalMillis + "ms)");
+    }
+
+    /**
+     * Stop the background thread and write out anything still pending
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        runFlush();
+    }
+
+    public String newCartId() {
+        return "CART_" + UUID.randomUUID();
+    }
+
+    /**
+     * Replace a cart's contents; written to the database on the next flush
+     */
+    public Cart save(String cartId, int customerId, List<CartLine> lines) {
+        return save(cartId, customerId, lines, 0);
+    }
+
+    /**
+     * Replace a cart's contents unless a save with the same or a later client revision
+     * already replaced them; returns null for such a stale save. Revision 0 always saves.
+     */
+    public Cart save(String cartId, int customerId, List<CartLine> lines, long revision) {
+        // One row per item code; repeated lines are added together
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            quantities.merge(line.getItemCode(), line.getQuantity(), Integer::sum);
+        }
+        List<CartLine> merged = new ArrayList<>(quantities.size());
+        quantities.forEach((itemCode, quantity) -> merged.add(new CartLine(itemCode, quantity)));
+
+        Cart cart = new Cart(cartId, customerId, merged, System.currentTimeMillis(), revision);
+        Cart current = carts.compute(cartId, (id, existing) ->
+                revision > 0 && existing != null && existing.getRevision() >= revision ? existing : cart);
+        if (current != cart) {
+            return null;
+        }
+        deleted.remove(cartId);
+        dirty.add(cartId);
+        saveCount.incrementAndGet();
+        return cart;
+    }
+
+    /**
+     * The cart with this id, from memory or else the database; null if there is none
+     */
+    public Cart get(String cartId) throws SQLException, ClassNotFoundException {
+        Cart cart = carts.get(cartId);
+        if (cart != null) {
+            hitCount.incrementAndGet();
+            cart.lastAccessMillis = System.currentTimeMillis();
+            return cart;
+        }
+        if (deleted.contains(cartId)) {
+            return null;
+        }
+        Cart loaded = load(cartId);
+        if (loaded == null) {
+            return null;
+        }
+        // A save that raced with the load wins
+        Cart existing = carts.putIfAbsent(cartId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    public void delete(String cartId) {
+        carts.remove(cartId);
+        dirty.remove(cartId);
+        deleted.add(cartId);
+    }
+
+    /**
+     * Write every cart changed since the last flush in one transaction.
+     * Returns the number of carts written or deleted.
+     */
+    public synchronized int flush() throws SQLException, ClassNotFoundException {
+        List<String> deletedIds = drain(deleted);
+        List<Cart> changed = new ArrayList<>();
+        for (String cartId : drain(dirty)) {
+            // Latest contents; a cart deleted meanwhile is skipped
+            Cart cart = carts.get(cartId);
+            if (cart != null) {
+                changed.add(cart);
+            }
+        }
+        if (deletedIds.isEmpty() && changed.isEmpty()) {
+            return 0;
+        }
+
+        Connection connection = dbConnection.connect();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement clearItems = connection.prepareStatement(
+                         "DELETE FROM cart_item WHERE cart_id = ?");
+                 PreparedStatement deleteCart = connection.prepareStatement(
+                         "DELETE FROM cart WHERE id = ?");
+                 PreparedStatement upsertCart = connection.prepareStatement(
+                         "INSERT INTO cart (id, customer_id, updated_at) VALUES (?, ?, ?) " +
+                         "ON DUPLICATE KEY UPDATE customer_id = VALUES(customer_id), updated_at = VALUES(updated_at)");
+                 PreparedStatement insertItem = connection.prepareStatement(
+                         "INSERT INTO cart_item (cart_id, item_code, quantity) VALUES (?, ?, ?)")) {
+
+                for (String cartId : deletedIds) {
+                    clearItems.setString(1, cartId);
+                    clearItems.addBatch();
+                    deleteCart.setString(1, cartId);
+                    deleteCart.addBatch();
+                }
+                for (Cart cart : changed) {
+                    clearItems.setString(1, cart.getCartId());
+                    clearItems.addBatch();
+                    upsertCart.setString(1, cart.getCartId());
+                    upsertCart.setInt(2, cart.getCustomerId());
+                    upsertCart.setTimestamp(3, new Timestamp(cart.getUpdatedMillis()));
+                    upsertCart.addBatch();
+                    for (CartLine line : cart.getLines()) {
+                        insertItem.setString(1, cart.getCartId());
+                        insertItem.setString(2, line.getItemCode());
+                        insertItem.setInt(3, line.getQuantity());
+                        insertItem.addBatch();
+                    }
+                }
+
+                clearItems.executeBatch();
+                if (!deletedIds.isEmpty()) {
+                    deleteCart.executeBatch();
+                }
+                if (!changed.isEmpty()) {
+                    upsertCart.executeBatch();
+                    insertItem.executeBatch();
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            // Put everything back so the next flush retries it
+            deleted.addAll(deletedIds);
+            for (Cart cart : changed) {
+                dirty.add(cart.getCartId());
+            }
+            failedFlushCount.incrementAndGet();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            dbConnection.closeConnection(connection);
+        }
+
+        flushCount.incrementAndGet();
+        writtenCount.addAndGet(deletedIds.size() + changed.size());
+        evictIdle();
+        return deletedIds.size() + changed.size();
+    }
+
+    /**
+     * Delete carts not saved within the abandoned-cart TTL, from memory and the database.
+     * Returns the number of carts deleted from the database.
+     */
+    public synchronized int purgeAbandoned() throws SQLException, ClassNotFoundException {
+        long cutoff = System.currentTimeMillis() - abandonedTtlMillis;
+        for (Map.Entry<String, Cart> entry : carts.entrySet()) {
+            // A cart saved since is a new Cart object and stays
+            if (entry.getValue().getUpdatedMillis() < cutoff && !dirty.contains(entry.getKey())) {
+                carts.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        Connection connection = dbConnection.connect();
+        try {
+            connection.setAutoCommit(false);
+            int purged;
+            try (PreparedStatement clearItems = connection.prepareStatement(
+                         "DELETE FROM cart_item WHERE cart_id IN (SELECT id FROM cart WHERE updated_at < ?)");
+                 PreparedStatement deleteCarts = connection.prepareStatement(
+                         "DELETE FROM cart WHERE updated_at < ?")) {
+                Timestamp cutoffTime = new Timestamp(cutoff);
+                clearItems.setTimestamp(1, cutoffTime);
+                clearItems.executeUpdate();
+                deleteCarts.setTimestamp(1, cutoffTime);
+                purged = deleteCarts.executeUpdate();
+            }
+            connection.commit();
+            purgedCount.addAndGet(purged);
+            return purged;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    private void runFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Cart store: flush failed, will retry: " + e.getMessage());
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastPurgeMillis < SystemConfig.CART_PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurgeMillis = now;
+        try {
+            int purged = purgeAbandoned();
+            if (purged > 0) {
+                System.out.println("Cart store: deleted " + purged + " abandoned carts");
+            }
+        } catch (Exception e) {
+            System.err.println("Cart store: could not delete abandoned carts: " + e.getMessage());
+        }
+    }
+
+    private static List<String> drain(Set<String> ids) {
+        List<String> drained = new ArrayList<>();
+        for (String id : ids) {
+            if (ids.remove(id)) {
+                drained.add(id);
+            }
+        }
+        return drained;
+    }
+
+    // Drop clean carts nobody has looked at for a while; they reload from the database
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - cacheTtlMillis;
+        for (Map.Entry<String, Cart> entry : carts.entrySet()) {
+            if (entry.getValue().lastAccessMillis < cutoff && !dirty.contains(entry.getKey())) {
+                carts.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private Cart load(String cartId) throws SQLException, ClassNotFoundException {
+        String query = """
+            SELECT c.customer_id, c.updated_at, ci.item_code, ci.quantity
+            FROM cart c
+            LEFT JOIN cart_item ci ON ci.cart_id = c.id
+            WHERE c.id = ?
+            """;
+        Connection connection = dbConnection.connect();
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, cartId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                Integer customerId = null;
+                long updatedMillis = 0;
+                List<CartLine> lines = new ArrayList<>();
+                while (resultSet.next()) {
+                    customerId = resultSet.getInt("customer_id");
+                    Timestamp updatedAt = resultSet.getTimestamp("updated_at");
+                    updatedMillis = updatedAt != null ? updatedAt.getTime() : 0;
+                    String itemCode = resultSet.getString("item_code");
+                    if (itemCode != null) {
+                        lines.add(new CartLine(itemCode, resultSet.getInt("quantity")));
+                    }
+                }
+                loadCount.incrementAndGet();
+                return customerId == null ? null : new Cart(cartId, customerId, lines, updatedMillis, 0);
+            }
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    private void ensureTables() throws SQLException, ClassNotFoundException {
+        String cartDdl = """
+            CREATE TABLE IF NOT EXISTS cart (
+                id VARCHAR(64) PRIMARY KEY,
+                customer_id INT NOT NULL DEFAULT 0,
+                updated_at TIMESTAMP NOT NULL,
+                INDEX idx_cart_updated (updated_at)
+            )
+            """;
+        String cartItemDdl = """
+            CREATE TABLE IF NOT EXISTS cart_item (
+                cart_id VARCHAR(64) NOT NULL,
+                item_code VARCHAR(50) NOT NULL,
+                quantity INT NOT NULL,
+                PRIMARY KEY (cart_id, item_code)
+            )
+            """;
+        Connection connection = dbConnection.connect();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(cartDdl);
+            statement.execute(cartItemDdl);
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    public CartStoreStats getStats() {
+        return new CartStoreStats(carts.size(), dirty.size(), saveCount.get(), hitCount.get(), loadCount.get(),
+                flushCount.get(), writtenCount.get(), failedFlushCount.get(), purgedCount.get());
+    }
+
+    /**
+     * A saved cart; lines are immutable, a save replaces the whole cart. The revision is
+     * the client's save counter, kept in memory only; a cart read from the database has 0.
+     */
+    public static class Cart {
+        private final String cartId;
+        private final int customerId;
+        private final List<CartLine> lines;
+        private final long updatedMillis;
+        private final long revision;
+        private volatile long lastAccessMillis;
+
+        public Cart(String cartId, int customerId, List<CartLine> lines, long updatedMillis, long revision) {
+            this.cartId = cartId;
+            this.customerId = customerId;
+            this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+            this.updatedMillis = updatedMillis;
+            this.revision = revision;
+            this.lastAccessMillis = System.currentTimeMillis();
+        }
+
+        // Getters
+        public String getCartId() { return cartId; }
+        public int getCustomerId() { return customerId; }
+        public List<CartLine> getLines() { return lines; }
+        public long getUpdatedMillis() { return updatedMillis; }
+        public long getRevision() { return revision; }
+    }
+
+    public static class CartLine {
+        private final String itemCode;
+        private final int quantity;
+
+        public CartLine(String itemCode, int quantity) {
+            this.itemCode = itemCode;
+            this.quantity = quantity;
+        }
+
+        // Getters
+        public String getItemCode() { return itemCode; }
+        public int getQuantity() { return quantity; }
+    }
+
+    public static class CartStoreStats {
+        private final int cachedCarts;
+        private final int dirtyCarts;
+        private final long saveCount;
+        private final long hitCount;
+        private final long loadCount;
+        private final long flushCount;
+        private final long writtenCount;
+        private final long failedFlushCount;
+        private final long purgedCount;
+
+        public CartStoreStats(int cachedCarts, int dirtyCarts, long saveCount, long hitCount, long loadCount,
+                              long flushCount, long writtenCount, long failedFlushCount, long purgedCount) {
+            this.cachedCarts = cachedCarts;
+            this.dirtyCarts = dirtyCarts;
+            this.saveCount = saveCount;
+            this.hitCount = hitCount;
+            this.loadCount = loadCount;
+            this.flushCount = flushCount;
+            this.writtenCount = writtenCount;
+            this.failedFlushCount = failedFlushCount;
+            this.purgedCount = purgedCount;
+        }
+
+        // Getters
+        public int getCachedCarts() { return cachedCarts; }
+        public int getDirtyCarts() { return dirtyCarts; }
+        public long getSaveCount() { return saveCount; }
+        public long getHitCount() { return hitCount; }
+        public long getLoadCount() { return loadCount; }
+        public long getFlushCount() { return flushCount; }
+        public long getWrittenCount() { return writtenCount; }
+        public long getFailedFlushCount() { return failedFlushCount; }
+        public long getPurgedCount() { return purgedCount; }
+    }
+}
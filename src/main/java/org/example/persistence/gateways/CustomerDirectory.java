@@ -0,0 +1,386 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.models.Customer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory directory of in-store and online customers.
+ *
+ * Both tables are keyed by phone number, so checkout can identify a customer with one
+ * map lookup whichever table they registered in. The preferred table is tried first:
+ * in-store sales prefer the customers row and online orders the online_customers row,
+ * matching the order the sales servlets used to query them in. Online orders also
+ * accept an in-store customer id when a short numeric identifier matches no phone, as
+ * the online checkout always did; in-store sales match phone numbers only.
+ *
+ * In-store customers are also indexed by the start of each word of their name and by
+ * the start of their phone number, which serves the POS customer search.
+ *
+ * Both tables are loaded on first use. Registration code calls registered() after its
+ * insert commits; a phone or id that is still not found is read from the database once
+ * and added, so customers created by other means are picked up on their first checkout.
+ */
+public class CustomerDirectory {
+    private static CustomerDirectory instance;
+    private static final Object lock = new Object();
+    private final DatabaseConnection dbConnection;
+
+    private static final Comparator<Entry> BY_NAME = Comparator
+            .comparing((Entry e) -> e.lowerName)
+            .thenComparingInt(e -> e.id);
+
+    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Map<String, Entry> storeByPhone = new HashMap<>();
+    private final Map<String, Entry> onlineByPhone = new HashMap<>();
+    private final Map<Integer, Entry> storeById = new HashMap<>();
+    // Name words and phone numbers of in-store customers, for prefix search
+    private final NavigableMap<String, Set<Integer>> prefixIndex = new TreeMap<>();
+    private volatile boolean loaded;
+
+    // Statistics
+    private final AtomicLong lookupCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong searchCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private CustomerDirectory() {
+        this(DatabaseConnection.getInstance());
+    }
+
+    // Visible for tests
+    CustomerDirectory(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+
+    public static CustomerDirectory getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new CustomerDirectory();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Customer for a phone number (or, when preferOnline, an in-store customer id), or null if there is none
+     */
+    public Customer identify(String identifier, boolean preferOnline) throws SQLException, ClassNotFoundException {
+        String key = identifier == null ? "" : identifier.trim();
+        if (key.isEmpty()) {
+            return null;
+        }
+        ensureLoaded();
+        lookupCount.incrementAndGet();
+
+        Entry entry = find(key, preferOnline);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            loadMissing(key, preferOnline && isCustomerId(key));
+            entry = find(key, preferOnline);
+        }
+        return entry == null ? null : entry.toCustomer();
+    }
+
+    private Entry find(String key, boolean preferOnline) {
+        rwLock.readLock().lock();
+        try {
+            Map<String, Entry> first = preferOnline ? onlineByPhone : storeByPhone;
+            Map<String, Entry> second = preferOnline ? storeByPhone : onlineByPhone;
+            Entry entry = first.get(key);
+            if (entry == null) {
+                entry = second.get(key);
+            }
+            if (entry == null && preferOnline && isCustomerId(key)) {
+                entry = storeById.get(Integer.parseInt(key));
+            }
+            return entry;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * In-store customers with a name word or phone number starting with the term, by name
+     */
+    public List<Customer> search(String term, int limit) throws SQLException, ClassNotFoundException {
+        List<Customer> results = new ArrayList<>();
+        String prefix = normalize(term);
+        if (prefix.isEmpty() || limit <= 0) {
+            return results;
+        }
+        ensureLoaded();
+        searchCount.incrementAndGet();
+
+        rwLock.readLock().lock();
+        try {
+            Set<Integer> ids = new HashSet<>();
+            for (Set<Integer> matches : prefixIndex.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                ids.addAll(matches);
+            }
+            List<Entry> entries = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                entries.add(storeById.get(id));
+            }
+            entries.sort(BY_NAME);
+            for (Entry entry : entries.subList(0, Math.min(limit, entries.size()))) {
+                results.add(entry.toCustomer());
+            }
+            return results;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add a customer after their registration was committed
+     */
+    public void registered(Customer customer, boolean online) {
+        if (customer.getId() <= 0 || customer.getcontactNumber() == null) {
+            return;
+        }
+        if (!loaded) {
+            // The first lookup loads the committed row
+            return;
+        }
+        rwLock.writeLock().lock();
+        try {
+            addEntry(new Entry(customer.getId(), customer.getName(), customer.getcontactNumber(),
+                    customer.getEmail(), customer.getAddress(), online));
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        loaded = false;
+    }
+
+    private void ensureLoaded() throws SQLException, ClassNotFoundException {
+        if (!loaded) {
+            loadAll();
+        }
+    }
+
+    private void loadAll() throws SQLException, ClassNotFoundException {
+        List<Entry> rows = new ArrayList<>();
+        Connection connection = dbConnection.connect();
+        try {
+            readRows(connection, "SELECT id, name, contactNumber FROM customers", null, false, rows);
+            readRows(connection, "SELECT id, name, contactNumber, email, address FROM online_customers", null, true,
+                    rows);
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+
+        rwLock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            storeByPhone.clear();
+            onlineByPhone.clear();
+            storeById.clear();
+            prefixIndex.clear();
+            for (Entry entry : rows) {
+                addEntry(entry);
+            }
+            loaded = true;
+            loadCount.incrementAndGet();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    // Picks up a customer registered without going through registered()
+    private void loadMissing(String key, boolean byId) throws SQLException, ClassNotFoundException {
+        List<Entry> rows = new ArrayList<>();
+        Connection connection = dbConnection.connect();
+        try {
+            readRows(connection, "SELECT id, name, contactNumber FROM customers WHERE contactNumber = ?", key,
+                    false, rows);
+            readRows(connection,
+                    "SELECT id, name, contactNumber, email, address FROM online_customers WHERE contactNumber = ?",
+                    key, true, rows);
+            if (byId && rows.isEmpty()) {
+                readRows(connection, "SELECT id, name, contactNumber FROM customers WHERE id = ?",
+                        Integer.parseInt(key), false, rows);
+            }
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        rwLock.writeLock().lock();
+        try {
+            for (Entry entry : rows) {
+                addEntry(entry);
+            }
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private static void readRows(Connection connection, String sql, Object parameter, boolean online,
+                                 List<Entry> rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setObject(1, parameter);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(new Entry(resultSet.getInt("id"), resultSet.getString("name"),
+                            resultSet.getString("contactNumber"),
+                            online ? resultSet.getString("email") : null,
+                            online ? resultSet.getString("address") : null,
+                            online));
+                }
+            }
+        }
+    }
+
+    // Callers hold the write lock
+    private void addEntry(Entry entry) {
+        if (entry.phone.isEmpty()) {
+            return;
+        }
+        if (entry.online) {
+            onlineByPhone.put(entry.phone, entry);
+            return;
+        }
+        Entry previous = storeById.put(entry.id, entry);
+        if (previous != null) {
+            storeByPhone.remove(previous.phone);
+            for (String key : previous.keys()) {
+                Set<Integer> ids = prefixIndex.get(key);
+                if (ids != null) {
+                    ids.remove(previous.id);
+                    if (ids.isEmpty()) {
+                        prefixIndex.remove(key);
+                    }
+                }
+            }
+        }
+        storeByPhone.put(entry.phone, entry);
+        for (String key : entry.keys()) {
+            prefixIndex.computeIfAbsent(key, k -> new HashSet<>()).add(entry.id);
+        }
+    }
+
+    // Short enough to be an id rather than a phone number, and to fit an int
+    private static boolean isCustomerId(String text) {
+        if (text.length() >= 10) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public DirectoryStats getStats() {
+        rwLock.readLock().lock();
+        try {
+            return new DirectoryStats(storeByPhone.size(), onlineByPhone.size(), loaded, lookupCount.get(),
+                    missCount.get(), searchCount.get(), loadCount.get());
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final int id;
+        private final String name;
+        private final String phone;
+        private final String email;
+        private final String address;
+        private final boolean online;
+        private final String lowerName;
+
+        private Entry(int id, String name, String phone, String email, String address, boolean online) {
+            this.id = id;
+            this.name = name;
+            this.phone = phone == null ? "" : phone.trim();
+            this.email = email;
+            this.address = address;
+            this.online = online;
+            this.lowerName = normalize(name);
+        }
+
+        // Prefix index keys: each word of the name and the phone number
+        private Set<String> keys() {
+            Set<String> keys = new LinkedHashSet<>();
+            for (String word : lowerName.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    keys.add(word);
+                }
+            }
+            keys.add(phone);
+            return keys;
+        }
+
+        // A fresh copy, since Customer is mutable
+        private Customer toCustomer() {
+            Customer customer = new Customer(name, phone, email, address);
+            customer.setId(id);
+            return customer;
+        }
+    }
+
+    public static class DirectoryStats {
+        private final int storeCustomers;
+        private final int onlineCustomers;
+        private final boolean loaded;
+        private final long lookupCount;
+        private final long missCount;
+        private final long searchCount;
+        private final long loadCount;
+
+        public DirectoryStats(int storeCustomers, int onlineCustomers, boolean loaded, long lookupCount,
+                              long missCount, long searchCount, long loadCount) {
+            this.storeCustomers = storeCustomers;
+            this.onlineCustomers = onlineCustomers;
+            this.loaded = loaded;
+            this.lookupCount = lookupCount;
+            this.missCount = missCount;
+            this.searchCount = searchCount;
+            this.loadCount = loadCount;
+        }
+
+        // Getters
+        public int getStoreCustomers() { return storeCustomers; }
+        public int getOnlineCustomers() { return onlineCustomers; }
+        public boolean isLoaded() { return loaded; }
+        public long getLookupCount() { return lookupCount; }
+        public long getMissCount() { return missCount; }
+        public long getSearchCount() { return searchCount; }
+        public long getLoadCount() { return loadCount; }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+import org.example.persistence.database.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory snapshot of the discount_codes table, keyed by upper-cased code.
+ *
+ * Lookups read a volatile reference to an immutable snapshot, so validating a code is
+ * one hash lookup with no lock and no database call. A refresh reads the whole table
+ * and swaps in a new snapshot; readers see either the old codes or the new ones,
+ * never a mix.
+ *
+ * The servlets that create, update or delete codes call refresh() after each write.
+ * A snapshot older than SystemConfig.DISCOUNT_CODE_MAX_AGE_MS is reloaded on the next
+ * lookup, which picks up codes changed directly in the database.
+ */
+public class DiscountCodeCache {
+    private static DiscountCodeCache instance;
+    private static final Object lock = new Object();
+    private final DatabaseConnection dbConnection;
+    private final long maxAgeMillis;
+
+    private volatile Snapshot snapshot;
+
+    // Statistics
+    private final AtomicLong lookupCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private DiscountCodeCache() {
+        this(DatabaseConnection.getInstance(), SystemConfig.DISCOUNT_CODE_MAX_AGE_MS);
+    }
+
+    // Visible for tests
+    DiscountCodeCache(DatabaseConnection dbConnection, long maxAgeMillis) {
+        this.dbConnection = dbConnection;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public static DiscountCodeCache getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new DiscountCodeCache();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The discount code matching the given code in any case, or null if there is none
+     */
+    public DiscountCode find(String code) throws SQLException, ClassNotFoundException {
+        String key = normalize(code);
+        if (key.isEmpty()) {
+            return null;
+        }
+        lookupCount.incrementAndGet();
+
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.loadedAt > maxAgeMillis) {
+            current = reload(current, false);
+        }
+        return current.codes.get(key);
+    }
+
+    /**
+     * Reload after a write. A failed reload drops the snapshot so the next lookup retries
+     * instead of serving codes that are known to be out of date.
+     */
+    public boolean refresh() {
+        try {
+            reload(snapshot, true);
+            return true;
+        } catch (SQLException | ClassNotFoundException e) {
+            snapshot = null;
+            System.err.println("Failed to refresh discount codes: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Reloads run one at a time, so the snapshot left in place is from the latest read
+    private synchronized Snapshot reload(Snapshot seen, boolean force) throws SQLException, ClassNotFoundException {
+        Snapshot current = snapshot;
+        if (!force && current != null && current != seen) {
+            // Another thread reloaded while this one waited
+            return current;
+        }
+
+        Map<String, DiscountCode> codes = new HashMap<>();
+        Connection connection = dbConnection.connect();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, code, discount_value FROM discount_codes");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                DiscountCode discountCode = new DiscountCode(resultSet.getInt("id"), resultSet.getString("code"),
+                        resultSet.getDouble("discount_value"));
+                codes.put(normalize(discountCode.getCode()), discountCode);
+            }
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+
+        Snapshot loaded = new Snapshot(Collections.unmodifiableMap(codes), System.currentTimeMillis());
+        snapshot = loaded;
+        loadCount.incrementAndGet();
+        return loaded;
+    }
+
+    private static String normalize(String code) {
+        return code == null ? "" : code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    public CacheStats getStats() {
+        Snapshot current = snapshot;
+        return new CacheStats(current == null ? 0 : current.codes.size(), current != null, lookupCount.get(),
+                loadCount.get());
+    }
+
+    private static final class Snapshot {
+        private final Map<String, DiscountCode> codes;
+        private final long loadedAt;
+
+        private Snapshot(Map<String, DiscountCode> codes, long loadedAt) {
+            this.codes = codes;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    public static class DiscountCode {
+        private final int id;
+        private final String code;
+        private final double discountValue;
+
+        public DiscountCode(int id, String code, double discountValue) {
+            this.id = id;
+            this.code = code;
+            this.discountValue = discountValue;
+        }
+
+        // Getters
+        public int getId() { return id; }
+        public String getCode() { return code; }
+        public double getDiscountValue() { return discountValue; }
+    }
+
+    public static class CacheStats {
+        private final int codeCount;
+        private final boolean loaded;
+        private final long lookupCount;
+        private final long loadCount;
+
+        public CacheStats(int codeCount, boolean loaded, long lookupCount, long loadCount) {
+            this.codeCount = codeCount;
+            this.loaded = loaded;
+            this.lookupCount = lookupCount;
+            this.loadCount = loadCount;
+        }
+
+        // Getters
+        public int getCodeCount() { return codeCount; }
+        public boolean isLoaded() { return loaded; }
+        public long getLookupCount() { return lookupCount; }
+        public long getLoadCount() { return loadCount; }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+import org.example.persistence.database.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates invoice numbers (INV-00001, INV-00002, ...) without scanning the bill table.
+ *
+ * Blocks of numbers are reserved from the invoice_sequence table with a single
+ * UPDATE and then handed out from memory. Numbers left in a block when the
+ * application stops are never reused, so invoices may have gaps but never collide.
+ */
+public class InvoiceSequence {
+    private static InvoiceSequence instance;
+    private static final Object lock = new Object();
+    private static final String SEQUENCE_NAME = "INVOICE";
+
+    private final DatabaseConnection dbConnection;
+    private final int blockSize;
+    // Serialises block reservations; allocation inside a block is lock-free
+    private final Object reserveLock = new Object();
+    private volatile Block current = new Block(0, 0);
+    private volatile boolean tableReady;
+
+    private InvoiceSequence() {
+        this(DatabaseConnection.getInstance(), SystemConfig.INVOICE_BLOCK_SIZE);
+    }
+
+    // Visible for tests
+    InvoiceSequence(DatabaseConnection dbConnection, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Invoice block size must be positive");
+        }
+        this.dbConnection = dbConnection;
+        this.blockSize = blockSize;
+    }
+
+    public static InvoiceSequence getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new InvoiceSequence();
+                }
+            }
+        }
+        return instance;
+    }
+
+    public String nextInvoiceNumber() throws SQLException, ClassNotFoundException {
+        return String.format("INV-%05d", nextValue());
+    }
+
+    public long nextValue() throws SQLException, ClassNotFoundException {
+        while (true) {
+            Block block = current;
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return value;
+            }
+            synchronized (reserveLock) {
+                // Another thread may have refilled while we waited
+                if (current == block) {
+                    current = reserveBlock();
+                }
+            }
+        }
+    }
+
+    // Advance the stored sequence by one block and return the range it covered
+    private Block reserveBlock() throws SQLException, ClassNotFoundException {
+        try (Connection connection = dbConnection.connect()) {
+            ensureSequenceRow(connection);
+
+            // LAST_INSERT_ID(expr) makes the new value readable on this connection without a second lock
+            String reserveQuery = "UPDATE invoice_sequence SET next_value = LAST_INSERT_ID(next_value + ?) WHERE name = ?";
+            try (PreparedStatement statement = connection.prepareStatement(reserveQuery)) {
+                statement.setInt(1, blockSize);
+                statement.setString(2, SEQUENCE_NAME);
+                if (statement.executeUpdate() == 0) {
+                    throw new SQLException("Invoice sequence row is missing");
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                 ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    throw new SQLException("Could not read reserved invoice range");
+                }
+                long end = resultSet.getLong(1);
+                System.out.println("Reserved invoice numbers " + (end - blockSize) + " to " + (end - 1));
+                return new Block(end - blockSize, end);
+            }
+        }
+    }
+
+    // Create and seed the sequence on first use so existing databases need no manual migration
+    private void ensureSequenceRow(Connection connection) throws SQLException {
+        if (tableReady) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS invoice_sequence (
+                    name VARCHAR(32) PRIMARY KEY,
+                    next_value BIGINT NOT NULL
+                )
+            """);
+            // One-time scan so the sequence starts above any invoice already issued
+            statement.executeUpdate("""
+                INSERT IGNORE INTO invoice_sequence (name, next_value)
+                SELECT 'INVOICE', COALESCE(MAX(CAST(SUBSTRING(invoiceNumber, 5) AS UNSIGNED)), 0) + 1
+                FROM bill WHERE invoiceNumber REGEXP '^INV-[0-9]+$'
+            """);
+        }
+        tableReady = true;
+    }
+
+    /**
+     * Reserved range [start, end) with the next unused value
+     */
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.persistence.gateways;
+
+import org.example.shared.dto.ItemDTO;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, time-limited cache of catalog items indexed by id and by code.
+ * Entries are evicted least-recently-used first. Callers always receive copies,
+ * so modifying a returned ItemDTO never changes what the cache holds.
+ *
+ * Loads are stamped with the invalidation generation taken before the query;
+ * a load that raced with an invalidation is discarded instead of cached.
+ */
+public class ItemCatalogCache {
+    private final int maxSize;
+    private final long ttlMillis;
+
+    // Guarded by this
+    private final LinkedHashMap<Integer, Entry> byId;
+    private final Map<String, Entry> byCode = new HashMap<>();
+    private long generation;
+
+    // Statistics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    public ItemCatalogCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > ItemCatalogCache.this.maxSize) {
+                    byCode.remove(eldest.getValue().item.getCode(), eldest.getValue());
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Take before querying the database and pass to put() with the result
+     */
+    public synchronized long stamp() {
+        return generation;
+    }
+
+    public ItemDTO getByCode(String code) {
+        if (!isEnabled() || code == null) {
+            return null;
+        }
+        synchronized (this) {
+            return hitOrMiss(byCode.get(code));
+        }
+    }
+
+    public ItemDTO getById(int id) {
+        if (!isEnabled()) {
+            return null;
+        }
+        synchronized (this) {
+            return hitOrMiss(byId.get(id));
+        }
+    }
+
+    /**
+     * Cache an item loaded from the database, unless an invalidation happened since stamp
+     */
+    public void put(ItemDTO item, long stamp) {
+        if (!isEnabled() || item == null || item.getCode() == null) {
+            return;
+        }
+        Entry entry = new Entry(copyOf(item), System.currentTimeMillis() + ttlMillis);
+        synchronized (this) {
+            if (stamp != generation) {
+                return;
+            }
+            removeEntry(byId.get(item.getId()));
+            removeEntry(byCode.get(item.getCode()));
+            byId.put(item.getId(), entry);
+            byCode.put(item.getCode(), entry);
+        }
+    }
+
+    public synchronized void invalidateById(int id) {
+        generation++;
+        invalidationCount.incrementAndGet();
+        removeEntry(byId.get(id));
+    }
+
+    public synchronized void invalidateByCode(String code) {
+        generation++;
+        invalidationCount.incrementAndGet();
+        removeEntry(byCode.get(code));
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidationCount.incrementAndGet();
+        byId.clear();
+        byCode.clear();
+    }
+
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        synchronized (this) {
+            stats.size = byId.size();
+        }
+        stats.maxSize = maxSize;
+        stats.ttlMillis = ttlMillis;
+        stats.hitCount = hitCount.get();
+        stats.missCount = missCount.get();
+        stats.evictionCount = evictionCount.get();
+        stats.invalidationCount = invalidationCount.get();
+        return stats;
+    }
+
+    // Caller holds the lock
+    private ItemDTO hitOrMiss(Entry entry) {
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            removeEntry(entry);
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        // Touch the id index so LRU order follows code lookups too
+        byId.get(entry.item.getId());
+        return copyOf(entry.item);
+    }
+
+    // Caller holds the lock
+    private void removeEntry(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        byId.remove(entry.item.getId(), entry);
+        byCode.remove(entry.item.getCode(), entry);
+    }
+
+    private static ItemDTO copyOf(ItemDTO item) {
+        return new ItemDTO(item.getId(), item.getCode(), item.getName(), item.getPrice());
+    }
+
+    private static final class Entry {
+        private final ItemDTO item;
+        private final long expiresAt;
+
+        private Entry(ItemDTO item, long expiresAt) {
+            this.item = item;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of cache statistics
+     */
+    public static class CacheStats {
+        private int size;
+        private int maxSize;
+        private long ttlMillis;
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+        private long invalidationCount;
+
+        // Getters
+        public int getSize() { return size; }
+        public int getMaxSize() { return maxSize; }
+        public long getTtlMillis() { return ttlMillis; }
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getEvictionCount() { return evictionCount; }
+        public long getInvalidationCount() { return invalidationCount; }
+
+        public double getHitRatio() {
+            long lookups = hitCount + missCount;
+            return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.persistence.gateways;
 
+import org.example.core.config.SystemConfig;
 import org.example.persistence.database.DatabaseConnection;
 import org.example.shared.dto.ItemDTO;
 
@@ -11,9 +12,15 @@ public class ItemGateway {
     private static ItemGateway instance;
     private static final Object lock = new Object();
     private final DatabaseConnection dbConnection;
+    // Read-through cache for findByCode/findById; invalidated on every write
+    private final ItemCatalogCache catalogCache;
+    // Typeahead index over codes and names; updated alongside the cache
+    private final ItemSearchIndex searchIndex;
 
     private ItemGateway() {
         this.dbConnection = DatabaseConnection.getInstance();
+        this.catalogCache = new ItemCatalogCache(SystemConfig.ITEM_CACHE_MAX_SIZE, SystemConfig.ITEM_CACHE_TTL_MS);
+        this.searchIndex = ItemSearchIndex.getInstance();
     }
 
     public static ItemGateway getInstance() {
@@ -41,7 +48,9 @@ public class ItemGateway {
             if (generatedKeys.next()) {
                 item.setId(generatedKeys.getInt(1));
             }
+            searchIndex.upsert(item);
         } finally {
+            catalogCache.invalidateByCode(item.getCode());
             dbConnection.closeConnection(connection);
         }
     }
@@ -59,11 +68,22 @@ public class ItemGateway {
             }
             statement.executeBatch();
         } finally {
+            // Generated ids are not read back, so the index reloads
+            searchIndex.invalidateAll();
+            for (ItemDTO item : items) {
+                catalogCache.invalidateByCode(item.getCode());
+            }
             dbConnection.closeConnection(connection);
         }
     }
 
     public ItemDTO findByCode(String code) throws SQLException, ClassNotFoundException {
+        ItemDTO cached = catalogCache.getByCode(code);
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = catalogCache.stamp();
         Connection connection = dbConnection.connect();
         String query = "SELECT * FROM items WHERE code = ?";
         ItemDTO item = null;
@@ -79,10 +99,17 @@ public class ItemGateway {
             dbConnection.closeConnection(connection);
         }
         
+        catalogCache.put(item, stamp);
         return item;
     }
 
     public ItemDTO findById(int id) throws SQLException, ClassNotFoundException {
+        ItemDTO cached = catalogCache.getById(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        long stamp = catalogCache.stamp();
         Connection connection = dbConnection.connect();
         String query = "SELECT * FROM items WHERE id = ?";
         ItemDTO item = null;
@@ -98,10 +125,12 @@ public class ItemGateway {
             dbConnection.closeConnection(connection);
         }
         
+        catalogCache.put(item, stamp);
         return item;
     }
 
     public List<ItemDTO> findAll() throws SQLException, ClassNotFoundException {
+        long stamp = catalogCache.stamp();
         Connection connection = dbConnection.connect();
         String query = "SELECT * FROM items ORDER BY name";
         List<ItemDTO> items = new ArrayList<>();
@@ -116,6 +145,10 @@ public class ItemGateway {
             dbConnection.closeConnection(connection);
         }
         
+        // Full listings warm the cache for subsequent scans
+        for (ItemDTO item : items) {
+            catalogCache.put(item, stamp);
+        }
         return items;
     }
 
@@ -129,11 +162,43 @@ public class ItemGateway {
             statement.setDouble(3, item.getPrice());
             statement.setInt(4, item.getId());
             statement.executeUpdate();
+            searchIndex.upsert(item);
         } finally {
+            // The code may have changed, so drop both the old entry and anything under the new code
+            catalogCache.invalidateById(item.getId());
+            catalogCache.invalidateByCode(item.getCode());
             dbConnection.closeConnection(connection);
         }
     }
 
+    /**
+     * Drop a cached item after it was changed outside this gateway
+     */
+    public void invalidate(int itemId) {
+        catalogCache.invalidateById(itemId);
+        searchIndex.invalidateItem(itemId);
+    }
+
+    public void invalidateAll() {
+        catalogCache.invalidateAll();
+        searchIndex.invalidateAll();
+    }
+
+    /**
+     * Items whose code or name matches the query, best matches first, served from memory
+     */
+    public List<ItemDTO> search(String query, int limit) throws SQLException, ClassNotFoundException {
+        return searchIndex.search(query, limit);
+    }
+
+    public ItemSearchIndex.IndexStats getSearchStats() {
+        return searchIndex.getStats();
+    }
+
+    public ItemCatalogCache.CacheStats getCacheStats() {
+        return catalogCache.getStats();
+    }
+
     public boolean exists(String code) throws SQLException, ClassNotFoundException {
         Connection connection = dbConnection.connect();
         String query = "SELECT COUNT(*) FROM items WHERE code = ?";
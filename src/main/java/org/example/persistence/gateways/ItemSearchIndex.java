@@ -0,0 +1,500 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.shared.dto.ItemDTO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory typeahead index over item codes and names.
+ *
+ * Two structures answer a query term: a prefix trie over the words of each code and
+ * name, for short terms and word starts, and a trigram map for substrings anywhere in
+ * a code or name. Trigram hits are checked against the text, since sharing every
+ * trigram does not guarantee a match. Multi-word queries must match every word.
+ * Results are ranked exact code, code prefix, name prefix, word prefix, then substring,
+ * with ties broken by name.
+ *
+ * The catalog is loaded on the first search. ItemGateway keeps the index current for
+ * items it writes; code that changes items by other means must call invalidateItem or
+ * invalidateAll, and those items are re-read on the next search. A full load is stamped
+ * with the invalidation generation taken before its query; if invalidateAll ran in the
+ * meantime the rows still answer the current search, but the next one loads again.
+ */
+public class ItemSearchIndex {
+    private static ItemSearchIndex instance;
+    private static final Object lock = new Object();
+    private final DatabaseConnection dbConnection;
+
+    private static final int SCORE_EXACT_CODE = 100;
+    private static final int SCORE_CODE_PREFIX = 80;
+    private static final int SCORE_NAME_PREFIX = 60;
+    private static final int SCORE_WORD_PREFIX = 40;
+    private static final int SCORE_SUBSTRING = 20;
+
+    private static final Comparator<Match> RANKING = Comparator
+            .comparingInt((Match m) -> -m.score)
+            .thenComparing(m -> m.entry.lowerName)
+            .thenComparing(m -> m.entry.lowerCode);
+
+    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<String, Set<Integer>> trigrams = new HashMap<>();
+    private final TrieNode trie = new TrieNode();
+    private volatile boolean loaded;
+    // Guarded by rwLock
+    private long generation;
+
+    // Items changed outside ItemGateway, re-read on the next search
+    private final Set<Integer> staleIds = ConcurrentHashMap.newKeySet();
+
+    // Statistics
+    private final AtomicLong searchCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong updateCount = new AtomicLong();
+
+    private ItemSearchIndex() {
+        this(DatabaseConnection.getInstance());
+    }
+
+    // Visible for tests
+    ItemSearchIndex(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+
+    public static ItemSearchIndex getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new ItemSearchIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Items matching every word of the query, best matches first
+     */
+    public List<ItemDTO> search(String query, int limit) throws SQLException, ClassNotFoundException {
+        List<ItemDTO> results = new ArrayList<>();
+        if (query == null || limit <= 0) {
+            return results;
+        }
+        String[] terms = normalize(query).split("\\s+");
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            return results;
+        }
+        ensureCurrent();
+        searchCount.incrementAndGet();
+
+        rwLock.readLock().lock();
+        try {
+            Set<Integer> candidates = null;
+            for (String term : terms) {
+                Set<Integer> matches = candidatesFor(term);
+                if (candidates == null) {
+                    candidates = matches;
+                } else {
+                    candidates.retainAll(matches);
+                }
+                if (candidates.isEmpty()) {
+                    return results;
+                }
+            }
+
+            String phrase = String.join(" ", terms);
+            List<Match> ranked = new ArrayList<>(candidates.size());
+            for (int id : candidates) {
+                Entry entry = entries.get(id);
+                ranked.add(new Match(entry, score(entry, phrase, terms)));
+            }
+            ranked.sort(RANKING);
+            for (Match match : ranked.subList(0, Math.min(limit, ranked.size()))) {
+                Entry entry = match.entry;
+                results.add(new ItemDTO(entry.id, entry.code, entry.name, entry.price));
+            }
+            return results;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    // Items whose code or name contains the term; the caller owns the returned set
+    private Set<Integer> candidatesFor(String term) {
+        if (term.length() < 3) {
+            return new HashSet<>(trie.find(term));
+        }
+        Set<Integer> candidates = null;
+        for (String trigram : trigramsOf(term)) {
+            Set<Integer> ids = trigrams.get(trigram);
+            if (ids == null) {
+                return new HashSet<>();
+            }
+            if (candidates == null) {
+                candidates = new HashSet<>(ids);
+            } else {
+                candidates.retainAll(ids);
+            }
+        }
+        candidates.removeIf(id -> !entries.get(id).contains(term));
+        return candidates;
+    }
+
+    private static int score(Entry entry, String phrase, String[] terms) {
+        if (entry.lowerCode.equals(phrase)) {
+            return SCORE_EXACT_CODE;
+        }
+        if (entry.lowerCode.startsWith(phrase)) {
+            return SCORE_CODE_PREFIX;
+        }
+        if (entry.lowerName.startsWith(phrase)) {
+            return SCORE_NAME_PREFIX;
+        }
+        for (String term : terms) {
+            if (!entry.hasWordStartingWith(term)) {
+                return SCORE_SUBSTRING;
+            }
+        }
+        return SCORE_WORD_PREFIX;
+    }
+
+    /**
+     * Add or replace an item after it was written through ItemGateway
+     */
+    public void upsert(ItemDTO item) {
+        if (item.getId() <= 0) {
+            return;
+        }
+        if (!loaded) {
+            // A load in progress may have read the old row
+            staleIds.add(item.getId());
+            return;
+        }
+        rwLock.writeLock().lock();
+        try {
+            removeEntry(item.getId());
+            addEntry(new Entry(item.getId(), item.getCode(), item.getName(), item.getPrice()));
+            updateCount.incrementAndGet();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int itemId) {
+        rwLock.writeLock().lock();
+        try {
+            removeEntry(itemId);
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    public void invalidateItem(int itemId) {
+        staleIds.add(itemId);
+    }
+
+    public void invalidateAll() {
+        rwLock.writeLock().lock();
+        try {
+            generation++;
+            loaded = false;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private void ensureCurrent() throws SQLException, ClassNotFoundException {
+        if (!loaded) {
+            loadAll();
+        }
+        if (!staleIds.isEmpty()) {
+            refreshStale();
+        }
+    }
+
+    private void loadAll() throws SQLException, ClassNotFoundException {
+        long stamp;
+        rwLock.readLock().lock();
+        try {
+            stamp = generation;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+
+        List<Entry> rows = new ArrayList<>();
+        Connection connection = dbConnection.connect();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id, code, name, price FROM items");
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                rows.add(mapRow(resultSet));
+            }
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+
+        rwLock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            entries.clear();
+            trigrams.clear();
+            trie.children.clear();
+            trie.ids.clear();
+            for (Entry entry : rows) {
+                addEntry(entry);
+            }
+            // Rows read before an invalidateAll are stale; keep them only until the next search
+            loaded = stamp == generation;
+            loadCount.incrementAndGet();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private void refreshStale() throws SQLException, ClassNotFoundException {
+        List<Integer> ids = new ArrayList<>();
+        for (Integer id : staleIds) {
+            if (staleIds.remove(id)) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Map<Integer, Entry> rows = new HashMap<>();
+        Connection connection = dbConnection.connect();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, code, name, price FROM items WHERE id IN (" + placeholders + ")")) {
+            for (int i = 0; i < ids.size(); i++) {
+                statement.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Entry entry = mapRow(resultSet);
+                    rows.put(entry.id, entry);
+                }
+            }
+        } catch (SQLException e) {
+            staleIds.addAll(ids);
+            throw e;
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+
+        rwLock.writeLock().lock();
+        try {
+            for (int id : ids) {
+                removeEntry(id);
+                Entry entry = rows.get(id);
+                if (entry != null) {
+                    addEntry(entry);
+                }
+            }
+            updateCount.addAndGet(ids.size());
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private static Entry mapRow(ResultSet resultSet) throws SQLException {
+        return new Entry(resultSet.getInt("id"), resultSet.getString("code"), resultSet.getString("name"),
+                resultSet.getDouble("price"));
+    }
+
+    // Callers hold the write lock
+    private void addEntry(Entry entry) {
+        entries.put(entry.id, entry);
+        for (String trigram : entry.trigrams()) {
+            trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(entry.id);
+        }
+        for (String word : entry.words) {
+            trie.insert(word, entry.id);
+        }
+    }
+
+    // Callers hold the write lock
+    private void removeEntry(int itemId) {
+        Entry entry = entries.remove(itemId);
+        if (entry == null) {
+            return;
+        }
+        for (String trigram : entry.trigrams()) {
+            Set<Integer> ids = trigrams.get(trigram);
+            if (ids != null) {
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    trigrams.remove(trigram);
+                }
+            }
+        }
+        for (String word : entry.words) {
+            trie.remove(word, itemId);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> trigramsOf(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(text.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    public IndexStats getStats() {
+        rwLock.readLock().lock();
+        try {
+            return new IndexStats(entries.size(), trigrams.size(), loaded, searchCount.get(), loadCount.get(),
+                    updateCount.get());
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    private static final class Entry {
+        private final int id;
+        private final String code;
+        private final String name;
+        private final double price;
+        private final String lowerCode;
+        private final String lowerName;
+        // Code plus each word of the name; the trie is keyed by these
+        private final Set<String> words = new LinkedHashSet<>();
+
+        private Entry(int id, String code, String name, double price) {
+            this.id = id;
+            this.code = code;
+            this.name = name;
+            this.price = price;
+            this.lowerCode = normalize(code);
+            this.lowerName = normalize(name);
+            if (!lowerCode.isEmpty()) {
+                words.add(lowerCode);
+            }
+            for (String word : lowerName.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+
+        private Set<String> trigrams() {
+            Set<String> result = trigramsOf(lowerCode);
+            result.addAll(trigramsOf(lowerName));
+            return result;
+        }
+
+        private boolean contains(String term) {
+            return lowerCode.contains(term) || lowerName.contains(term);
+        }
+
+        private boolean hasWordStartingWith(String term) {
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Match {
+        private final Entry entry;
+        private final int score;
+
+        private Match(Entry entry, int score) {
+            this.entry = entry;
+            this.score = score;
+        }
+    }
+
+    // Each node holds every item with a word starting with the path to it
+    private static final class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private final Set<Integer> ids = new HashSet<>();
+
+        private void insert(String word, int itemId) {
+            TrieNode node = this;
+            for (int i = 0; i < word.length(); i++) {
+                node = node.children.computeIfAbsent(word.charAt(i), key -> new TrieNode());
+                node.ids.add(itemId);
+            }
+        }
+
+        // Entries are always removed whole, so every word's path can drop the id
+        private void remove(String word, int itemId) {
+            TrieNode node = this;
+            List<TrieNode> path = new ArrayList<>();
+            for (int i = 0; i < word.length() && node != null; i++) {
+                node = node.children.get(word.charAt(i));
+                if (node != null) {
+                    path.add(node);
+                }
+            }
+            for (TrieNode visited : path) {
+                visited.ids.remove(itemId);
+            }
+        }
+
+        private Set<Integer> find(String prefix) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.get(prefix.charAt(i));
+                if (node == null) {
+                    return Set.of();
+                }
+            }
+            return node.ids;
+        }
+    }
+
+    public static class IndexStats {
+        private final int indexedItems;
+        private final int trigramCount;
+        private final boolean loaded;
+        private final long searchCount;
+        private final long loadCount;
+        private final long updateCount;
+
+        public IndexStats(int indexedItems, int trigramCount, boolean loaded, long searchCount, long loadCount,
+                          long updateCount) {
+            this.indexedItems = indexedItems;
+            this.trigramCount = trigramCount;
+            this.loaded = loaded;
+            this.searchCount = searchCount;
+            this.loadCount = loadCount;
+            this.updateCount = updateCount;
+        }
+
+        // Getters
+        public int getIndexedItems() { return indexedItems; }
+        public int getTrigramCount() { return trigramCount; }
+        public boolean isLoaded() { return loaded; }
+        public long getSearchCount() { return searchCount; }
+        public long getLoadCount() { return loadCount; }
+        public long getUpdateCount() { return updateCount; }
+    }
+}
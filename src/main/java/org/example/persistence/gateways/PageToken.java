@@ -0,0 +1,100 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Continuation point for keyset pagination: the sort key and id of the last row
+ * on the previous page. Clients get it as an opaque URL-safe string and hand it
+ * back unchanged; the next page starts strictly after that row, so each page
+ * costs one index range scan however deep the client has paged.
+ */
+public final class PageToken {
+    private static final String VERSION = "1";
+
+    private final LocalDate sortDate;
+    private final int id;
+
+    private PageToken(LocalDate sortDate, int id) {
+        this.sortDate = sortDate;
+        this.id = id;
+    }
+
+    /**
+     * Token for listings ordered by (date, id)
+     */
+    public static PageToken after(LocalDate sortDate, int id) {
+        return new PageToken(sortDate, id);
+    }
+
+    /**
+     * Token for listings ordered by id only
+     */
+    public static PageToken after(int id) {
+        return new PageToken(null, id);
+    }
+
+    public String encode() {
+        String raw = VERSION + ":" + (sortDate != null ? sortDate.toString() : "") + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token from a request; null or empty means "first page"
+     */
+    public static PageToken decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", -1);
+            if (parts.length != 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            LocalDate sortDate = parts[1].isEmpty() ? null : LocalDate.parse(parts[1]);
+            return new PageToken(sortDate, Integer.parseInt(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+
+    /**
+     * Parse a token for a listing ordered by (date, id) when requireDate is set, or by id
+     * only otherwise. A token issued by the other kind of listing is rejected, since its
+     * key cannot be compared with this one's.
+     */
+    public static PageToken decode(String token, boolean requireDate) {
+        PageToken decoded = decode(token);
+        if (decoded != null && (decoded.sortDate != null) != requireDate) {
+            throw new IllegalArgumentException("Page token does not belong to this listing");
+        }
+        return decoded;
+    }
+
+    /**
+     * Page size from a request parameter, defaulted and capped by SystemConfig
+     */
+    public static int pageSize(String param) {
+        if (param == null || param.isEmpty()) {
+            return SystemConfig.PAGE_SIZE_DEFAULT;
+        }
+        try {
+            return Math.max(1, Math.min(SystemConfig.PAGE_SIZE_MAX, Integer.parseInt(param)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page size: " + param);
+        }
+    }
+
+    public LocalDate getSortDate() {
+        return sortDate;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
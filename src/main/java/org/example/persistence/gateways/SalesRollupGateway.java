@@ -0,0 +1,420 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.models.Bill;
+import org.example.persistence.models.BillItem;
+import org.example.shared.dto.BillDTO;
+import org.example.shared.dto.BillItemDTO;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains daily_sales_rollup: one row per day x transaction type x store type x item
+ * holding units sold, revenue and the number of bills, plus a totals row (item_id 0)
+ * per day/type/store holding the bill count, full price and discount of all bills.
+ *
+ * Bills are added with recordBill() inside the transaction that writes the bill, and
+ * taken out again with removeBill() inside the transaction that deletes it, so the
+ * rollup never drifts from the bill table. Daily reports then read a handful of rows
+ * per item instead of joining every bill of the day. rebuild() recomputes a date range
+ * from the bill tables and is used to backfill history.
+ *
+ * The table is created and backfilled by initialize() at startup, never from a
+ * checkout: a backfill reading the bill tables would wait on the checkout's own
+ * uncommitted bill rows.
+ */
+public class SalesRollupGateway {
+    private static SalesRollupGateway instance;
+    private static final Object lock = new Object();
+    // item_id of the per-bill totals rows
+    public static final int TOTALS_ITEM_ID = 0;
+
+    private static final String UPSERT_QUERY = """
+            INSERT INTO daily_sales_rollup (sale_date, transaction_type, store_type, item_id, quantity, revenue, discount, bill_count)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), revenue = revenue + VALUES(revenue),
+                discount = discount + VALUES(discount), bill_count = bill_count + VALUES(bill_count)
+            """;
+
+    private final DatabaseConnection dbConnection;
+
+    private SalesRollupGateway() {
+        this(DatabaseConnection.getInstance());
+    }
+
+    // Visible for tests
+    SalesRollupGateway(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+
+    public static SalesRollupGateway getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new SalesRollupGateway();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Add a bill to the rollup using the caller's connection so it commits or rolls back with the bill
+     */
+    public void recordBill(Connection connection, Bill bill, List<BillItem> billItems)
+            throws SQLException, ClassNotFoundException {
+        Map<Integer, Line> lines = new TreeMap<>();
+        for (BillItem billItem : billItems) {
+            lines.computeIfAbsent(billItem.getItem().getId(), id -> new Line())
+                    .add(billItem.getQuantity(), billItem.getTotalPrice());
+        }
+        record(connection, bill.getBillDate(), bill.getTransactionType(), bill.getStoreType(),
+                bill.getFullPrice(), bill.getDiscount(), lines, 1);
+    }
+
+    public void recordBill(Connection connection, BillDTO bill) throws SQLException {
+        record(connection, bill.getBillDate(), bill.getTransactionType(), bill.getStoreType(),
+                bill.getFullPrice(), bill.getDiscount(), linesOf(bill), 1);
+    }
+
+    /**
+     * Take a deleted bill out of the rollup using the caller's connection, so it commits with the delete
+     */
+    public void removeBill(Connection connection, BillDTO bill) throws SQLException {
+        record(connection, bill.getBillDate(), bill.getTransactionType(), bill.getStoreType(),
+                bill.getFullPrice(), bill.getDiscount(), linesOf(bill), -1);
+    }
+
+    private static Map<Integer, Line> linesOf(BillDTO bill) {
+        Map<Integer, Line> lines = new TreeMap<>();
+        for (BillItemDTO billItem : bill.getBillItems()) {
+            lines.computeIfAbsent(billItem.getItemId(), id -> new Line())
+                    .add(billItem.getQuantity(), billItem.getTotalPrice());
+        }
+        return lines;
+    }
+
+    // Lines are applied in item-id order so concurrent bills lock rollup rows in the same order.
+    // sign is 1 to add the bill and -1 to take it out.
+    private void record(Connection connection, LocalDate saleDate, String transactionType, String storeType,
+                        double fullPrice, double discount, Map<Integer, Line> lines, int sign)
+            throws SQLException {
+        Date date = Date.valueOf(saleDate != null ? saleDate : LocalDate.now());
+        String txType = transactionType != null ? transactionType : "COUNTER";
+        String store = storeType != null ? storeType : "STORE";
+
+        int totalQuantity = 0;
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_QUERY)) {
+            for (Map.Entry<Integer, Line> line : lines.entrySet()) {
+                totalQuantity += line.getValue().quantity;
+                bindRow(statement, date, txType, store, line.getKey(), sign * line.getValue().quantity,
+                        sign * line.getValue().revenue, 0, sign);
+                statement.addBatch();
+            }
+            bindRow(statement, date, txType, store, TOTALS_ITEM_ID, sign * totalQuantity, sign * fullPrice,
+                    sign * discount, sign);
+            statement.addBatch();
+            statement.executeBatch();
+        }
+    }
+
+    private static void bindRow(PreparedStatement statement, Date date, String transactionType, String storeType,
+                                int itemId, int quantity, double revenue, double discount, int billCount)
+            throws SQLException {
+        statement.setDate(1, date);
+        statement.setString(2, transactionType);
+        statement.setString(3, storeType);
+        statement.setInt(4, itemId);
+        statement.setInt(5, quantity);
+        statement.setDouble(6, revenue);
+        statement.setDouble(7, discount);
+        statement.setInt(8, billCount);
+    }
+
+    /**
+     * Recompute the rollup for [from, to] from the bill tables in one transaction.
+     * Intended for backfilling past days; bills recorded for the range while it runs
+     * may be counted twice, so run it for today only when sales are quiet.
+     */
+    public int rebuild(LocalDate from, LocalDate to) throws SQLException, ClassNotFoundException {
+        try (Connection connection = dbConnection.connect()) {
+            ensureTable(connection);
+            return rebuild(connection, from, to);
+        }
+    }
+
+    private int rebuild(Connection connection, LocalDate from, LocalDate to) throws SQLException {
+        String itemRowsQuery = """
+                INSERT INTO daily_sales_rollup (sale_date, transaction_type, store_type, item_id, quantity, revenue, discount, bill_count)
+                SELECT b.billDate, COALESCE(b.transactionType, 'COUNTER'), COALESCE(b.storeType, 'STORE'), bi.item_id,
+                       SUM(bi.quantity), SUM(bi.totalPrice), 0, COUNT(DISTINCT b.id)
+                FROM bill b
+                JOIN billItem bi ON bi.bill_id = b.id
+                WHERE b.billDate BETWEEN ? AND ?
+                GROUP BY b.billDate, COALESCE(b.transactionType, 'COUNTER'), COALESCE(b.storeType, 'STORE'), bi.item_id
+                """;
+        String totalRowsQuery = """
+                INSERT INTO daily_sales_rollup (sale_date, transaction_type, store_type, item_id, quantity, revenue, discount, bill_count)
+                SELECT b.billDate, COALESCE(b.transactionType, 'COUNTER'), COALESCE(b.storeType, 'STORE'), 0,
+                       COALESCE(SUM(units.quantity), 0), SUM(b.fullPrice), SUM(b.discount), COUNT(*)
+                FROM bill b
+                LEFT JOIN (SELECT bill_id, SUM(quantity) AS quantity FROM billItem GROUP BY bill_id) units
+                       ON units.bill_id = b.id
+                WHERE b.billDate BETWEEN ? AND ?
+                GROUP BY b.billDate, COALESCE(b.transactionType, 'COUNTER'), COALESCE(b.storeType, 'STORE')
+                """;
+
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM daily_sales_rollup WHERE sale_date BETWEEN ? AND ?")) {
+                statement.setDate(1, Date.valueOf(from));
+                statement.setDate(2, Date.valueOf(to));
+                statement.executeUpdate();
+            }
+            int rows = 0;
+            for (String query : new String[] { itemRowsQuery, totalRowsQuery }) {
+                try (PreparedStatement statement = connection.prepareStatement(query)) {
+                    statement.setDate(1, Date.valueOf(from));
+                    statement.setDate(2, Date.valueOf(to));
+                    rows += statement.executeUpdate();
+                }
+            }
+            connection.commit();
+            System.out.println("Sales rollup rebuilt for " + from + " to " + to + ": " + rows + " rows");
+            return rows;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Bill count, full price, discount and units for one day, optionally filtered
+     */
+    public DailyTotals getDailyTotals(LocalDate date, String transactionType, String storeType)
+            throws SQLException, ClassNotFoundException {
+        String query = "SELECT COALESCE(SUM(bill_count), 0) AS bill_count, COALESCE(SUM(revenue), 0) AS revenue, " +
+                "COALESCE(SUM(discount), 0) AS discount, COALESCE(SUM(quantity), 0) AS quantity " +
+                "FROM daily_sales_rollup WHERE sale_date = ? AND item_id = " + TOTALS_ITEM_ID + " ";
+        query += filterClause(transactionType, storeType);
+
+        try (Connection connection = dbConnection.connect()) {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                bindFilters(statement, date, transactionType, storeType);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return readTotals(resultSet, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Daily totals split by transaction type or store type
+     */
+    public List<DailyTotals> getDailyTotalsByTransactionType(LocalDate date) throws SQLException, ClassNotFoundException {
+        return getDailyTotalsGroupedBy(date, "transaction_type");
+    }
+
+    public List<DailyTotals> getDailyTotalsByStoreType(LocalDate date) throws SQLException, ClassNotFoundException {
+        return getDailyTotalsGroupedBy(date, "store_type");
+    }
+
+    private List<DailyTotals> getDailyTotalsGroupedBy(LocalDate date, String column)
+            throws SQLException, ClassNotFoundException {
+        String query = "SELECT " + column + " AS grp, SUM(bill_count) AS bill_count, SUM(revenue) AS revenue, " +
+                "SUM(discount) AS discount, SUM(quantity) AS quantity " +
+                "FROM daily_sales_rollup WHERE sale_date = ? AND item_id = " + TOTALS_ITEM_ID + " " +
+                "GROUP BY " + column + " ORDER BY revenue DESC";
+
+        List<DailyTotals> totals = new ArrayList<>();
+        try (Connection connection = dbConnection.connect()) {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setDate(1, Date.valueOf(date));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        totals.add(readTotals(resultSet, resultSet.getString("grp")));
+                    }
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Units and revenue per item for one day, best sellers first
+     */
+    public List<ItemSales> getItemSales(LocalDate date, String transactionType, String storeType)
+            throws SQLException, ClassNotFoundException {
+        String query = "SELECT i.id, i.code, i.name, SUM(r.quantity) AS quantity, SUM(r.revenue) AS revenue, " +
+                "SUM(r.bill_count) AS bill_count " +
+                "FROM daily_sales_rollup r JOIN items i ON r.item_id = i.id " +
+                "WHERE r.sale_date = ? ";
+        query += filterClause(transactionType, storeType).replace("transaction_type", "r.transaction_type")
+                .replace("store_type", "r.store_type");
+        query += "GROUP BY i.id, i.code, i.name ORDER BY revenue DESC";
+
+        List<ItemSales> sales = new ArrayList<>();
+        try (Connection connection = dbConnection.connect()) {
+            try (PreparedStatement statement = connection.prepareStatement(query)) {
+                bindFilters(statement, date, transactionType, storeType);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ItemSales row = new ItemSales();
+                        row.itemId = resultSet.getInt("id");
+                        row.code = resultSet.getString("code");
+                        row.name = resultSet.getString("name");
+                        row.quantity = resultSet.getInt("quantity");
+                        row.revenue = resultSet.getDouble("revenue");
+                        row.billCount = resultSet.getInt("bill_count");
+                        sales.add(row);
+                    }
+                }
+            }
+        }
+        return sales;
+    }
+
+    private static String filterClause(String transactionType, String storeType) {
+        String clause = "";
+        if (transactionType != null && !transactionType.isEmpty()) {
+            clause += "AND transaction_type = ? ";
+        }
+        if (storeType != null && !storeType.isEmpty()) {
+            clause += "AND store_type = ? ";
+        }
+        return clause;
+    }
+
+    private static void bindFilters(PreparedStatement statement, LocalDate date, String transactionType,
+                                    String storeType) throws SQLException {
+        int paramIndex = 1;
+        statement.setDate(paramIndex++, Date.valueOf(date));
+        if (transactionType != null && !transactionType.isEmpty()) {
+            statement.setString(paramIndex++, transactionType);
+        }
+        if (storeType != null && !storeType.isEmpty()) {
+            statement.setString(paramIndex, storeType);
+        }
+    }
+
+    private static DailyTotals readTotals(ResultSet resultSet, String group) throws SQLException {
+        DailyTotals totals = new DailyTotals();
+        totals.group = group;
+        totals.billCount = resultSet.getInt("bill_count");
+        totals.totalSales = resultSet.getDouble("revenue");
+        totals.totalDiscount = resultSet.getDouble("discount");
+        totals.totalItems = resultSet.getInt("quantity");
+        return totals;
+    }
+
+    /**
+     * Create the table and, if it is empty, backfill it from the existing bills.
+     * Called once at startup, before checkouts start writing to the rollup.
+     */
+    public void initialize() throws SQLException, ClassNotFoundException {
+        try (Connection connection = dbConnection.connect()) {
+            ensureTable(connection);
+            backfillIfEmpty(connection);
+        }
+    }
+
+    private void backfillIfEmpty(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rollupRows = statement.executeQuery("SELECT 1 FROM daily_sales_rollup LIMIT 1")) {
+            if (rollupRows.next()) {
+                return;
+            }
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet range = statement.executeQuery("SELECT MIN(billDate), MAX(billDate) FROM bill")) {
+            if (range.next() && range.getDate(1) != null) {
+                rebuild(connection, range.getDate(1).toLocalDate(), range.getDate(2).toLocalDate());
+            }
+        }
+    }
+
+    private static void ensureTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS daily_sales_rollup (
+                    sale_date DATE NOT NULL,
+                    transaction_type VARCHAR(16) NOT NULL,
+                    store_type VARCHAR(16) NOT NULL,
+                    item_id INT NOT NULL,
+                    quantity INT NOT NULL DEFAULT 0,
+                    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                    discount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+                    bill_count INT NOT NULL DEFAULT 0,
+                    PRIMARY KEY (sale_date, transaction_type, store_type, item_id)
+                )
+            """);
+        }
+    }
+
+    /**
+     * Units and revenue accumulated for one item on one bill
+     */
+    private static final class Line {
+        private int quantity;
+        private double revenue;
+
+        private void add(int quantity, double revenue) {
+            this.quantity += quantity;
+            this.revenue += revenue;
+        }
+    }
+
+    /**
+     * Bill totals for a day; group is the transaction or store type when split
+     */
+    public static class DailyTotals {
+        private String group;
+        private int billCount;
+        private double totalSales;
+        private double totalDiscount;
+        private int totalItems;
+
+        // Getters
+        public String getGroup() { return group; }
+        public int getBillCount() { return billCount; }
+        public double getTotalSales() { return totalSales; }
+        public double getTotalDiscount() { return totalDiscount; }
+        public int getTotalItems() { return totalItems; }
+        public double getAverageSale() { return billCount > 0 ? totalSales / billCount : 0.0; }
+    }
+
+    /**
+     * Sales of one item for a day
+     */
+    public static class ItemSales {
+        private int itemId;
+        private String code;
+        private String name;
+        private int quantity;
+        private double revenue;
+        private int billCount;
+
+        // Getters
+        public int getItemId() { return itemId; }
+        public String getCode() { return code; }
+        public String getName() { return name; }
+        public int getQuantity() { return quantity; }
+        public double getRevenue() { return revenue; }
+        public int getBillCount() { return billCount; }
+    }
+}
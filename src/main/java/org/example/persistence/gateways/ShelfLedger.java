@@ -0,0 +1,239 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+import org.example.persistence.database.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process ledger of shelf quantities per item and shelf type (STORE / WEBSITE).
+ *
+ * Quantities are loaded from the shelf table on first use and then served from
+ * memory. Sales go through decrement(), which takes the quantity off the ledger
+ * with a compare-and-set loop before writing through to the shelf table, so two
+ * checkouts can never both take the last unit. The guarded UPDATE remains the
+ * final check; if it ever disagrees the entry is dropped and reloaded.
+ *
+ * Code that changes shelf rows by other means (restocking, transfers, manual edits)
+ * must call one of the invalidate methods after committing.
+ */
+public class ShelfLedger {
+    private static ShelfLedger instance;
+    private static final Object lock = new Object();
+    private final DatabaseConnection dbConnection;
+
+    private final ConcurrentHashMap<String, AtomicInteger> quantities = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private volatile DecrementListener decrementListener;
+
+    // Statistics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong resyncCount = new AtomicLong();
+
+    private ShelfLedger() {
+        this(DatabaseConnection.getInstance());
+    }
+
+    // Visible for tests
+    ShelfLedger(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+
+    public static ShelfLedger getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new ShelfLedger();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Current quantity on the given shelf; 0 if the item has no shelf row
+     */
+    public int getQuantity(int itemId, String shelfType) throws SQLException, ClassNotFoundException {
+        return counterFor(itemId, shelfType).get();
+    }
+
+    public boolean hasAvailable(int itemId, String shelfType, int quantity) throws SQLException, ClassNotFoundException {
+        return getQuantity(itemId, shelfType) >= quantity;
+    }
+
+    /**
+     * Atomically take quantity off the shelf and write it through to the shelf table
+     * using the caller's connection, so it joins any transaction the caller has open.
+     * Returns false without changing anything if there is not enough on the shelf.
+     * If the caller's transaction is later rolled back it must call invalidate().
+     */
+    public boolean decrement(Connection connection, int itemId, String shelfType, int quantity)
+            throws SQLException, ClassNotFoundException {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity must not be negative");
+        }
+        if (quantity == 0) {
+            return true;
+        }
+
+        AtomicInteger counter = counterFor(itemId, shelfType);
+        if (!tryTake(counter, quantity)) {
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+
+        String query = "UPDATE shelf SET quantity = quantity - ? WHERE item_id = ? AND type = ? AND quantity >= ?";
+        int rowsUpdated;
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, quantity);
+            statement.setInt(2, itemId);
+            statement.setString(3, shelfType);
+            statement.setInt(4, quantity);
+            rowsUpdated = statement.executeUpdate();
+        } catch (SQLException e) {
+            counter.addAndGet(quantity);
+            throw e;
+        }
+
+        if (rowsUpdated == 0) {
+            // The table changed behind the ledger's back; reload on next access
+            counter.addAndGet(quantity);
+            resyncCount.incrementAndGet();
+            invalidate(itemId, shelfType);
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+
+        DecrementListener listener = decrementListener;
+        if (listener != null) {
+            listener.afterDecrement(itemId, shelfType, counter.get());
+        }
+        return true;
+    }
+
+    /**
+     * Register the single listener told about each successful decrement; null removes it
+     */
+    public void setDecrementListener(DecrementListener listener) {
+        this.decrementListener = listener;
+    }
+
+    /**
+     * Same as decrement() on a connection of its own (auto-commit)
+     */
+    public boolean decrement(int itemId, String shelfType, int quantity) throws SQLException, ClassNotFoundException {
+        try (Connection connection = dbConnection.connect()) {
+            return decrement(connection, itemId, shelfType, quantity);
+        }
+    }
+
+    public void invalidate(int itemId, String shelfType) {
+        generation.incrementAndGet();
+        quantities.remove(key(itemId, shelfType));
+    }
+
+    public void invalidateItem(int itemId) {
+        invalidate(itemId, SystemConfig.STORE_TYPE_STORE);
+        invalidate(itemId, SystemConfig.STORE_TYPE_WEBSITE);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        quantities.clear();
+    }
+
+    public LedgerStats getStats() {
+        LedgerStats stats = new LedgerStats();
+        stats.trackedShelves = quantities.size();
+        stats.hitCount = hitCount.get();
+        stats.loadCount = loadCount.get();
+        stats.rejectedCount = rejectedCount.get();
+        stats.resyncCount = resyncCount.get();
+        return stats;
+    }
+
+    private static boolean tryTake(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private AtomicInteger counterFor(int itemId, String shelfType) throws SQLException, ClassNotFoundException {
+        String key = key(itemId, shelfType);
+        AtomicInteger counter = quantities.get(key);
+        if (counter != null) {
+            hitCount.incrementAndGet();
+            return counter;
+        }
+
+        long stamp = generation.get();
+        int loaded = loadQuantity(itemId, shelfType);
+        loadCount.incrementAndGet();
+        AtomicInteger fresh = new AtomicInteger(loaded);
+        AtomicInteger cached = quantities.compute(key, (k, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            return generation.get() == stamp ? fresh : null;
+        });
+        return cached != null ? cached : fresh;
+    }
+
+    private int loadQuantity(int itemId, String shelfType) throws SQLException, ClassNotFoundException {
+        String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = ?";
+        try (Connection connection = dbConnection.connect();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, itemId);
+            statement.setString(2, shelfType);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("quantity") : 0;
+            }
+        }
+    }
+
+    private static String key(int itemId, String shelfType) {
+        return itemId + ":" + shelfType;
+    }
+
+    /**
+     * Point-in-time snapshot of ledger statistics
+     */
+    public static class LedgerStats {
+        private int trackedShelves;
+        private long hitCount;
+        private long loadCount;
+        private long rejectedCount;
+        private long resyncCount;
+
+        // Getters
+        public int getTrackedShelves() { return trackedShelves; }
+        public long getHitCount() { return hitCount; }
+        public long getLoadCount() { return loadCount; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getResyncCount() { return resyncCount; }
+    }
+
+    /**
+     * Told the remaining shelf quantity after each successful decrement. Called on the
+     * selling thread, possibly before the caller's transaction commits, so it must be
+     * quick and treat the quantity as a hint.
+     */
+    public interface DecrementListener {
+        void afterDecrement(int itemId, String shelfType, int remainingQuantity);
+    }
+}
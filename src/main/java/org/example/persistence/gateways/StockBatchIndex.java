@@ -0,0 +1,406 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.shared.dto.StockDTO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process index of sellable stock batches per item, kept in FIFO/expiry order.
+ *
+ * Sales pick batches near-expiry first, then by expiry date, then by purchase date.
+ * A batch is near expiry when it expires within 7 days and any other unexpired batch
+ * expires later than that, so the order is simply (expiry, purchase, id) and does not
+ * change as days pass. Each item's batches sit in a sorted set; picking batches for
+ * a sale walks the head of the set past expired entries, O(log n + k) for k batches.
+ *
+ * An item's batches are loaded from the stock table on first use. StockGateway keeps
+ * the index current for rows it writes; code that changes stock rows by other means
+ * must call one of the invalidate methods after committing. Only indexed batches are
+ * mapped to their item, so a change to a batch the index does not know, such as a
+ * sold-out batch being restocked, drops every loaded item.
+ */
+public class StockBatchIndex {
+    private static StockBatchIndex instance;
+    private static final Object lock = new Object();
+    private final DatabaseConnection dbConnection;
+
+    private static final Comparator<Batch> FIFO_ORDER = Comparator
+            .comparing((Batch b) -> b.expiryDate)
+            .thenComparing(b -> b.purchaseDate)
+            .thenComparingInt(b -> b.id);
+
+    private final ConcurrentHashMap<Integer, ItemBatches> items = new ConcurrentHashMap<>();
+    // Which item an indexed batch belongs to, for writers that only know the batch id
+    private final ConcurrentHashMap<Integer, Integer> itemByBatch = new ConcurrentHashMap<>();
+
+    // Statistics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong reserveCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private StockBatchIndex() {
+        this(DatabaseConnection.getInstance());
+    }
+
+    // Visible for tests
+    StockBatchIndex(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+
+    public static StockBatchIndex getInstance() {
+        if (instance == null) {
+            synchronized (lock) {
+                if (instance == null) {
+                    instance = new StockBatchIndex();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * The batches a sale of quantity would take, in FIFO order, without taking them.
+     * May cover less than quantity if the item does not have enough unexpired stock.
+     */
+    public List<Allocation> select(int itemId, int quantity) throws SQLException, ClassNotFoundException {
+        ItemBatches batches = batchesFor(itemId);
+        synchronized (batches) {
+            return allocate(batches, quantity, false);
+        }
+    }
+
+    /**
+     * Take quantity off the item's batches in FIFO order. All or nothing: returns an
+     * empty list and changes nothing if there is not enough unexpired stock. The caller
+     * writes the allocations through and must call invalidateItem() if that fails.
+     */
+    public List<Allocation> reserve(int itemId, int quantity) throws SQLException, ClassNotFoundException {
+        if (quantity <= 0) {
+            return Collections.emptyList();
+        }
+        ItemBatches batches = batchesFor(itemId);
+        synchronized (batches) {
+            if (available(batches) < quantity) {
+                rejectedCount.incrementAndGet();
+                return Collections.emptyList();
+            }
+            reserveCount.incrementAndGet();
+            return allocate(batches, quantity, true);
+        }
+    }
+
+    /**
+     * Unexpired quantity across all of the item's batches
+     */
+    public int getAvailableQuantity(int itemId) throws SQLException, ClassNotFoundException {
+        ItemBatches batches = batchesFor(itemId);
+        synchronized (batches) {
+            return available(batches);
+        }
+    }
+
+    /**
+     * Record a batch that was inserted or rewritten. Ignored if the item is not loaded yet.
+     */
+    public void upsert(StockDTO stock) {
+        Integer previousItem = itemByBatch.get(stock.getId());
+        if (previousItem != null && previousItem != stock.getItemId()) {
+            // Batch moved to another item; that item's set still holds it
+            invalidateItem(previousItem);
+        }
+        ItemBatches batches = items.get(stock.getItemId());
+        if (batches == null) {
+            return;
+        }
+        synchronized (batches) {
+            if (!batches.loaded) {
+                // The load failed; the next use reloads the committed rows
+                return;
+            }
+            Batch existing = batches.byId.get(stock.getId());
+            if (existing != null) {
+                remove(batches, existing);
+            }
+            if (stock.isAvailability() && stock.getQuantity() > 0) {
+                Batch batch = new Batch(stock.getId(), stock.getItemId(), stock.getItemCode(), stock.getItemName(),
+                        stock.getQuantity(), stock.getDateOfPurchase(), stock.getDateOfExpiry());
+                add(batches, batch);
+            }
+        }
+    }
+
+    /**
+     * Record a new absolute quantity for a batch
+     */
+    public void setQuantity(int stockId, int quantity) {
+        Integer itemId = itemByBatch.get(stockId);
+        if (itemId == null) {
+            if (quantity > 0) {
+                // A batch the index dropped (or never loaded) has stock again
+                invalidateAll();
+            }
+            return;
+        }
+        ItemBatches batches = items.get(itemId);
+        if (batches == null) {
+            return;
+        }
+        synchronized (batches) {
+            if (!batches.loaded) {
+                return;
+            }
+            Batch batch = batches.byId.get(stockId);
+            if (batch == null) {
+                // Mapped but not indexed; let the next use reload the item
+                items.remove(itemId, batches);
+                itemByBatch.remove(stockId, itemId);
+                for (Integer indexed : batches.byId.keySet()) {
+                    itemByBatch.remove(indexed, itemId);
+                }
+                return;
+            }
+            if (quantity <= 0) {
+                remove(batches, batch);
+            } else {
+                batches.total += quantity - batch.quantity;
+                batch.quantity = quantity;
+            }
+        }
+    }
+
+    public void invalidateBatch(int stockId) {
+        Integer itemId = itemByBatch.get(stockId);
+        if (itemId != null) {
+            invalidateItem(itemId);
+        } else if (!items.isEmpty()) {
+            // Not indexed, so its item is unknown
+            invalidateAll();
+        }
+    }
+
+    public void invalidateItem(int itemId) {
+        ItemBatches removed = items.remove(itemId);
+        if (removed != null) {
+            synchronized (removed) {
+                for (Integer stockId : removed.byId.keySet()) {
+                    itemByBatch.remove(stockId, itemId);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        items.clear();
+        itemByBatch.clear();
+    }
+
+    public IndexStats getStats() {
+        IndexStats stats = new IndexStats();
+        stats.trackedItems = items.size();
+        stats.trackedBatches = itemByBatch.size();
+        stats.hitCount = hitCount.get();
+        stats.loadCount = loadCount.get();
+        stats.reserveCount = reserveCount.get();
+        stats.rejectedCount = rejectedCount.get();
+        return stats;
+    }
+
+    // Caller holds the lock on batches
+    private List<Allocation> allocate(ItemBatches batches, int quantity, boolean take) {
+        dropExpired(batches);
+        List<Allocation> allocations = new ArrayList<>();
+        int remaining = quantity;
+        Iterator<Batch> iterator = batches.ordered.iterator();
+        while (remaining > 0 && iterator.hasNext()) {
+            Batch batch = iterator.next();
+            int fromBatch = Math.min(batch.quantity, remaining);
+            int left = batch.quantity - fromBatch;
+            allocations.add(new Allocation(batch, fromBatch, left));
+            remaining -= fromBatch;
+            if (take) {
+                batch.quantity = left;
+                batches.total -= fromBatch;
+                if (left == 0) {
+                    iterator.remove();
+                    batches.byId.remove(batch.id);
+                    itemByBatch.remove(batch.id, batch.itemId);
+                }
+            }
+        }
+        return allocations;
+    }
+
+    private int available(ItemBatches batches) {
+        dropExpired(batches);
+        return batches.total;
+    }
+
+    // A batch expiring today can still be sold; anything earlier cannot
+    private void dropExpired(ItemBatches batches) {
+        LocalDate today = LocalDate.now();
+        while (!batches.ordered.isEmpty() && batches.ordered.first().expiryDate.isBefore(today)) {
+            remove(batches, batches.ordered.first());
+        }
+    }
+
+    // Replaces any batch already indexed under the same id
+    private void add(ItemBatches batches, Batch batch) {
+        Batch existing = batches.byId.put(batch.id, batch);
+        if (existing != null && batches.ordered.remove(existing)) {
+            batches.total -= existing.quantity;
+        }
+        batches.ordered.add(batch);
+        batches.total += batch.quantity;
+        itemByBatch.put(batch.id, batch.itemId);
+    }
+
+    private void remove(ItemBatches batches, Batch batch) {
+        if (batches.ordered.remove(batch)) {
+            batches.byId.remove(batch.id);
+            batches.total -= batch.quantity;
+            itemByBatch.remove(batch.id, batch.itemId);
+        }
+    }
+
+    private ItemBatches batchesFor(int itemId) throws SQLException, ClassNotFoundException {
+        ItemBatches batches = items.computeIfAbsent(itemId, id -> new ItemBatches());
+        synchronized (batches) {
+            if (batches.loaded) {
+                hitCount.incrementAndGet();
+                return batches;
+            }
+            // Loaded under the item's lock so writers wait for it; their updates are absolute
+            for (Batch batch : loadBatches(itemId)) {
+                add(batches, batch);
+            }
+            batches.loaded = true;
+            loadCount.incrementAndGet();
+        }
+        return batches;
+    }
+
+    private List<Batch> loadBatches(int itemId) throws SQLException, ClassNotFoundException {
+        String query = """
+            SELECT s.id, s.item_id, i.code, i.name, s.quantity, s.date_of_purchase, s.date_of_expiry
+            FROM stock s
+            JOIN items i ON s.item_id = i.id
+            WHERE s.item_id = ? AND s.availability = true AND s.quantity > 0
+            """;
+        List<Batch> batches = new ArrayList<>();
+        try (Connection connection = dbConnection.connect();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, itemId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    batches.add(new Batch(resultSet.getInt("id"), resultSet.getInt("item_id"),
+                            resultSet.getString("code"), resultSet.getString("name"),
+                            resultSet.getInt("quantity"),
+                            resultSet.getDate("date_of_purchase").toLocalDate(),
+                            resultSet.getDate("date_of_expiry").toLocalDate()));
+                }
+            }
+        }
+        return batches;
+    }
+
+    private static class ItemBatches {
+        private final NavigableSet<Batch> ordered = new TreeSet<>(FIFO_ORDER);
+        private final Map<Integer, Batch> byId = new HashMap<>();
+        // Sum of quantity over the batches in the set
+        private int total;
+        private boolean loaded;
+    }
+
+    private static class Batch {
+        private final int id;
+        private final int itemId;
+        private final String itemCode;
+        private final String itemName;
+        private final LocalDate purchaseDate;
+        private final LocalDate expiryDate;
+        private int quantity;
+
+        private Batch(int id, int itemId, String itemCode, String itemName, int quantity,
+                      LocalDate purchaseDate, LocalDate expiryDate) {
+            this.id = id;
+            this.itemId = itemId;
+            this.itemCode = itemCode;
+            this.itemName = itemName;
+            this.quantity = quantity;
+            this.purchaseDate = purchaseDate;
+            this.expiryDate = expiryDate;
+        }
+    }
+
+    /**
+     * Quantity taken (or to be taken) from one batch
+     */
+    public static class Allocation {
+        private final int stockId;
+        private final int itemId;
+        private final String itemCode;
+        private final String itemName;
+        private final int quantity;
+        private final int remainingQuantity;
+        private final LocalDate purchaseDate;
+        private final LocalDate expiryDate;
+
+        private Allocation(Batch batch, int quantity, int remainingQuantity) {
+            this.stockId = batch.id;
+            this.itemId = batch.itemId;
+            this.itemCode = batch.itemCode;
+            this.itemName = batch.itemName;
+            this.quantity = quantity;
+            this.remainingQuantity = remainingQuantity;
+            this.purchaseDate = batch.purchaseDate;
+            this.expiryDate = batch.expiryDate;
+        }
+
+        // Getters
+        public int getStockId() { return stockId; }
+        public int getItemId() { return itemId; }
+        public String getItemCode() { return itemCode; }
+        public String getItemName() { return itemName; }
+        public int getQuantity() { return quantity; }
+        public int getRemainingQuantity() { return remainingQuantity; }
+        public LocalDate getPurchaseDate() { return purchaseDate; }
+        public LocalDate getExpiryDate() { return expiryDate; }
+    }
+
+    /**
+     * Point-in-time snapshot of index statistics
+     */
+    public static class IndexStats {
+        private int trackedItems;
+        private int trackedBatches;
+        private long hitCount;
+        private long loadCount;
+        private long reserveCount;
+        private long rejectedCount;
+
+        // Getters
+        public int getTrackedItems() { return trackedItems; }
+        public int getTrackedBatches() { return trackedBatches; }
+        public long getHitCount() { return hitCount; }
+        public long getLoadCount() { return loadCount; }
+        public long getReserveCount() { return reserveCount; }
+        public long getRejectedCount() { return rejectedCount; }
+    }
+}
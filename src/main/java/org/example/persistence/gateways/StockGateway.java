@@ -5,7 +5,11 @@ import org.example.shared.dto.StockDTO;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class StockGateway {
     private static StockGateway instance;
@@ -13,7 +17,12 @@ public class StockGateway {
     private final DatabaseConnection dbConnection;
 
     private StockGateway() {
-        this.dbConnection = DatabaseConnection.getInstance();
+        this(DatabaseConnection.getInstance());
+    }
+
+    // Visible for tests
+    StockGateway(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
     }
 
     public static StockGateway getInstance() {
@@ -43,6 +52,7 @@ public class StockGateway {
             ResultSet generatedKeys = statement.getGeneratedKeys();
             if (generatedKeys.next()) {
                 stock.setId(generatedKeys.getInt(1));
+                StockBatchIndex.getInstance().upsert(stock);
             }
         } finally {
             dbConnection.closeConnection(connection);
@@ -61,6 +71,7 @@ public class StockGateway {
             statement.setBoolean(5, stock.isAvailability());
             statement.setInt(6, stock.getId());
             statement.executeUpdate();
+            StockBatchIndex.getInstance().upsert(stock);
         } finally {
             dbConnection.closeConnection(connection);
         }
@@ -74,11 +85,178 @@ public class StockGateway {
             statement.setInt(1, newQuantity);
             statement.setInt(2, stockId);
             statement.executeUpdate();
+            StockBatchIndex.getInstance().setQuantity(stockId, newQuantity);
+        } finally {
+            dbConnection.closeConnection(connection);
+        }
+    }
+
+    /**
+     * Take the given quantities off their batches in one transaction, marking a batch
+     * unavailable when it reaches zero. All or nothing: returns false and rolls back if
+     * any batch no longer holds its quantity. The quantities are expected to have been
+     * reserved through StockBatchIndex already, so the index is not touched here.
+     */
+    public boolean consume(List<BatchConsumption> consumptions) throws SQLException, ClassNotFoundException {
+        Connection connection = dbConnection.connect();
+        try {
+            connection.setAutoCommit(false);
+            if (!applyConsumptions(connection, consumptions)) {
+                connection.rollback();
+                return false;
+            }
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
         } finally {
+            connection.setAutoCommit(true);
             dbConnection.closeConnection(connection);
         }
     }
 
+    /**
+     * Take quantity off an item's unexpired batches in FIFO order (earliest expiry,
+     * then earliest purchase) on the caller's connection, so it joins the caller's
+     * transaction. The batches are locked in that order with SELECT ... FOR UPDATE and
+     * decremented with one batched UPDATE, flipping availability at zero.
+     *
+     * Returns what was taken from each batch, or an empty list without changing anything
+     * if the item does not have enough stock. The caller commits and must then call
+     * StockBatchIndex.invalidateItem(), or rely on the auto-commit variant below.
+     */
+    public List<BatchConsumption> consumeFifo(Connection connection, int itemId, int quantity) throws SQLException {
+        if (quantity <= 0) {
+            return new ArrayList<>();
+        }
+        List<StockDTO> batches = lockFifoBatches(connection, List.of(itemId)).getOrDefault(itemId, new ArrayList<>());
+        List<BatchConsumption> consumptions = planFifo(batches, quantity);
+        if (!applyConsumptions(connection, consumptions)) {
+            // Rows are locked, so this means the table is not what we just read
+            throw new SQLException("Stock for item " + itemId + " changed while it was being consumed");
+        }
+        return consumptions;
+    }
+
+    /**
+     * Lock the unexpired, available batches of the given items with SELECT ... FOR UPDATE,
+     * in item order and FIFO order within each item, and return them per item in that order.
+     * Items with no such batches are absent from the map.
+     */
+    public Map<Integer, List<StockDTO>> lockFifoBatches(Connection connection, Collection<Integer> itemIds) throws SQLException {
+        Map<Integer, List<StockDTO>> batchesByItem = new LinkedHashMap<>();
+        if (itemIds.isEmpty()) {
+            return batchesByItem;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(itemIds.size(), "?"));
+        String query = """
+            SELECT s.*, i.code, i.name
+            FROM stock s
+            JOIN items i ON s.item_id = i.id
+            WHERE s.item_id IN (%s) AND s.availability = true AND s.quantity > 0 AND s.date_of_expiry >= CURDATE()
+            ORDER BY s.item_id ASC, s.date_of_expiry ASC, s.date_of_purchase ASC, s.id ASC
+            FOR UPDATE
+        """.formatted(placeholders);
+        
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            int index = 1;
+            for (int itemId : itemIds) {
+                statement.setInt(index++, itemId);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    StockDTO batch = mapResultSetToDTO(resultSet);
+                    batchesByItem.computeIfAbsent(batch.getItemId(), id -> new ArrayList<>()).add(batch);
+                }
+            }
+        }
+        return batchesByItem;
+    }
+
+    /**
+     * Plan taking quantity from batches in list order. The batches' quantities are reduced
+     * in place, so planning several lines against the same list never reuses a unit.
+     * Returns an empty list and leaves the batches unchanged if they do not hold enough.
+     */
+    public static List<BatchConsumption> planFifo(List<StockDTO> batches, int quantity) {
+        List<BatchConsumption> consumptions = new ArrayList<>();
+        int available = 0;
+        for (StockDTO batch : batches) {
+            available += batch.getQuantity();
+        }
+        if (quantity <= 0 || available < quantity) {
+            return consumptions;
+        }
+        
+        int remaining = quantity;
+        for (StockDTO batch : batches) {
+            if (remaining == 0) {
+                break;
+            }
+            int taken = Math.min(batch.getQuantity(), remaining);
+            if (taken > 0) {
+                batch.setQuantity(batch.getQuantity() - taken);
+                consumptions.add(new BatchConsumption(batch.getId(), taken, batch.getQuantity()));
+                remaining -= taken;
+            }
+        }
+        return consumptions;
+    }
+
+    /**
+     * Same as consumeFifo() in a transaction of its own; keeps StockBatchIndex current
+     */
+    public List<BatchConsumption> consumeFifo(int itemId, int quantity) throws SQLException, ClassNotFoundException {
+        Connection connection = dbConnection.connect();
+        List<BatchConsumption> consumptions;
+        try {
+            connection.setAutoCommit(false);
+            consumptions = consumeFifo(connection, itemId, quantity);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            dbConnection.closeConnection(connection);
+        }
+        
+        StockBatchIndex stockBatchIndex = StockBatchIndex.getInstance();
+        for (BatchConsumption consumption : consumptions) {
+            stockBatchIndex.setQuantity(consumption.getStockId(), consumption.getRemainingQuantity());
+        }
+        return consumptions;
+    }
+
+    /**
+     * Write planned consumptions on the caller's connection: one guarded decrement per
+     * batch, sent as a single JDBC batch. Returns false if any row fell short, in which
+     * case the caller must roll back.
+     */
+    public boolean applyConsumptions(Connection connection, List<BatchConsumption> consumptions) throws SQLException {
+        if (consumptions.isEmpty()) {
+            return true;
+        }
+        // availability is assigned after quantity, so it sees the decremented value
+        String query = "UPDATE stock SET quantity = quantity - ?, availability = (quantity > 0) WHERE id = ? AND quantity >= ?";
+        
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            for (BatchConsumption consumption : consumptions) {
+                statement.setInt(1, consumption.getQuantity());
+                statement.setInt(2, consumption.getStockId());
+                statement.setInt(3, consumption.getQuantity());
+                statement.addBatch();
+            }
+            for (int updateCount : statement.executeBatch()) {
+                if (updateCount == 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public List<StockDTO> findByItemId(int itemId) throws SQLException, ClassNotFoundException {
         Connection connection = dbConnection.connect();
         String query = """
@@ -245,4 +423,24 @@ public class StockGateway {
             resultSet.getBoolean("availability")
         );
     }
+
+    /**
+     * Quantity taken from one stock batch by a FIFO consumption
+     */
+    public static class BatchConsumption {
+        private final int stockId;
+        private final int quantity;
+        private final int remainingQuantity;
+
+        public BatchConsumption(int stockId, int quantity, int remainingQuantity) {
+            this.stockId = stockId;
+            this.quantity = quantity;
+            this.remainingQuantity = remainingQuantity;
+        }
+
+        // Getters
+        public int getStockId() { return stockId; }
+        public int getQuantity() { return quantity; }
+        public int getRemainingQuantity() { return remainingQuantity; }
+    }
 }
@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.InvoiceSequence;
 import org.example.persistence.models.Bill;
 import org.example.persistence.models.BillItem;
 import org.example.persistence.models.Customer;
@@ -115,9 +116,6 @@ public class BillApiController extends HttpServlet {
             String billDateStr = billData.getString("billDate");
             bill.setBillDate(LocalDate.parse(billDateStr));
 
-            // Save bill first to get bill ID
-            Bill savedBill = billController.Add_Bill(bill);
-
             // Process bill items
             JSONArray items = billData.getJSONArray("items");
             List<BillItem> billItems = new ArrayList<>();
@@ -152,12 +150,12 @@ public class BillApiController extends HttpServlet {
                 itemLookupStmt.close();
             }
 
-            // Add bill items
-            billController.add_Bill_items(billItems, savedBill);
-
             // Close connection
             conn.close();
 
+            // Shelf stock, bill and items are committed together or not at all
+            Bill savedBill = billController.checkout(bill, billItems);
+
             // Return success response with complete bill information
             JSONObject responseObj = new JSONObject();
             responseObj.put("success", true);
@@ -176,45 +174,16 @@ public class BillApiController extends HttpServlet {
 
             response.getWriter().write(responseObj.toString());
 
+        } catch (BillController.InsufficientStockException e) {
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            response.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            response.getWriter().write("{\"error\":\"Failed to create bill: " + e.getMessage() + "\"}");
+            response.getWriter().write(new JSONObject().put("error", "Failed to create bill: " + e.getMessage()).toString());
         }
     }
 
     private String generateNextInvoiceNumber() throws Exception {
-        int nextNumber = getNextInvoiceNumber();
-        return String.format("INV-%05d", nextNumber); // Format as INV-00001, INV-00002, etc.
-    }
-
-    private int getNextInvoiceNumber() throws Exception {
-        Connection conn = DatabaseConnection.getInstance().connect();
-
-        // Get the highest invoice number from both INV-XXXX and SYOS-XXXX formats
-        String sql = """
-                    SELECT MAX(invoice_num) as max_number FROM (
-                        SELECT CAST(SUBSTRING(invoiceNumber, 5) AS UNSIGNED) as invoice_num
-                        FROM bill WHERE invoiceNumber LIKE 'INV-%'
-                        UNION ALL
-                        SELECT CAST(SUBSTRING(invoiceNumber, 6) AS UNSIGNED) as invoice_num
-                        FROM bill WHERE invoiceNumber LIKE 'SYOS-%'
-                    ) combined_invoices
-                """;
-
-        PreparedStatement stmt = conn.prepareStatement(sql);
-        ResultSet rs = stmt.executeQuery();
-
-        int nextNumber = 1; // Start from 1 if no invoices exist
-        if (rs.next()) {
-            int maxNumber = rs.getInt("max_number");
-            if (!rs.wasNull()) {
-                nextNumber = maxNumber + 1;
-            }
-        }
-
-        stmt.close();
-        conn.close();
-
-        return nextNumber;
+        return InvoiceSequence.getInstance().nextInvoiceNumber();
     }
 }
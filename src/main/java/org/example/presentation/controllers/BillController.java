@@ -1,11 +1,20 @@
 package org.example.presentation.controllers;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.InvoiceSequence;
+import org.example.persistence.gateways.Page;
+import org.example.persistence.gateways.PageToken;
+import org.example.persistence.gateways.SalesRollupGateway;
+import org.example.persistence.gateways.ShelfLedger;
 import org.example.persistence.models.Bill;
 import org.example.persistence.models.BillItem;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Business Logic Controller for Bill operations
@@ -14,158 +23,192 @@ import java.util.List;
  */
 public class BillController {
     public java.util.List<Bill> getAllBills() throws SQLException, ClassNotFoundException {
-        java.util.List<Bill> bills = new java.util.ArrayList<>();
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-        String query = "SELECT * FROM bill ORDER BY billDate DESC LIMIT 100";
-        try (PreparedStatement stmt = connection.prepareStatement(query);
-                ResultSet rs = stmt.executeQuery()) {
-            while (rs.next()) {
-                Bill bill = new Bill(null,
-                        rs.getString("invoiceNumber"),
-                        rs.getDouble("fullPrice"),
-                        rs.getDouble("discount"),
-                        rs.getDouble("cashTendered"),
-                        rs.getDouble("changeAmount"),
-                        rs.getString("transactionType"),
-                        rs.getString("storeType"));
-                bill.setId(rs.getInt("id"));
-                bill.setBillDate(rs.getDate("billDate").toLocalDate());
-                bills.add(bill);
-            }
-        }
-        return bills;
+        return getBillsPage(null, 100, null).getItems();
     }
 
-    public String getInvoiceNumber() throws SQLException, ClassNotFoundException {
+    /**
+     * Bills newest first, one page at a time. Pages are keyed on (billDate, id) so
+     * every page is an index range read, however far into the history it is.
+     * transactionType may be null for all bills.
+     */
+    public Page<Bill> getBillsPage(String transactionType, int pageSize, PageToken after)
+            throws SQLException, ClassNotFoundException {
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
-        // Use a more thread-safe approach with unique timestamp + hash
-        long timestamp = System.currentTimeMillis();
-        int threadHash = Thread.currentThread().hashCode();
-        String uniqueId = String.format("%d%02d", timestamp % 100000000, Math.abs(threadHash) % 100);
-
-        String candidateInvoice;
-        int attempts = 0;
-
-        // Try up to 10 times to get a unique invoice number
-        do {
-            if (attempts > 0) {
-                // Add attempt number for additional uniqueness
-                uniqueId = String.format("%d%02d%02d", timestamp % 10000000, Math.abs(threadHash) % 100, attempts);
+        String query = "SELECT * FROM bill WHERE 1 = 1 ";
+        if (transactionType != null) {
+            query += "AND transactionType = ? ";
+        }
+        if (after != null) {
+            // Spelled out rather than (billDate, id) < (?, ?), which MySQL may not turn into a range scan
+            query += "AND (billDate < ? OR (billDate = ? AND id < ?)) ";
+        }
+        // One extra row tells us whether there is another page
+        query += "ORDER BY billDate DESC, id DESC LIMIT ?";
+
+        List<Bill> bills = new ArrayList<>();
+        try (Connection connection = db.connect();
+                PreparedStatement stmt = connection.prepareStatement(query)) {
+            int paramIndex = 1;
+            if (transactionType != null) {
+                stmt.setString(paramIndex++, transactionType);
             }
-            candidateInvoice = "INV-" + uniqueId.substring(0, Math.min(5, uniqueId.length()));
-
-            // Check if this invoice number already exists
-            String checkQuery = "SELECT COUNT(*) FROM bill WHERE invoiceNumber = ?";
-            try (PreparedStatement checkStmt = connection.prepareStatement(checkQuery)) {
-                checkStmt.setString(1, candidateInvoice);
-                try (ResultSet rs = checkStmt.executeQuery()) {
-                    if (rs.next() && rs.getInt(1) == 0) {
-                        // Invoice number is unique
-                        connection.close();
-                        return candidateInvoice;
-                    }
-                }
+            if (after != null) {
+                Date afterDate = Date.valueOf(after.getSortDate());
+                stmt.setDate(paramIndex++, afterDate);
+                stmt.setDate(paramIndex++, afterDate);
+                stmt.setInt(paramIndex++, after.getId());
             }
-            attempts++;
-
-            // Small delay between attempts to avoid tight loop
-            try {
-                Thread.sleep(1);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
+            stmt.setInt(paramIndex, pageSize + 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Bill bill = new Bill(null,
+                            rs.getString("invoiceNumber"),
+                            rs.getDouble("fullPrice"),
+                            rs.getDouble("discount"),
+                            rs.getDouble("cashTendered"),
+                            rs.getDouble("changeAmount"),
+                            rs.getString("transactionType"),
+                            rs.getString("storeType"));
+                    bill.setId(rs.getInt("id"));
+                    bill.setBillDate(rs.getDate("billDate").toLocalDate());
+                    bills.add(bill);
+                }
             }
+        }
 
-        } while (attempts < 10);
+        String nextPageToken = null;
+        if (bills.size() > pageSize) {
+            bills.remove(pageSize);
+            Bill last = bills.get(pageSize - 1);
+            nextPageToken = PageToken.after(last.getBillDate(), last.getId()).encode();
+        }
+        return new Page<>(bills, nextPageToken);
+    }
 
-        connection.close();
-        // Fallback to timestamp-based if all attempts failed
-        return "INV-" + System.currentTimeMillis() % 100000;
+    public String getInvoiceNumber() throws SQLException, ClassNotFoundException {
+        return InvoiceSequence.getInstance().nextInvoiceNumber();
     }
 
     public Bill Add_Bill(Bill bill) throws SQLException, ClassNotFoundException {
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-        PreparedStatement statement = null;
-        String query = "INSERT INTO bill (customer_id, customer_type, invoiceNumber, fullPrice, discount, cashTendered,changeAmount,billDate,transactionType,storeType) VALUES (?, ?, ?, ?, ?, ?, ?,?,?,?)";
-        statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-        if (bill.getCustomer() != null) {
-            statement.setInt(1, bill.getCustomer().getId());
-        } else {
-            statement.setNull(1, Types.INTEGER);
-        }
-
-        // Set customer_type based on transaction type
-        String customerType = "REGULAR"; // Default for in-store transactions
-        if ("ONLINE".equals(bill.getTransactionType()) || "WEBSITE".equals(bill.getStoreType())) {
-            customerType = "ONLINE";
-        }
-        statement.setString(2, customerType);
-        statement.setString(3, bill.getInvoiceNumber());
-        statement.setDouble(4, bill.getFullPrice());
-        statement.setDouble(5, bill.getDiscount());
-        statement.setDouble(6, bill.getCashTendered());
-        statement.setDouble(7, bill.getChangeAmount());
-        statement.setObject(8, bill.getBillDate());
-        statement.setString(9, bill.getTransactionType());
-        statement.setString(10, bill.getStoreType());
-
-        int rowsInserted = statement.executeUpdate();
-
-        if (rowsInserted > 0) {
-            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    int generatedId = generatedKeys.getInt(1);
-                    bill.setId(generatedId); // Set the generated ID back to the bill object
-                    System.out.println("Bill added successfully with ID: " + generatedId);
-                }
-            }
-        } else {
-            // Failed to add bill
+        try (Connection connection = db.connect()) {
+            insertBill(connection, bill);
         }
         return bill;
     }
 
-    public void add_Bill_items(List<BillItem> billItems, Bill bill)
-            throws SQLException, ClassNotFoundException {
+    /**
+     * Record a complete sale as one unit of work: the shelf decrements, the bill and
+     * its items are committed together or not at all. Shelf rows are locked in
+     * item-id order so concurrent checkouts sharing items cannot deadlock.
+     * Throws InsufficientStockException (after rolling back) if any line cannot be filled.
+     */
+    public Bill checkout(Bill bill, List<BillItem> billItems) throws SQLException, ClassNotFoundException {
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-        PreparedStatement Billstatement = null;
-        PreparedStatement ShelfStatement = null;
+        ShelfLedger shelfLedger = ShelfLedger.getInstance();
+        String shelfType = "WEBSITE".equals(bill.getStoreType()) ? "WEBSITE" : "STORE";
 
-        String BillItemquery = "INSERT INTO billItem ( item_id,bill_id, quantity, itemPrice, totalPrice) VALUES (?, ?, ?, ?,?)";
-        String updateShelfQuery = "UPDATE shelf SET quantity = quantity - ? WHERE item_id = ? AND type = ? AND quantity >= ? LIMIT 1";
+        // Total quantity per item, iterated in ascending item-id order
+        Map<Integer, Integer> quantitiesByItem = new TreeMap<>();
+        Map<Integer, String> namesByItem = new HashMap<>();
+        for (BillItem billItem : billItems) {
+            int itemId = billItem.getItem().getId();
+            quantitiesByItem.merge(itemId, billItem.getQuantity(), Integer::sum);
+            namesByItem.put(itemId, billItem.getItem().getName());
+        }
 
-        Billstatement = connection.prepareStatement(BillItemquery);
-        ShelfStatement = connection.prepareStatement(updateShelfQuery);
+        List<Integer> decrementedItems = new ArrayList<>();
+        Connection connection = db.connect();
+        try {
+            connection.setAutoCommit(false);
+
+            for (Map.Entry<Integer, Integer> line : quantitiesByItem.entrySet()) {
+                int itemId = line.getKey();
+                if (!shelfLedger.decrement(connection, itemId, shelfType, line.getValue())) {
+                    throw new InsufficientStockException("Insufficient stock for " + namesByItem.get(itemId)
+                            + ". Available: " + shelfLedger.getQuantity(itemId, shelfType)
+                            + ", Requested: " + line.getValue());
+                }
+                decrementedItems.add(itemId);
+            }
 
-        // Determine which shelf to update based on transaction type
-        String shelfType = bill.getStoreType().equals("WEBSITE") ? "WEBSITE" : "STORE";
+            insertBill(connection, bill);
+
+            String billItemQuery = "INSERT INTO billItem (item_id, bill_id, quantity, itemPrice, totalPrice) VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement statement = connection.prepareStatement(billItemQuery)) {
+                for (BillItem billItem : billItems) {
+                    statement.setInt(1, billItem.getItem().getId());
+                    statement.setInt(2, bill.getId());
+                    statement.setInt(3, billItem.getQuantity());
+                    statement.setDouble(4, billItem.getItemPrice());
+                    statement.setDouble(5, billItem.getTotalPrice());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
 
-        for (BillItem billItem : billItems) {
-            // Add bill item record
-            Billstatement.setInt(1, billItem.getItem().getId());
-            Billstatement.setInt(2, bill.getId());
-            Billstatement.setInt(3, billItem.getQuantity());
-            Billstatement.setDouble(4, billItem.getItemPrice());
-            Billstatement.setDouble(5, billItem.getTotalPrice());
-
-            Billstatement.executeUpdate();
-
-            // Update shelf stock quantity
-            ShelfStatement.setInt(1, billItem.getQuantity());
-            ShelfStatement.setInt(2, billItem.getItem().getId());
-            ShelfStatement.setString(3, shelfType);
-            ShelfStatement.setInt(4, billItem.getQuantity());
-            ShelfStatement.executeUpdate();
+            SalesRollupGateway.getInstance().recordBill(connection, bill, billItems);
+
+            connection.commit();
+            return bill;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            // The ledger already took these quantities; reload them from the rolled-back rows
+            for (int itemId : decrementedItems) {
+                shelfLedger.invalidate(itemId, shelfType);
+            }
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+            connection.close();
         }
+    }
 
-        Billstatement.close();
-        ShelfStatement.close();
+    private void insertBill(Connection connection, Bill bill) throws SQLException {
+        String query = "INSERT INTO bill (customer_id, customer_type, invoiceNumber, fullPrice, discount, cashTendered,changeAmount,billDate,transactionType,storeType) VALUES (?, ?, ?, ?, ?, ?, ?,?,?,?)";
+        try (PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            if (bill.getCustomer() != null) {
+                statement.setInt(1, bill.getCustomer().getId());
+            } else {
+                statement.setNull(1, Types.INTEGER);
+            }
 
+            // Set customer_type based on transaction type
+            String customerType = "REGULAR"; // Default for in-store transactions
+            if ("ONLINE".equals(bill.getTransactionType()) || "WEBSITE".equals(bill.getStoreType())) {
+                customerType = "ONLINE";
+            }
+            statement.setString(2, customerType);
+            statement.setString(3, bill.getInvoiceNumber());
+            statement.setDouble(4, bill.getFullPrice());
+            statement.setDouble(5, bill.getDiscount());
+            statement.setDouble(6, bill.getCashTendered());
+            statement.setDouble(7, bill.getChangeAmount());
+            statement.setObject(8, bill.getBillDate());
+            statement.setString(9, bill.getTransactionType());
+            statement.setString(10, bill.getStoreType());
+
+            int rowsInserted = statement.executeUpdate();
+
+            if (rowsInserted > 0) {
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        int generatedId = generatedKeys.getInt(1);
+                        bill.setId(generatedId); // Set the generated ID back to the bill object
+                        System.out.println("Bill added successfully with ID: " + generatedId);
+                    }
+                }
+            }
+        }
     }
 
+    /**
+     * A checkout line could not be filled from the shelf; the whole checkout was rolled back
+     */
+    public static class InsufficientStockException extends SQLException {
+        public InsufficientStockException(String message) {
+            super(message);
+        }
+    }
 }
@@ -1,11 +1,14 @@
 package org.example.presentation.controllers;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CustomerDirectory;
 import org.example.persistence.models.Customer;
 import org.example.business.validators.CustomerValidator;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 public class CustomerController {
 
@@ -84,12 +87,19 @@ public class CustomerController {
         Connection connection = databaseConnection.connect();
 
         try {
-            var statement = connection.prepareStatement("insert into customers(name, contactNumber) values(?, ?)");
+            var statement = connection.prepareStatement("insert into customers(name, contactNumber) values(?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
             statement.setString(1, customer.getName().trim());
             statement.setString(2, customer.getcontactNumber().trim());
 
             int rowsInserted = statement.executeUpdate();
             if (rowsInserted > 0) {
+                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        customer.setId(generatedKeys.getInt(1));
+                        CustomerDirectory.getInstance().registered(customer, false);
+                    }
+                }
                 System.out.println("Customer added successfully: " + customer.getName());
             } else {
                 // Failed to add customer
@@ -1,6 +1,8 @@
 package org.example.presentation.controllers;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.shared.dto.ItemDTO;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
@@ -14,6 +16,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
 public class ItemsController extends HttpServlet {
+    private static final int SEARCH_RESULT_LIMIT = 10;
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
@@ -49,53 +52,38 @@ public class ItemsController extends HttpServlet {
         }
         
         JSONArray results = new JSONArray();
-        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
-        Connection conn = null;
         
         try {
-            conn = dbConnection.connect();
-            String sql = "SELECT UPPER(code) as code, name, price, " +
-                        "CASE " +
-                        "    WHEN name LIKE '%rice%' OR name LIKE '%Rice%' THEN 'Grains' " +
-                        "    WHEN name LIKE '%oil%' OR name LIKE '%Oil%' THEN 'Cooking Oils' " +
-                        "    WHEN name LIKE '%sugar%' OR name LIKE '%Sugar%' THEN 'Sweeteners' " +
-                        "    ELSE 'General' " +
-                        "END as category, " +
-                        "name as description " +
-                        "FROM items " +
-                        "WHERE UPPER(code) LIKE ? OR UPPER(name) LIKE ? " +
-                        "ORDER BY code LIMIT 10";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                String searchPattern = "%" + query.trim().toUpperCase() + "%";
-                stmt.setString(1, searchPattern);
-                stmt.setString(2, searchPattern);
-                
-                try (ResultSet rs = stmt.executeQuery()) {
-                    while (rs.next()) {
-                        JSONObject item = new JSONObject();
-                        item.put("code", rs.getString("code"));
-                        item.put("name", rs.getString("name"));
-                        item.put("price", rs.getDouble("price"));
-                        item.put("category", rs.getString("category"));
-                        results.put(item);
-                    }
-                }
+            // Served from the in-memory index; typeahead calls this on every keystroke
+            for (ItemDTO dto : ItemGateway.getInstance().search(query, SEARCH_RESULT_LIMIT)) {
+                JSONObject item = new JSONObject();
+                item.put("code", dto.getCode().toUpperCase());
+                item.put("name", dto.getName());
+                item.put("price", dto.getPrice());
+                item.put("category", categoryOf(dto.getName()));
+                results.put(item);
             }
         } catch (Exception e) {
             // Return empty array on error
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.close();
-                } catch (Exception e) {
-                }
-            }
         }
         
         response.getWriter().write(results.toString());
     }
     
+    private static String categoryOf(String name) {
+        String lowerName = name.toLowerCase();
+        if (lowerName.contains("rice")) {
+            return "Grains";
+        }
+        if (lowerName.contains("oil")) {
+            return "Cooking Oils";
+        }
+        if (lowerName.contains("sugar")) {
+            return "Sweeteners";
+        }
+        return "General";
+    }
+    
     private void handleGetItem(String itemCode, HttpServletResponse response) throws IOException {
         DatabaseConnection dbConnection = DatabaseConnection.getInstance();
         Connection conn = null;
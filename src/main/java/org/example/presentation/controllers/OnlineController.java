@@ -1,7 +1,12 @@
 package org.example.presentation.controllers;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CustomerDirectory;
+import org.example.persistence.gateways.SalesRollupGateway;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.core.config.SystemConfig;
 import org.example.persistence.models.*;
+import org.example.business.managers.StockReservationManager;
 import org.example.business.validators.CustomerValidator;
 
 import java.sql.*;
@@ -100,6 +105,9 @@ public class OnlineController {
                 try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         customer.setId(generatedKeys.getInt(1));
+                        customer.setEmail(email.trim());
+                        customer.setAddress(address.trim());
+                        CustomerDirectory.getInstance().registered(customer, true);
                         System.out.println("Online customer registered successfully with ID: " + customer.getId());
                         return true;
                     }
@@ -164,10 +172,9 @@ public class OnlineController {
 
             // Insert bill items and update website inventory
             String billItemQuery = "INSERT INTO billItem (item_id, bill_id, quantity, itemPrice, totalPrice) VALUES (?, ?, ?, ?, ?)";
-            String updateWebsiteInventoryQuery = "UPDATE shelf SET quantity = quantity - ? WHERE item_id = ? AND type = 'WEBSITE' AND quantity >= ?";
+            ShelfLedger shelfLedger = ShelfLedger.getInstance();
 
-            try (PreparedStatement billItemStatement = connection.prepareStatement(billItemQuery);
-                    PreparedStatement inventoryStatement = connection.prepareStatement(updateWebsiteInventoryQuery)) {
+            try (PreparedStatement billItemStatement = connection.prepareStatement(billItemQuery)) {
 
                 for (BillItem item : orderItems) {
                     // Insert bill item
@@ -179,23 +186,28 @@ public class OnlineController {
                     billItemStatement.executeUpdate();
 
                     // Update website inventory
-                    inventoryStatement.setInt(1, item.getQuantity());
-                    inventoryStatement.setInt(2, item.getItem().getId());
-                    inventoryStatement.setInt(3, item.getQuantity());
-                    int inventoryUpdated = inventoryStatement.executeUpdate();
+                    boolean inventoryUpdated = shelfLedger.decrement(connection, item.getItem().getId(),
+                            SystemConfig.STORE_TYPE_WEBSITE, item.getQuantity());
 
-                    if (inventoryUpdated == 0) {
+                    if (!inventoryUpdated) {
                         throw new SQLException("Insufficient website inventory for item: " + item.getItem().getName());
                     }
                 }
             }
 
+            SalesRollupGateway.getInstance().recordBill(connection, bill, orderItems);
+
             connection.commit();
             System.out.println("Online order processed successfully. Order ID: " + bill.getId());
             return bill;
 
-        } catch (SQLException e) {
+        } catch (Exception e) {
+            // Any failure, checked or not, must leave the ledger matching the rolled-back rows
             connection.rollback();
+            // Quantities already taken off the ledger were rolled back in the database
+            for (BillItem item : orderItems) {
+                ShelfLedger.getInstance().invalidate(item.getItem().getId(), SystemConfig.STORE_TYPE_WEBSITE);
+            }
             System.out.println("Error processing online order: " + e.getMessage());
             throw e;
         } finally {
@@ -238,23 +250,7 @@ public class OnlineController {
 
     // Check if enough stock is available for online order
     public boolean isItemAvailableOnline(int itemId, int quantity) throws SQLException, ClassNotFoundException {
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
-        String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = 'WEBSITE'";
-
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, itemId);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    int availableQuantity = resultSet.getInt("quantity");
-                    return availableQuantity >= quantity;
-                }
-            }
-        } finally {
-            connection.close();
-        }
-
-        return false;
+        // Units held by online carts are not available to anyone else
+        return StockReservationManager.getInstance().getAvailableToSell(itemId) >= quantity;
     }
 }
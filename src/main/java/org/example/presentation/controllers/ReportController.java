@@ -3,9 +3,12 @@ package org.example.presentation.controllers;
 import org.example.business.validators.ReportValidator;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.SalesRollupGateway;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
 
 public class ReportController {
 
@@ -21,60 +24,31 @@ public class ReportController {
         transactionType = normalizedFilters[0];
         storeType = normalizedFilters[1];
         
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
+        String reportTitle = "Sales Report for " + date;
+        if (transactionType != null) reportTitle += " (" + transactionType + ")";
+        if (storeType != null) reportTitle += " [" + storeType + "]";
 
-        String query = "SELECT i.code, i.name, SUM(bi.quantity) as total_quantity, SUM(bi.totalPrice) as total_revenue " +
-                "FROM billItem bi " +
-                "JOIN items i ON bi.item_id = i.id " +
-                "JOIN bill b ON bi.bill_id = b.id " +
-                "WHERE b.billDate = ? ";
-        
-        if (transactionType != null) {
-            query += "AND b.transactionType = ? ";
-        }
-        if (storeType != null) {
-            query += "AND b.storeType = ? ";
-        }
-        
-        query += "GROUP BY i.code, i.name " +
-                "ORDER BY total_revenue DESC";
+        try {
+            // Per-item totals are pre-aggregated in the daily rollup, so no bill rows are scanned
+            List<SalesRollupGateway.ItemSales> itemSales = SalesRollupGateway.getInstance()
+                    .getItemSales(LocalDate.parse(date), transactionType, storeType);
 
-        try (var statement = connection.prepareStatement(query)) {
-            statement.setString(1, date);
-            int paramIndex = 2;
-            if (transactionType != null) {
-                statement.setString(paramIndex++, transactionType);
-            }
-            if (storeType != null) {
-                statement.setString(paramIndex, storeType);
-            }
-            
             System.out.println("\n=== SALES REPORT FOR " + date + " ===");
             System.out.println("Filter: " + ReportValidator.getReportDescription(transactionType, storeType));
             System.out.println("========================================");
-            
-            var resultSet = statement.executeQuery();
 
-            String reportTitle = "Sales Report for " + date;
-            if (transactionType != null) reportTitle += " (" + transactionType + ")";
-            if (storeType != null) reportTitle += " [" + storeType + "]";
-            
             System.out.println(reportTitle + ":");
             System.out.printf("%-10s %-20s %-15s %-15s%n", "Code", "Item Name", "Total Quantity", "Total Revenue");
             System.out.println("------------------------------------------------------------");
 
-            while (resultSet.next()) {
-                String code = resultSet.getString("code");
-                String name = resultSet.getString("name");
-                int totalQuantity = resultSet.getInt("total_quantity");
-                double totalRevenue = resultSet.getDouble("total_revenue");
-
-                System.out.printf("%-10s %-20s %-15d Rs.%-14.2f%n", code, name, totalQuantity, totalRevenue);
+            for (SalesRollupGateway.ItemSales sales : itemSales) {
+                System.out.printf("%-10s %-20s %-15d Rs.%-14.2f%n", sales.getCode(), sales.getName(),
+                        sales.getQuantity(), sales.getRevenue());
             }
         } catch (SQLException e) {
+            System.err.println("Error generating sales report: " + e.getMessage());
         }
-        return query;
+        return reportTitle;
     }
 
     public void generate_items_need_shelving_report() throws SQLException, ClassNotFoundException {
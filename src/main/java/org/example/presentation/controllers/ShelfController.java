@@ -1,6 +1,8 @@
 package org.example.presentation.controllers;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
 import org.example.persistence.models.Item;
 import org.example.persistence.models.Shelf;
 import org.example.persistence.models.Shelf_Stock_Information;
@@ -30,6 +32,7 @@ public class ShelfController {
             statement.setString(3, shelf.getType());
             // Execute the statement
             int rowsInserted = statement.executeUpdate();
+            ShelfLedger.getInstance().invalidate(shelf.getItem().getId(), shelf.getType());
             if (rowsInserted > 0) {
 
                 int shelfId = get_latest_added_shelf_id();
@@ -235,6 +238,8 @@ public class ShelfController {
             updateShelfStmt.executeUpdate();
 
             connection.commit();
+            ShelfLedger.getInstance().invalidate(shelf.getItem().getId(), shelf.getType());
+            StockBatchIndex.getInstance().invalidateItem(shelf.getItem().getId());
             System.out.println("Shelf restocked successfully with " + quantity + " items.");
         }
         catch (SQLException e)
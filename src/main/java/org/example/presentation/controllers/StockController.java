@@ -1,6 +1,8 @@
 package org.example.presentation.controllers;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
 import org.example.persistence.models.Item;
 import org.example.persistence.models.Stock;
 
@@ -53,6 +55,7 @@ public class StockController {
             statement.setBoolean(5, stock.isAvailability());
 
             statement.executeUpdate();
+            StockBatchIndex.getInstance().invalidateItem(stock.getItem().getId());
         } finally {
             if (statement != null) statement.close();
             db.closeConnection(connection);
@@ -142,6 +145,7 @@ public class StockController {
 
             if (remainingQuantity == 0) {
                 connection.commit();
+                StockBatchIndex.getInstance().invalidateItem(item.getId());
             } else {
                 connection.rollback();
             }
@@ -235,6 +239,8 @@ public class StockController {
             
             if (remainingQuantity == 0) {
                 connection.commit();
+                ShelfLedger.getInstance().invalidate(item.getId(), shelfType);
+                StockBatchIndex.getInstance().invalidateItem(item.getId());
             } else {
                 connection.rollback();
             }
@@ -0,0 +1,149 @@
+package org.example.presentation.filters;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit for one group of endpoints that adapts to observed latency (AIMD).
+ *
+ * Each request that finishes within the target latency while the bulkhead is at least
+ * half used adds 1/limit to the limit, so the limit grows by one per "window" of good
+ * requests. A slow or failed request cuts the limit by the backoff ratio, at most once
+ * per target-latency interval so a burst of slow responses counts as one signal.
+ */
+public class AdaptiveBulkhead {
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private double growthCredit;
+    private long lastDecreaseNanos;
+
+    // Statistics
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong decreaseCount = new AtomicLong();
+
+    public AdaptiveBulkhead(String name, int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis) {
+        this(name, initialLimit, minLimit, maxLimit, targetLatencyMillis, 0.9);
+    }
+
+    public AdaptiveBulkhead(String name, int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis,
+                            double backoffRatio) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Bulkhead limits must satisfy 0 < min <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.targetLatencyNanos = targetLatencyMillis * 1_000_000L;
+        this.backoffRatio = backoffRatio;
+        this.lastDecreaseNanos = System.nanoTime() - targetLatencyNanos;
+    }
+
+    /**
+     * Take a slot if one is free; every successful call must be paired with release()
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admittedCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give the slot back and feed the request's outcome into the limit
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int concurrent = inFlight.getAndDecrement();
+        onSample(latencyNanos, failed, concurrent);
+    }
+
+    public boolean isSaturated() {
+        return inFlight.get() >= limit;
+    }
+
+    private synchronized void onSample(long latencyNanos, boolean failed, int concurrent) {
+        long now = System.nanoTime();
+        if (failed || latencyNanos > targetLatencyNanos) {
+            growthCredit = 0;
+            if (now - lastDecreaseNanos >= targetLatencyNanos) {
+                lastDecreaseNanos = now;
+                int reduced = Math.max(minLimit, (int) (limit * backoffRatio));
+                if (reduced < limit) {
+                    limit = reduced;
+                    decreaseCount.incrementAndGet();
+                }
+            }
+            return;
+        }
+        // Only grow when the current limit is actually being used
+        if (concurrent * 2 >= limit && limit < maxLimit) {
+            growthCredit += 1.0 / limit;
+            if (growthCredit >= 1.0) {
+                growthCredit = 0;
+                limit++;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public BulkheadStats getStats() {
+        BulkheadStats stats = new BulkheadStats();
+        stats.name = name;
+        stats.limit = limit;
+        stats.minLimit = minLimit;
+        stats.maxLimit = maxLimit;
+        stats.inFlight = inFlight.get();
+        stats.admittedCount = admittedCount.get();
+        stats.rejectedCount = rejectedCount.get();
+        stats.decreaseCount = decreaseCount.get();
+        return stats;
+    }
+
+    /**
+     * Point-in-time snapshot of bulkhead statistics
+     */
+    public static class BulkheadStats {
+        private String name;
+        private int limit;
+        private int minLimit;
+        private int maxLimit;
+        private int inFlight;
+        private long admittedCount;
+        private long rejectedCount;
+        private long decreaseCount;
+
+        // Getters
+        public String getName() { return name; }
+        public int getLimit() { return limit; }
+        public int getMinLimit() { return minLimit; }
+        public int getMaxLimit() { return maxLimit; }
+        public int getInFlight() { return inFlight; }
+        public long getAdmittedCount() { return admittedCount; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getDecreaseCount() { return decreaseCount; }
+    }
+}
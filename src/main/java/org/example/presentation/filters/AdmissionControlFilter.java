@@ -0,0 +1,111 @@
+package org.example.presentation.filters;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import org.example.core.config.SystemConfig;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sheds load before it reaches the database.
+ *
+ * Checkout endpoints (/api/sales, /api/online-sales) and reports (/api/reports) each
+ * get their own adaptive concurrency limit, so slow report queries cannot use up the
+ * capacity checkout needs. Reports are also turned away while checkout is at its
+ * limit. Rejected requests get an immediate 503 with Retry-After instead of queueing
+ * behind work that is already slow. Other endpoints pass straight through.
+ */
+public class AdmissionControlFilter implements Filter {
+    private static final AdaptiveBulkhead SHARED_CHECKOUT = new AdaptiveBulkhead("checkout",
+            SystemConfig.ADMISSION_CHECKOUT_INITIAL_LIMIT, SystemConfig.ADMISSION_CHECKOUT_MIN_LIMIT,
+            SystemConfig.ADMISSION_CHECKOUT_MAX_LIMIT, SystemConfig.ADMISSION_CHECKOUT_TARGET_LATENCY_MS);
+    private static final AdaptiveBulkhead SHARED_REPORTS = new AdaptiveBulkhead("reports",
+            SystemConfig.ADMISSION_REPORTS_INITIAL_LIMIT, SystemConfig.ADMISSION_REPORTS_MIN_LIMIT,
+            SystemConfig.ADMISSION_REPORTS_MAX_LIMIT, SystemConfig.ADMISSION_REPORTS_TARGET_LATENCY_MS);
+
+    private final AdaptiveBulkhead checkoutBulkhead;
+    private final AdaptiveBulkhead reportsBulkhead;
+
+    public AdmissionControlFilter() {
+        this(SHARED_CHECKOUT, SHARED_REPORTS);
+    }
+
+    // Visible for tests
+    AdmissionControlFilter(AdaptiveBulkhead checkoutBulkhead, AdaptiveBulkhead reportsBulkhead) {
+        this.checkoutBulkhead = checkoutBulkhead;
+        this.reportsBulkhead = reportsBulkhead;
+    }
+
+    public static Map<String, AdaptiveBulkhead.BulkheadStats> getBulkheadStats() {
+        Map<String, AdaptiveBulkhead.BulkheadStats> stats = new LinkedHashMap<>();
+        stats.put(SHARED_CHECKOUT.getName(), SHARED_CHECKOUT.getStats());
+        stats.put(SHARED_REPORTS.getName(), SHARED_REPORTS.getStats());
+        return stats;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Limits come from SystemConfig
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        AdaptiveBulkhead bulkhead = bulkheadFor(httpRequest);
+        if (bulkhead == null || "OPTIONS".equalsIgnoreCase(httpRequest.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Reports give way whenever checkout is at its limit
+        boolean admitted = (bulkhead != reportsBulkhead || !checkoutBulkhead.isSaturated()) && bulkhead.tryAcquire();
+        if (!admitted) {
+            reject(httpResponse, bulkhead);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = httpResponse.getStatus() >= 500;
+        } finally {
+            bulkhead.release(System.nanoTime() - start, failed);
+        }
+    }
+
+    private AdaptiveBulkhead bulkheadFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (matches(path, "/api/sales") || matches(path, "/api/online-sales")) {
+            return checkoutBulkhead;
+        }
+        if (matches(path, "/api/reports")) {
+            return reportsBulkhead;
+        }
+        return null;
+    }
+
+    private static boolean matches(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + "/");
+    }
+
+    private void reject(HttpServletResponse response, AdaptiveBulkhead bulkhead) throws IOException {
+        System.err.println("Admission control rejected " + bulkhead.getName() + " request (limit: "
+                + bulkhead.getLimit() + ")");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", String.valueOf(SystemConfig.ADMISSION_RETRY_AFTER_SECONDS));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Server is busy, please retry shortly\"}");
+    }
+
+    @Override
+    public void destroy() {
+        // Bulkheads are shared and live as long as the application
+    }
+}
@@ -0,0 +1,384 @@
+package org.example.presentation.filters;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import org.example.core.config.SystemConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.MalformedURLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses text responses for clients that accept gzip or deflate.
+ *
+ * Output is held back until it reaches SystemConfig.COMPRESSION_MIN_BYTES. Smaller
+ * responses, and those whose content type is not text, JSON, JavaScript, XML or SVG,
+ * are sent as they are. Larger ones are compressed as they are written, and from then
+ * on a flush from a streaming servlet still reaches the client; an earlier flush is
+ * held back with the rest of the buffer. Requests that may go asynchronous are not
+ * wrapped, since the buffering stream only supports blocking writes. The ETag of a compressed response
+ * gets the encoding appended, since it is a different representation; HttpCacheFilter
+ * strips the suffix again when comparing. Error pages and redirects, and requests that
+ * end in an exception, drop whatever was buffered and are left to the container.
+ *
+ * Static files that StaticAssetPrecompressor gzipped at build time are served from
+ * their .gz copy instead, so the same file is not compressed again on every request.
+ */
+public class CompressionFilter implements Filter {
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+
+    private final boolean enabled;
+    private final int minBytes;
+    private ServletContext servletContext;
+
+    // Whether a static path has a .gz copy; the set of files is fixed for a deployment
+    private final Map<String, Boolean> precompressed = new ConcurrentHashMap<>();
+
+    public CompressionFilter() {
+        this(SystemConfig.COMPRESSION_ENABLED, SystemConfig.COMPRESSION_MIN_BYTES);
+    }
+
+    // Visible for tests
+    CompressionFilter(boolean enabled, int minBytes) {
+        this.enabled = enabled;
+        this.minBytes = minBytes;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        servletContext = filterConfig.getServletContext();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        String encoding = enabled && !"HEAD".equalsIgnoreCase(httpRequest.getMethod())
+                ? chooseEncoding(httpRequest.getHeader("Accept-Encoding")) : null;
+        // Non-blocking output would bypass the buffer, so only blocking requests are compressed
+        if (encoding == null || request.isAsyncSupported()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        if (GZIP.equals(encoding) && "GET".equalsIgnoreCase(httpRequest.getMethod())
+                && httpRequest.getHeader("Range") == null && hasPrecompressed(path)) {
+            String contentType = servletContext.getMimeType(path);
+            httpResponse.setHeader("Content-Encoding", GZIP);
+            httpResponse.addHeader("Vary", "Accept-Encoding");
+            if (contentType != null) {
+                httpResponse.setContentType(contentType);
+            }
+            // The .gz file keeps the original content type
+            request.getRequestDispatcher(path + ".gz").forward(request, new HttpServletResponseWrapper(httpResponse) {
+                @Override
+                public void setContentType(String type) {
+                }
+            });
+            return;
+        }
+
+        httpResponse.addHeader("Vary", "Accept-Encoding");
+        CompressingResponse wrapped = new CompressingResponse(httpResponse, encoding, minBytes);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, wrapped);
+            completed = true;
+        } finally {
+            if (completed) {
+                wrapped.finish();
+            } else {
+                // The container's error page replaces the partial body
+                wrapped.discard();
+            }
+        }
+    }
+
+    private boolean hasPrecompressed(String path) {
+        if (servletContext == null || path.startsWith("/api/") || !isCompressibleType(servletContext.getMimeType(path))) {
+            return false;
+        }
+        return precompressed.computeIfAbsent(path, key -> {
+            try {
+                return servletContext.getResource(key + ".gz") != null;
+            } catch (MalformedURLException e) {
+                return false;
+            }
+        });
+    }
+
+    // gzip if acceptable, then deflate; null when neither is
+    static String chooseEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (quality <= 0) {
+                continue;
+            }
+            if (coding.equals(GZIP) || coding.equals("*")) {
+                return GZIP;
+            }
+            if (coding.equals(DEFLATE)) {
+                deflate = true;
+            }
+        }
+        return deflate ? DEFLATE : null;
+    }
+
+    static boolean isCompressibleType(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.startsWith("application/json") || type.contains("javascript")
+                || type.startsWith("application/xml") || type.startsWith("image/svg+xml");
+    }
+
+    @Override
+    public void destroy() {
+        precompressed.clear();
+    }
+
+    /**
+     * Buffers the body until it is large enough to be worth compressing, then either
+     * compresses it or passes it through. The decision is made once per response.
+     */
+    private static final class CompressingResponse extends HttpServletResponseWrapper {
+        private final String encoding;
+        private final int minBytes;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+        private boolean finishing;
+        // Set once the body is complete or was replaced by an error or redirect
+        private boolean finished;
+
+        private CompressingResponse(HttpServletResponse response, String encoding, int minBytes) {
+            super(response);
+            this.encoding = encoding;
+            this.minBytes = minBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (stream == null) {
+                stream = new BufferingStream();
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                stream = new BufferingStream();
+                writer = new PrintWriter(new OutputStreamWriter(stream, getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        // The length is only known once it is decided whether to compress
+        @Override
+        public void setContentLength(int length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            contentLength = length;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (stream != null) {
+                stream.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (target != null) {
+                throw new IllegalStateException("Response body has already been sent");
+            }
+            buffer.reset();
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            resetBuffer();
+            super.reset();
+        }
+
+        @Override
+        public void sendError(int statusCode) throws IOException {
+            resetBuffer();
+            finished = true;
+            super.sendError(statusCode);
+        }
+
+        @Override
+        public void sendError(int statusCode, String message) throws IOException {
+            resetBuffer();
+            finished = true;
+            super.sendError(statusCode, message);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            resetBuffer();
+            finished = true;
+            super.sendRedirect(location);
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            if (finished) {
+                // The response was completed by an error page or redirect
+                return;
+            }
+            if (target != null) {
+                target.write(bytes, offset, length);
+                return;
+            }
+            buffer.write(bytes, offset, length);
+            if (buffer.size() >= minBytes) {
+                decide(false);
+            }
+        }
+
+        // Chooses compression or pass-through and sends what was buffered
+        private void decide(boolean complete) throws IOException {
+            if (target != null) {
+                return;
+            }
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            boolean compress = buffer.size() >= minBytes && isCompressibleType(getContentType())
+                    && !containsHeader("Content-Encoding") && getStatus() != SC_NO_CONTENT;
+            if (compress) {
+                OutputStream out = response.getOutputStream();
+                response.setHeader("Content-Encoding", encoding);
+                String etag = response.getHeader("ETag");
+                if (etag != null && etag.endsWith("\"")) {
+                    response.setHeader("ETag", etag.substring(0, etag.length() - 1) + "-" + encoding + "\"");
+                }
+                target = GZIP.equals(encoding)
+                        ? new GZIPOutputStream(out, 8192, true)
+                        : new DeflaterOutputStream(out, new Deflater(Deflater.DEFAULT_COMPRESSION), 8192, true);
+            } else {
+                if (complete) {
+                    response.setContentLength(buffer.size());
+                } else if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+                target = response.getOutputStream();
+            }
+            buffer.writeTo(target);
+            buffer.reset();
+        }
+
+        private void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finishing = true;
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null && buffer.size() == 0 && stream == null) {
+                // Nothing was written, e.g. a 304 or a forward that wrote elsewhere
+                return;
+            }
+            decide(true);
+            if (target instanceof DeflaterOutputStream) {
+                // Ends the deflater; the container's stream is done with anyway
+                target.close();
+            } else {
+                target.flush();
+            }
+            finished = true;
+        }
+
+        // Drops the buffered body after the chain failed; nothing more is sent from here
+        private void discard() {
+            buffer.reset();
+            finished = true;
+        }
+
+        private final class BufferingStream extends ServletOutputStream {
+            @Override
+            public void write(int b) throws IOException {
+                CompressingResponse.this.write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                CompressingResponse.this.write(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                // Deciding on a small buffer would send the whole response uncompressed
+                if (!finishing && !finished && (target != null || buffer.size() >= minBytes)) {
+                    decide(false);
+                    target.flush();
+                }
+            }
+
+            // Only blocking requests are wrapped, so these reach a container stream in blocking mode
+            @Override
+            public boolean isReady() {
+                try {
+                    return getResponse().getOutputStream().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package org.example.presentation.filters;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+import org.example.core.config.SystemConfig;
+import org.example.core.state.DataVersions;
+import org.example.core.state.DataVersions.Domain;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * HTTP validators for read endpoints, and cache lifetimes for static assets.
+ *
+ * GET responses from the catalog, stock, store-manager and report endpoints carry a
+ * strong ETag and a Last-Modified built from the DataVersions of the domains they
+ * read. A request whose If-None-Match (or If-Modified-Since) still matches gets 304
+ * here, before the servlet runs, so polling pages cost no database work while nothing
+ * changes. Validators are only added to 200 responses, and a tag that CompressionFilter
+ * suffixed with its encoding still matches.
+ *
+ * Writes to the API bump the versions of the domains they touch once the servlet has
+ * returned, by which time its transaction has committed. Work outside a request, such
+ * as shelf replenishment, bumps DataVersions itself.
+ *
+ * Static files get Cache-Control: scripts, styles and images may be reused for
+ * SystemConfig.STATIC_ASSET_MAX_AGE_SECONDS, pages are always revalidated.
+ */
+public class HttpCacheFilter implements Filter {
+    private static final Domain[] ALL = Domain.values();
+
+    // Read endpoints and the domains their responses are built from
+    private static final List<Route> READS = List.of(
+            new Route("/api/items", false, Domain.ITEMS),
+            new Route("/api/stock", false, Domain.STOCK, Domain.SHELVES, Domain.ITEMS),
+            new Route("/api/inventory", false, Domain.SHELVES, Domain.STOCK, Domain.ITEMS),
+            new Route("/api/bills", false, Domain.BILLS, Domain.ITEMS),
+            new Route("/api/store-manager/listItems", false, Domain.ITEMS, Domain.SHELVES),
+            new Route("/api/store-manager/getItem", false, Domain.ITEMS, Domain.SHELVES),
+            new Route("/api/store-manager/listShelf", false, Domain.SHELVES, Domain.ITEMS),
+            new Route("/api/store-manager/listStock", false, Domain.STOCK, Domain.ITEMS),
+            // Reports default to today's date, so their tags also change at midnight
+            new Route("/api/reports", true, ALL));
+
+    // Write endpoints and the domains they change
+    private static final List<Route> WRITES = List.of(
+            new Route("/api/sales", false, Domain.BILLS, Domain.SHELVES),
+            new Route("/api/online-sales", false, Domain.BILLS, Domain.SHELVES),
+            new Route("/api/bills", false, Domain.BILLS, Domain.SHELVES),
+            new Route("/api/stock", false, Domain.STOCK, Domain.SHELVES),
+            new Route("/api/inventory", false, Domain.STOCK, Domain.SHELVES),
+            new Route("/api/items", false, Domain.ITEMS),
+            new Route("/api/store-manager", false, Domain.ITEMS, Domain.SHELVES, Domain.STOCK),
+            new Route("/api/reports", false, Domain.BILLS));
+
+    private final DataVersions versions;
+    private final boolean enabled;
+
+    public HttpCacheFilter() {
+        this(DataVersions.getInstance(), SystemConfig.HTTP_CACHE_ENABLED);
+    }
+
+    // Visible for tests
+    HttpCacheFilter(DataVersions versions, boolean enabled) {
+        this.versions = versions;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        // Settings come from SystemConfig
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        String method = httpRequest.getMethod();
+        boolean read = "GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method);
+
+        if (!path.startsWith("/api/")) {
+            if (read) {
+                setStaticCacheControl(path, httpResponse);
+            }
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!read) {
+            Route route = "OPTIONS".equalsIgnoreCase(method) ? null : find(WRITES, path);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                if (route != null) {
+                    // Also after failures, since part of the work may have committed
+                    versions.bump(route.domains);
+                }
+            }
+            return;
+        }
+
+        Route route = enabled ? find(READS, path) : null;
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        DataVersions.Stamp stamp = versions.stamp(route.domains);
+        String etag = stamp.getTag();
+        long lastModified = stamp.getLastModified();
+        if (route.daily) {
+            LocalDate today = LocalDate.now();
+            etag += "-" + today;
+            lastModified = Math.max(lastModified, today.atStartOfDay(ZoneId.systemDefault()).toEpochSecond() * 1000);
+        }
+        etag = "\"" + etag + "\"";
+
+        if (notModified(httpRequest, etag, lastModified)) {
+            httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            setValidators(httpResponse, etag, lastModified);
+            return;
+        }
+
+        ValidatorResponse wrapped = new ValidatorResponse(httpResponse, etag, lastModified);
+        chain.doFilter(request, wrapped);
+        wrapped.applyValidators();
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-Modified-Since is ignored when If-None-Match is present
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                // CompressionFilter marks the tags of compressed responses with their encoding
+                tag = tag.replace("-gzip\"", "\"").replace("-deflate\"", "\"");
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            // Unparseable date; serve the full response
+            return false;
+        }
+    }
+
+    private static void setValidators(HttpServletResponse response, String etag, long lastModified) {
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        // Reuse only after revalidating, and never from a shared cache
+        response.setHeader("Cache-Control", "private, no-cache");
+    }
+
+    private static void setStaticCacheControl(String path, HttpServletResponse response) {
+        String lower = path.toLowerCase();
+        if (lower.endsWith(".js") || lower.endsWith(".css") || lower.endsWith(".png") || lower.endsWith(".jpg")
+                || lower.endsWith(".jpeg") || lower.endsWith(".gif") || lower.endsWith(".svg")
+                || lower.endsWith(".ico") || lower.endsWith(".woff") || lower.endsWith(".woff2")) {
+            response.setHeader("Cache-Control", "public, max-age=" + SystemConfig.STATIC_ASSET_MAX_AGE_SECONDS);
+        } else if (lower.endsWith(".html") || lower.endsWith("/")) {
+            response.setHeader("Cache-Control", "no-cache");
+        }
+    }
+
+    private static Route find(List<Route> routes, String path) {
+        for (Route route : routes) {
+            if (path.equals(route.prefix) || path.startsWith(route.prefix + "/")) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        // Versions live as long as the application
+    }
+
+    private static final class Route {
+        private final String prefix;
+        private final boolean daily;
+        private final Domain[] domains;
+
+        private Route(String prefix, boolean daily, Domain... domains) {
+            this.prefix = prefix;
+            this.daily = daily;
+            this.domains = domains;
+        }
+    }
+
+    // Adds the validators when the body starts, once the servlet has chosen its status
+    private static final class ValidatorResponse extends HttpServletResponseWrapper {
+        private final String etag;
+        private final long lastModified;
+        private boolean applied;
+
+        private ValidatorResponse(HttpServletResponse response, String etag, long lastModified) {
+            super(response);
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        private void applyValidators() {
+            if (applied) {
+                return;
+            }
+            applied = true;
+            if (getStatus() == HttpServletResponse.SC_OK && !isCommitted()) {
+                setValidators((HttpServletResponse) getResponse(), etag, lastModified);
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            applyValidators();
+            return super.getWriter();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            applyValidators();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            applyValidators();
+            super.flushBuffer();
+        }
+    }
+}
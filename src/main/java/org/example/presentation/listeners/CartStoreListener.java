@@ -0,0 +1,27 @@
+package org.example.presentation.listeners;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import org.example.core.config.SystemConfig;
+import org.example.persistence.gateways.CartStore;
+
+/**
+ * Runs the saved-cart write-behind for the lifetime of the web application, flushing
+ * pending carts on shutdown
+ */
+public class CartStoreListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        try {
+            CartStore.getInstance().start(SystemConfig.CART_FLUSH_INTERVAL_MS);
+        } catch (Exception e) {
+            System.err.println("Could not start cart store: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        CartStore.getInstance().stop();
+    }
+}
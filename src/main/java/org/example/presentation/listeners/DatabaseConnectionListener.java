@@ -0,0 +1,31 @@
+package org.example.presentation.listeners;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.SalesRollupGateway;
+
+/**
+ * Prepares the sales rollup when the web application starts and closes the pooled
+ * database connections when it stops. Registered before the other listeners, so it
+ * is destroyed after them and their last writes still find the pool open.
+ */
+public class DatabaseConnectionListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        // The pool is created on first use. The rollup is backfilled here, before any
+        // checkout holds uncommitted bill rows that the backfill would wait on.
+        try {
+            SalesRollupGateway.getInstance().initialize();
+        } catch (Exception e) {
+            // Sales still work; the daily reports stay empty until rebuild() is run
+            System.err.println("Could not prepare the sales rollup: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        DatabaseConnection.getInstance().shutdown();
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.presentation.listeners;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import org.example.business.managers.ReplenishmentScheduler;
+import org.example.core.config.SystemConfig;
+
+/**
+ * Runs the shelf replenishment scheduler for the lifetime of the web application
+ */
+public class ReplenishmentListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        if (!SystemConfig.REPLENISH_ENABLED) {
+            System.out.println("Replenishment scheduler disabled");
+            return;
+        }
+        try {
+            ReplenishmentScheduler.getInstance().start(SystemConfig.REPLENISH_SCAN_INTERVAL_MS,
+                    SystemConfig.REPLENISH_DRAIN_INTERVAL_MS);
+        } catch (Exception e) {
+            // Shelves can still be restocked by hand; do not fail the deployment
+            System.err.println("Could not start replenishment scheduler: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        ReplenishmentScheduler.getInstance().stop();
+    }
+}
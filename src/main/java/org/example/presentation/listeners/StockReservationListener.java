@@ -0,0 +1,22 @@
+package org.example.presentation.listeners;
+
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import org.example.business.managers.StockReservationManager;
+
+/**
+ * Stops the reservation expiry timer when the web application stops, so a redeploy
+ * does not leave its thread running
+ */
+public class StockReservationListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        // The timer starts with the first use of the reservation manager
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        StockReservationManager.getInstance().stop();
+    }
+}
@@ -0,0 +1,278 @@
+package org.example.presentation.servlets;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.business.managers.OnlineCartSessions;
+import org.example.business.managers.StockReservationManager;
+import org.example.core.config.SystemConfig;
+import org.example.persistence.gateways.CartStore;
+import org.example.persistence.gateways.CartStore.Cart;
+import org.example.persistence.gateways.CartStore.CartLine;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.shared.dto.ItemDTO;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Saved online carts, so a cart survives a browser restart or a move to another device.
+ *
+ * POST /api/carts creates a cart and returns its server-generated id, PUT /api/carts/{id}
+ * replaces the contents of an existing cart (404 for an id it never issued or has purged), GET /api/carts/{id} restores it with current item names, prices and stock,
+ * and DELETE /api/carts/{id} drops it after checkout. Writes go to CartStore, which
+ * coalesces them before they reach the database.
+ *
+ * Each save also holds the cart's quantities on the WEBSITE shelf through
+ * StockReservationManager, so other customers cannot take the same last units while
+ * this one checks out. Lines whose quantity could not be held are listed as
+ * "unavailable" in the response; the cart is saved either way. At most
+ * SystemConfig.RESERVATION_MAX_UNITS_PER_LINE units of a line are held, and
+ * OnlineCartSessions holds one cart per signed-in customer or browser session and
+ * releases the holds of carts that go idle.
+ *
+ * Clients send an increasing "revision" with each save; a PUT whose revision is not
+ * newer than the one already applied is rejected with 409, so a delayed request cannot
+ * overwrite a later one.
+ */
+public class CartServlet extends HttpServlet {
+    private static final Pattern CART_ID = Pattern.compile("CART_[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}");
+
+    private final CartStore cartStore = CartStore.getInstance();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            String cartId = cartId(request);
+            if (cartId == null) {
+                sendErrorResponse(response, "Cart ID is required", 400);
+                return;
+            }
+            Cart cart = cartStore.get(cartId);
+            if (cart == null) {
+                sendErrorResponse(response, "Cart not found", 404);
+                return;
+            }
+            sendSuccessResponse(response, toJson(cart));
+        } catch (Exception e) {
+            e.printStackTrace();
+            sendErrorResponse(response, "Internal server error: " + e.getMessage(), 500);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            JSONObject body = parseJsonRequest(request);
+            String cartId = cartStore.newCartId();
+            int customerId = body.optInt("customerId", 0);
+            List<CartLine> lines = parseLines(body);
+            OnlineCartSessions.getInstance().touch(cartId, customerId, holder(request, customerId));
+            Cart cart = cartStore.save(cartId, customerId, lines, body.optLong("revision", 0));
+            JSONObject data = toJson(cart);
+            data.put("unavailable", holdLines(cart, Collections.emptyList()));
+            response.setStatus(201);
+            sendSuccessResponse(response, data);
+        } catch (JSONException | IllegalArgumentException e) {
+            sendErrorResponse(response, e.getMessage(), 400);
+        } catch (Exception e) {
+            e.printStackTrace();
+            sendErrorResponse(response, "Internal server error: " + e.getMessage(), 500);
+        }
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        try {
+            String cartId = cartId(request);
+            if (cartId == null) {
+                sendErrorResponse(response, "Cart ID is required", 400);
+                return;
+            }
+            Cart previous = cartStore.get(cartId);
+            if (previous == null) {
+                sendErrorResponse(response, "Cart not found", 404);
+                return;
+            }
+            JSONObject body = parseJsonRequest(request);
+            int customerId = body.optInt("customerId", 0);
+            List<CartLine> lines = parseLines(body);
+            Cart cart = cartStore.save(cartId, customerId, lines, body.optLong("revision", 0));
+            if (cart == null) {
+                sendErrorResponse(response, "A newer save of this cart was already applied", 409);
+                return;
+            }
+            OnlineCartSessions.getInstance().touch(cartId, customerId, holder(request, customerId));
+
+            JSONObject data = new JSONObject();
+            data.put("cartId", cartId);
+            data.put("unavailable", holdLines(cart, previous.getLines()));
+            sendSuccessResponse(response, data);
+        } catch (JSONException | IllegalArgumentException e) {
+            sendErrorResponse(response, e.getMessage(), 400);
+        } catch (Exception e) {
+            e.printStackTrace();
+            sendErrorResponse(response, "Internal server error: " + e.getMessage(), 500);
+        }
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        String cartId = cartId(request);
+        if (cartId == null) {
+            sendErrorResponse(response, "Cart ID is required", 400);
+            return;
+        }
+        cartStore.delete(cartId);
+        OnlineCartSessions.getInstance().abandon(cartId);
+        sendSuccessResponse(response, new JSONObject().put("cartId", cartId));
+    }
+
+    // Cart ids are generated by CartStore.newCartId(); anything else is rejected
+    private String cartId(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return null;
+        }
+        String cartId = pathInfo.substring(1);
+        return CART_ID.matcher(cartId).matches() ? cartId : null;
+    }
+
+    // Holds are limited to one cart per signed-in customer, or else per browser session
+    private String holder(HttpServletRequest request, int customerId) {
+        return customerId > 0 ? "customer:" + customerId : "session:" + request.getSession(true).getId();
+    }
+
+    private List<CartLine> parseLines(JSONObject body) {
+        JSONArray items = body.optJSONArray("items");
+        List<CartLine> lines = new ArrayList<>();
+        if (items == null) {
+            return lines;
+        }
+        if (items.length() > SystemConfig.CART_MAX_LINES) {
+            throw new IllegalArgumentException("A cart can hold at most " + SystemConfig.CART_MAX_LINES + " lines");
+        }
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            String code = item.getString("code").trim();
+            int quantity = item.getInt("quantity");
+            if (code.isEmpty() || quantity <= 0) {
+                throw new IllegalArgumentException("Each cart line needs an item code and a positive quantity");
+            }
+            lines.add(new CartLine(code, quantity));
+        }
+        return lines;
+    }
+
+    // Hold each line for the cart, up to the per-line cap, and let go of items it no longer has;
+    // returns the codes that could not be held in full
+    private JSONArray holdLines(Cart cart, List<CartLine> previousLines) throws Exception {
+        ItemGateway itemGateway = ItemGateway.getInstance();
+        StockReservationManager reservations = StockReservationManager.getInstance();
+
+        JSONArray unavailable = new JSONArray();
+        Set<String> codes = new HashSet<>();
+        for (CartLine line : cart.getLines()) {
+            codes.add(line.getItemCode());
+            ItemDTO item = itemGateway.findByCode(line.getItemCode());
+            if (item == null) {
+                continue;
+            }
+            int quantity = Math.min(line.getQuantity(), SystemConfig.RESERVATION_MAX_UNITS_PER_LINE);
+            if (!reservations.hold(cart.getCartId(), item.getId(), quantity) || quantity < line.getQuantity()) {
+                unavailable.put(line.getItemCode());
+            }
+        }
+        for (CartLine line : previousLines) {
+            if (!codes.contains(line.getItemCode())) {
+                ItemDTO item = itemGateway.findByCode(line.getItemCode());
+                if (item != null) {
+                    reservations.release(cart.getCartId(), item.getId());
+                }
+            }
+        }
+        return unavailable;
+    }
+
+    // Restored lines carry today's name, price and available stock, not what was saved
+    private JSONObject toJson(Cart cart) throws Exception {
+        ItemGateway itemGateway = ItemGateway.getInstance();
+        StockReservationManager reservations = StockReservationManager.getInstance();
+
+        JSONArray items = new JSONArray();
+        for (CartLine line : cart.getLines()) {
+            ItemDTO item = itemGateway.findByCode(line.getItemCode());
+            if (item == null) {
+                // Discontinued since the cart was saved
+                continue;
+            }
+            JSONObject json = new JSONObject();
+            json.put("id", item.getId());
+            json.put("code", item.getCode());
+            json.put("name", item.getName());
+            json.put("price", item.getPrice());
+            json.put("quantity", line.getQuantity());
+            json.put("maxQuantity", reservations.getAvailableToSell(item.getId()));
+            items.put(json);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("cartId", cart.getCartId());
+        json.put("customerId", cart.getCustomerId());
+        json.put("items", items);
+        return json;
+    }
+
+    private JSONObject parseJsonRequest(HttpServletRequest request) throws IOException {
+        StringBuilder requestBody = new StringBuilder();
+        String line;
+
+        try (BufferedReader reader = request.getReader()) {
+            while ((line = reader.readLine()) != null) {
+                requestBody.append(line);
+            }
+        }
+
+        return requestBody.length() == 0 ? new JSONObject() : new JSONObject(requestBody.toString());
+    }
+
+    private void sendSuccessResponse(HttpServletResponse response, Object data) throws IOException {
+        JSONObject responseMap = new JSONObject();
+        responseMap.put("success", true);
+        responseMap.put("data", data);
+
+        response.getWriter().write(responseMap.toString());
+    }
+
+    private void sendErrorResponse(HttpServletResponse response, String message, int statusCode) throws IOException {
+        response.setStatus(statusCode);
+
+        JSONObject responseMap = new JSONObject();
+        responseMap.put("success", false);
+        responseMap.put("message", message);
+
+        response.getWriter().write(responseMap.toString());
+    }
+}
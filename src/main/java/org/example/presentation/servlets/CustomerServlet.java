@@ -12,6 +12,7 @@ import java.sql.*;
 import org.example.presentation.controllers.OnlineController;
 import org.example.persistence.models.Customer;
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CustomerDirectory;
 
 public class CustomerServlet extends HttpServlet {
     
@@ -167,8 +168,12 @@ public class CustomerServlet extends HttpServlet {
                 if (rowsAffected > 0) {
                     try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
                         if (generatedKeys.next()) {
-                            System.out.println("Online customer registered successfully: " + name + " (ID: " + generatedKeys.getInt(1) + ")");
-                            return generatedKeys.getInt(1);
+                            int customerId = generatedKeys.getInt(1);
+                            Customer customer = new Customer(name, contactNumber, email, address);
+                            customer.setId(customerId);
+                            CustomerDirectory.getInstance().registered(customer, true);
+                            System.out.println("Online customer registered successfully: " + name + " (ID: " + customerId + ")");
+                            return customerId;
                         }
                     }
                 }
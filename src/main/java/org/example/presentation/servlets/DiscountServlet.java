@@ -1,6 +1,8 @@
 package org.example.presentation.servlets;
 
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.DiscountCodeCache;
+import org.example.persistence.gateways.DiscountCodeCache.DiscountCode;
 import org.json.JSONObject;
 
 import jakarta.servlet.ServletException;
@@ -16,6 +18,7 @@ import java.sql.ResultSet;
 @WebServlet("/api/discount-codes/*")
 public class DiscountServlet extends HttpServlet {
     private final DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+    private final DiscountCodeCache discountCodes = DiscountCodeCache.getInstance();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
@@ -113,31 +116,24 @@ public class DiscountServlet extends HttpServlet {
             return;
         }
 
-        code = code.trim().toUpperCase();
-        
-        Connection connection = dbConnection.connect();
-        String query = "SELECT id, code, discount_value FROM discount_codes WHERE UPPER(code) = ? AND id IS NOT NULL";
-        
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, code);
-            ResultSet rs = statement.executeQuery();
+        // Served from the in-memory snapshot; every cart recalculation calls this
+        DiscountCode discountCode = discountCodes.find(code);
+
+        if (discountCode != null) {
+            JSONObject result = new JSONObject();
+            result.put("success", true);
+            result.put("message", "Valid discount code");
+            result.put("discount", discountCode.getDiscountValue());
+            result.put("code", discountCode.getCode());
             
-            if (rs.next()) {
-                JSONObject result = new JSONObject();
-                result.put("success", true);
-                result.put("message", "Valid discount code");
-                result.put("discount", rs.getDouble("discount_value"));
-                result.put("code", rs.getString("code"));
-                
-                sendSuccessResponse(response, result.toString());
-            } else {
-                JSONObject result = new JSONObject();
-                result.put("success", false);
-                result.put("message", "Invalid or expired discount code");
-                result.put("discount", 0);
-                
-                sendSuccessResponse(response, result.toString());
-            }
+            sendSuccessResponse(response, result.toString());
+        } else {
+            JSONObject result = new JSONObject();
+            result.put("success", false);
+            result.put("message", "Invalid or expired discount code");
+            result.put("discount", 0);
+            
+            sendSuccessResponse(response, result.toString());
         }
     }
 
@@ -207,6 +203,8 @@ public class DiscountServlet extends HttpServlet {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
+                discountCodes.refresh();
+
                 JSONObject result = new JSONObject();
                 result.put("success", true);
                 result.put("message", "Discount code created successfully");
@@ -272,6 +270,8 @@ public class DiscountServlet extends HttpServlet {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
+                discountCodes.refresh();
+
                 JSONObject result = new JSONObject();
                 result.put("success", true);
                 result.put("message", "Discount code updated successfully");
@@ -293,6 +293,8 @@ public class DiscountServlet extends HttpServlet {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
+                discountCodes.refresh();
+
                 JSONObject result = new JSONObject();
                 result.put("success", true);
                 result.put("message", "Discount code deleted successfully");
@@ -0,0 +1,264 @@
+package org.example.presentation.servlets;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.business.managers.OnlineCartSessions;
+import org.example.business.managers.ReplenishmentScheduler;
+import org.example.business.managers.RequestQueueManager;
+import org.example.business.managers.StockReservationManager;
+import org.example.core.state.CheckoutSessionRegistry;
+import org.example.persistence.database.ConnectionPool;
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CartStore;
+import org.example.persistence.gateways.CustomerDirectory;
+import org.example.persistence.gateways.DiscountCodeCache;
+import org.example.persistence.gateways.ItemCatalogCache;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.persistence.gateways.ItemSearchIndex;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.presentation.filters.AdaptiveBulkhead;
+import org.example.presentation.filters.AdmissionControlFilter;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * Exposes runtime statistics for monitoring and alerting
+ */
+public class HealthServlet extends HttpServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        try {
+            JSONObject result = new JSONObject();
+            result.put("status", "UP");
+            result.put("pool", buildPoolStats());
+            result.put("itemCache", buildItemCacheStats());
+            result.put("itemSearch", buildItemSearchStats());
+            result.put("customerDirectory", buildCustomerDirectoryStats());
+            result.put("discountCodes", buildDiscountCodeStats());
+            result.put("shelfLedger", buildShelfLedgerStats());
+            result.put("stockBatchIndex", buildStockBatchIndexStats());
+            result.put("requestQueue", buildRequestQueueStats());
+            result.put("admission", buildAdmissionStats());
+            result.put("replenishment", buildReplenishmentStats());
+            result.put("reservations", buildReservationStats());
+            result.put("cartSessions", buildCartSessionStats());
+            result.put("cartStore", buildCartStoreStats());
+            resp.getWriter().write(result.toString());
+        } catch (Exception e) {
+            resp.setStatus(500);
+            JSONObject error = new JSONObject();
+            error.put("status", "DOWN");
+            error.put("error", e.getMessage());
+            resp.getWriter().write(error.toString());
+        }
+    }
+
+    private JSONObject buildPoolStats() throws ClassNotFoundException {
+        ConnectionPool.PoolStats stats = DatabaseConnection.getInstance().getPoolStats();
+
+        JSONObject pool = new JSONObject();
+        pool.put("maxSize", stats.getMaxSize());
+        pool.put("minIdle", stats.getMinIdle());
+        pool.put("totalConnections", stats.getTotalConnections());
+        pool.put("activeConnections", stats.getActiveConnections());
+        pool.put("idleConnections", stats.getIdleConnections());
+        pool.put("waitingThreads", stats.getWaitingThreads());
+        pool.put("borrowCount", stats.getBorrowCount());
+        pool.put("createdCount", stats.getCreatedCount());
+        pool.put("destroyedCount", stats.getDestroyedCount());
+        pool.put("timeoutCount", stats.getTimeoutCount());
+        pool.put("validationFailureCount", stats.getValidationFailureCount());
+        pool.put("suspectedLeakCount", stats.getSuspectedLeakCount());
+        pool.put("leakWarningCount", stats.getLeakWarningCount());
+        pool.put("reclaimedCount", stats.getReclaimedCount());
+        pool.put("averageWaitMillis", stats.getAverageWaitMillis());
+
+        JSONObject statementCache = new JSONObject();
+        statementCache.put("sizePerConnection", stats.getStatementCacheSize());
+        statementCache.put("hits", stats.getStatementCacheHits());
+        statementCache.put("misses", stats.getStatementCacheMisses());
+        statementCache.put("evictions", stats.getStatementCacheEvictions());
+        statementCache.put("hitRatio", stats.getStatementCacheHitRatio());
+        pool.put("statementCache", statementCache);
+        return pool;
+    }
+
+    private JSONObject buildItemCacheStats() {
+        ItemCatalogCache.CacheStats stats = ItemGateway.getInstance().getCacheStats();
+
+        JSONObject cache = new JSONObject();
+        cache.put("size", stats.getSize());
+        cache.put("maxSize", stats.getMaxSize());
+        cache.put("ttlMillis", stats.getTtlMillis());
+        cache.put("hits", stats.getHitCount());
+        cache.put("misses", stats.getMissCount());
+        cache.put("evictions", stats.getEvictionCount());
+        cache.put("invalidations", stats.getInvalidationCount());
+        cache.put("hitRatio", stats.getHitRatio());
+        return cache;
+    }
+
+    private JSONObject buildItemSearchStats() {
+        ItemSearchIndex.IndexStats stats = ItemGateway.getInstance().getSearchStats();
+
+        JSONObject search = new JSONObject();
+        search.put("loaded", stats.isLoaded());
+        search.put("indexedItems", stats.getIndexedItems());
+        search.put("trigrams", stats.getTrigramCount());
+        search.put("searches", stats.getSearchCount());
+        search.put("loads", stats.getLoadCount());
+        search.put("updates", stats.getUpdateCount());
+        return search;
+    }
+
+    private JSONObject buildCustomerDirectoryStats() {
+        CustomerDirectory.DirectoryStats stats = CustomerDirectory.getInstance().getStats();
+
+        JSONObject directory = new JSONObject();
+        directory.put("loaded", stats.isLoaded());
+        directory.put("storeCustomers", stats.getStoreCustomers());
+        directory.put("onlineCustomers", stats.getOnlineCustomers());
+        directory.put("lookups", stats.getLookupCount());
+        directory.put("misses", stats.getMissCount());
+        directory.put("searches", stats.getSearchCount());
+        directory.put("loads", stats.getLoadCount());
+        return directory;
+    }
+
+    private JSONObject buildDiscountCodeStats() {
+        DiscountCodeCache.CacheStats stats = DiscountCodeCache.getInstance().getStats();
+
+        JSONObject discounts = new JSONObject();
+        discounts.put("loaded", stats.isLoaded());
+        discounts.put("codes", stats.getCodeCount());
+        discounts.put("lookups", stats.getLookupCount());
+        discounts.put("loads", stats.getLoadCount());
+        return discounts;
+    }
+
+    private JSONObject buildShelfLedgerStats() {
+        ShelfLedger.LedgerStats stats = ShelfLedger.getInstance().getStats();
+
+        JSONObject ledger = new JSONObject();
+        ledger.put("trackedShelves", stats.getTrackedShelves());
+        ledger.put("hits", stats.getHitCount());
+        ledger.put("loads", stats.getLoadCount());
+        ledger.put("rejectedDecrements", stats.getRejectedCount());
+        ledger.put("resyncs", stats.getResyncCount());
+        return ledger;
+    }
+
+    private JSONObject buildStockBatchIndexStats() {
+        StockBatchIndex.IndexStats stats = StockBatchIndex.getInstance().getStats();
+
+        JSONObject index = new JSONObject();
+        index.put("trackedItems", stats.getTrackedItems());
+        index.put("trackedBatches", stats.getTrackedBatches());
+        index.put("hits", stats.getHitCount());
+        index.put("loads", stats.getLoadCount());
+        index.put("reserved", stats.getReserveCount());
+        index.put("rejected", stats.getRejectedCount());
+        return index;
+    }
+
+    private JSONObject buildRequestQueueStats() {
+        RequestQueueManager.QueueStats stats = RequestQueueManager.getInstance().getStats();
+
+        JSONObject queue = new JSONObject();
+        queue.put("mode", stats.getMode());
+        queue.put("maxThreads", stats.getMaxThreads());
+        queue.put("queueCapacity", stats.getQueueCapacity());
+        queue.put("queueSize", stats.getQueueSize());
+        queue.put("activeTasks", stats.getActiveCount());
+        queue.put("availableDbPermits", stats.getAvailableDbPermits());
+        queue.put("submitted", stats.getSubmittedCount());
+        queue.put("completed", stats.getCompletedCount());
+        queue.put("rejected", stats.getRejectedCount());
+        return queue;
+    }
+
+    private JSONObject buildAdmissionStats() {
+        JSONObject admission = new JSONObject();
+        for (AdaptiveBulkhead.BulkheadStats stats : AdmissionControlFilter.getBulkheadStats().values()) {
+            JSONObject bulkhead = new JSONObject();
+            bulkhead.put("limit", stats.getLimit());
+            bulkhead.put("minLimit", stats.getMinLimit());
+            bulkhead.put("maxLimit", stats.getMaxLimit());
+            bulkhead.put("inFlight", stats.getInFlight());
+            bulkhead.put("admitted", stats.getAdmittedCount());
+            bulkhead.put("rejected", stats.getRejectedCount());
+            bulkhead.put("limitDecreases", stats.getDecreaseCount());
+            admission.put(stats.getName(), bulkhead);
+        }
+        return admission;
+    }
+
+    private JSONObject buildReplenishmentStats() {
+        ReplenishmentScheduler.ReplenishmentStats stats = ReplenishmentScheduler.getInstance().getStats();
+
+        JSONObject replenishment = new JSONObject();
+        replenishment.put("running", stats.isRunning());
+        replenishment.put("queuedShelves", stats.getQueuedShelves());
+        replenishment.put("backingOffShelves", stats.getBackingOffShelves());
+        replenishment.put("triggers", stats.getTriggerCount());
+        replenishment.put("coalesced", stats.getCoalescedCount());
+        replenishment.put("scans", stats.getScanCount());
+        replenishment.put("batches", stats.getBatchCount());
+        replenishment.put("filled", stats.getFilledCount());
+        replenishment.put("failed", stats.getFailedCount());
+        replenishment.put("throttled", stats.getThrottledCount());
+        replenishment.put("unitsMoved", stats.getUnitsMoved());
+        return replenishment;
+    }
+
+    private JSONObject buildReservationStats() {
+        StockReservationManager.ReservationStats stats = StockReservationManager.getInstance().getStats();
+
+        JSONObject reservations = new JSONObject();
+        reservations.put("activeHolds", stats.getActiveHolds());
+        reservations.put("heldUnits", stats.getHeldUnits());
+        reservations.put("holds", stats.getHoldCount());
+        reservations.put("rejected", stats.getRejectedCount());
+        reservations.put("committed", stats.getCommittedCount());
+        reservations.put("released", stats.getReleasedCount());
+        reservations.put("expired", stats.getExpiredCount());
+        return reservations;
+    }
+
+    private JSONObject buildCartSessionStats() {
+        CheckoutSessionRegistry.SessionStats stats = OnlineCartSessions.getInstance().getStats();
+
+        JSONObject sessions = new JSONObject();
+        sessions.put("openSessions", stats.getOpenSessions());
+        sessions.put("maxSessions", stats.getMaxSessions());
+        sessions.put("opened", stats.getOpenedCount());
+        sessions.put("closed", stats.getClosedCount());
+        sessions.put("idleEvictions", stats.getIdleEvictionCount());
+        sessions.put("capacityEvictions", stats.getCapacityEvictionCount());
+        return sessions;
+    }
+
+    private JSONObject buildCartStoreStats() {
+        CartStore.CartStoreStats stats = CartStore.getInstance().getStats();
+
+        JSONObject cartStore = new JSONObject();
+        cartStore.put("cachedCarts", stats.getCachedCarts());
+        cartStore.put("dirtyCarts", stats.getDirtyCarts());
+        cartStore.put("saves", stats.getSaveCount());
+        cartStore.put("hits", stats.getHitCount());
+        cartStore.put("loads", stats.getLoadCount());
+        cartStore.put("flushes", stats.getFlushCount());
+        cartStore.put("cartsWritten", stats.getWrittenCount());
+        cartStore.put("failedFlushes", stats.getFailedFlushCount());
+        cartStore.put("abandonedPurged", stats.getPurgedCount());
+        return cartStore;
+    }
+}
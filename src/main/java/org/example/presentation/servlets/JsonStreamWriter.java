@@ -0,0 +1,141 @@
+package org.example.presentation.servlets;
+
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON straight to a response writer, one token at a time, through a
+ * fixed-size buffer. Used for result sets that are too large to build as a
+ * JSONArray first: memory use is the buffer plus the current row, whatever the
+ * number of rows. Strings are escaped with org.json so output matches JSONObject.
+ */
+public class JsonStreamWriter implements Closeable, Flushable {
+    private static final int MAX_DEPTH = 32;
+
+    private final Writer out;
+    // Per open object/array: whether it already has a member, so the next one needs a comma
+    private final boolean[] hasMember = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonStreamWriter(Writer writer, int bufferSize) {
+        this.out = new BufferedWriter(writer, bufferSize);
+    }
+
+    public JsonStreamWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonStreamWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonStreamWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonStreamWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonStreamWriter name(String name) throws IOException {
+        separate();
+        out.write(JSONObject.quote(name));
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonStreamWriter value(String value) throws IOException {
+        separate();
+        out.write(value == null ? "null" : JSONObject.quote(value));
+        return this;
+    }
+
+    public JsonStreamWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonStreamWriter value(double value) throws IOException {
+        separate();
+        // JSON has no NaN/Infinity; JSONObject would reject them, a report row should not fail for it
+        out.write(Double.isFinite(value) ? JSONObject.numberToString(value) : "null");
+        return this;
+    }
+
+    public JsonStreamWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    // Name/value shorthands for object members
+    public JsonStreamWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter field(String name, double value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonStreamWriter field(String name, boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    private JsonStreamWriter open(char bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        separate();
+        out.write(bracket);
+        hasMember[depth++] = false;
+        return this;
+    }
+
+    private JsonStreamWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No open JSON object or array");
+        }
+        depth--;
+        out.write(bracket);
+        return this;
+    }
+
+    // Write the comma before a member unless it follows a name or opens its container
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasMember[depth - 1]) {
+                out.write(',');
+            }
+            hasMember[depth - 1] = true;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flushes the buffer; the underlying response writer is left open for the container
+     */
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+}
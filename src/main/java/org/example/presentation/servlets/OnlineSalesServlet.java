@@ -11,14 +11,15 @@ import java.io.BufferedReader;
 import java.util.List;
 import java.util.ArrayList;
 
-import org.example.presentation.controllers.CustomerController;
 import org.example.presentation.controllers.ItemController;
 import org.example.presentation.controllers.BillController;
 import org.example.persistence.models.Customer;
 import org.example.persistence.models.Item;
 import org.example.persistence.models.BillItem;
 import org.example.persistence.models.Bill;
-import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CustomerDirectory;
+import org.example.business.managers.OnlineCartSessions;
+import org.example.business.managers.StockReservationManager;
 
 public class OnlineSalesServlet extends HttpServlet {
     // Handles online sales operations
@@ -40,7 +41,7 @@ public class OnlineSalesServlet extends HttpServlet {
             } catch (Exception e) {
                 System.out.println("Failed to parse JSON: " + e.getMessage());
                 resp.setStatus(400);
-                resp.getWriter().write("{\"error\":\"Invalid JSON format: " + e.getMessage() + "\"}");
+                resp.getWriter().write(new JSONObject().put("error", "Invalid JSON format: " + e.getMessage()).toString());
                 return;
             }
 
@@ -64,58 +65,22 @@ public class OnlineSalesServlet extends HttpServlet {
             }
 
             JSONArray itemsArr = obj.getJSONArray("items");
+            // The saved cart this order comes from; its holds count towards its own stock
+            String cartId = obj.optString("cartId", null);
             double cashTendered = obj.optDouble("cashTendered", 0);
             double discount = obj.optDouble("discount", 0);
 
-            CustomerController customerController = new CustomerController();
-
-            Customer customer = null;
-
-            // Primary lookup: online_customers table (for e-commerce customers)
-            try {
-                customer = customerController.get_OnlineCustomer_from_contactNumber(customerIdentifier);
-                if (customer != null) {
-                    System.out.println(
-                            "Online customer found: " + customer.getName() + " (ID: " + customer.getId() + ")");
-                }
-            } catch (Exception e) {
-                System.out.println("Customer lookup in online_customers table failed: " + e.getMessage());
-            }
-
-            // Fallback: check regular customer table (in case customer was registered
-            // in-store first)
-            if (customer == null) {
-                try {
-                    customer = customerController.get_Customer_from_contactNumber(customerIdentifier);
-                    if (customer != null) {
-                        System.out.println("Regular customer found (cross-lookup): " + customer.getName() + " (ID: "
-                                + customer.getId() + ")");
-                    }
-                } catch (Exception e) {
-                    System.out.println("Customer lookup in customer table failed: " + e.getMessage());
-                }
-            }
-
-            // If still not found, try to find by ID if customerIdentifier is numeric
-            if (customer == null) {
-                try {
-                    int customerId = Integer.parseInt(customerIdentifier);
-                    customer = findCustomerById(customerId);
-                    if (customer != null) {
-                        System.out.println(
-                                "Customer found by ID: " + customer.getName() + " (ID: " + customer.getId() + ")");
-                    }
-                } catch (NumberFormatException ex) {
-                    System.out.println("customerIdentifier is not numeric: " + ex.getMessage());
-                } catch (Exception ex) {
-                    System.out.println("Customer lookup by ID also failed: " + ex.getMessage());
-                }
+            // Online account first, then an in-store registration with the same phone,
+            // then an in-store customer id
+            Customer customer = CustomerDirectory.getInstance().identify(customerIdentifier, true);
+            if (customer != null) {
+                System.out.println("Customer found: " + customer.getName() + " (ID: " + customer.getId() + ")");
             }
 
             if (customer == null) {
                 resp.setStatus(400);
-                resp.getWriter().write("{\"error\":\"Customer not found with identifier: " + customerIdentifier
-                        + ". Please ensure you are logged in with a valid account.\"}");
+                resp.getWriter().write(new JSONObject().put("error", "Customer not found with identifier: "
+                        + customerIdentifier + ". Please ensure you are logged in with a valid account.").toString());
                 return;
             }
 
@@ -131,16 +96,16 @@ public class OnlineSalesServlet extends HttpServlet {
                 Item item = itemController.getItemFromCode(code);
                 if (item == null) {
                     resp.setStatus(400);
-                    resp.getWriter().write("{\"error\":\"Item not found: " + code + "\"}");
+                    resp.getWriter().write(new JSONObject().put("error", "Item not found: " + code).toString());
                     return;
                 }
 
-                // Check if enough quantity is available on website shelf
-                int availableQuantity = getWebsiteShelfQuantity(item.getId());
+                // Website shelf less what other carts hold
+                int availableQuantity = getAvailableQuantity(item.getId(), cartId);
                 if (availableQuantity < quantity) {
                     resp.setStatus(400);
-                    resp.getWriter().write("{\"error\":\"Insufficient stock for " + item.getName() + ". Available: "
-                            + availableQuantity + ", Requested: " + quantity + "\"}");
+                    resp.getWriter().write(new JSONObject().put("error", "Insufficient stock for " + item.getName()
+                            + ". Available: " + availableQuantity + ", Requested: " + quantity).toString());
                     return;
                 }
             }
@@ -161,8 +126,18 @@ public class OnlineSalesServlet extends HttpServlet {
             double finalTotal = total - discount;
             double change = cashTendered - finalTotal;
             Bill bill = new Bill(customer, invoiceNumber, total, discount, cashTendered, change, "ONLINE", "WEBSITE");
-            bill = billController.Add_Bill(bill);
-            billController.add_Bill_items(billItems, bill);
+            try {
+                // Bill, items and shelf decrements commit together
+                bill = billController.checkout(bill, billItems);
+            } catch (BillController.InsufficientStockException e) {
+                resp.setStatus(400);
+                resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
+                return;
+            }
+            if (cartId != null) {
+                // The shelf was decremented with the bill; the cart's holds are spent
+                OnlineCartSessions.getInstance().complete(cartId);
+            }
 
             JSONObject result = new JSONObject();
             result.put("billId", bill.getId());
@@ -175,85 +150,25 @@ public class OnlineSalesServlet extends HttpServlet {
             resp.getWriter().write(result.toString());
         } catch (Exception e) {
             resp.setStatus(500);
-            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         }
     }
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json");
-        try (Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect()) {
-            PreparedStatement ps = conn.prepareStatement(
-                    "SELECT * FROM bill WHERE transactionType = 'ONLINE' ORDER BY billDate DESC LIMIT 100");
-            ResultSet rs = ps.executeQuery();
-            JSONArray billsArr = new JSONArray();
-            while (rs.next()) {
-                JSONObject billObj = new JSONObject();
-                billObj.put("id", rs.getInt("id"));
-                billObj.put("invoiceNumber", rs.getString("invoiceNumber"));
-                billObj.put("fullPrice", rs.getDouble("fullPrice"));
-                billObj.put("discount", rs.getDouble("discount"));
-                billObj.put("cashTendered", rs.getDouble("cashTendered"));
-                billObj.put("changeAmount", rs.getDouble("changeAmount"));
-                billObj.put("billDate", rs.getDate("billDate"));
-                billObj.put("transactionType", rs.getString("transactionType"));
-                billObj.put("storeType", rs.getString("storeType"));
-                billsArr.put(billObj);
-            }
-            resp.getWriter().write(billsArr.toString());
+        try {
+            SalesServlet.writeBillList(req, resp, "ONLINE");
         } catch (Exception e) {
             resp.setStatus(500);
-            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
-        }
-    }
-
-    // Helper method to find customer by ID
-    private Customer findCustomerById(int customerId) throws SQLException, ClassNotFoundException {
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
-        try {
-            String query = "SELECT * FROM customers WHERE id = ?";
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setInt(1, customerId);
-
-                try (ResultSet rs = statement.executeQuery()) {
-                    if (rs.next()) {
-                        Customer customer = new Customer(
-                                rs.getString("name"),
-                                rs.getString("contact_number"));
-                        customer.setId(rs.getInt("id"));
-                        customer.setEmail(rs.getString("email"));
-                        customer.setAddress(rs.getString("address"));
-                        return customer;
-                    }
-                }
-            }
-        } finally {
-            connection.close();
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         }
-        return null;
     }
 
-    // Helper method to check available quantity on website shelf
-    private int getWebsiteShelfQuantity(int itemId) throws SQLException, ClassNotFoundException {
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
-        try {
-            String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = 'WEBSITE'";
-            try (PreparedStatement statement = connection.prepareStatement(query)) {
-                statement.setInt(1, itemId);
-
-                try (ResultSet rs = statement.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt("quantity");
-                    }
-                }
-            }
-        } finally {
-            connection.close();
-        }
-        return 0; // Item not found on website shelf
+    // Website shelf quantity not held by other carts
+    private int getAvailableQuantity(int itemId, String cartId) throws SQLException, ClassNotFoundException {
+        StockReservationManager reservations = StockReservationManager.getInstance();
+        int ownHeld = cartId != null ? reservations.getHeldQuantity(cartId, itemId) : 0;
+        return reservations.getAvailableToSell(itemId) + ownHeld;
     }
 }
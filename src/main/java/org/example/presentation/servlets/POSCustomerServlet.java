@@ -7,12 +7,11 @@ import org.json.JSONObject;
 import org.json.JSONArray;
 import java.io.BufferedReader;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.example.presentation.controllers.CustomerController;
 import org.example.persistence.models.Customer;
-import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CustomerDirectory;
 
 /**
  * Servlet for handling regular store customers (POS system)
@@ -119,12 +118,9 @@ public class POSCustomerServlet extends HttpServlet {
             Customer newCustomer = new Customer(name, contactNumber);
             customerController.add_Customer(newCustomer);
 
-            // Get the newly created customer to return the ID
-            Customer createdCustomer = customerController.get_Customer_from_contactNumber(contactNumber);
-
             JSONObject response = new JSONObject();
             response.put("success", true);
-            response.put("customerId", createdCustomer.getId());
+            response.put("customerId", newCustomer.getId());
             response.put("message", "Customer registered successfully");
             resp.getWriter().write(response.toString());
 
@@ -182,33 +178,8 @@ public class POSCustomerServlet extends HttpServlet {
         }
     }
 
+    // Name word or phone prefix, served from memory
     private List<Customer> searchCustomers(String searchTerm) throws SQLException, ClassNotFoundException {
-        List<Customer> customers = new ArrayList<>();
-        DatabaseConnection databaseConnection = DatabaseConnection.getInstance();
-        Connection connection = databaseConnection.connect();
-
-        try {
-            // Search by name or contact number
-            String query = "SELECT * FROM customers WHERE name LIKE ? OR contactNumber LIKE ? ORDER BY name LIMIT 10";
-            PreparedStatement statement = connection.prepareStatement(query);
-            String searchPattern = "%" + searchTerm + "%";
-            statement.setString(1, searchPattern);
-            statement.setString(2, searchPattern);
-
-            ResultSet resultSet = statement.executeQuery();
-
-            while (resultSet.next()) {
-                Customer customer = new Customer(
-                        resultSet.getString("name"),
-                        resultSet.getString("contactNumber"));
-                customer.setId(resultSet.getInt("id"));
-                customers.add(customer);
-            }
-
-        } finally {
-            databaseConnection.closeConnection(connection);
-        }
-
-        return customers;
+        return CustomerDirectory.getInstance().search(searchTerm, 10);
     }
-}
\ No newline at end of file
+}
@@ -8,12 +8,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
 import org.example.presentation.controllers.BillController;
 import org.example.persistence.models.Bill;
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.SalesRollupGateway;
+import org.example.core.config.SystemConfig;
 
 public class ReportServlet extends HttpServlet {
     // Handles reporting operations
@@ -43,11 +46,12 @@ public class ReportServlet extends HttpServlet {
                     result = handleStockReport(req);
                     break;
                 case "stock-batch":
-                    result = handleStockBatchReport(req);
-                    break;
+                    // Potentially every batch ever received: stream rows instead of building the array
+                    streamStockBatchReport(resp);
+                    return;
                 case "bill-transaction":
-                    result = handleBillTransactionReport(req);
-                    break;
+                    streamBillTransactionReport(req, resp);
+                    return;
                 case "combined-transaction":
                     result = handleCombinedTransactionReport(req);
                     break;
@@ -63,6 +67,12 @@ public class ReportServlet extends HttpServlet {
             resp.getWriter().write(result.toString());
         } catch (Exception e) {
             System.err.println("Error in ReportServlet: " + e.getMessage());
+            if (resp.isCommitted()) {
+                // Part of a streamed report is already on the wire; the client sees a truncated body
+                return;
+            }
+            // Drop any partial report still in the buffer so the body is only the error
+            resp.resetBuffer();
             resp.setStatus(500);
             JSONObject error = new JSONObject();
             error.put("error", e.getMessage());
@@ -71,66 +81,123 @@ public class ReportServlet extends HttpServlet {
         }
     }
 
+    // Backfill job: POST ?action=rebuild-rollup&from=yyyy-MM-dd&to=yyyy-MM-dd recomputes the daily rollup
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        if (!"rebuild-rollup".equals(req.getParameter("action"))) {
+            resp.setStatus(400);
+            resp.getWriter().write("{\"error\":\"Unknown action\"}");
+            return;
+        }
+        try {
+            LocalDate from = LocalDate.parse(req.getParameter("from"));
+            String toParam = req.getParameter("to");
+            LocalDate to = toParam != null && !toParam.isEmpty() ? LocalDate.parse(toParam) : from;
+            if (to.isBefore(from)) {
+                resp.setStatus(400);
+                resp.getWriter().write("{\"error\":\"'to' must not be before 'from'\"}");
+                return;
+            }
+
+            int rows = SalesRollupGateway.getInstance().rebuild(from, to);
+            resp.getWriter().write(new JSONObject().put("from", from.toString()).put("to", to.toString())
+                    .put("rows", rows).toString());
+        } catch (java.time.format.DateTimeParseException | NullPointerException e) {
+            resp.setStatus(400);
+            resp.getWriter().write("{\"error\":\"Dates must be yyyy-MM-dd\"}");
+        } catch (Exception e) {
+            System.err.println("Error rebuilding sales rollup: " + e.getMessage());
+            resp.setStatus(500);
+            JSONObject error = new JSONObject();
+            error.put("error", e.getMessage());
+            resp.getWriter().write(error.toString());
+        }
+    }
+
     private JSONObject handleDailySalesReport(HttpServletRequest req) throws SQLException, ClassNotFoundException {
         String date = req.getParameter("date");
         String transactionType = req.getParameter("transactionType");
         String storeType = req.getParameter("storeType");
+        // Dashboards polling for today's figures only need the summary
+        boolean summaryOnly = Boolean.parseBoolean(req.getParameter("summaryOnly"));
+        LocalDate saleDate = date != null && !date.isEmpty() ? LocalDate.parse(date) : LocalDate.now();
 
         JSONObject result = new JSONObject();
         JSONArray data = new JSONArray();
 
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
+        if (!summaryOnly) {
+            DatabaseConnection db = DatabaseConnection.getInstance();
+            // billDate is a DATE column, so compare it directly and let the index do the work
+            String query = "SELECT b.id, b.invoiceNumber, b.fullPrice, b.discount, b.cashTendered, " +
+                    "b.changeAmount, b.billDate, b.customer_type, b.transactionType, b.storeType, " +
+                    "COUNT(bi.id) as item_count " +
+                    "FROM bill b " +
+                    "LEFT JOIN billItem bi ON b.id = bi.bill_id " +
+                    "WHERE b.billDate = ? ";
 
-        String query = "SELECT b.id, b.invoiceNumber, b.fullPrice, b.discount, b.cashTendered, " +
-                "b.changeAmount, b.billDate, b.customer_type, b.transactionType, b.storeType, " +
-                "COUNT(bi.id) as item_count " +
-                "FROM bill b " +
-                "LEFT JOIN billItem bi ON b.id = bi.bill_id " +
-                "WHERE DATE(b.billDate) = ? ";
-
-        if (transactionType != null && !transactionType.isEmpty()) {
-            query += "AND b.transactionType = ? ";
-        }
-        if (storeType != null && !storeType.isEmpty()) {
-            query += "AND b.storeType = ? ";
-        }
-
-        query += "GROUP BY b.id ORDER BY b.billDate DESC";
-
-        double totalSales = 0;
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            int paramIndex = 1;
-            stmt.setString(paramIndex++, date);
             if (transactionType != null && !transactionType.isEmpty()) {
-                stmt.setString(paramIndex++, transactionType);
+                query += "AND b.transactionType = ? ";
             }
             if (storeType != null && !storeType.isEmpty()) {
-                stmt.setString(paramIndex++, storeType);
+                query += "AND b.storeType = ? ";
             }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    JSONObject bill = new JSONObject();
-                    bill.put("id", rs.getInt("id"));
-                    bill.put("invoiceNumber", rs.getString("invoiceNumber"));
-                    bill.put("fullPrice", rs.getDouble("fullPrice"));
-                    bill.put("discount", rs.getDouble("discount"));
-                    bill.put("cashTendered", rs.getDouble("cashTendered"));
-                    bill.put("changeAmount", rs.getDouble("changeAmount"));
-                    bill.put("billDate", rs.getString("billDate"));
-                    bill.put("customerType", rs.getString("customer_type"));
-                    bill.put("transactionType", rs.getString("transactionType"));
-                    bill.put("storeType", rs.getString("storeType"));
-                    bill.put("itemCount", rs.getInt("item_count"));
-                    data.put(bill);
-                    totalSales += rs.getDouble("fullPrice");
+            query += "GROUP BY b.id ORDER BY b.billDate DESC";
+
+            try (Connection connection = db.connect();
+                    PreparedStatement stmt = connection.prepareStatement(query)) {
+                int paramIndex = 1;
+                stmt.setDate(paramIndex++, java.sql.Date.valueOf(saleDate));
+                if (transactionType != null && !transactionType.isEmpty()) {
+                    stmt.setString(paramIndex++, transactionType);
+                }
+                if (storeType != null && !storeType.isEmpty()) {
+                    stmt.setString(paramIndex++, storeType);
+                }
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        JSONObject bill = new JSONObject();
+                        bill.put("id", rs.getInt("id"));
+                        bill.put("invoiceNumber", rs.getString("invoiceNumber"));
+                        bill.put("fullPrice", rs.getDouble("fullPrice"));
+                        bill.put("discount", rs.getDouble("discount"));
+                        bill.put("cashTendered", rs.getDouble("cashTendered"));
+                        bill.put("changeAmount", rs.getDouble("changeAmount"));
+                        bill.put("billDate", rs.getString("billDate"));
+                        bill.put("customerType", rs.getString("customer_type"));
+                        bill.put("transactionType", rs.getString("transactionType"));
+                        bill.put("storeType", rs.getString("storeType"));
+                        bill.put("itemCount", rs.getInt("item_count"));
+                        data.put(bill);
+                    }
                 }
             }
         }
 
+        // Totals and the item breakdown come from the daily rollup rather than the bill rows
+        SalesRollupGateway rollup = SalesRollupGateway.getInstance();
+        SalesRollupGateway.DailyTotals totals = rollup.getDailyTotals(saleDate, transactionType, storeType);
+        JSONArray items = new JSONArray();
+        for (SalesRollupGateway.ItemSales sales : rollup.getItemSales(saleDate, transactionType, storeType)) {
+            JSONObject item = new JSONObject();
+            item.put("code", sales.getCode());
+            item.put("name", sales.getName());
+            item.put("quantity", sales.getQuantity());
+            item.put("revenue", sales.getRevenue());
+            items.put(item);
+        }
+
         result.put("data", data);
-        result.put("summary", new JSONObject().put("totalSales", totalSales).put("totalTransactions", data.length()));
+        result.put("items", items);
+        result.put("summary", new JSONObject()
+                .put("totalSales", totals.getTotalSales())
+                .put("totalTransactions", totals.getBillCount())
+                .put("totalDiscount", totals.getTotalDiscount())
+                .put("totalItems", totals.getTotalItems()));
         return result;
     }
 
@@ -140,8 +207,6 @@ public class ReportServlet extends HttpServlet {
         JSONArray data = new JSONArray();
 
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
         String query = """
                     SELECT s.id AS shelf_id, i.code AS item_code, i.name AS item_name, s.quantity AS shelf_quantity, s.type,
                            COALESCE(SUM(st.quantity), 0) AS total_stock_quantity
@@ -153,7 +218,8 @@ public class ReportServlet extends HttpServlet {
                     ORDER BY shelf_quantity ASC
                 """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(query);
+        try (Connection connection = db.connect();
+                PreparedStatement stmt = connection.prepareStatement(query);
                 ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -178,8 +244,6 @@ public class ReportServlet extends HttpServlet {
         JSONArray data = new JSONArray();
 
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
         // Use fixed reorder level of 50 (hardcoded business rule: if total stock < 50,
         // reorder needed)
         String query = """
@@ -192,7 +256,8 @@ public class ReportServlet extends HttpServlet {
                     ORDER BY total_quantity ASC
                 """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(query);
+        try (Connection connection = db.connect();
+                PreparedStatement stmt = connection.prepareStatement(query);
                 ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -217,8 +282,6 @@ public class ReportServlet extends HttpServlet {
         JSONArray data = new JSONArray();
 
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
         String query = """
                     SELECT i.id, i.code, i.name, COALESCE(SUM(st.quantity), 0) AS total_quantity,
                            COUNT(st.id) AS batch_count,
@@ -230,7 +293,8 @@ public class ReportServlet extends HttpServlet {
                     ORDER BY i.name
                 """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(query);
+        try (Connection connection = db.connect();
+                PreparedStatement stmt = connection.prepareStatement(query);
                 ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -251,13 +315,9 @@ public class ReportServlet extends HttpServlet {
         return result;
     }
 
-    private JSONObject handleStockBatchReport(HttpServletRequest req) throws SQLException, ClassNotFoundException {
-        JSONObject result = new JSONObject();
-        JSONArray data = new JSONArray();
-
+    private void streamStockBatchReport(HttpServletResponse resp)
+            throws SQLException, ClassNotFoundException, IOException {
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
         String query = """
                     SELECT st.id, i.code, i.name, st.quantity, st.date_of_expiry,
                            st.date_of_purchase, st.availability,
@@ -267,40 +327,43 @@ public class ReportServlet extends HttpServlet {
                     ORDER BY st.date_of_expiry ASC
                 """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(query);
-                ResultSet rs = stmt.executeQuery()) {
+        try (Connection connection = db.connect();
+                PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setFetchSize(SystemConfig.STREAM_FETCH_SIZE);
 
-            while (rs.next()) {
-                JSONObject batch = new JSONObject();
-                batch.put("stockId", rs.getInt("id"));
-                batch.put("itemCode", rs.getString("code"));
-                batch.put("itemName", rs.getString("name"));
-                batch.put("quantity", rs.getInt("quantity"));
-                batch.put("expiryDate", rs.getString("date_of_expiry"));
-                batch.put("purchaseDate", rs.getString("date_of_purchase"));
-                batch.put("availability", rs.getBoolean("availability"));
-                batch.put("daysToExpiry", rs.getInt("days_to_expiry"));
-                data.put(batch);
+            try (ResultSet rs = stmt.executeQuery()) {
+                JsonStreamWriter json = new JsonStreamWriter(resp.getWriter(), SystemConfig.STREAM_BUFFER_CHARS);
+                json.beginObject().name("data").beginArray();
+                int totalBatches = 0;
+                while (rs.next()) {
+                    json.beginObject()
+                            .field("stockId", rs.getInt("id"))
+                            .field("itemCode", rs.getString("code"))
+                            .field("itemName", rs.getString("name"))
+                            .field("quantity", rs.getInt("quantity"))
+                            .field("expiryDate", rs.getString("date_of_expiry"))
+                            .field("purchaseDate", rs.getString("date_of_purchase"))
+                            .field("availability", rs.getBoolean("availability"))
+                            .field("daysToExpiry", rs.getInt("days_to_expiry"))
+                            .endObject();
+                    totalBatches++;
+                }
+                json.endArray();
+                json.name("summary").beginObject().field("totalBatches", totalBatches).endObject();
+                json.endObject();
+                json.close();
             }
         }
-
-        result.put("data", data);
-        result.put("summary", new JSONObject().put("totalBatches", data.length()));
-        return result;
     }
 
-    private JSONObject handleBillTransactionReport(HttpServletRequest req) throws SQLException, ClassNotFoundException {
+    private void streamBillTransactionReport(HttpServletRequest req, HttpServletResponse resp)
+            throws SQLException, ClassNotFoundException, IOException {
         String startDate = req.getParameter("startDate");
         String endDate = req.getParameter("endDate");
         String transactionType = req.getParameter("transactionType");
         String storeType = req.getParameter("storeType");
 
-        JSONObject result = new JSONObject();
-        JSONArray data = new JSONArray();
-
         DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
         String query = "SELECT b.id, b.invoiceNumber, b.fullPrice, b.discount, b.cashTendered, " +
                 "b.changeAmount, b.billDate, b.customer_type, b.transactionType, b.storeType, " +
                 "COUNT(bi.id) as item_count, SUM(bi.quantity) as total_items " +
@@ -317,8 +380,9 @@ public class ReportServlet extends HttpServlet {
 
         query += "GROUP BY b.id ORDER BY b.billDate DESC";
 
-        double totalSales = 0;
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = db.connect();
+                PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setFetchSize(SystemConfig.STREAM_FETCH_SIZE);
             int paramIndex = 1;
             stmt.setString(paramIndex++, startDate);
             stmt.setString(paramIndex++, endDate);
@@ -330,101 +394,69 @@ public class ReportServlet extends HttpServlet {
             }
 
             try (ResultSet rs = stmt.executeQuery()) {
+                JsonStreamWriter json = new JsonStreamWriter(resp.getWriter(), SystemConfig.STREAM_BUFFER_CHARS);
+                json.beginObject().name("data").beginArray();
+                double totalSales = 0;
+                int totalTransactions = 0;
                 while (rs.next()) {
-                    JSONObject bill = new JSONObject();
-                    bill.put("id", rs.getInt("id"));
-                    bill.put("invoiceNumber", rs.getString("invoiceNumber"));
-                    bill.put("fullPrice", rs.getDouble("fullPrice"));
-                    bill.put("discount", rs.getDouble("discount"));
-                    bill.put("cashTendered", rs.getDouble("cashTendered"));
-                    bill.put("changeAmount", rs.getDouble("changeAmount"));
-                    bill.put("billDate", rs.getString("billDate"));
-                    bill.put("customerType", rs.getString("customer_type"));
-                    bill.put("transactionType", rs.getString("transactionType"));
-                    bill.put("storeType", rs.getString("storeType"));
-                    bill.put("itemCount", rs.getInt("item_count"));
-                    bill.put("totalItems", rs.getInt("total_items"));
-                    data.put(bill);
+                    json.beginObject()
+                            .field("id", rs.getInt("id"))
+                            .field("invoiceNumber", rs.getString("invoiceNumber"))
+                            .field("fullPrice", rs.getDouble("fullPrice"))
+                            .field("discount", rs.getDouble("discount"))
+                            .field("cashTendered", rs.getDouble("cashTendered"))
+                            .field("changeAmount", rs.getDouble("changeAmount"))
+                            .field("billDate", rs.getString("billDate"))
+                            .field("customerType", rs.getString("customer_type"))
+                            .field("transactionType", rs.getString("transactionType"))
+                            .field("storeType", rs.getString("storeType"))
+                            .field("itemCount", rs.getInt("item_count"))
+                            .field("totalItems", rs.getInt("total_items"))
+                            .endObject();
                     totalSales += rs.getDouble("fullPrice");
+                    totalTransactions++;
                 }
+                json.endArray();
+                json.name("summary").beginObject()
+                        .field("totalSales", totalSales)
+                        .field("totalTransactions", totalTransactions)
+                        .endObject();
+                json.endObject();
+                json.close();
             }
         }
-
-        result.put("data", data);
-        result.put("summary", new JSONObject().put("totalSales", totalSales).put("totalTransactions", data.length()));
-        return result;
     }
 
     private JSONObject handleCombinedTransactionReport(HttpServletRequest req)
             throws SQLException, ClassNotFoundException {
-        String date = req.getParameter("date");
-
-        JSONObject result = new JSONObject();
-        JSONArray data = new JSONArray();
-
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
-        String query = """
-                    SELECT transaction_type, COUNT(*) as transaction_count,
-                           SUM(full_price) as total_sales, AVG(full_price) as avg_transaction
-                    FROM bill
-                    WHERE DATE(bill_date) = ?
-                    GROUP BY transaction_type
-                    ORDER BY total_sales DESC
-                """;
-
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, date);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    JSONObject type = new JSONObject();
-                    type.put("transactionType", rs.getString("transaction_type"));
-                    type.put("transactionCount", rs.getInt("transaction_count"));
-                    type.put("totalSales", rs.getDouble("total_sales"));
-                    type.put("avgTransaction", rs.getDouble("avg_transaction"));
-                    data.put(type);
-                }
-            }
-        }
-
-        result.put("data", data);
-        result.put("summary", new JSONObject().put("totalTypes", data.length()));
-        return result;
+        return buildCombinedReport(req, "transactionType");
     }
 
     private JSONObject handleCombinedStoreReport(HttpServletRequest req) throws SQLException, ClassNotFoundException {
+        return buildCombinedReport(req, "storeType");
+    }
+
+    // Per transaction type or per store type totals for one day, read from the daily rollup
+    private JSONObject buildCombinedReport(HttpServletRequest req, String groupKey)
+            throws SQLException, ClassNotFoundException {
         String date = req.getParameter("date");
+        LocalDate saleDate = date != null && !date.isEmpty() ? LocalDate.parse(date) : LocalDate.now();
 
         JSONObject result = new JSONObject();
         JSONArray data = new JSONArray();
 
-        DatabaseConnection db = DatabaseConnection.getInstance();
-        Connection connection = db.connect();
-
-        String query = """
-                    SELECT store_type, COUNT(*) as transaction_count,
-                           SUM(full_price) as total_sales, AVG(full_price) as avg_transaction
-                    FROM bill
-                    WHERE DATE(bill_date) = ?
-                    GROUP BY store_type
-                    ORDER BY total_sales DESC
-                """;
-
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, date);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    JSONObject type = new JSONObject();
-                    type.put("storeType", rs.getString("store_type"));
-                    type.put("transactionCount", rs.getInt("transaction_count"));
-                    type.put("totalSales", rs.getDouble("total_sales"));
-                    type.put("avgTransaction", rs.getDouble("avg_transaction"));
-                    data.put(type);
-                }
-            }
+        SalesRollupGateway rollup = SalesRollupGateway.getInstance();
+        java.util.List<SalesRollupGateway.DailyTotals> groups = "storeType".equals(groupKey)
+                ? rollup.getDailyTotalsByStoreType(saleDate)
+                : rollup.getDailyTotalsByTransactionType(saleDate);
+
+        for (SalesRollupGateway.DailyTotals totals : groups) {
+            JSONObject type = new JSONObject();
+            type.put(groupKey, totals.getGroup());
+            type.put("transactionCount", totals.getBillCount());
+            type.put("totalSales", totals.getTotalSales());
+            type.put("avgTransaction", totals.getAverageSale());
+            data.put(type);
         }
 
         result.put("data", data);
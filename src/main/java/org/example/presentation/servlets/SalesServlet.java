@@ -15,11 +15,16 @@ import java.util.ArrayList;
 
 import org.example.presentation.controllers.ItemController;
 import org.example.presentation.controllers.BillController;
-import org.example.presentation.controllers.CustomerController;
 import org.example.persistence.models.BillItem;
 import org.example.persistence.models.Customer;
 import org.example.persistence.models.Item;
 import org.example.persistence.models.Bill;
+import org.example.persistence.gateways.BillGateway;
+import org.example.persistence.gateways.CustomerDirectory;
+import org.example.persistence.gateways.Page;
+import org.example.persistence.gateways.PageToken;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.core.config.SystemConfig;
 
 
 public class SalesServlet extends HttpServlet {
@@ -60,29 +65,12 @@ public class SalesServlet extends HttpServlet {
             double total = 0;
             Customer customer = null;
             if (customerIdentifier != null) {
-                CustomerController customerController = new CustomerController();
                 System.out.println("Looking up in-store customer with identifier: " + customerIdentifier);
-                
-                // Primary lookup: regular customers table (for in-store customers)
-                try {
-                    customer = customerController.get_Customer_from_contactNumber(customerIdentifier);
-                    if (customer != null) {
-                        System.out.println("In-store customer found: " + customer.getName() + " (ID: " + customer.getId() + ")");
-                    }
-                } catch (Exception e) {
-                    System.out.println("Customer lookup in customers table failed: " + e.getMessage());
-                }
-                
-                // Fallback: check online customers table (in case they're also registered online)
-                if (customer == null) {
-                    try {
-                        customer = customerController.get_OnlineCustomer_from_contactNumber(customerIdentifier);
-                        if (customer != null) {
-                            System.out.println("Online customer found for in-store transaction: " + customer.getName() + " (ID: " + customer.getId() + ")");
-                        }
-                    } catch (Exception e) {
-                        System.out.println("Customer lookup in online_customers table failed: " + e.getMessage());
-                    }
+
+                // In-store registration first, then an online account with the same phone
+                customer = CustomerDirectory.getInstance().identify(customerIdentifier, false);
+                if (customer != null) {
+                    System.out.println("Customer found: " + customer.getName() + " (ID: " + customer.getId() + ")");
                 }
             }
             
@@ -94,7 +82,7 @@ public class SalesServlet extends HttpServlet {
                 Item item = itemController.getItemFromCode(code);
                 if (item == null) {
                     resp.setStatus(400);
-                    resp.getWriter().write("{\"error\":\"Item code not found: " + code + "\"}");
+                    resp.getWriter().write(new JSONObject().put("error", "Item code not found: " + code).toString());
                     return;
                 }
                 
@@ -102,7 +90,8 @@ public class SalesServlet extends HttpServlet {
                 int availableQuantity = getStoreShelfQuantity(item.getId());
                 if (availableQuantity < qty) {
                     resp.setStatus(400);
-                    resp.getWriter().write("{\"error\":\"Insufficient stock for " + item.getName() + ". Available: " + availableQuantity + ", Requested: " + qty + "\"}");
+                    resp.getWriter().write(new JSONObject().put("error", "Insufficient stock for " + item.getName()
+                            + ". Available: " + availableQuantity + ", Requested: " + qty).toString());
                     return;
                 }
             }
@@ -115,7 +104,7 @@ public class SalesServlet extends HttpServlet {
                 Item item = itemController.getItemFromCode(code);
                 if (item == null) {
                     resp.setStatus(400);
-                    resp.getWriter().write("{\"error\":\"Item code not found: " + code + "\"}");
+                    resp.getWriter().write(new JSONObject().put("error", "Item code not found: " + code).toString());
                     return;
                 }
                 BillItem billItem = new BillItem(item, qty);
@@ -126,8 +115,14 @@ public class SalesServlet extends HttpServlet {
             double finalTotal = total - discount;
             double change = cashTendered - finalTotal;
             Bill bill = new Bill(customer, invoiceNumber, total, discount, cashTendered, change);
-            bill = billController.Add_Bill(bill);
-            billController.add_Bill_items(billItems, bill);
+            try {
+                // Bill, items and shelf decrements commit together
+                bill = billController.checkout(bill, billItems);
+            } catch (BillController.InsufficientStockException e) {
+                resp.setStatus(400);
+                resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
+                return;
+            }
 
             JSONObject result = new JSONObject();
             result.put("billId", bill.getId());
@@ -140,7 +135,7 @@ public class SalesServlet extends HttpServlet {
             resp.getWriter().write(result.toString());
         } catch (Exception e) {
             resp.setStatus(500);
-            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         }
     }
 
@@ -148,69 +143,58 @@ public class SalesServlet extends HttpServlet {
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json");
         String billIdParam = req.getParameter("id");
-    try (Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect()) {
-            if (billIdParam != null) {
-                // Fetch single bill details
-                int billId = Integer.parseInt(billIdParam);
-                PreparedStatement ps = conn.prepareStatement("SELECT * FROM bill WHERE id = ?");
-                ps.setInt(1, billId);
-                ResultSet rs = ps.executeQuery();
-                if (!rs.next()) {
-                    resp.setStatus(404);
-                    resp.getWriter().write("{\"error\":\"Bill not found\"}");
-                    return;
-                }
-                JSONObject billObj = new JSONObject();
-                billObj.put("id", rs.getInt("id"));
-                billObj.put("invoiceNumber", rs.getString("invoiceNumber"));
-                billObj.put("fullPrice", rs.getDouble("fullPrice"));
-                billObj.put("discount", rs.getDouble("discount"));
-                billObj.put("cashTendered", rs.getDouble("cashTendered"));
-                billObj.put("changeAmount", rs.getDouble("changeAmount"));
-                billObj.put("billDate", rs.getDate("billDate"));
-                billObj.put("transactionType", rs.getString("transactionType"));
-                billObj.put("storeType", rs.getString("storeType"));
-                // Fetch bill items
-                PreparedStatement itemsPs = conn.prepareStatement("SELECT bi.*, i.code, i.name FROM billItem bi JOIN items i ON bi.item_id = i.id WHERE bi.bill_id = ?");
-                itemsPs.setInt(1, billId);
-                ResultSet itemsRs = itemsPs.executeQuery();
-                JSONArray itemsArr = new JSONArray();
-                while (itemsRs.next()) {
-                    JSONObject itemObj = new JSONObject();
-                    itemObj.put("code", itemsRs.getString("code"));
-                    itemObj.put("name", itemsRs.getString("name"));
-                    itemObj.put("quantity", itemsRs.getInt("quantity"));
-                    itemObj.put("itemPrice", itemsRs.getDouble("itemPrice"));
-                    itemObj.put("totalPrice", itemsRs.getDouble("totalPrice"));
-                    itemsArr.put(itemObj);
-                }
-                billObj.put("items", itemsArr);
-                itemsRs.close();
-                itemsPs.close();
-                resp.getWriter().write(billObj.toString());
-            } else {
-                // List bills (optionally filter by date, cashier, etc.)
-                PreparedStatement ps = conn.prepareStatement("SELECT * FROM bill ORDER BY billDate DESC LIMIT 100");
-                ResultSet rs = ps.executeQuery();
-                JSONArray billsArr = new JSONArray();
-                while (rs.next()) {
-                    JSONObject billObj = new JSONObject();
-                    billObj.put("id", rs.getInt("id"));
-                    billObj.put("invoiceNumber", rs.getString("invoiceNumber"));
-                    billObj.put("fullPrice", rs.getDouble("fullPrice"));
-                    billObj.put("discount", rs.getDouble("discount"));
-                    billObj.put("cashTendered", rs.getDouble("cashTendered"));
-                    billObj.put("changeAmount", rs.getDouble("changeAmount"));
-                    billObj.put("billDate", rs.getDate("billDate"));
-                    billObj.put("transactionType", rs.getString("transactionType"));
-                    billObj.put("storeType", rs.getString("storeType"));
-                    billsArr.put(billObj);
-                }
-                resp.getWriter().write(billsArr.toString());
+        if (billIdParam == null) {
+            // List bills, one page at a time when asked
+            try {
+                writeBillList(req, resp, null);
+            } catch (Exception e) {
+                resp.setStatus(500);
+                resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
+            }
+            return;
+        }
+        try (Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect()) {
+            // Fetch single bill details
+            int billId = Integer.parseInt(billIdParam);
+            PreparedStatement ps = conn.prepareStatement("SELECT * FROM bill WHERE id = ?");
+            ps.setInt(1, billId);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) {
+                resp.setStatus(404);
+                resp.getWriter().write("{\"error\":\"Bill not found\"}");
+                return;
             }
+            JSONObject billObj = new JSONObject();
+            billObj.put("id", rs.getInt("id"));
+            billObj.put("invoiceNumber", rs.getString("invoiceNumber"));
+            billObj.put("fullPrice", rs.getDouble("fullPrice"));
+            billObj.put("discount", rs.getDouble("discount"));
+            billObj.put("cashTendered", rs.getDouble("cashTendered"));
+            billObj.put("changeAmount", rs.getDouble("changeAmount"));
+            billObj.put("billDate", rs.getDate("billDate"));
+            billObj.put("transactionType", rs.getString("transactionType"));
+            billObj.put("storeType", rs.getString("storeType"));
+            // Fetch bill items
+            PreparedStatement itemsPs = conn.prepareStatement("SELECT bi.*, i.code, i.name FROM billItem bi JOIN items i ON bi.item_id = i.id WHERE bi.bill_id = ?");
+            itemsPs.setInt(1, billId);
+            ResultSet itemsRs = itemsPs.executeQuery();
+            JSONArray itemsArr = new JSONArray();
+            while (itemsRs.next()) {
+                JSONObject itemObj = new JSONObject();
+                itemObj.put("code", itemsRs.getString("code"));
+                itemObj.put("name", itemsRs.getString("name"));
+                itemObj.put("quantity", itemsRs.getInt("quantity"));
+                itemObj.put("itemPrice", itemsRs.getDouble("itemPrice"));
+                itemObj.put("totalPrice", itemsRs.getDouble("totalPrice"));
+                itemsArr.put(itemObj);
+            }
+            billObj.put("items", itemsArr);
+            itemsRs.close();
+            itemsPs.close();
+            resp.getWriter().write(billObj.toString());
         } catch (Exception e) {
             resp.setStatus(500);
-            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         }
     }
 
@@ -223,17 +207,10 @@ public class SalesServlet extends HttpServlet {
             resp.getWriter().write("{\"error\":\"Missing bill id parameter\"}");
             return;
         }
-        try (Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect()) {
+        try {
             int billId = Integer.parseInt(billIdParam);
-            PreparedStatement delItems = conn.prepareStatement("DELETE FROM billItem WHERE bill_id = ?");
-            delItems.setInt(1, billId);
-            delItems.executeUpdate();
-            delItems.close();
-            PreparedStatement delBill = conn.prepareStatement("DELETE FROM bill WHERE id = ?");
-            delBill.setInt(1, billId);
-            int affected = delBill.executeUpdate();
-            delBill.close();
-            if (affected == 0) {
+            // Items, bill and its rollup rows go together or not at all
+            if (!BillGateway.getInstance().delete(billId)) {
                 resp.setStatus(404);
                 resp.getWriter().write("{\"error\":\"Bill not found\"}");
             } else {
@@ -241,24 +218,60 @@ public class SalesServlet extends HttpServlet {
             }
         } catch (Exception e) {
             resp.setStatus(500);
-            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         }
     }
     
+    /**
+     * Write a bill listing, newest first. With pageSize or pageToken parameters the
+     * response is {"data": [...], "nextPageToken": ...} and pages are read by key;
+     * without them it is the plain array of the latest 100 bills that clients expect.
+     */
+    static void writeBillList(HttpServletRequest req, HttpServletResponse resp, String transactionType)
+            throws Exception {
+        String pageSizeParam = req.getParameter("pageSize");
+        String pageTokenParam = req.getParameter("pageToken");
+        boolean paged = pageSizeParam != null || pageTokenParam != null;
+
+        PageToken after;
+        int pageSize;
+        try {
+            after = PageToken.decode(pageTokenParam, true);
+            pageSize = paged ? PageToken.pageSize(pageSizeParam) : 100;
+        } catch (IllegalArgumentException e) {
+            resp.setStatus(400);
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
+            return;
+        }
+
+        Page<Bill> page = new BillController().getBillsPage(transactionType, pageSize, after);
+        JSONArray billsArr = new JSONArray();
+        for (Bill bill : page.getItems()) {
+            JSONObject billObj = new JSONObject();
+            billObj.put("id", bill.getId());
+            billObj.put("invoiceNumber", bill.getInvoiceNumber());
+            billObj.put("fullPrice", bill.getFullPrice());
+            billObj.put("discount", bill.getDiscount());
+            billObj.put("cashTendered", bill.getCashTendered());
+            billObj.put("changeAmount", bill.getChangeAmount());
+            billObj.put("billDate", bill.getBillDate().toString());
+            billObj.put("transactionType", bill.getTransactionType());
+            billObj.put("storeType", bill.getStoreType());
+            billsArr.put(billObj);
+        }
+
+        if (!paged) {
+            resp.getWriter().write(billsArr.toString());
+            return;
+        }
+        JSONObject result = new JSONObject();
+        result.put("data", billsArr);
+        result.put("nextPageToken", page.hasNext() ? page.getNextPageToken() : JSONObject.NULL);
+        resp.getWriter().write(result.toString());
+    }
+
     // Helper method to check available quantity on store shelf (for POS transactions)
     private int getStoreShelfQuantity(int itemId) throws Exception {
-        try (Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect()) {
-            String query = "SELECT quantity FROM shelf WHERE item_id = ? AND type = 'STORE'";
-            try (PreparedStatement statement = conn.prepareStatement(query)) {
-                statement.setInt(1, itemId);
-                
-                try (ResultSet rs = statement.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getInt("quantity");
-                    }
-                }
-            }
-        }
-        return 0; // Item not found on store shelf
+        return ShelfLedger.getInstance().getQuantity(itemId, SystemConfig.STORE_TYPE_STORE);
     }
 }
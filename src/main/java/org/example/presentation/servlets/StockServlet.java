@@ -5,7 +5,6 @@ import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import java.io.IOException;
 import org.json.JSONObject;
-import org.json.JSONArray;
 import java.io.BufferedReader;
 import java.sql.Connection;
 import java.sql.Date;
@@ -14,67 +13,138 @@ import org.example.presentation.controllers.ItemController;
 import org.example.presentation.controllers.StockController;
 import org.example.persistence.models.Item;
 import org.example.persistence.models.Stock;
+import org.example.persistence.gateways.PageToken;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.core.config.SystemConfig;
 
 public class StockServlet extends HttpServlet {
     // Handles stock management operations
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
         resp.setContentType("application/json");
+        // Check if this is a request for website shelf items
+        String type = req.getParameter("type");
+        boolean isWebsiteRequest = "website".equals(type);
+
+        // pageSize/pageToken switch to keyset pages: stock by (date_of_expiry, id), website shelf by id
+        String pageSizeParam = req.getParameter("pageSize");
+        String pageTokenParam = req.getParameter("pageToken");
+        boolean paged = pageSizeParam != null || pageTokenParam != null;
+        PageToken after;
+        int pageSize;
         try {
-            Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect();
-            System.out.println("Database connection established successfully");
-            
-            // Check if this is a request for website shelf items
-            String type = req.getParameter("type");
-            boolean isWebsiteRequest = "website".equals(type);
-            
-            java.sql.PreparedStatement ps;
-            if (isWebsiteRequest) {
-                // Query shelf table for WEBSITE items (for customer catalog)
-                ps = conn.prepareStatement(
-                    "SELECT s.id, i.code, i.name, i.price, s.quantity, NULL as date_of_purchase, NULL as date_of_expiry, (s.quantity > 0) as availability FROM shelf s JOIN items i ON s.item_id = i.id WHERE s.type = 'WEBSITE' AND s.quantity > 0 ORDER BY i.name ASC");
-                System.out.println("Executing query to fetch website shelf items...");
+            after = PageToken.decode(pageTokenParam, !isWebsiteRequest);
+            pageSize = PageToken.pageSize(pageSizeParam);
+        } catch (IllegalArgumentException e) {
+            resp.setStatus(400);
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
+            return;
+        }
+
+        String query;
+        if (isWebsiteRequest) {
+            // Query shelf table for WEBSITE items (for customer catalog)
+            query = "SELECT s.id, i.code, i.name, i.price, s.quantity, NULL as date_of_purchase, NULL as date_of_expiry, (s.quantity > 0) as availability FROM shelf s JOIN items i ON s.item_id = i.id WHERE s.type = 'WEBSITE' AND s.quantity > 0 ";
+            if (paged) {
+                query += (after != null ? "AND s.id > ? " : "") + "ORDER BY s.id ASC LIMIT ?";
             } else {
-                // Default: Query stock table for warehouse inventory
-                ps = conn.prepareStatement(
-                    "SELECT s.id, i.code, i.name, i.price, s.quantity, s.date_of_purchase, s.date_of_expiry, s.availability FROM stock s JOIN items i ON s.item_id = i.id ORDER BY s.date_of_expiry ASC, s.date_of_purchase ASC");
-                System.out.println("Executing query to fetch stock items...");
+                query += "ORDER BY i.name ASC";
+            }
+        } else {
+            // Default: Query stock table for warehouse inventory
+            query = "SELECT s.id, i.code, i.name, i.price, s.quantity, s.date_of_purchase, s.date_of_expiry, s.availability FROM stock s JOIN items i ON s.item_id = i.id ";
+            if (paged) {
+                // Spelled out rather than a row comparison, which MySQL may not turn into a range scan
+                query += (after != null
+                        ? "WHERE s.date_of_expiry > ? OR (s.date_of_expiry = ? AND s.id > ?) " : "")
+                        + "ORDER BY s.date_of_expiry ASC, s.id ASC LIMIT ?";
+            } else {
+                query += "ORDER BY s.date_of_expiry ASC, s.date_of_purchase ASC";
+            }
+        }
+
+        try (Connection conn = org.example.persistence.database.DatabaseConnection.getInstance().connect();
+             java.sql.PreparedStatement ps = conn.prepareStatement(query)) {
+            if (paged) {
+                int paramIndex = 1;
+                if (after != null) {
+                    if (!isWebsiteRequest) {
+                        Date afterExpiry = Date.valueOf(after.getSortDate());
+                        ps.setDate(paramIndex++, afterExpiry);
+                        ps.setDate(paramIndex++, afterExpiry);
+                    }
+                    ps.setInt(paramIndex++, after.getId());
+                }
+                // One extra row tells us whether there is another page
+                ps.setInt(paramIndex, pageSize + 1);
             }
-            
-            java.sql.ResultSet rs = ps.executeQuery();
-            System.out.println("Query executed, processing results...");
-            
-            JSONArray arr = new JSONArray();
-            int count = 0;
-            while (rs.next()) {
-                JSONObject obj = new JSONObject();
-                obj.put("id", rs.getInt("id"));
-                obj.put("code", rs.getString("code"));
-                obj.put("name", rs.getString("name"));
-                obj.put("price", rs.getDouble("price"));
-                obj.put("quantity", rs.getInt("quantity"));
-                
-                // Handle nullable date fields for website shelf items
-                if (!isWebsiteRequest) {
-                    obj.put("date_of_purchase", rs.getDate("date_of_purchase"));
-                    obj.put("date_of_expiry", rs.getDate("date_of_expiry"));
+            // Rows are fetched in batches and written out as they arrive, so memory stays flat
+            ps.setFetchSize(SystemConfig.STREAM_FETCH_SIZE);
+
+            try (java.sql.ResultSet rs = ps.executeQuery()) {
+                JsonStreamWriter json = new JsonStreamWriter(resp.getWriter(), SystemConfig.STREAM_BUFFER_CHARS);
+                if (paged) {
+                    json.beginObject().name("data");
+                }
+                json.beginArray();
+                int count = 0;
+                int lastId = 0;
+                Date lastExpiry = null;
+                boolean hasMore = false;
+                while (rs.next()) {
+                    if (paged && count == pageSize) {
+                        hasMore = true;
+                        break;
+                    }
+                    lastId = rs.getInt("id");
+                    json.beginObject()
+                            .field("id", lastId)
+                            .field("code", rs.getString("code"))
+                            .field("name", rs.getString("name"))
+                            .field("price", rs.getDouble("price"))
+                            .field("quantity", rs.getInt("quantity"));
+
+                    // Website shelf items have no dates; missing dates are left out as before
+                    if (!isWebsiteRequest) {
+                        Date purchased = rs.getDate("date_of_purchase");
+                        lastExpiry = rs.getDate("date_of_expiry");
+                        if (purchased != null) {
+                            json.field("date_of_purchase", purchased.toString());
+                        }
+                        if (lastExpiry != null) {
+                            json.field("date_of_expiry", lastExpiry.toString());
+                        }
+                    }
+                    json.field("availability", rs.getBoolean("availability"));
+                    json.endObject();
+                    count++;
                 }
-                obj.put("availability", rs.getBoolean("availability"));
-                arr.put(obj);
-                count++;
+                json.endArray();
+                if (paged) {
+                    json.name("nextPageToken");
+                    if (hasMore) {
+                        PageToken next = isWebsiteRequest ? PageToken.after(lastId)
+                                : PageToken.after(lastExpiry.toLocalDate(), lastId);
+                        json.value(next.encode());
+                    } else {
+                        json.value((String) null);
+                    }
+                    json.endObject();
+                }
+                json.close();
+                System.out.println("Found " + count + (isWebsiteRequest ? " website shelf items" : " stock items"));
             }
-            System.out.println("Found " + count + (isWebsiteRequest ? " website shelf items" : " stock items"));
-            
-            ps.close();
-            rs.close();
-            conn.close();
-            
-            resp.getWriter().write(arr.toString());
         } catch (Exception e) {
             System.err.println("Error in StockServlet doGet: " + e.getMessage());
             e.printStackTrace();
+            if (resp.isCommitted()) {
+                return;
+            }
+            // Drop any partial listing still in the buffer so the body is only the error
+            resp.resetBuffer();
             resp.setStatus(500);
-            resp.getWriter().write("{\"error\":\"" + e.getMessage() + "\"}");
+            resp.getWriter().write(new JSONObject().put("error", e.getMessage()).toString());
         }
     }
 
@@ -158,6 +228,9 @@ public class StockServlet extends HttpServlet {
                 shelfUpd.setInt(2, shelfId);
                 shelfUpd.executeUpdate();
                 shelfUpd.close();
+                // Only the shelf id is known here, so drop every cached shelf quantity
+                ShelfLedger.getInstance().invalidateAll();
+                StockBatchIndex.getInstance().invalidateBatch(stockId);
                 resp.getWriter().write("{\"success\":true}");
             }
         } catch (Exception e) {
@@ -181,6 +254,7 @@ public class StockServlet extends HttpServlet {
             del.setInt(1, stockId);
             int affected = del.executeUpdate();
             del.close();
+            StockBatchIndex.getInstance().invalidateBatch(stockId);
             if (affected == 0) {
                 resp.setStatus(404);
                 resp.getWriter().write("{\"error\":\"Stock batch not found\"}");
@@ -1,6 +1,15 @@
 package org.example.presentation.servlets;
 
+import org.example.business.services.DualInventoryService;
+import org.example.core.config.SystemConfig;
 import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.DiscountCodeCache;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.persistence.gateways.PageToken;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.persistence.gateways.StockGateway;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 import jakarta.servlet.ServletException;
@@ -34,10 +43,10 @@ public class StoreManagerServlet extends HttpServlet {
                     listItems(response);
                     break;
                 case "/listStock":
-                    listStock(response);
+                    listStock(request, response);
                     break;
                 case "/listShelf":
-                    listShelf(response);
+                    listShelf(request, response);
                     break;
                 case "/listDiscountCodes":
                     listDiscountCodes(response);
@@ -51,6 +60,10 @@ public class StoreManagerServlet extends HttpServlet {
                 default:
                     sendErrorResponse(response, "Endpoint not found");
             }
+        } catch (IllegalArgumentException e) {
+            // Bad pageSize/pageToken
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(response, e.getMessage());
         } catch (Exception e) {
             sendErrorResponse(response, "Internal server error: " + e.getMessage());
         }
@@ -73,6 +86,9 @@ public class StoreManagerServlet extends HttpServlet {
                 case "/reshelveItems":
                     reshelveItems(request, response);
                     break;
+                case "/bulkRestock":
+                    bulkRestock(request, response);
+                    break;
                 case "/moveOnlineToStore":
                     moveOnlineToStore(request, response);
                     break;
@@ -132,24 +148,56 @@ public class StoreManagerServlet extends HttpServlet {
         }
     }
 
-    private void listStock(HttpServletResponse response) throws Exception {
+    // With pageSize/pageToken the listing is paged by (date_of_expiry, id); otherwise everything, by name
+    private void listStock(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        String pageSizeParam = request.getParameter("pageSize");
+        String pageTokenParam = request.getParameter("pageToken");
+        boolean paged = pageSizeParam != null || pageTokenParam != null;
+        PageToken after = PageToken.decode(pageTokenParam, true);
+        int pageSize = PageToken.pageSize(pageSizeParam);
+
         List<Map<String, Object>> stockItems = new ArrayList<>();
+        String nextPageToken = null;
         Connection conn = null;
         
         try {
             conn = DatabaseConnection.getInstance().connect();
             String query = """
-                SELECT s.id, i.name, i.code, s.quantity
+                SELECT s.id, i.name, i.code, s.quantity, s.date_of_expiry
                 FROM stock s
                 JOIN items i ON s.item_id = i.id
                 WHERE s.quantity > 0
-                ORDER BY i.name
                 """;
+            if (paged) {
+                // Spelled out rather than a row comparison, which MySQL may not turn into a range scan
+                query += (after != null
+                        ? "AND (s.date_of_expiry > ? OR (s.date_of_expiry = ? AND s.id > ?)) " : "")
+                        + "ORDER BY s.date_of_expiry, s.id LIMIT ?";
+            } else {
+                query += "ORDER BY i.name";
+            }
             
             PreparedStatement stmt = conn.prepareStatement(query);
+            if (paged) {
+                int paramIndex = 1;
+                if (after != null) {
+                    java.sql.Date afterExpiry = java.sql.Date.valueOf(after.getSortDate());
+                    stmt.setDate(paramIndex++, afterExpiry);
+                    stmt.setDate(paramIndex++, afterExpiry);
+                    stmt.setInt(paramIndex++, after.getId());
+                }
+                stmt.setInt(paramIndex, pageSize + 1);
+            }
             ResultSet rs = stmt.executeQuery();
             
+            java.sql.Date lastExpiry = null;
             while (rs.next()) {
+                if (paged && stockItems.size() == pageSize) {
+                    nextPageToken = PageToken.after(lastExpiry.toLocalDate(),
+                            (Integer) stockItems.get(pageSize - 1).get("id")).encode();
+                    break;
+                }
+                lastExpiry = rs.getDate("date_of_expiry");
                 Map<String, Object> stock = new HashMap<>();
                 stock.put("id", rs.getInt("id"));
                 stock.put("name", rs.getString("name"));
@@ -158,14 +206,26 @@ public class StoreManagerServlet extends HttpServlet {
                 stockItems.add(stock);
             }
             
-            sendSuccessResponse(response, stockItems);
+            if (paged) {
+                sendPageResponse(response, stockItems, nextPageToken);
+            } else {
+                sendSuccessResponse(response, stockItems);
+            }
         } finally {
             if (conn != null) conn.close();
         }
     }
 
-    private void listShelf(HttpServletResponse response) throws Exception {
+    // With pageSize/pageToken the listing is paged by shelf id; otherwise everything, by name
+    private void listShelf(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        String pageSizeParam = request.getParameter("pageSize");
+        String pageTokenParam = request.getParameter("pageToken");
+        boolean paged = pageSizeParam != null || pageTokenParam != null;
+        PageToken after = PageToken.decode(pageTokenParam, false);
+        int pageSize = PageToken.pageSize(pageSizeParam);
+
         List<Map<String, Object>> shelfItems = new ArrayList<>();
+        String nextPageToken = null;
         Connection conn = null;
         
         try {
@@ -175,13 +235,28 @@ public class StoreManagerServlet extends HttpServlet {
                 FROM shelf s
                 JOIN items i ON s.item_id = i.id
                 WHERE s.quantity > 0
-                ORDER BY i.name, s.type
                 """;
+            if (paged) {
+                query += (after != null ? "AND s.id > ? " : "") + "ORDER BY s.id LIMIT ?";
+            } else {
+                query += "ORDER BY i.name, s.type";
+            }
             
             PreparedStatement stmt = conn.prepareStatement(query);
+            if (paged) {
+                int paramIndex = 1;
+                if (after != null) {
+                    stmt.setInt(paramIndex++, after.getId());
+                }
+                stmt.setInt(paramIndex, pageSize + 1);
+            }
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
+                if (paged && shelfItems.size() == pageSize) {
+                    nextPageToken = PageToken.after((Integer) shelfItems.get(pageSize - 1).get("id")).encode();
+                    break;
+                }
                 Map<String, Object> shelf = new HashMap<>();
                 shelf.put("id", rs.getInt("id"));
                 shelf.put("item_id", rs.getInt("item_id"));
@@ -192,7 +267,11 @@ public class StoreManagerServlet extends HttpServlet {
                 shelfItems.add(shelf);
             }
             
-            sendSuccessResponse(response, shelfItems);
+            if (paged) {
+                sendPageResponse(response, shelfItems, nextPageToken);
+            } else {
+                sendSuccessResponse(response, shelfItems);
+            }
         } finally {
             if (conn != null) conn.close();
         }
@@ -260,6 +339,8 @@ public class StoreManagerServlet extends HttpServlet {
             }
             
             conn.commit();
+            ShelfLedger.getInstance().invalidate(itemId, shelfType);
+            StockBatchIndex.getInstance().invalidateItem(itemId);
             sendSuccessResponse(response, "Items moved to shelf successfully");
         } catch (Exception e) {
             if (conn != null) conn.rollback();
@@ -272,6 +353,74 @@ public class StoreManagerServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Restock many items in one request: {"lines": [{"item_code", "quantity", "shelf_type"}, ...]}.
+     * All lines go through one transaction; each line reports whether it was filled.
+     */
+    private void bulkRestock(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        JSONObject requestData = parseJsonRequest(request);
+        JSONArray lineData = requestData.getJSONArray("lines");
+        
+        if (lineData.length() == 0) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(response, "No restock lines given");
+            return;
+        }
+        if (lineData.length() > SystemConfig.RESTOCK_MAX_LINES) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            sendErrorResponse(response, "Too many restock lines (max " + SystemConfig.RESTOCK_MAX_LINES + ")");
+            return;
+        }
+        
+        List<DualInventoryService.RestockLine> lines = new ArrayList<>();
+        for (int i = 0; i < lineData.length(); i++) {
+            JSONObject line = lineData.getJSONObject(i);
+            String shelfTypeParam = line.optString("shelf_type", "STORE");
+            DualInventoryService.ShelfType shelfType;
+            try {
+                shelfType = DualInventoryService.ShelfType.valueOf(shelfTypeParam.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                sendErrorResponse(response, "Invalid shelf_type '" + shelfTypeParam + "' on line " + (i + 1)
+                        + " (expected STORE or WEBSITE)");
+                return;
+            }
+            lines.add(new DualInventoryService.RestockLine(line.getString("item_code"), line.getInt("quantity"), shelfType));
+        }
+        
+        DualInventoryService.getInstance().stockToShelves(lines);
+        
+        JSONArray results = new JSONArray();
+        int filled = 0;
+        for (DualInventoryService.RestockLine line : lines) {
+            JSONObject result = new JSONObject();
+            result.put("item_code", line.getItemCode());
+            result.put("quantity", line.getQuantity());
+            result.put("shelf_type", line.getShelfType().name());
+            result.put("success", line.isSuccess());
+            if (line.isSuccess()) {
+                filled++;
+                JSONArray batches = new JSONArray();
+                for (StockGateway.BatchConsumption consumption : line.getConsumptions()) {
+                    JSONObject batch = new JSONObject();
+                    batch.put("stock_id", consumption.getStockId());
+                    batch.put("quantity", consumption.getQuantity());
+                    batches.put(batch);
+                }
+                result.put("batches", batches);
+            } else {
+                result.put("message", line.getMessage());
+            }
+            results.put(result);
+        }
+        
+        JSONObject data = new JSONObject();
+        data.put("filled", filled);
+        data.put("failed", lines.size() - filled);
+        data.put("results", results);
+        sendSuccessResponse(response, data);
+    }
+
     private void moveOnlineToStore(HttpServletRequest request, HttpServletResponse response) throws Exception {
         JSONObject requestData = parseJsonRequest(request);
         
@@ -332,6 +481,7 @@ public class StoreManagerServlet extends HttpServlet {
             }
             
             conn.commit();
+            ShelfLedger.getInstance().invalidateItem(itemId);
             sendSuccessResponse(response, "Items moved from online to store successfully");
         } catch (Exception e) {
             if (conn != null) conn.rollback();
@@ -399,6 +549,8 @@ public class StoreManagerServlet extends HttpServlet {
             }
             
             conn.commit();
+            ItemGateway.getInstance().invalidate(itemId);
+            ShelfLedger.getInstance().invalidateItem(itemId);
             sendSuccessResponse(response, "Item saved successfully");
         } catch (Exception e) {
             if (conn != null) conn.rollback();
@@ -453,6 +605,7 @@ public class StoreManagerServlet extends HttpServlet {
             stmt.setString(1, code);
             stmt.setDouble(2, discountValue);
             stmt.executeUpdate();
+            DiscountCodeCache.getInstance().refresh();
             
             sendSuccessResponse(response, "Discount code added successfully");
         } finally {
@@ -478,6 +631,7 @@ public class StoreManagerServlet extends HttpServlet {
             stmt.setDouble(2, discountValue);
             stmt.setInt(3, id);
             stmt.executeUpdate();
+            DiscountCodeCache.getInstance().refresh();
             
             sendSuccessResponse(response, "Discount code updated successfully");
         } finally {
@@ -499,6 +653,7 @@ public class StoreManagerServlet extends HttpServlet {
             PreparedStatement stmt = conn.prepareStatement(query);
             stmt.setInt(1, id);
             stmt.executeUpdate();
+            DiscountCodeCache.getInstance().refresh();
             
             sendSuccessResponse(response, "Discount code deleted successfully");
         } finally {
@@ -632,6 +787,15 @@ public class StoreManagerServlet extends HttpServlet {
         response.getWriter().write(responseMap.toString());
     }
 
+    private void sendPageResponse(HttpServletResponse response, Object data, String nextPageToken) throws IOException {
+        JSONObject responseMap = new JSONObject();
+        responseMap.put("success", true);
+        responseMap.put("data", data);
+        responseMap.put("nextPageToken", nextPageToken != null ? nextPageToken : JSONObject.NULL);
+        
+        response.getWriter().write(responseMap.toString());
+    }
+
     private void sendErrorResponse(HttpServletResponse response, String message) throws IOException {
         JSONObject responseMap = new JSONObject();
         responseMap.put("success", false);
@@ -170,9 +170,14 @@ public class Cashier {
                 amountTendered,
                 balance);
 
-        Bill finalBill = new BillController().Add_Bill(bill);
-
-        new BillController().add_Bill_items(itemsOfBill, finalBill);
+        Bill finalBill;
+        try {
+            // Shelf stock, bill and items are committed together or not at all
+            finalBill = new BillController().checkout(bill, itemsOfBill);
+        } catch (BillController.InsufficientStockException e) {
+            System.out.println(e.getMessage() + ". Transaction cancelled.");
+            return;
+        }
 
         System.out.println("\nTransaction completed successfully!");
         System.out.println("Bill ID: " + finalBill.getId());
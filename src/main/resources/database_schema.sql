@@ -25,7 +25,8 @@ CREATE TABLE IF NOT EXISTS stock (
     date_of_purchase DATE NOT NULL,
     date_of_expiry DATE NOT NULL,
     availability BOOLEAN DEFAULT TRUE,
-    FOREIGN KEY (item_id) REFERENCES items(id)
+    FOREIGN KEY (item_id) REFERENCES items(id),
+    INDEX idx_stock_expiry (date_of_expiry, id)
 );
 
 -- Shelf table - manages both store and website inventory
@@ -69,7 +70,9 @@ CREATE TABLE IF NOT EXISTS bill (
     changeAmount DECIMAL(10, 2) DEFAULT 0,
     billDate DATE NOT NULL,
     transactionType ENUM('COUNTER', 'ONLINE') DEFAULT 'COUNTER',
-    storeType ENUM('STORE', 'WEBSITE') DEFAULT 'STORE'
+    storeType ENUM('STORE', 'WEBSITE') DEFAULT 'STORE',
+    INDEX idx_bill_date (billDate, id),
+    INDEX idx_bill_type_date (transactionType, billDate, id)
 );
 
 -- Bill items table
@@ -103,6 +106,86 @@ CREATE TABLE IF NOT EXISTS discount_codes (
     created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Daily sales rollup, maintained in the same transaction as each bill.
+-- item_id 0 holds the bill totals (bill count, full price, discount) for the day/type/store.
+CREATE TABLE IF NOT EXISTS daily_sales_rollup (
+    sale_date DATE NOT NULL,
+    transaction_type VARCHAR(16) NOT NULL,
+    store_type VARCHAR(16) NOT NULL,
+    item_id INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    discount DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    bill_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (sale_date, transaction_type, store_type, item_id)
+);
+
+-- Shelf refill targets per item and shelf type; items without a row use the configured defaults
+CREATE TABLE IF NOT EXISTS shelf_target (
+    item_id INT NOT NULL,
+    shelf_type VARCHAR(16) NOT NULL,
+    min_quantity INT NOT NULL,
+    max_quantity INT NOT NULL,
+    PRIMARY KEY (item_id, shelf_type)
+);
+
+-- Saved online carts (written behind from memory by CartStore); customer_id 0 is a guest
+CREATE TABLE IF NOT EXISTS cart (
+    id VARCHAR(64) PRIMARY KEY,
+    customer_id INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL,
+    INDEX idx_cart_updated (updated_at)
+);
+
+CREATE TABLE IF NOT EXISTS cart_item (
+    cart_id VARCHAR(64) NOT NULL,
+    item_code VARCHAR(50) NOT NULL,
+    quantity INT NOT NULL,
+    PRIMARY KEY (cart_id, item_code)
+);
+
+-- Invoice number sequence (application reserves blocks of numbers with one UPDATE)
+CREATE TABLE IF NOT EXISTS invoice_sequence (
+    name VARCHAR(32) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Keyset-pagination indexes for databases created before they were added to the tables above.
+-- MySQL has no CREATE INDEX IF NOT EXISTS, so each one is created only when information_schema lacks it.
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'stock' AND index_name = 'idx_stock_expiry') = 0,
+              'CREATE INDEX idx_stock_expiry ON stock (date_of_expiry, id)', 'DO 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'bill' AND index_name = 'idx_bill_date') = 0,
+              'CREATE INDEX idx_bill_date ON bill (billDate, id)', 'DO 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'bill' AND index_name = 'idx_bill_type_date') = 0,
+              'CREATE INDEX idx_bill_type_date ON bill (transactionType, billDate, id)', 'DO 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- Abandoned-cart purge scans cart by updated_at
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'cart' AND index_name = 'idx_cart_updated') = 0,
+              'CREATE INDEX idx_cart_updated ON cart (updated_at)', 'DO 0');
+PREPARE ddl FROM @ddl;
+EXECUTE ddl;
+DEALLOCATE PREPARE ddl;
+
+-- Start above any invoice already issued
+INSERT IGNORE INTO invoice_sequence (name, next_value)
+SELECT 'INVOICE', COALESCE(MAX(CAST(SUBSTRING(invoiceNumber, 5) AS UNSIGNED)), 0) + 1
+FROM bill WHERE invoiceNumber REGEXP '^INV-[0-9]+$';
+
 INSERT IGNORE INTO users (name, password, type) VALUES 
 ('admin', 'admin123', 'admin'),
 ('cashier1', 'cashier123', 'cashier'),
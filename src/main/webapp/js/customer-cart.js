@@ -23,8 +23,8 @@ function checkUserStatus() {
     CartManager.updateCartCount();
 }
 
-function loadCart() {
-    cartItems = CartManager.getCart();
+async function loadCart() {
+    cartItems = await CartManager.restore();
     
     if (cartItems.length === 0) {
         showEmptyCart();
@@ -343,6 +343,8 @@ async function payNow() {
         // Prepare order data
         const orderPayload = {
             customerId: user.contactNumber || user.phone || user.id || 1, 
+            // Lets the order use the stock held for this cart
+            cartId: localStorage.getItem('cartId'),
             items: cartItems.map(item => ({
                 code: item.code,
                 quantity: item.quantity,
@@ -16,6 +16,9 @@ const API_ENDPOINTS = {
     SALES_ONLINE: '/syos/api/online-sales', // Online sales (OnlineSalesServlet)
     SALES_HISTORY: '/syos/api/sales',
     
+    // Saved Carts (CartServlet)
+    CARTS: '/syos/api/carts',
+    
     // Stock Management (StockServlet)
     STOCK: '/syos/api/stock',
     STOCK_MOVE: '/syos/api/stock',
@@ -50,6 +53,7 @@ class SessionManager {
         localStorage.removeItem('currentUser');
         localStorage.removeItem('loginTime');
         localStorage.removeItem('cart');
+        localStorage.removeItem('cartId');
     }
     
     static logout() {
@@ -393,7 +397,7 @@ class CartManager {
             });
         }
         
-        localStorage.setItem('cart', JSON.stringify(cart));
+        this.saveCart(cart);
         this.updateCartCount();
         return cart;
     }
@@ -401,7 +405,7 @@ class CartManager {
     static removeFromCart(itemCode) {
         const cart = this.getCart();
         const updatedCart = cart.filter(item => item.code !== itemCode);
-        localStorage.setItem('cart', JSON.stringify(updatedCart));
+        this.saveCart(updatedCart);
         this.updateCartCount();
         return updatedCart;
     }
@@ -421,7 +425,7 @@ class CartManager {
                 } else {
                     item.quantity = quantity;
                 }
-                localStorage.setItem('cart', JSON.stringify(cart));
+                this.saveCart(cart);
                 this.updateCartCount();
             }
         }
@@ -431,7 +435,67 @@ class CartManager {
     
     static clearCart() {
         localStorage.removeItem('cart');
+        const cartId = localStorage.getItem('cartId');
+        if (cartId) {
+            localStorage.removeItem('cartId');
+            APIClient.delete(`${API_ENDPOINTS.CARTS}/${cartId}`).catch(() => {});
+        }
+        this.updateCartCount();
+    }
+    
+    // Keep the cart locally and on the server, so it can be restored by id later
+    static saveCart(cart) {
+        localStorage.setItem('cart', JSON.stringify(cart));
+        this.syncToServer(cart);
+    }
+    
+    static syncToServer(cart) {
+        const user = SessionManager.getUser();
+        // Numbers each save so the server can drop one that arrives after a later save
+        const revision = Number(localStorage.getItem('cartRevision') || 0) + 1;
+        localStorage.setItem('cartRevision', String(revision));
+        const payload = {
+            customerId: (user && user.id) || 0,
+            items: cart.map(item => ({ code: item.code, quantity: item.quantity })),
+            revision: revision
+        };
+        const cartId = localStorage.getItem('cartId');
+        // The server coalesces rapid updates, so every change can be sent as it happens
+        if (cartId) {
+            APIClient.put(`${API_ENDPOINTS.CARTS}/${cartId}`, payload).catch(error => {
+                // The saved cart was purged or never existed; start a new one. A 409 means a
+                // later save already landed, so there is nothing to redo.
+                if (String(error.message).startsWith('HTTP 404') && localStorage.getItem('cartId') === cartId) {
+                    localStorage.removeItem('cartId');
+                    this.syncToServer(this.getCart());
+                }
+            });
+        } else if (!this.creatingCart) {
+            this.creatingCart = APIClient.post(API_ENDPOINTS.CARTS, payload)
+                .then(response => {
+                    localStorage.setItem('cartId', response.data.cartId);
+                    // Send anything added while the cart was being created
+                    this.creatingCart = null;
+                    this.syncToServer(this.getCart());
+                })
+                .catch(() => { this.creatingCart = null; });
+        }
+    }
+    
+    // Reload a saved cart when this browser has its id but no local copy
+    static async restore() {
+        const cartId = localStorage.getItem('cartId');
+        if (!cartId || this.getCart().length > 0) {
+            return this.getCart();
+        }
+        try {
+            const response = await APIClient.get(`${API_ENDPOINTS.CARTS}/${cartId}`);
+            localStorage.setItem('cart', JSON.stringify(response.data.items));
+        } catch (error) {
+            localStorage.removeItem('cartId');
+        }
         this.updateCartCount();
+        return this.getCart();
     }
     
     static getCartTotal() {
@@ -98,7 +98,7 @@ class BillingWorkflowIntegrationTest {
         
         Bill bill = new Bill(testCustomer, invoiceNumber, finalAmount, discount, cashTendered, expectedChange);
         
-        Bill savedBill = billController.Add_Bill(bill);
+        Bill savedBill = billController.checkout(bill, billItems);
         assertNotNull(savedBill);
         assertTrue(savedBill.getId() > 0);
         assertEquals(invoiceNumber, savedBill.getInvoiceNumber());
@@ -107,8 +107,6 @@ class BillingWorkflowIntegrationTest {
         assertEquals(cashTendered, savedBill.getCashTendered(), 0.01);
         assertEquals(expectedChange, savedBill.getChangeAmount(), 0.01);
         
-        billController.add_Bill_items(billItems, savedBill);
-        
         int finalStock1 = stockController.get_Stock_quantity_by_item(testItem1);
         int finalStock2 = stockController.get_Stock_quantity_by_item(testItem2);
         
@@ -117,7 +115,7 @@ class BillingWorkflowIntegrationTest {
     }
     
     @Test
-    @DisplayName("Billing workflow with insufficient stock should handle gracefully")
+    @DisplayName("Billing workflow with insufficient stock should be rejected")
     void billingWorkflow_InsufficientStock_HandlesGracefully() throws Exception {
         Date expiryDate = new Date(System.currentTimeMillis() + 86400000L * 30);
         Stock limitedStock = new Stock(testItem1, 2, expiryDate);
@@ -128,11 +126,26 @@ class BillingWorkflowIntegrationTest {
         
         String invoiceNumber = billController.getInvoiceNumber();
         Bill bill = new Bill(testCustomer, invoiceNumber, 159.90, 0, 200.00, 40.10);
-        Bill savedBill = billController.Add_Bill(bill);
         
-        assertDoesNotThrow(() -> {
-            billController.add_Bill_items(billItems, savedBill);
-        });
+        assertThrows(BillController.InsufficientStockException.class, () ->
+                billController.checkout(bill, billItems));
+    }
+    
+    @Test
+    @DisplayName("Checkout with insufficient shelf stock should roll back the whole bill")
+    void checkout_InsufficientShelfStock_RollsBack() throws Exception {
+        BillItem billItem1 = new BillItem(testItem1, 1);
+        BillItem billItem2 = new BillItem(testItem2, 1000);
+        
+        String invoiceNumber = billController.getInvoiceNumber();
+        Bill bill = new Bill(testCustomer, invoiceNumber, 25515.99, 0, 30000.00, 4484.01);
+        
+        assertThrows(BillController.InsufficientStockException.class, () ->
+                billController.checkout(bill, Arrays.asList(billItem1, billItem2)));
+        
+        boolean persisted = billController.getAllBills().stream()
+                .anyMatch(saved -> invoiceNumber.equals(saved.getInvoiceNumber()));
+        assertFalse(persisted, "No part of a failed checkout should be committed");
     }
     
     @Test
@@ -179,8 +192,7 @@ class BillingWorkflowIntegrationTest {
         String invoiceNumber = billController.getInvoiceNumber();
         Bill bill = new Bill(testCustomer, invoiceNumber, expectedTotal, discount, cashTendered, expectedChange);
         
-        Bill savedBill = billController.Add_Bill(bill);
-        billController.add_Bill_items(billItems, savedBill);
+        Bill savedBill = billController.checkout(bill, billItems);
         
         assertEquals(expectedTotal, savedBill.getFullPrice(), 0.01);
         assertEquals(0.00, savedBill.getDiscount(), 0.01);
@@ -205,8 +217,7 @@ class BillingWorkflowIntegrationTest {
         String invoiceNumber = billController.getInvoiceNumber();
         Bill bill = new Bill(testCustomer, invoiceNumber, finalAmount, discount, cashTendered, expectedChange);
         
-        Bill savedBill = billController.Add_Bill(bill);
-        billController.add_Bill_items(billItems, savedBill);
+        Bill savedBill = billController.checkout(bill, billItems);
         
         assertEquals(finalAmount, savedBill.getFullPrice(), 0.01);
         assertEquals(discount, savedBill.getDiscount(), 0.01);
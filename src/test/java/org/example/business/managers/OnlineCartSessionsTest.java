@@ -0,0 +1,74 @@
+package org.example.business.managers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Online Cart Sessions Tests")
+public class OnlineCartSessionsTest {
+    private StockReservationManager reservations;
+    private OnlineCartSessions sessions;
+
+    @BeforeEach
+    void setUp() {
+        reservations = mock(StockReservationManager.class);
+        // Two open carts at most; no idle expiry within a test
+        sessions = new OnlineCartSessions(reservations, 60000, 2, 60000);
+    }
+
+    @Test
+    @DisplayName("Touching an open cart again keeps its holds")
+    void touch_OpenCart_DoesNotReleaseHolds() {
+        sessions.touch("CART_1", 7, "customer:7");
+        sessions.touch("CART_1", 7, "customer:7");
+
+        verify(reservations, never()).releaseAll(anyString());
+        assertEquals(1, sessions.getStats().getOpenSessions());
+    }
+
+    @Test
+    @DisplayName("Opening a cart beyond the limit releases the holds of the least recently used one")
+    void touch_OverCapacity_ReleasesOldestCart() throws Exception {
+        sessions.touch("CART_1", 0, "session:S1");
+        Thread.sleep(2);
+        sessions.touch("CART_2", 0, "session:S2");
+        Thread.sleep(2);
+        sessions.touch("CART_3", 0, "session:S3");
+
+        verify(reservations).releaseAll("CART_1");
+        assertEquals(1, sessions.getStats().getCapacityEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Ordering spends the holds and deleting releases them")
+    void completeAndAbandon_CloseSessions() {
+        sessions.touch("CART_1", 0, "session:S1");
+        sessions.touch("CART_2", 0, "session:S2");
+
+        sessions.complete("CART_1");
+        sessions.abandon("CART_2");
+
+        verify(reservations).completeAll("CART_1");
+        verify(reservations).releaseAll("CART_2");
+        assertEquals(0, sessions.getStats().getOpenSessions());
+        assertEquals(2, sessions.getStats().getClosedCount());
+    }
+
+    @Test
+    @DisplayName("A holder touching a second cart releases the holds of its first")
+    void touch_SecondCartForHolder_ReleasesFirstCart() {
+        sessions.touch("CART_1", 7, "customer:7");
+        sessions.touch("CART_2", 7, "customer:7");
+
+        verify(reservations).releaseAll("CART_1");
+        verify(reservations, never()).releaseAll("CART_2");
+        assertEquals(1, sessions.getStats().getOpenSessions());
+
+        // Going back to the first cart holds it again and lets go of the second
+        sessions.touch("CART_1", 7, "customer:7");
+        verify(reservations).releaseAll("CART_2");
+    }
+}
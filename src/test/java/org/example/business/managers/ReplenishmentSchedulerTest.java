@@ -0,0 +1,120 @@
+package org.example.business.managers;
+
+import org.example.business.services.DualInventoryService;
+import org.example.business.services.DualInventoryService.RestockLine;
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.shared.dto.ItemDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Replenishment Scheduler Tests")
+public class ReplenishmentSchedulerTest {
+    private static final int MIN = 10;
+    private static final int MAX = 30;
+
+    private DualInventoryService inventoryService;
+    private ShelfLedger shelfLedger;
+    private StockBatchIndex stockBatchIndex;
+    private final List<List<RestockLine>> calls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        inventoryService = mock(DualInventoryService.class);
+        shelfLedger = mock(ShelfLedger.class);
+        stockBatchIndex = mock(StockBatchIndex.class);
+        when(shelfLedger.getQuantity(anyInt(), anyString())).thenReturn(2);
+        when(stockBatchIndex.getAvailableQuantity(anyInt())).thenReturn(1000);
+        when(inventoryService.stockToShelves(any())).thenAnswer(invocation -> {
+            List<RestockLine> lines = invocation.getArgument(0);
+            calls.add(lines);
+            return lines;
+        });
+    }
+
+    private ReplenishmentScheduler scheduler(int batchSize, int maxLinesPerMinute) throws Exception {
+        ItemGateway itemGateway = mock(ItemGateway.class);
+        when(itemGateway.findById(anyInt())).thenAnswer(invocation -> {
+            int id = invocation.getArgument(0);
+            return new ItemDTO(id, "I" + id, "Item " + id, 1.0);
+        });
+        return new ReplenishmentScheduler(mock(DatabaseConnection.class), inventoryService, shelfLedger,
+                stockBatchIndex, itemGateway, MIN, MAX, batchSize, maxLinesPerMinute, 60000L);
+    }
+
+    @Test
+    @DisplayName("Repeated triggers for one shelf are coalesced into one refill up to the maximum")
+    void drain_RepeatedTriggers_RefillsOnce() throws Exception {
+        ReplenishmentScheduler scheduler = scheduler(10, 100);
+        scheduler.trigger(1, "WEBSITE");
+        scheduler.trigger(1, "WEBSITE");
+        scheduler.trigger(1, "WEBSITE");
+
+        assertEquals(1, scheduler.drain());
+
+        assertEquals(1, calls.size());
+        RestockLine line = calls.get(0).get(0);
+        assertEquals("I1", line.getItemCode());
+        assertEquals(MAX - 2, line.getQuantity());
+        assertEquals(DualInventoryService.ShelfType.WEBSITE, line.getShelfType());
+        assertEquals(2, scheduler.getStats().getCoalescedCount());
+    }
+
+    @Test
+    @DisplayName("Refills are capped by warehouse stock and skipped once the shelf is back above its minimum")
+    void drain_WarehouseShortOrShelfRefilled_AdjustsLines() throws Exception {
+        when(stockBatchIndex.getAvailableQuantity(1)).thenReturn(5);
+        when(shelfLedger.getQuantity(2, "STORE")).thenReturn(MIN);
+        ReplenishmentScheduler scheduler = scheduler(10, 100);
+        scheduler.trigger(1, "STORE");
+        scheduler.trigger(2, "STORE");
+
+        scheduler.drain();
+
+        assertEquals(1, calls.get(0).size());
+        assertEquals(5, calls.get(0).get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Lines are sent in batches and limited per minute")
+    void drain_ManyShelves_BatchesAndThrottles() throws Exception {
+        ReplenishmentScheduler scheduler = scheduler(2, 5);
+        for (int itemId = 1; itemId <= 8; itemId++) {
+            scheduler.trigger(itemId, "STORE");
+        }
+
+        assertEquals(5, scheduler.drain());
+
+        assertEquals(3, calls.size());
+        assertEquals(2, calls.get(0).size());
+        assertEquals(3, scheduler.getStats().getQueuedShelves());
+        assertEquals(1, scheduler.getStats().getThrottledCount());
+    }
+
+    @Test
+    @DisplayName("A shelf the warehouse cannot fill backs off instead of being retried")
+    void drain_EmptyWarehouse_BacksOff() throws Exception {
+        when(stockBatchIndex.getAvailableQuantity(1)).thenReturn(0);
+        ReplenishmentScheduler scheduler = scheduler(10, 100);
+        scheduler.trigger(1, "STORE");
+
+        assertEquals(0, scheduler.drain());
+        scheduler.trigger(1, "STORE");
+
+        assertEquals(0, scheduler.getStats().getQueuedShelves());
+        assertEquals(1, scheduler.getStats().getBackingOffShelves());
+        verify(inventoryService, never()).stockToShelves(any());
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.business.managers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Request Queue Manager Tests")
+public class RequestQueueManagerTest {
+    private RequestQueueManager manager;
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Submitted work runs and completes its future")
+    void submit_Task_CompletesWithResult() throws Exception {
+        manager = new RequestQueueManager(RequestQueueManager.ExecutionMode.PLATFORM, 2, 4, 2);
+
+        CompletableFuture<Integer> future = manager.submit(() -> 21 * 2);
+
+        assertEquals(42, future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Platform mode rejects work once threads and queue are full")
+    void submitRequest_PlatformQueueFull_Rejects() throws Exception {
+        manager = new RequestQueueManager(RequestQueueManager.ExecutionMode.PLATFORM, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        assertTrue(manager.submitRequest(() -> {
+            started.countDown();
+            await(release);
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(manager.submitRequest(() -> { }));
+        assertTrue(manager.isQueueFull());
+
+        assertFalse(manager.submitRequest(() -> { }));
+        CompletableFuture<Object> rejected = manager.submit(() -> null);
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+        assertEquals(2, manager.getStats().getRejectedCount());
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("No more than the permitted number of tasks run at once")
+    void submit_ManyTasks_BoundedByDbPermits() throws Exception {
+        manager = new RequestQueueManager(RequestQueueManager.ExecutionMode.PLATFORM, 8, 100, 3);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[40];
+
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = manager.submit(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+                return null;
+            });
+        }
+        CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+
+        assertTrue(peak.get() <= 3, "peak concurrency was " + peak.get());
+        assertEquals(3, manager.getStats().getAvailableDbPermits());
+    }
+
+    @Test
+    @DisplayName("Virtual mode admits only permits plus queue capacity at once")
+    void submitRequest_VirtualAdmissionFull_Rejects() throws Exception {
+        manager = new RequestQueueManager(RequestQueueManager.ExecutionMode.VIRTUAL, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertTrue(manager.submitRequest(() -> await(release)));
+        assertTrue(manager.submitRequest(() -> await(release)));
+        assertTrue(manager.isQueueFull());
+        assertFalse(manager.submitRequest(() -> { }));
+
+        release.countDown();
+        CompletableFuture<String> later = null;
+        for (int attempt = 0; attempt < 100 && later == null; attempt++) {
+            if (manager.isQueueFull()) {
+                Thread.sleep(10);
+            } else {
+                later = manager.submit(() -> "done");
+            }
+        }
+        assertNotNull(later);
+        assertEquals("done", later.get(5, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
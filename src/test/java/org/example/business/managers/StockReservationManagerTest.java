@@ -0,0 +1,103 @@
+package org.example.business.managers;
+
+import org.example.persistence.gateways.ShelfLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Stock Reservation Manager Tests")
+public class StockReservationManagerTest {
+    private static final int ITEM_ID = 1;
+    private static final String WEBSITE = "WEBSITE";
+
+    private ShelfLedger shelfLedger;
+    private StockReservationManager reservations;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shelfLedger = mock(ShelfLedger.class);
+        when(shelfLedger.getQuantity(ITEM_ID, WEBSITE)).thenReturn(10);
+        // Holds last 3 ticks on a 4-slot wheel
+        reservations = new StockReservationManager(shelfLedger, 3000, 1000, 4);
+    }
+
+    @Test
+    @DisplayName("Holds reduce what other carts can take and what the catalog shows")
+    void hold_CompetingCarts_SecondCartLimitedToRemainder() throws Exception {
+        assertTrue(reservations.hold("cart-1", ITEM_ID, 7));
+
+        assertFalse(reservations.hold("cart-2", ITEM_ID, 4));
+        assertTrue(reservations.hold("cart-2", ITEM_ID, 3));
+        assertEquals(0, reservations.getAvailableToSell(ITEM_ID));
+        assertEquals(1, reservations.getStats().getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("Changing a hold only counts the cart's own units once")
+    void hold_SameCartAgain_ReplacesQuantity() throws Exception {
+        reservations.hold("cart-1", ITEM_ID, 6);
+
+        assertTrue(reservations.hold("cart-1", ITEM_ID, 10));
+        assertEquals(10, reservations.getHeldQuantity(ITEM_ID));
+
+        assertTrue(reservations.hold("cart-1", ITEM_ID, 2));
+        assertEquals(8, reservations.getAvailableToSell(ITEM_ID));
+        assertEquals(1, reservations.getStats().getActiveHolds());
+    }
+
+    @Test
+    @DisplayName("Holds expire on the timer wheel, and refreshing a hold restarts its expiry")
+    void tick_PastDeadline_ExpiresHold() throws Exception {
+        reservations.hold("cart-1", ITEM_ID, 4);
+        reservations.hold("cart-2", ITEM_ID, 2);
+        reservations.tick();
+        reservations.tick();
+        reservations.hold("cart-2", ITEM_ID, 3);
+
+        reservations.tick();
+        assertEquals(0, reservations.getHeldQuantity("cart-1", ITEM_ID));
+        assertEquals(3, reservations.getHeldQuantity(ITEM_ID));
+
+        // cart-2 was refreshed at tick 2, so it lasts until tick 5
+        reservations.tick();
+        assertEquals(3, reservations.getHeldQuantity("cart-2", ITEM_ID));
+        reservations.tick();
+        assertEquals(0, reservations.getHeldQuantity(ITEM_ID));
+        assertEquals(2, reservations.getStats().getExpiredCount());
+    }
+
+    @Test
+    @DisplayName("Committing a hold decrements the shelf and drops the hold")
+    void commit_HeldItem_DecrementsLedger() throws Exception {
+        when(shelfLedger.decrement(ITEM_ID, WEBSITE, 4)).thenReturn(true);
+        reservations.hold("cart-1", ITEM_ID, 4);
+        reservations.hold("cart-2", ITEM_ID, 1);
+
+        assertTrue(reservations.commit("cart-1", ITEM_ID, 4));
+        reservations.releaseAll("cart-2");
+
+        verify(shelfLedger).decrement(eq(ITEM_ID), eq(WEBSITE), anyInt());
+        assertEquals(0, reservations.getHeldQuantity(ITEM_ID));
+        assertEquals(1, reservations.getStats().getCommittedCount());
+        assertEquals(1, reservations.getStats().getReleasedCount());
+    }
+
+    @Test
+    @DisplayName("Completing an order drops its holds without touching the shelf again")
+    void completeAll_OrderCommitted_DropsOwnHoldsOnly() throws Exception {
+        reservations.hold("cart-1", ITEM_ID, 4);
+        reservations.hold("cart-2", ITEM_ID, 1);
+
+        reservations.completeAll("cart-1");
+
+        verify(shelfLedger, never()).decrement(anyInt(), anyString(), anyInt());
+        assertEquals(1, reservations.getHeldQuantity(ITEM_ID));
+        assertEquals(1, reservations.getStats().getCommittedCount());
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.business.services;
+
+import org.example.business.services.DualInventoryService.RestockLine;
+import org.example.business.services.DualInventoryService.ShelfType;
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.ItemGateway;
+import org.example.persistence.gateways.ShelfLedger;
+import org.example.persistence.gateways.StockBatchIndex;
+import org.example.persistence.gateways.StockGateway;
+import org.example.shared.dto.ItemDTO;
+import org.example.shared.dto.StockDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Dual Inventory Service Tests")
+class DualInventoryServiceTest {
+    private Connection connection;
+    private StockGateway stockGateway;
+    private StockBatchIndex stockBatchIndex;
+    private ShelfLedger shelfLedger;
+    private PreparedStatement shelfUpdateStmt;
+    private PreparedStatement trackStmt;
+    private DualInventoryService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DatabaseConnection dbConnection = mock(DatabaseConnection.class);
+        connection = mock(Connection.class);
+        when(dbConnection.connect()).thenReturn(connection);
+
+        ItemGateway itemGateway = mock(ItemGateway.class);
+        when(itemGateway.findByCode("A")).thenReturn(new ItemDTO(1, "A", "Apple", 1.0));
+        when(itemGateway.findByCode("B")).thenReturn(new ItemDTO(2, "B", "Bread", 2.0));
+
+        // Both items already have STORE shelves 11 and 12
+        PreparedStatement shelfSelectStmt = mock(PreparedStatement.class);
+        ResultSet shelfRows = mock(ResultSet.class);
+        when(shelfRows.next()).thenReturn(true, true, false);
+        when(shelfRows.getInt("id")).thenReturn(11, 12);
+        when(shelfRows.getInt("item_id")).thenReturn(1, 2);
+        when(shelfRows.getString("type")).thenReturn("STORE", "STORE");
+        when(shelfSelectStmt.executeQuery()).thenReturn(shelfRows);
+
+        shelfUpdateStmt = mock(PreparedStatement.class);
+        trackStmt = mock(PreparedStatement.class);
+        PreparedStatement shelfInsertStmt = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0, String.class);
+            if (sql.startsWith("SELECT")) return shelfSelectStmt;
+            if (sql.startsWith("UPDATE shelf")) return shelfUpdateStmt;
+            if (sql.startsWith("INSERT INTO shelf_stock")) return trackStmt;
+            return shelfInsertStmt;
+        });
+
+        stockGateway = mock(StockGateway.class);
+        stockBatchIndex = mock(StockBatchIndex.class);
+        shelfLedger = mock(ShelfLedger.class);
+        service = new DualInventoryService(stockGateway, stockBatchIndex, itemGateway, dbConnection, shelfLedger);
+    }
+
+    private void givenBatches(Map<Integer, List<StockDTO>> batchesByItem) throws Exception {
+        Map<Integer, List<StockDTO>> mutable = new HashMap<>();
+        batchesByItem.forEach((itemId, batches) -> mutable.put(itemId, new ArrayList<>(batches)));
+        when(stockGateway.lockFifoBatches(eq(connection), any())).thenReturn(mutable);
+        when(stockGateway.applyConsumptions(eq(connection), any())).thenReturn(true);
+    }
+
+    private static StockDTO batch(int stockId, int itemId, int quantity) {
+        LocalDate today = LocalDate.now();
+        return new StockDTO(stockId, itemId, "X", "X", quantity, today, today.plusDays(10), true);
+    }
+
+    @Test
+    @DisplayName("Bulk restock fills what it can in one transaction and reports each line")
+    void stockToShelves_MixedLines_ReportsPerLine() throws Exception {
+        givenBatches(Map.of(
+                1, List.of(batch(100, 1, 3), batch(101, 1, 10)),
+                2, List.of(batch(102, 2, 20))));
+
+        RestockLine apples = new RestockLine("A", 5, ShelfType.STORE);
+        RestockLine bread = new RestockLine("B", 50, ShelfType.STORE);
+        RestockLine unknown = new RestockLine("Z", 1, ShelfType.STORE);
+        service.stockToShelves(List.of(bread, apples, unknown));
+
+        assertTrue(apples.isSuccess());
+        assertEquals(2, apples.getConsumptions().size());
+        assertFalse(bread.isSuccess());
+        assertTrue(bread.getMessage().startsWith("Insufficient"));
+        assertEquals(8, apples.getConsumptions().get(1).getRemainingQuantity());
+        assertFalse(unknown.isSuccess());
+
+        verify(stockGateway, times(1)).lockFifoBatches(eq(connection), any());
+        verify(stockGateway, times(1)).applyConsumptions(eq(connection), argThat(list -> list.size() == 2));
+        verify(shelfUpdateStmt, times(1)).addBatch();
+        verify(shelfUpdateStmt).setInt(2, 11);
+        verify(trackStmt, times(2)).addBatch();
+        verify(trackStmt, times(1)).executeBatch();
+        verify(connection, times(1)).commit();
+        verify(shelfLedger).invalidate(1, "STORE");
+        verify(stockBatchIndex).invalidateItem(1);
+        verify(stockBatchIndex, never()).invalidateItem(2);
+    }
+
+    @Test
+    @DisplayName("A database failure rolls back every line")
+    void stockToShelves_BatchFails_RollsBack() throws Exception {
+        givenBatches(Map.of(1, List.of(batch(100, 1, 5))));
+        when(trackStmt.executeBatch()).thenThrow(new SQLException("boom"));
+
+        assertFalse(service.stockToShelf("A", 5, ShelfType.STORE));
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+        verify(shelfLedger, never()).invalidate(anyInt(), anyString());
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.core.state;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("Checkout Session Registry Tests")
+public class CheckoutSessionRegistryTest {
+    private static final long IDLE_TIMEOUT = 1000;
+    private static final long SWEEP_INTERVAL = 500;
+
+    private final AtomicLong now = new AtomicLong(10000);
+    private final List<String> evicted = new ArrayList<>();
+    private CheckoutSessionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new CheckoutSessionRegistry(IDLE_TIMEOUT, 3, SWEEP_INTERVAL,
+                (sessionId, context) -> evicted.add(sessionId), now::get);
+    }
+
+    @Test
+    @DisplayName("Each session keeps its own checkout")
+    void open_DifferentSessions_KeepsSeparateContexts() {
+        CheckoutContext till1 = mock(CheckoutContext.class);
+        CheckoutContext till2 = mock(CheckoutContext.class);
+
+        registry.open("till-1", till1);
+        registry.open("till-2", till2);
+
+        assertSame(till1, registry.get("till-1"));
+        assertSame(till2, registry.get("till-2"));
+        assertSame(till1, registry.close("till-1"));
+        assertNull(registry.get("till-1"));
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Idle sessions are evicted, while used ones stay open")
+    void get_IdleSession_EvictsIt() {
+        registry.open("idle", mock(CheckoutContext.class));
+        registry.open("busy", mock(CheckoutContext.class));
+
+        now.addAndGet(800);
+        registry.get("busy");
+        now.addAndGet(800);
+
+        assertNull(registry.get("idle"));
+        assertNotNull(registry.get("busy"));
+        assertEquals(List.of("idle"), evicted);
+        assertEquals(1, registry.getStats().getIdleEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Opening a session sweeps idle ones once the sweep interval has passed")
+    void open_AfterSweepInterval_SweepsIdleSessions() {
+        registry.open("a", mock(CheckoutContext.class));
+        now.addAndGet(IDLE_TIMEOUT + 1);
+
+        registry.open("b", mock(CheckoutContext.class));
+
+        assertEquals(1, registry.size());
+        assertEquals(List.of("a"), evicted);
+    }
+
+    @Test
+    @DisplayName("A full registry evicts the least recently used session")
+    void open_AtCapacity_EvictsLeastRecentlyUsed() {
+        registry.open("a", mock(CheckoutContext.class));
+        now.incrementAndGet();
+        registry.open("b", mock(CheckoutContext.class));
+        now.incrementAndGet();
+        registry.open("c", mock(CheckoutContext.class));
+        now.incrementAndGet();
+        registry.get("a");
+
+        registry.open("d", mock(CheckoutContext.class));
+
+        assertEquals(3, registry.size());
+        assertEquals(List.of("b"), evicted);
+        assertEquals(1, registry.getStats().getCapacityEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Reopening a session evicts its previous checkout")
+    void open_ExistingSession_EvictsPreviousContext() {
+        registry.open("till-1", mock(CheckoutContext.class));
+        CheckoutContext replacement = mock(CheckoutContext.class);
+
+        registry.open("till-1", replacement);
+
+        assertSame(replacement, registry.get("till-1"));
+        assertEquals(List.of("till-1"), evicted);
+    }
+}
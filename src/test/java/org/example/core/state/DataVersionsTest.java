@@ -0,0 +1,47 @@
+package org.example.core.state;
+
+import org.example.core.state.DataVersions.Domain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Data Versions Tests")
+public class DataVersionsTest {
+    private DataVersions versions;
+
+    @BeforeEach
+    void setUp() {
+        versions = new DataVersions("boot1", System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("A tag changes only when one of its domains is bumped")
+    void stamp_BumpOtherDomain_KeepsTag() {
+        String shelfTag = versions.stamp(Domain.SHELVES, Domain.ITEMS).getTag();
+
+        versions.bump(Domain.BILLS);
+        assertEquals(shelfTag, versions.stamp(Domain.SHELVES, Domain.ITEMS).getTag());
+
+        versions.bump(Domain.ITEMS);
+        assertNotEquals(shelfTag, versions.stamp(Domain.SHELVES, Domain.ITEMS).getTag());
+        assertTrue(versions.stamp(Domain.ITEMS).getTag().startsWith("boot1-"));
+    }
+
+    @Test
+    @DisplayName("Each bump moves Last-Modified forward by at least a second")
+    void bump_SameSecond_AdvancesLastModified() {
+        long start = versions.stamp(Domain.STOCK).getLastModified();
+
+        versions.bump(Domain.STOCK);
+        long first = versions.stamp(Domain.STOCK).getLastModified();
+        versions.bump(Domain.STOCK);
+        long second = versions.stamp(Domain.STOCK).getLastModified();
+
+        assertEquals(0, start % 1000);
+        assertTrue(first > start);
+        assertTrue(second > first);
+        assertEquals(second, versions.stamp(Domain.STOCK, Domain.BILLS).getLastModified());
+    }
+}
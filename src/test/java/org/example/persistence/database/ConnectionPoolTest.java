@@ -0,0 +1,327 @@
+package org.example.persistence.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Connection Pool Tests")
+public class ConnectionPoolTest {
+    private static final String TEST_URL = "jdbc:syos-pool-test:";
+
+    private Driver driver;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        driver = new StubDriver();
+        DriverManager.registerDriver(driver);
+        pool = new ConnectionPool(TEST_URL, new Properties(), new PoolConfig()
+                .withMinIdle(0)
+                .withMaxSize(2)
+                .withBorrowTimeoutMillis(100)
+                .withValidationBypassMillis(0)
+                .withLeakDetectionThresholdMillis(0)
+                .withAbandonedTimeoutMillis(0)
+                .withStatementCacheSize(0));
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        pool.shutdown();
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    @DisplayName("Closing a borrowed connection returns it to the pool")
+    void close_ReturnsConnectionToPool() throws SQLException {
+        Connection first = pool.borrow();
+        first.close();
+
+        assertTrue(first.isClosed(), "Handle should report closed after being returned");
+        assertEquals(1, pool.getIdleCount());
+
+        Connection second = pool.borrow();
+        assertEquals(1, pool.getStats().getCreatedCount(), "Idle connection should be reused");
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Borrowing beyond max size times out")
+    void borrow_PoolExhausted_TimesOut() throws SQLException {
+        Connection first = pool.borrow();
+        Connection second = pool.borrow();
+
+        assertThrows(SQLTransientConnectionException.class, () -> pool.borrow());
+        assertEquals(1, pool.getStats().getTimeoutCount());
+
+        first.close();
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Invalid idle connections are replaced on borrow")
+    void borrow_InvalidIdleConnection_IsReplaced() throws SQLException {
+        Connection first = pool.borrow();
+        Connection physical = first.unwrap(Connection.class);
+        first.close();
+        when(physical.isValid(anyInt())).thenReturn(false);
+
+        Connection second = pool.borrow();
+
+        assertEquals(1, pool.getStats().getValidationFailureCount());
+        assertEquals(2, pool.getStats().getCreatedCount());
+        verify(physical).close();
+        second.close();
+    }
+
+    @Test
+    @DisplayName("Open transactions are rolled back when a connection is returned")
+    void close_OpenTransaction_IsRolledBack() throws SQLException {
+        Connection connection = pool.borrow();
+        Connection physical = connection.unwrap(Connection.class);
+        when(physical.getAutoCommit()).thenReturn(false);
+
+        connection.close();
+
+        verify(physical).rollback();
+        verify(physical).setAutoCommit(true);
+    }
+
+    @Test
+    @DisplayName("Using a handle after close fails")
+    void handle_AfterClose_Throws() throws SQLException {
+        Connection connection = pool.borrow();
+        connection.close();
+        connection.close(); // second close is a no-op
+
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    @DisplayName("Statements left open by the borrower are closed on return")
+    void close_OpenStatements_AreClosed() throws SQLException {
+        Connection connection = pool.borrow();
+        Connection physical = connection.unwrap(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(physical.prepareStatement("SELECT 1")).thenReturn(statement);
+
+        connection.prepareStatement("SELECT 1");
+        connection.close();
+
+        verify(statement).close();
+    }
+
+    @Test
+    @DisplayName("Connections held past the abandoned timeout are reclaimed")
+    void detectLeaks_AbandonedConnection_IsReclaimed() throws Exception {
+        ConnectionPool leakyPool = new ConnectionPool(TEST_URL, new Properties(), new PoolConfig()
+                .withMinIdle(0)
+                .withMaxSize(1)
+                .withBorrowTimeoutMillis(100)
+                .withLeakDetectionThresholdMillis(1)
+                .withAbandonedTimeoutMillis(20)
+                .withLeakCheckIntervalMillis(60000));
+        try {
+            Connection leaked = leakyPool.borrow();
+            Thread.sleep(5);
+            leakyPool.detectLeaks();
+            assertEquals(1, leakyPool.getStats().getLeakWarningCount());
+            assertEquals(1, leakyPool.getStats().getSuspectedLeakCount());
+
+            Thread.sleep(30);
+            leakyPool.detectLeaks();
+
+            assertEquals(1, leakyPool.getStats().getReclaimedCount());
+            assertTrue(leaked.isClosed(), "Reclaimed handle should report closed");
+            assertEquals(0, leakyPool.getActiveCount());
+
+            Connection next = leakyPool.borrow();
+            assertNotNull(next, "Reclaimed permit should be available again");
+            next.close();
+        } finally {
+            leakyPool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("A connection still executing statements is not reclaimed, however long it is held")
+    void detectLeaks_ActiveConnection_IsNotReclaimed() throws Exception {
+        ConnectionPool reapingPool = new ConnectionPool(TEST_URL, new Properties(), new PoolConfig()
+                .withMinIdle(0)
+                .withMaxSize(1)
+                .withLeakDetectionThresholdMillis(0)
+                .withAbandonedTimeoutMillis(20)
+                .withLeakCheckIntervalMillis(60000)
+                .withStatementCacheSize(0));
+        try {
+            Connection connection = reapingPool.borrow();
+            Connection physical = connection.unwrap(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(physical.prepareStatement("SELECT 1")).thenReturn(statement);
+            PreparedStatement tracked = connection.prepareStatement("SELECT 1");
+
+            for (int i = 0; i < 3; i++) {
+                Thread.sleep(15);
+                tracked.executeQuery();
+                reapingPool.detectLeaks();
+            }
+            assertEquals(0, reapingPool.getStats().getReclaimedCount());
+            assertFalse(connection.isClosed());
+
+            Thread.sleep(30);
+            reapingPool.detectLeaks();
+            assertEquals(1, reapingPool.getStats().getReclaimedCount());
+        } finally {
+            reapingPool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Prepared statements are reused across borrows of the same connection")
+    void prepareStatement_SameSql_IsServedFromCache() throws SQLException {
+        ConnectionPool cachingPool = new ConnectionPool(TEST_URL, new Properties(), new PoolConfig()
+                .withMinIdle(0)
+                .withMaxSize(1)
+                .withStatementCacheSize(2));
+        try {
+            Connection connection = cachingPool.borrow();
+            Connection physical = connection.unwrap(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(physical.prepareStatement("SELECT * FROM items WHERE code = ?")).thenReturn(statement);
+
+            PreparedStatement first = connection.prepareStatement("SELECT * FROM items WHERE code = ?");
+            first.setString(1, "A1");
+            first.close();
+            connection.close();
+
+            Connection again = cachingPool.borrow();
+            PreparedStatement second = again.prepareStatement("SELECT * FROM items WHERE code = ?");
+            assertTrue(first.isClosed(), "Earlier checkout should stay closed");
+            assertFalse(second.isClosed());
+            assertThrows(SQLException.class, () -> first.setString(1, "B2"));
+            again.close();
+
+            verify(physical, times(1)).prepareStatement("SELECT * FROM items WHERE code = ?");
+            verify(statement, never()).close();
+            verify(statement, times(2)).clearParameters();
+            assertEquals(1, cachingPool.getStats().getStatementCacheHits());
+            assertEquals(1, cachingPool.getStats().getStatementCacheMisses());
+        } finally {
+            cachingPool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Fetch size, row limit and timeout are reset before a statement is reused")
+    void prepareStatement_SettingsChanged_AreRestoredOnCheckIn() throws SQLException {
+        ConnectionPool cachingPool = new ConnectionPool(TEST_URL, new Properties(), new PoolConfig()
+                .withMinIdle(0)
+                .withMaxSize(1)
+                .withStatementCacheSize(2));
+        try {
+            Connection connection = cachingPool.borrow();
+            Connection physical = connection.unwrap(Connection.class);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(statement.getFetchSize()).thenReturn(0);
+            when(statement.getLargeMaxRows()).thenReturn(0L);
+            when(statement.getQueryTimeout()).thenReturn(0);
+            when(physical.prepareStatement("SELECT * FROM stock")).thenReturn(statement);
+
+            PreparedStatement first = connection.prepareStatement("SELECT * FROM stock");
+            first.setFetchSize(500);
+            first.setQueryTimeout(30);
+            first.close();
+
+            verify(statement).setFetchSize(0);
+            verify(statement).setLargeMaxRows(0L);
+            verify(statement).setQueryTimeout(0);
+
+            // A borrower that changes nothing does not pay for the reset
+            connection.prepareStatement("SELECT * FROM stock").close();
+            connection.close();
+            verify(statement, times(1)).setFetchSize(0);
+            verify(statement, never()).close();
+        } finally {
+            cachingPool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Least recently used statements are closed when the cache is full")
+    void prepareStatement_CacheFull_EvictsLeastRecentlyUsed() throws SQLException {
+        ConnectionPool cachingPool = new ConnectionPool(TEST_URL, new Properties(), new PoolConfig()
+                .withMinIdle(0)
+                .withMaxSize(1)
+                .withStatementCacheSize(1));
+        try {
+            Connection connection = cachingPool.borrow();
+            Connection physical = connection.unwrap(Connection.class);
+            PreparedStatement items = mock(PreparedStatement.class);
+            PreparedStatement stock = mock(PreparedStatement.class);
+            when(physical.prepareStatement("SELECT * FROM items")).thenReturn(items);
+            when(physical.prepareStatement("SELECT * FROM stock")).thenReturn(stock);
+
+            connection.prepareStatement("SELECT * FROM items").close();
+            connection.prepareStatement("SELECT * FROM stock").close();
+            connection.close();
+
+            verify(items).close();
+            verify(stock, never()).close();
+            assertEquals(1, cachingPool.getStats().getStatementCacheEvictions());
+        } finally {
+            cachingPool.shutdown();
+        }
+    }
+
+    // Hands out mock physical connections for the test URL only
+    public static class StubDriver implements Driver {
+        @Override
+        public Connection connect(String url, Properties info) throws SQLException {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            Connection physical = mock(Connection.class);
+            when(physical.getAutoCommit()).thenReturn(true);
+            when(physical.isValid(anyInt())).thenReturn(true);
+            return physical;
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url != null && url.startsWith(TEST_URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() { return 1; }
+
+        @Override
+        public int getMinorVersion() { return 0; }
+
+        @Override
+        public boolean jdbcCompliant() { return false; }
+
+        @Override
+        public Logger getParentLogger() { return Logger.getGlobal(); }
+    }
+}
@@ -0,0 +1,161 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.gateways.CartStore.Cart;
+import org.example.persistence.gateways.CartStore.CartLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Cart Store Tests")
+public class CartStoreTest {
+    private DatabaseConnection dbConnection;
+    private Connection connection;
+    private PreparedStatement clearItems;
+    private PreparedStatement deleteCart;
+    private PreparedStatement upsertCart;
+    private PreparedStatement insertItem;
+    private PreparedStatement loadStatement;
+    private CartStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbConnection = mock(DatabaseConnection.class);
+        connection = mock(Connection.class);
+        when(dbConnection.connect()).thenReturn(connection);
+
+        clearItems = mock(PreparedStatement.class);
+        deleteCart = mock(PreparedStatement.class);
+        upsertCart = mock(PreparedStatement.class);
+        insertItem = mock(PreparedStatement.class);
+        loadStatement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0, String.class).trim();
+            if (sql.startsWith("DELETE FROM cart_item")) return clearItems;
+            if (sql.startsWith("DELETE FROM cart")) return deleteCart;
+            if (sql.startsWith("INSERT INTO cart_item")) return insertItem;
+            if (sql.startsWith("INSERT INTO cart")) return upsertCart;
+            return loadStatement;
+        });
+        store = new CartStore(dbConnection, 60000, 60000);
+    }
+
+    @Test
+    @DisplayName("Repeated saves of one cart are written once, with the latest contents")
+    void flush_RepeatedSaves_WritesCartOnce() throws Exception {
+        store.save("CART_1", 7, List.of(new CartLine("A", 1)));
+        store.save("CART_1", 7, List.of(new CartLine("A", 2), new CartLine("B", 1)));
+        store.save("CART_1", 7, List.of(new CartLine("A", 3)));
+
+        assertEquals(1, store.flush());
+
+        verify(upsertCart, times(1)).addBatch();
+        verify(insertItem, times(1)).addBatch();
+        verify(insertItem).setInt(3, 3);
+        verify(connection, times(1)).commit();
+        assertEquals(0, store.flush());
+        verify(dbConnection, times(1)).connect();
+    }
+
+    @Test
+    @DisplayName("Lines for the same item are merged into one row")
+    void save_DuplicateItemCodes_MergesLines() {
+        Cart cart = store.save("CART_1", 0, List.of(new CartLine("A", 1), new CartLine("A", 2)));
+
+        assertEquals(1, cart.getLines().size());
+        assertEquals(3, cart.getLines().get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("A save older than the one already applied is rejected")
+    void save_StaleRevision_ReturnsNull() throws Exception {
+        store.save("CART_1", 0, List.of(new CartLine("A", 2)), 2);
+
+        assertNull(store.save("CART_1", 0, List.of(new CartLine("A", 1)), 1));
+        assertEquals(2, store.get("CART_1").getLines().get(0).getQuantity());
+        assertNotNull(store.save("CART_1", 0, List.of(new CartLine("A", 3)), 3));
+    }
+
+    @Test
+    @DisplayName("A failed flush rolls back and retries the same carts next time")
+    void flush_DatabaseFails_KeepsCartsDirty() throws Exception {
+        store.save("CART_1", 0, List.of(new CartLine("A", 1)));
+        when(upsertCart.executeBatch()).thenThrow(new SQLException("boom"));
+
+        assertThrows(SQLException.class, () -> store.flush());
+        verify(connection).rollback();
+        assertEquals(1, store.getStats().getDirtyCarts());
+
+        reset(upsertCart);
+        assertEquals(1, store.flush());
+    }
+
+    @Test
+    @DisplayName("Deleted carts are removed from the database and not reloaded")
+    void delete_SavedCart_DeletesOnFlush() throws Exception {
+        store.save("CART_1", 0, List.of(new CartLine("A", 1)));
+        store.delete("CART_1");
+
+        assertNull(store.get("CART_1"));
+        assertEquals(1, store.flush());
+        verify(deleteCart).setString(1, "CART_1");
+        verify(upsertCart, never()).addBatch();
+        verify(loadStatement, never()).executeQuery();
+    }
+
+    @Test
+    @DisplayName("A cart not in memory is restored from the database")
+    void get_NotInMemory_LoadsFromDatabase() throws Exception {
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.next()).thenReturn(true, true, false);
+        when(rows.getInt("customer_id")).thenReturn(7);
+        when(rows.getTimestamp("updated_at")).thenReturn(new Timestamp(1000));
+        when(rows.getString("item_code")).thenReturn("A", "B");
+        when(rows.getInt("quantity")).thenReturn(2, 5);
+        when(loadStatement.executeQuery()).thenReturn(rows);
+
+        Cart cart = store.get("CART_9");
+        store.get("CART_9");
+
+        assertEquals(7, cart.getCustomerId());
+        assertEquals(2, cart.getLines().size());
+        assertEquals(5, cart.getLines().get(1).getQuantity());
+        verify(loadStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    @DisplayName("Carts not saved within the abandoned TTL are deleted from memory and the database")
+    void purgeAbandoned_OldCarts_AreDeleted() throws Exception {
+        ResultSet rows = mock(ResultSet.class);
+        when(rows.next()).thenReturn(true, false);
+        when(rows.getTimestamp("updated_at")).thenReturn(new Timestamp(1000));
+        when(rows.getString("item_code")).thenReturn("A");
+        when(rows.getInt("quantity")).thenReturn(1);
+        when(loadStatement.executeQuery()).thenReturn(rows);
+        when(deleteCart.executeUpdate()).thenReturn(3);
+        store.get("CART_OLD");
+        store.save("CART_NEW", 0, List.of(new CartLine("A", 1)));
+
+        assertEquals(3, store.purgeAbandoned());
+
+        verify(clearItems).setTimestamp(eq(1), any(Timestamp.class));
+        verify(clearItems).executeUpdate();
+        verify(connection).commit();
+        assertEquals(1, store.getStats().getCachedCarts(), "recently saved cart stays in memory");
+        assertEquals(3, store.getStats().getPurgedCount());
+        assertNotNull(store.get("CART_NEW"));
+    }
+}
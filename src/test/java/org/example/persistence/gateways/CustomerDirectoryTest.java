@@ -0,0 +1,130 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.models.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Customer Directory Tests")
+public class CustomerDirectoryTest {
+    private PreparedStatement storeStatement;
+    private PreparedStatement onlineStatement;
+    private PreparedStatement phoneStatement;
+    private PreparedStatement idStatement;
+    private CustomerDirectory directory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DatabaseConnection dbConnection = mock(DatabaseConnection.class);
+        Connection connection = mock(Connection.class);
+        storeStatement = mock(PreparedStatement.class);
+        onlineStatement = mock(PreparedStatement.class);
+        phoneStatement = mock(PreparedStatement.class);
+        idStatement = mock(PreparedStatement.class);
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0, String.class);
+            if (sql.contains("WHERE id")) return idStatement;
+            if (sql.contains("WHERE")) return phoneStatement;
+            return sql.contains("online_customers") ? onlineStatement : storeStatement;
+        });
+
+        givenRows(storeStatement, new Object[][] {
+                {1, "Nimal Perera", "0771234567"},
+                {2, "Kamala Silva", "0719876543"},
+                {3, "Perera Stores", "0112223334"}
+        });
+        givenRows(onlineStatement, new Object[][] {
+                {10, "Nimal Perera", "0771234567"},
+                {11, "Ayesha Fernando", "0765554443"}
+        });
+        givenRows(phoneStatement, new Object[][] {});
+        givenRows(idStatement, new Object[][] {});
+        directory = new CustomerDirectory(dbConnection);
+    }
+
+    private static void givenRows(PreparedStatement statement, Object[][] rows) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getInt("id")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getString("name")).thenAnswer(invocation -> rows[row[0]][1]);
+        when(resultSet.getString("contactNumber")).thenAnswer(invocation -> rows[row[0]][2]);
+        when(statement.executeQuery()).thenReturn(resultSet);
+    }
+
+    private static int[] ids(List<Customer> customers) {
+        return customers.stream().mapToInt(Customer::getId).toArray();
+    }
+
+    @Test
+    @DisplayName("A phone registered in both tables resolves to the preferred table")
+    void identify_PhoneInBothTables_UsesPreferredTable() throws Exception {
+        assertEquals(10, directory.identify("0771234567", true).getId());
+        assertEquals(1, directory.identify("0771234567", false).getId());
+        assertEquals(11, directory.identify("0765554443", false).getId());
+        assertEquals(2, directory.identify("2", true).getId());
+        verify(storeStatement, times(1)).executeQuery();
+        verify(onlineStatement, times(1)).executeQuery();
+        verify(phoneStatement, never()).executeQuery();
+    }
+
+    @Test
+    @DisplayName("Search matches the start of any name word or the phone, ordered by name")
+    void search_Prefix_MatchesNameWordsAndPhone() throws Exception {
+        assertArrayEquals(new int[] {1, 3}, ids(directory.search("pere", 10)));
+        assertArrayEquals(new int[] {2}, ids(directory.search("071", 10)));
+        assertArrayEquals(new int[] {1}, ids(directory.search("pere", 1)));
+        assertEquals(0, directory.search("erera", 10).size());
+    }
+
+    @Test
+    @DisplayName("Registered customers are found without another load")
+    void registered_LoadedDirectory_AddsCustomer() throws Exception {
+        directory.search("x", 10);
+
+        Customer customer = new Customer("Sunil Jayasuriya", "0701112223");
+        customer.setId(4);
+        directory.registered(customer, false);
+
+        assertEquals(4, directory.identify("0701112223", true).getId());
+        assertArrayEquals(new int[] {4}, ids(directory.search("jaya", 10)));
+        verify(storeStatement, times(1)).executeQuery();
+        verify(phoneStatement, never()).executeQuery();
+    }
+
+    @Test
+    @DisplayName("An unknown phone is read from the database once and then cached")
+    void identify_UnknownPhone_FallsBackToDatabase() throws Exception {
+        givenRows(phoneStatement, new Object[][] {{5, "Ruwan Dias", "0754443332"}});
+
+        assertEquals(5, directory.identify("0754443332", false).getId());
+        assertEquals(5, directory.identify("0754443332", false).getId());
+        verify(phoneStatement, times(2)).executeQuery();
+        assertEquals(1, directory.getStats().getMissCount());
+    }
+
+    @Test
+    @DisplayName("Customer ids are accepted online only, and unknown ids are read from the database")
+    void identify_NumericId_OnlyOnlineFallsBackToId() throws Exception {
+        givenRows(idStatement, new Object[][] {{7, "Dilani Perera", "0723334445"}});
+
+        assertNull(directory.identify("2", false));
+        verify(idStatement, never()).executeQuery();
+
+        assertEquals(7, directory.identify("7", true).getId());
+        assertEquals(7, directory.identify("7", true).getId());
+        verify(idStatement, times(1)).executeQuery();
+        verify(idStatement).setObject(1, 7);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Discount Code Cache Tests")
+public class DiscountCodeCacheTest {
+    private DatabaseConnection dbConnection;
+    private PreparedStatement loadStatement;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbConnection = mock(DatabaseConnection.class);
+        Connection connection = mock(Connection.class);
+        loadStatement = mock(PreparedStatement.class);
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(loadStatement);
+        givenCodes(new Object[][] {{1, "SAVE10", 10.0}, {2, "Welcome", 5.0}});
+    }
+
+    private void givenCodes(Object[][] rows) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getInt("id")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getString("code")).thenAnswer(invocation -> rows[row[0]][1]);
+        when(resultSet.getDouble("discount_value")).thenAnswer(invocation -> rows[row[0]][2]);
+        doReturn(resultSet).when(loadStatement).executeQuery();
+    }
+
+    @Test
+    @DisplayName("Codes match in any case and are read from the database once")
+    void find_AnyCase_UsesOneLoad() throws Exception {
+        DiscountCodeCache cache = new DiscountCodeCache(dbConnection, 60000);
+
+        assertEquals(10.0, cache.find(" save10 ").getDiscountValue());
+        assertEquals(2, cache.find("WELCOME").getId());
+        assertNull(cache.find("NOPE"));
+        assertNull(cache.find(""));
+        verify(loadStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    @DisplayName("A refresh swaps in the current codes")
+    void refresh_AfterEdit_ReplacesSnapshot() throws Exception {
+        DiscountCodeCache cache = new DiscountCodeCache(dbConnection, 60000);
+        cache.find("SAVE10");
+
+        givenCodes(new Object[][] {{1, "SAVE15", 15.0}});
+        assertTrue(cache.refresh());
+
+        assertNull(cache.find("SAVE10"));
+        assertEquals(15.0, cache.find("save15").getDiscountValue());
+        assertEquals(1, cache.getStats().getCodeCount());
+    }
+
+    @Test
+    @DisplayName("A failed refresh drops the snapshot so the next lookup reloads")
+    void refresh_DatabaseFails_ReloadsOnNextLookup() throws Exception {
+        DiscountCodeCache cache = new DiscountCodeCache(dbConnection, 60000);
+        cache.find("SAVE10");
+        when(loadStatement.executeQuery()).thenThrow(new SQLException("down"));
+
+        assertFalse(cache.refresh());
+        assertFalse(cache.getStats().isLoaded());
+
+        givenCodes(new Object[][] {{3, "NEW", 1.0}});
+        assertNotNull(cache.find("NEW"));
+    }
+
+    @Test
+    @DisplayName("A snapshot older than the maximum age is reloaded")
+    void find_SnapshotExpired_Reloads() throws Exception {
+        DiscountCodeCache cache = new DiscountCodeCache(dbConnection, -1);
+
+        cache.find("SAVE10");
+        cache.find("SAVE10");
+
+        verify(loadStatement, times(2)).executeQuery();
+    }
+}
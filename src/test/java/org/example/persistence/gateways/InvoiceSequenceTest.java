@@ -0,0 +1,131 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Invoice Sequence Tests")
+public class InvoiceSequenceTest {
+    private static final int BLOCK_SIZE = 5;
+
+    private DatabaseConnection dbConnection;
+    private PreparedStatement reserveStatement;
+    // Simulated next_value column of the invoice_sequence row
+    private final AtomicLong storedNextValue = new AtomicLong(1);
+    private final AtomicLong lastInsertId = new AtomicLong();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbConnection = mock(DatabaseConnection.class);
+        Connection connection = mock(Connection.class);
+        reserveStatement = mock(PreparedStatement.class);
+        PreparedStatement readStatement = mock(PreparedStatement.class);
+
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation ->
+                invocation.getArgument(0, String.class).startsWith("UPDATE") ? reserveStatement : readStatement);
+
+        AtomicLong requestedBlock = new AtomicLong();
+        doAnswer(invocation -> {
+            requestedBlock.set(invocation.getArgument(1, Integer.class));
+            return null;
+        }).when(reserveStatement).setInt(eq(1), anyInt());
+        when(reserveStatement.executeUpdate()).thenAnswer(invocation -> {
+            lastInsertId.set(storedNextValue.addAndGet(requestedBlock.get()));
+            return 1;
+        });
+        when(readStatement.executeQuery()).thenAnswer(invocation -> {
+            ResultSet resultSet = mock(ResultSet.class);
+            when(resultSet.next()).thenReturn(true);
+            when(resultSet.getLong(1)).thenReturn(lastInsertId.get());
+            return resultSet;
+        });
+    }
+
+    @Test
+    @DisplayName("Numbers continue from the stored sequence value")
+    void nextInvoiceNumber_FirstCall_StartsAtStoredValue() throws Exception {
+        storedNextValue.set(42);
+        InvoiceSequence sequence = new InvoiceSequence(dbConnection, BLOCK_SIZE);
+
+        assertEquals("INV-00042", sequence.nextInvoiceNumber());
+        assertEquals("INV-00043", sequence.nextInvoiceNumber());
+    }
+
+    @Test
+    @DisplayName("A block is reserved with one UPDATE and then served from memory")
+    void nextValue_WithinBlock_ReservesOnce() throws Exception {
+        InvoiceSequence sequence = new InvoiceSequence(dbConnection, BLOCK_SIZE);
+
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            assertEquals(1 + i, sequence.nextValue());
+        }
+        verify(reserveStatement, times(1)).executeUpdate();
+
+        assertEquals(1 + BLOCK_SIZE, sequence.nextValue());
+        verify(reserveStatement, times(2)).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Two allocators sharing the table never hand out the same number")
+    void nextValue_TwoInstances_DisjointBlocks() throws Exception {
+        InvoiceSequence first = new InvoiceSequence(dbConnection, BLOCK_SIZE);
+        InvoiceSequence second = new InvoiceSequence(dbConnection, BLOCK_SIZE);
+
+        assertEquals(1, first.nextValue());
+        assertEquals(1 + BLOCK_SIZE, second.nextValue());
+        assertEquals(2, first.nextValue());
+    }
+
+    @Test
+    @DisplayName("Concurrent allocation yields unique numbers")
+    void nextValue_ConcurrentCallers_AllUnique() throws Exception {
+        InvoiceSequence sequence = new InvoiceSequence(dbConnection, BLOCK_SIZE);
+        int threads = 8;
+        int perThread = 200;
+        Set<Long> issued = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    issued.add(sequence.nextValue());
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, issued.size());
+        verify(reserveStatement, times(threads * perThread / BLOCK_SIZE)).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Block size must be positive")
+    void constructor_NonPositiveBlockSize_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new InvoiceSequence(dbConnection, 0));
+    }
+}
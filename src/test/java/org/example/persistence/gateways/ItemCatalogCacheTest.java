@@ -0,0 +1,96 @@
+package org.example.persistence.gateways;
+
+import org.example.shared.dto.ItemDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Item Catalog Cache Tests")
+public class ItemCatalogCacheTest {
+
+    @Test
+    @DisplayName("Cached items are found by both code and id")
+    void put_Item_IsFoundByCodeAndId() {
+        ItemCatalogCache cache = new ItemCatalogCache(10, 60000);
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), cache.stamp());
+
+        assertEquals("Milk", cache.getByCode("MILK01").getName());
+        assertEquals("MILK01", cache.getById(1).getCode());
+        assertEquals(2, cache.getStats().getHitCount());
+    }
+
+    @Test
+    @DisplayName("Returned items are copies of the cached entry")
+    void getByCode_ModifyingResult_DoesNotChangeCache() {
+        ItemCatalogCache cache = new ItemCatalogCache(10, 60000);
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), cache.stamp());
+
+        cache.getByCode("MILK01").setPrice(99.0);
+
+        assertEquals(2.50, cache.getByCode("MILK01").getPrice());
+    }
+
+    @Test
+    @DisplayName("Invalidation removes the item from both indexes")
+    void invalidateById_RemovesCodeMappingToo() {
+        ItemCatalogCache cache = new ItemCatalogCache(10, 60000);
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), cache.stamp());
+
+        cache.invalidateById(1);
+
+        assertNull(cache.getById(1));
+        assertNull(cache.getByCode("MILK01"));
+    }
+
+    @Test
+    @DisplayName("Loads that raced with an invalidation are not cached")
+    void put_AfterInvalidation_IsDiscarded() {
+        ItemCatalogCache cache = new ItemCatalogCache(10, 60000);
+        long stamp = cache.stamp();
+        cache.invalidateByCode("MILK01");
+
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), stamp);
+
+        assertNull(cache.getByCode("MILK01"));
+    }
+
+    @Test
+    @DisplayName("Expired entries are treated as misses")
+    void getByCode_Expired_ReturnsNull() throws InterruptedException {
+        ItemCatalogCache cache = new ItemCatalogCache(10, 1);
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), cache.stamp());
+        Thread.sleep(5);
+
+        assertNull(cache.getByCode("MILK01"));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    @DisplayName("Least recently used items are evicted when full")
+    void put_OverCapacity_EvictsLeastRecentlyUsed() {
+        ItemCatalogCache cache = new ItemCatalogCache(2, 60000);
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), cache.stamp());
+        cache.put(new ItemDTO(2, "BREAD01", "Bread", 1.20), cache.stamp());
+        cache.getByCode("MILK01");
+
+        cache.put(new ItemDTO(3, "EGG01", "Eggs", 3.00), cache.stamp());
+
+        assertNotNull(cache.getByCode("MILK01"));
+        assertNull(cache.getByCode("BREAD01"));
+        assertEquals(1, cache.getStats().getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Changing an item's code replaces the old mapping")
+    void put_NewCodeForSameId_DropsOldCode() {
+        ItemCatalogCache cache = new ItemCatalogCache(10, 60000);
+        cache.put(new ItemDTO(1, "MILK01", "Milk", 2.50), cache.stamp());
+
+        cache.put(new ItemDTO(1, "MILK02", "Milk", 2.50), cache.stamp());
+
+        assertNull(cache.getByCode("MILK01"));
+        assertEquals(1, cache.getById(1).getId());
+        assertEquals(1, cache.getStats().getSize());
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.shared.dto.ItemDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Item Search Index Tests")
+public class ItemSearchIndexTest {
+    private PreparedStatement loadStatement;
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DatabaseConnection dbConnection = mock(DatabaseConnection.class);
+        Connection connection = mock(Connection.class);
+        loadStatement = mock(PreparedStatement.class);
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(loadStatement);
+
+        givenItems(new Object[][] {
+                {1, "RC001", "Basmati Rice"},
+                {2, "OIL01", "Coconut Oil"},
+                {3, "RC002", "Red Rice 5kg"},
+                {4, "SG001", "Brown Sugar"},
+                {5, "PR100", "Rice Flour"}
+        });
+        index = new ItemSearchIndex(dbConnection);
+    }
+
+    private void givenItems(Object[][] rows) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getInt("id")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getString("code")).thenAnswer(invocation -> rows[row[0]][1]);
+        when(resultSet.getString("name")).thenAnswer(invocation -> rows[row[0]][2]);
+        when(resultSet.getDouble("price")).thenReturn(1.0);
+        when(loadStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    private static String[] codes(List<ItemDTO> items) {
+        return items.stream().map(ItemDTO::getCode).toArray(String[]::new);
+    }
+
+    @Test
+    @DisplayName("Name prefixes rank above word prefixes, with ties broken by name")
+    void search_Word_RanksByMatchQuality() throws Exception {
+        assertArrayEquals(new String[] {"PR100", "RC001", "RC002"}, codes(index.search("rice", 10)));
+    }
+
+    @Test
+    @DisplayName("Codes match exactly, by prefix, and short queries use the prefix trie")
+    void search_CodeAndShortQueries_MatchPrefixes() throws Exception {
+        assertArrayEquals(new String[] {"RC001"}, codes(index.search("rc001", 10)));
+        assertArrayEquals(new String[] {"RC001", "RC002"}, codes(index.search("RC", 10)));
+        assertArrayEquals(new String[] {"RC001", "SG001"}, codes(index.search("b", 10)));
+    }
+
+    @Test
+    @DisplayName("Substrings inside words are found through trigrams, and every word must match")
+    void search_SubstringAndMultiWord_MatchesAll() throws Exception {
+        assertArrayEquals(new String[] {"OIL01"}, codes(index.search("conut", 10)));
+        assertArrayEquals(new String[] {"RC002"}, codes(index.search("red ric", 10)));
+        assertEquals(0, index.search("rice oil", 10).size());
+        assertEquals(2, index.search("rice", 2).size());
+    }
+
+    @Test
+    @DisplayName("The catalog is loaded once and then kept current by updates")
+    void upsertAndRemove_LoadedIndex_UpdatesWithoutReload() throws Exception {
+        index.search("rice", 10);
+
+        index.upsert(new ItemDTO(2, "OIL01", "Sesame Oil", 2.0));
+        index.upsert(new ItemDTO(6, "RC003", "Jasmine Rice", 3.0));
+        index.remove(5);
+
+        assertEquals(0, index.search("coconut", 10).size());
+        assertArrayEquals(new String[] {"OIL01"}, codes(index.search("sesa", 10)));
+        assertArrayEquals(new String[] {"RC001", "RC003", "RC002"}, codes(index.search("rice", 10)));
+        verify(loadStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    @DisplayName("A load that raced with invalidateAll is reloaded on the next search")
+    void search_InvalidatedDuringLoad_ReloadsNextTime() throws Exception {
+        ResultSet firstLoad = loadStatement.executeQuery();
+        clearInvocations(loadStatement);
+        when(loadStatement.executeQuery()).thenAnswer(invocation -> {
+            index.invalidateAll();
+            return firstLoad;
+        });
+        assertArrayEquals(new String[] {"OIL01"}, codes(index.search("coconut", 10)));
+
+        givenItems(new Object[][] {{2, "OIL01", "Sesame Oil"}});
+        assertEquals(0, index.search("coconut", 10).size());
+        assertArrayEquals(new String[] {"OIL01"}, codes(index.search("sesa", 10)));
+        verify(loadStatement, times(2)).executeQuery();
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Page Token Tests")
+public class PageTokenTest {
+
+    @Test
+    @DisplayName("Should round-trip a date and id token")
+    void encode_DateAndId_DecodesToSameKey() {
+        PageToken token = PageToken.decode(PageToken.after(LocalDate.of(2024, 3, 15), 42).encode());
+
+        assertEquals(LocalDate.of(2024, 3, 15), token.getSortDate());
+        assertEquals(42, token.getId());
+    }
+
+    @Test
+    @DisplayName("Should round-trip an id-only token")
+    void encode_IdOnly_DecodesWithoutDate() {
+        String encoded = PageToken.after(7).encode();
+        PageToken token = PageToken.decode(encoded);
+
+        assertNull(token.getSortDate());
+        assertEquals(7, token.getId());
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), "token should be URL-safe");
+    }
+
+    @Test
+    @DisplayName("Should treat a missing token as the first page")
+    void decode_NullOrEmpty_ReturnsNull() {
+        assertNull(PageToken.decode(null));
+        assertNull(PageToken.decode(""));
+    }
+
+    @Test
+    @DisplayName("Should reject tampered tokens")
+    void decode_InvalidToken_ThrowsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("not-a-token!"));
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode("Mjpmb286MQ")); // "2:foo:1"
+    }
+
+    @Test
+    @DisplayName("Should reject a token from a listing with a different sort key")
+    void decode_WrongKind_ThrowsIllegalArgument() {
+        String idOnly = PageToken.after(7).encode();
+        String dated = PageToken.after(LocalDate.of(2024, 3, 15), 42).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode(idOnly, true));
+        assertThrows(IllegalArgumentException.class, () -> PageToken.decode(dated, false));
+        assertEquals(7, PageToken.decode(idOnly, false).getId());
+        assertEquals(42, PageToken.decode(dated, true).getId());
+        assertNull(PageToken.decode(null, true));
+    }
+
+    @Test
+    @DisplayName("Should default and clamp the page size")
+    void pageSize_OutOfRange_IsClamped() {
+        assertEquals(SystemConfig.PAGE_SIZE_DEFAULT, PageToken.pageSize(null));
+        assertEquals(1, PageToken.pageSize("0"));
+        assertEquals(SystemConfig.PAGE_SIZE_MAX, PageToken.pageSize("1000000"));
+        assertEquals(25, PageToken.pageSize("25"));
+        assertThrows(IllegalArgumentException.class, () -> PageToken.pageSize("abc"));
+    }
+}
@@ -0,0 +1,128 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.persistence.models.Bill;
+import org.example.persistence.models.BillItem;
+import org.example.persistence.models.Item;
+import org.example.shared.dto.BillDTO;
+import org.example.shared.dto.BillItemDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Sales Rollup Gateway Tests")
+public class SalesRollupGatewayTest {
+    private DatabaseConnection dbConnection;
+    private Connection ownConnection;
+    private Connection billConnection;
+    private PreparedStatement upsertStatement;
+    private SalesRollupGateway gateway;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbConnection = mock(DatabaseConnection.class);
+        ownConnection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet existingRows = mock(ResultSet.class);
+        when(dbConnection.connect()).thenReturn(ownConnection);
+        when(ownConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(existingRows);
+        when(existingRows.next()).thenReturn(true);
+
+        billConnection = mock(Connection.class);
+        upsertStatement = mock(PreparedStatement.class);
+        when(billConnection.prepareStatement(anyString())).thenReturn(upsertStatement);
+
+        gateway = new SalesRollupGateway(dbConnection);
+    }
+
+    private static BillItem line(int itemId, double price, int quantity) {
+        Item item = new Item("I" + itemId, "Item " + itemId, price);
+        item.setId(itemId);
+        return new BillItem(item, quantity);
+    }
+
+    @Test
+    @DisplayName("Lines for the same item are merged and a totals row is added")
+    void recordBill_RepeatedItem_OneRowPerItemPlusTotals() throws Exception {
+        Bill bill = new Bill(null, "INV-00001", 70.0, 5.0, 100.0, 35.0, "COUNTER", "STORE");
+
+        gateway.recordBill(billConnection, bill, List.of(line(7, 10.0, 2), line(3, 25.0, 2), line(7, 10.0, 1)));
+
+        InOrder inOrder = inOrder(upsertStatement);
+        inOrder.verify(upsertStatement).setInt(4, 3);
+        inOrder.verify(upsertStatement).setInt(5, 2);
+        inOrder.verify(upsertStatement).setDouble(6, 50.0);
+        inOrder.verify(upsertStatement).setInt(4, 7);
+        inOrder.verify(upsertStatement).setInt(5, 3);
+        inOrder.verify(upsertStatement).setDouble(6, 30.0);
+        inOrder.verify(upsertStatement).setInt(4, SalesRollupGateway.TOTALS_ITEM_ID);
+        inOrder.verify(upsertStatement).setInt(5, 5);
+        inOrder.verify(upsertStatement).setDouble(6, 70.0);
+        inOrder.verify(upsertStatement).setDouble(7, 5.0);
+        verify(upsertStatement, times(3)).addBatch();
+        verify(upsertStatement).executeBatch();
+    }
+
+    @Test
+    @DisplayName("Recording a bill only runs the upsert on the bill's connection")
+    void recordBill_AnyTime_UsesOnlyCallersConnection() throws Exception {
+        Bill bill = new Bill(null, "INV-00002", 10.0, 0, 10.0, 0, "ONLINE", "WEBSITE");
+
+        gateway.recordBill(billConnection, bill, List.of(line(1, 10.0, 1)));
+
+        verify(dbConnection, never()).connect();
+        verify(billConnection, never()).createStatement();
+        verify(billConnection, never()).commit();
+        verify(upsertStatement, times(2)).setString(eq(2), eq("ONLINE"));
+        verify(upsertStatement, times(2)).setInt(8, 1);
+    }
+
+    @Test
+    @DisplayName("A deleted bill is subtracted from its item and totals rows")
+    void removeBill_DeletedBill_AppliesNegativeRows() throws Exception {
+        BillItemDTO item = new BillItemDTO();
+        item.setItemId(4);
+        item.setQuantity(3);
+        item.setTotalPrice(45.0);
+        BillDTO bill = new BillDTO();
+        bill.setFullPrice(45.0);
+        bill.setDiscount(5.0);
+        bill.setBillDate(LocalDate.of(2024, 3, 15));
+        bill.setTransactionType("COUNTER");
+        bill.setStoreType("STORE");
+        bill.setBillItems(List.of(item));
+
+        gateway.removeBill(billConnection, bill);
+
+        InOrder inOrder = inOrder(upsertStatement);
+        inOrder.verify(upsertStatement).setInt(4, 4);
+        inOrder.verify(upsertStatement).setInt(5, -3);
+        inOrder.verify(upsertStatement).setDouble(6, -45.0);
+        inOrder.verify(upsertStatement).setInt(4, SalesRollupGateway.TOTALS_ITEM_ID);
+        inOrder.verify(upsertStatement).setDouble(7, -5.0);
+        verify(upsertStatement, times(2)).setInt(8, -1);
+        verify(upsertStatement).executeBatch();
+    }
+
+    @Test
+    @DisplayName("Startup leaves a rollup that already has rows alone")
+    void initialize_RollupHasRows_SkipsBackfill() throws Exception {
+        gateway.initialize();
+
+        verify(ownConnection, never()).prepareStatement(anyString());
+        verify(ownConnection).close();
+    }
+}
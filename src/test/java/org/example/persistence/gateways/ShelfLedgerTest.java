@@ -0,0 +1,129 @@
+package org.example.persistence.gateways;
+
+import org.example.core.config.SystemConfig;
+import org.example.persistence.database.DatabaseConnection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Shelf Ledger Tests")
+public class ShelfLedgerTest {
+    private static final String STORE = SystemConfig.STORE_TYPE_STORE;
+
+    private DatabaseConnection dbConnection;
+    private Connection connection;
+    private PreparedStatement loadStatement;
+    private PreparedStatement updateStatement;
+    private ShelfLedger ledger;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dbConnection = mock(DatabaseConnection.class);
+        connection = mock(Connection.class);
+        loadStatement = mock(PreparedStatement.class);
+        updateStatement = mock(PreparedStatement.class);
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation ->
+                invocation.getArgument(0, String.class).startsWith("SELECT") ? loadStatement : updateStatement);
+        when(updateStatement.executeUpdate()).thenReturn(1);
+        givenShelfQuantity(10);
+        ledger = new ShelfLedger(dbConnection);
+    }
+
+    private void givenShelfQuantity(int quantity) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getInt("quantity")).thenReturn(quantity);
+        when(loadStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @Test
+    @DisplayName("Quantity is loaded once and then served from memory")
+    void getQuantity_RepeatedCalls_LoadsOnce() throws Exception {
+        assertEquals(10, ledger.getQuantity(1, STORE));
+        assertEquals(10, ledger.getQuantity(1, STORE));
+
+        verify(loadStatement, times(1)).executeQuery();
+        assertEquals(1, ledger.getStats().getHitCount());
+    }
+
+    @Test
+    @DisplayName("Decrement updates the ledger and writes through to the shelf table")
+    void decrement_EnoughStock_WritesThrough() throws Exception {
+        assertTrue(ledger.decrement(connection, 1, STORE, 4));
+
+        assertEquals(6, ledger.getQuantity(1, STORE));
+        verify(updateStatement).setInt(1, 4);
+        verify(updateStatement).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("Decrement beyond the shelf quantity is rejected without touching the database")
+    void decrement_InsufficientStock_IsRejected() throws Exception {
+        assertFalse(ledger.decrement(connection, 1, STORE, 11));
+
+        assertEquals(10, ledger.getQuantity(1, STORE));
+        verify(updateStatement, never()).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("A failed guarded update restores the quantity and reloads from the table")
+    void decrement_GuardFails_Resyncs() throws Exception {
+        when(updateStatement.executeUpdate()).thenReturn(0);
+
+        assertFalse(ledger.decrement(connection, 1, STORE, 4));
+
+        givenShelfQuantity(2);
+        assertEquals(2, ledger.getQuantity(1, STORE));
+        assertEquals(1, ledger.getStats().getResyncCount());
+    }
+
+    @Test
+    @DisplayName("Invalidated shelves are reloaded on next access")
+    void invalidate_ReloadsFromTable() throws Exception {
+        ledger.getQuantity(1, STORE);
+        givenShelfQuantity(25);
+
+        ledger.invalidateItem(1);
+
+        assertEquals(25, ledger.getQuantity(1, STORE));
+    }
+
+    @Test
+    @DisplayName("Concurrent checkouts never take more than is on the shelf")
+    void decrement_Concurrent_NeverOversells() throws Exception {
+        ledger.getQuantity(1, STORE);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            executor.submit(() -> {
+                start.await();
+                if (ledger.decrement(connection, 1, STORE, 1)) {
+                    succeeded.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10, succeeded.get());
+        assertEquals(0, ledger.getQuantity(1, STORE));
+    }
+}
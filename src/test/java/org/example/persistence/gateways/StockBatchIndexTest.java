@@ -0,0 +1,139 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.shared.dto.StockDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Stock Batch Index Tests")
+public class StockBatchIndexTest {
+    private static final int ITEM_ID = 1;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private PreparedStatement loadStatement;
+    private StockBatchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DatabaseConnection dbConnection = mock(DatabaseConnection.class);
+        Connection connection = mock(Connection.class);
+        loadStatement = mock(PreparedStatement.class);
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(loadStatement);
+
+        // id, quantity, purchase, expiry - deliberately out of FIFO order
+        givenBatches(new Object[][] {
+                {10, 5, TODAY.minusDays(30), TODAY.plusDays(60)},
+                {11, 4, TODAY.minusDays(20), TODAY.plusDays(3)},
+                {12, 6, TODAY.minusDays(40), TODAY.minusDays(1)},
+                {13, 2, TODAY.minusDays(35), TODAY.plusDays(60)}
+        });
+        index = new StockBatchIndex(dbConnection);
+    }
+
+    private void givenBatches(Object[][] rows) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getInt("id")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getInt("item_id")).thenReturn(ITEM_ID);
+        when(resultSet.getInt("quantity")).thenAnswer(invocation -> rows[row[0]][1]);
+        when(resultSet.getDate("date_of_purchase")).thenAnswer(invocation -> Date.valueOf((LocalDate) rows[row[0]][2]));
+        when(resultSet.getDate("date_of_expiry")).thenAnswer(invocation -> Date.valueOf((LocalDate) rows[row[0]][3]));
+        when(resultSet.getString(anyString())).thenReturn("X");
+        when(loadStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    private static int[] stockIds(List<StockBatchIndex.Allocation> allocations) {
+        return allocations.stream().mapToInt(StockBatchIndex.Allocation::getStockId).toArray();
+    }
+
+    @Test
+    @DisplayName("Batches are picked near-expiry first, then by expiry and purchase date, skipping expired ones")
+    void select_MixedBatches_ReturnsFifoOrder() throws Exception {
+        List<StockBatchIndex.Allocation> allocations = index.select(ITEM_ID, 10);
+
+        assertArrayEquals(new int[] {11, 13, 10}, stockIds(allocations));
+        assertEquals(4, allocations.get(2).getQuantity());
+        assertEquals(11, index.getAvailableQuantity(ITEM_ID));
+    }
+
+    @Test
+    @DisplayName("Batches are loaded once and then served from memory")
+    void select_RepeatedCalls_LoadsOnce() throws Exception {
+        index.select(ITEM_ID, 1);
+        index.select(ITEM_ID, 1);
+        index.reserve(ITEM_ID, 1);
+
+        verify(loadStatement, times(1)).executeQuery();
+        assertEquals(2, index.getStats().getHitCount());
+    }
+
+    @Test
+    @DisplayName("Reserve takes quantities off the index and drops emptied batches")
+    void reserve_EnoughStock_TakesFromBatches() throws Exception {
+        List<StockBatchIndex.Allocation> allocations = index.reserve(ITEM_ID, 5);
+
+        assertArrayEquals(new int[] {11, 13}, stockIds(allocations));
+        assertEquals(0, allocations.get(0).getRemainingQuantity());
+        assertEquals(6, index.getAvailableQuantity(ITEM_ID));
+        assertArrayEquals(new int[] {13, 10}, stockIds(index.select(ITEM_ID, 6)));
+    }
+
+    @Test
+    @DisplayName("Reserve beyond available stock takes nothing")
+    void reserve_InsufficientStock_ChangesNothing() throws Exception {
+        assertTrue(index.reserve(ITEM_ID, 12).isEmpty());
+
+        assertEquals(11, index.getAvailableQuantity(ITEM_ID));
+        assertEquals(1, index.getStats().getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("Inserted and updated batches take their place in the order")
+    void upsertAndSetQuantity_LoadedItem_UpdatesOrder() throws Exception {
+        index.select(ITEM_ID, 1);
+
+        index.upsert(new StockDTO(14, ITEM_ID, "X", "X", 3, TODAY, TODAY.plusDays(1), true));
+        index.setQuantity(11, 0);
+
+        assertArrayEquals(new int[] {14, 13, 10}, stockIds(index.select(ITEM_ID, 10)));
+        assertEquals(10, index.getAvailableQuantity(ITEM_ID));
+    }
+
+    @Test
+    @DisplayName("Writes to an item whose load failed are left to the next load")
+    void upsert_AfterFailedLoad_DoesNotDoubleCount() throws Exception {
+        ResultSet loaded = loadStatement.executeQuery();
+        when(loadStatement.executeQuery()).thenThrow(new java.sql.SQLException("Connection refused")).thenReturn(loaded);
+        assertThrows(java.sql.SQLException.class, () -> index.select(ITEM_ID, 1));
+
+        index.upsert(new StockDTO(10, ITEM_ID, "X", "X", 5, TODAY.minusDays(30), TODAY.plusDays(60), true));
+        index.setQuantity(10, 5);
+
+        assertEquals(11, index.getAvailableQuantity(ITEM_ID));
+    }
+
+    @Test
+    @DisplayName("Sold-out and invalidated batches are no longer tracked")
+    void reserveAndInvalidate_RemovedBatches_ArePruned() throws Exception {
+        index.reserve(ITEM_ID, 5);
+        assertEquals(2, index.getStats().getTrackedBatches());
+
+        index.invalidateItem(ITEM_ID);
+        assertEquals(0, index.getStats().getTrackedBatches());
+        assertEquals(0, index.getStats().getTrackedItems());
+    }
+}
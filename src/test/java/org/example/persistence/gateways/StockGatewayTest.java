@@ -0,0 +1,109 @@
+package org.example.persistence.gateways;
+
+import org.example.persistence.database.DatabaseConnection;
+import org.example.shared.dto.StockDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Stock Gateway Tests")
+public class StockGatewayTest {
+    private Connection connection;
+    private PreparedStatement selectStatement;
+    private PreparedStatement updateStatement;
+    private StockGateway gateway;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DatabaseConnection dbConnection = mock(DatabaseConnection.class);
+        connection = mock(Connection.class);
+        selectStatement = mock(PreparedStatement.class);
+        updateStatement = mock(PreparedStatement.class);
+        when(dbConnection.connect()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation ->
+                invocation.getArgument(0, String.class).trim().startsWith("SELECT") ? selectStatement : updateStatement);
+        when(updateStatement.executeBatch()).thenReturn(new int[] {1, 1});
+        gateway = new StockGateway(dbConnection);
+    }
+
+    // Batches as (id, quantity), already in FIFO order as the query returns them
+    private void givenBatches(int[][] rows) throws Exception {
+        ResultSet resultSet = mock(ResultSet.class);
+        int[] row = {-1};
+        when(resultSet.next()).thenAnswer(invocation -> ++row[0] < rows.length);
+        when(resultSet.getInt("id")).thenAnswer(invocation -> rows[row[0]][0]);
+        when(resultSet.getInt("quantity")).thenAnswer(invocation -> rows[row[0]][1]);
+        when(resultSet.getInt("item_id")).thenReturn(1);
+        when(resultSet.getDate(anyString())).thenReturn(Date.valueOf(LocalDate.now()));
+        when(selectStatement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @Test
+    @DisplayName("FIFO consumption spans batches and is written as one JDBC batch")
+    void consumeFifo_SpansBatches_ReturnsPerBatchConsumption() throws Exception {
+        givenBatches(new int[][] {{7, 3}, {9, 5}, {4, 10}});
+
+        List<StockGateway.BatchConsumption> consumptions = gateway.consumeFifo(connection, 1, 4);
+
+        assertEquals(2, consumptions.size());
+        assertEquals(7, consumptions.get(0).getStockId());
+        assertEquals(3, consumptions.get(0).getQuantity());
+        assertEquals(0, consumptions.get(0).getRemainingQuantity());
+        assertEquals(9, consumptions.get(1).getStockId());
+        assertEquals(1, consumptions.get(1).getQuantity());
+        assertEquals(4, consumptions.get(1).getRemainingQuantity());
+        verify(updateStatement, times(2)).addBatch();
+        verify(updateStatement, times(1)).executeBatch();
+        verify(updateStatement, never()).executeUpdate();
+    }
+
+    @Test
+    @DisplayName("FIFO consumption beyond available stock changes nothing")
+    void consumeFifo_InsufficientStock_ReturnsEmpty() throws Exception {
+        givenBatches(new int[][] {{7, 3}, {9, 5}});
+
+        assertTrue(gateway.consumeFifo(connection, 1, 9).isEmpty());
+        verify(updateStatement, never()).executeBatch();
+    }
+
+    @Test
+    @DisplayName("A row that no longer holds its quantity fails the consumption")
+    void consumeFifo_RowChanged_Throws() throws Exception {
+        givenBatches(new int[][] {{7, 3}, {9, 5}});
+        when(updateStatement.executeBatch()).thenReturn(new int[] {1, 0});
+
+        assertThrows(SQLException.class, () -> gateway.consumeFifo(connection, 1, 4));
+    }
+
+    @Test
+    @DisplayName("Planning several lines against the same batches never reuses a unit")
+    void planFifo_SuccessiveLines_ShareBatches() {
+        LocalDate today = LocalDate.now();
+        List<StockDTO> batches = new ArrayList<>(List.of(
+                new StockDTO(7, 1, "A", "Apple", 3, today, today.plusDays(5), true),
+                new StockDTO(9, 1, "A", "Apple", 5, today, today.plusDays(9), true)));
+
+        List<StockGateway.BatchConsumption> first = StockGateway.planFifo(batches, 4);
+        List<StockGateway.BatchConsumption> second = StockGateway.planFifo(batches, 4);
+        List<StockGateway.BatchConsumption> third = StockGateway.planFifo(batches, 1);
+
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertEquals(9, second.get(0).getStockId());
+        assertEquals(0, second.get(0).getRemainingQuantity());
+        assertTrue(third.isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.presentation.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Admission Control Filter Tests")
+public class AdmissionControlFilterTest {
+    private static final long MILLIS = 1_000_000L;
+
+    private AdaptiveBulkhead checkout;
+    private AdaptiveBulkhead reports;
+    private AdmissionControlFilter filter;
+    private HttpServletResponse response;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        checkout = new AdaptiveBulkhead("checkout", 1, 1, 4, 100);
+        reports = new AdaptiveBulkhead("reports", 1, 1, 2, 100);
+        filter = new AdmissionControlFilter(checkout, reports);
+        response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        when(response.getStatus()).thenReturn(200);
+        chain = mock(FilterChain.class);
+    }
+
+    private static HttpServletRequest request(String path) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContextPath()).thenReturn("/syos");
+        when(request.getRequestURI()).thenReturn("/syos" + path);
+        when(request.getMethod()).thenReturn("POST");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Requests within the limit reach the servlet")
+    void doFilter_WithinLimit_PassesThrough() throws Exception {
+        HttpServletRequest request = request("/api/sales");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        assertEquals(0, checkout.getStats().getInFlight());
+    }
+
+    @Test
+    @DisplayName("Requests over the limit get 503 with Retry-After")
+    void doFilter_OverLimit_Returns503() throws Exception {
+        assertTrue(checkout.tryAcquire());
+        HttpServletRequest request = request("/api/online-sales");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, never()).doFilter(any(), any());
+        verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(response).setHeader(eq("Retry-After"), any());
+    }
+
+    @Test
+    @DisplayName("Reports are shed while checkout is at its limit")
+    void doFilter_CheckoutSaturated_RejectsReports() throws Exception {
+        assertTrue(checkout.tryAcquire());
+
+        filter.doFilter(request("/api/reports"), response, chain);
+
+        verify(chain, never()).doFilter(any(), any());
+        assertEquals(0, reports.getStats().getAdmittedCount());
+    }
+
+    @Test
+    @DisplayName("Endpoints without a bulkhead are not limited")
+    void doFilter_UnmanagedPath_PassesThrough() throws Exception {
+        assertTrue(checkout.tryAcquire());
+        HttpServletRequest request = request("/api/salesperson");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Fast requests under load raise the limit additively")
+    void release_FastSamplesAtCapacity_LimitGrows() {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 2, 1, 10, 100);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(bulkhead.tryAcquire());
+            bulkhead.release(10 * MILLIS, false);
+        }
+
+        assertEquals(3, bulkhead.getLimit());
+    }
+
+    @Test
+    @DisplayName("A slow request cuts the limit multiplicatively, bounded by the minimum")
+    void release_SlowSample_LimitShrinks() {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 10, 8, 10, 100, 0.5);
+
+        assertTrue(bulkhead.tryAcquire());
+        bulkhead.release(500 * MILLIS, false);
+
+        assertEquals(8, bulkhead.getLimit());
+        assertEquals(1, bulkhead.getStats().getDecreaseCount());
+    }
+
+    @Test
+    @DisplayName("Several slow requests in one interval count as a single decrease")
+    void release_BurstOfSlowSamples_DecreasesOnce() {
+        AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("test", 20, 1, 20, 60_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bulkhead.tryAcquire());
+            bulkhead.release(120_000 * MILLIS, false);
+        }
+
+        assertEquals(18, bulkhead.getLimit());
+    }
+}
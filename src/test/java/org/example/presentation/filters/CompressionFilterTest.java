@@ -0,0 +1,226 @@
+package org.example.presentation.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Compression Filter Tests")
+public class CompressionFilterTest {
+    private static final String LARGE_JSON = "{\"items\":[" + "{\"code\":\"RC001\",\"name\":\"Basmati Rice\"},".repeat(100)
+            + "{}]}";
+
+    private CompressionFilter filter;
+    private ServletContext servletContext;
+    private ByteArrayOutputStream body;
+    private HttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        filter = new CompressionFilter(true, 1024);
+        servletContext = mock(ServletContext.class);
+        FilterConfig filterConfig = mock(FilterConfig.class);
+        when(filterConfig.getServletContext()).thenReturn(servletContext);
+        filter.init(filterConfig);
+
+        body = new ByteArrayOutputStream();
+        response = mock(HttpServletResponse.class);
+        when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+        when(response.getStatus()).thenReturn(200);
+        when(response.getCharacterEncoding()).thenReturn("UTF-8");
+        when(response.getContentType()).thenReturn("application/json;charset=UTF-8");
+    }
+
+    private static HttpServletRequest request(String path, String acceptEncoding) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContextPath()).thenReturn("/syos");
+        when(request.getRequestURI()).thenReturn("/syos" + path);
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getHeader("Accept-Encoding")).thenReturn(acceptEncoding);
+        return request;
+    }
+
+    private static FilterChain writing(String text) throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            PrintWriter writer = invocation.getArgument(1, ServletResponse.class).getWriter();
+            writer.write(text);
+            return null;
+        }).when(chain).doFilter(any(), any());
+        return chain;
+    }
+
+    private String gunzip() throws Exception {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Large JSON is gzipped and its ETag marked with the encoding")
+    void doFilter_LargeJson_CompressesWithGzip() throws Exception {
+        when(response.getHeader("ETag")).thenReturn("\"abc-i3\"");
+
+        filter.doFilter(request("/api/reports", "gzip, deflate, br"), response, writing(LARGE_JSON));
+
+        assertEquals(LARGE_JSON, gunzip());
+        assertTrue(body.size() < LARGE_JSON.length() / 4);
+        verify(response).setHeader("Content-Encoding", "gzip");
+        verify(response).setHeader("ETag", "\"abc-i3-gzip\"");
+        verify(response).addHeader("Vary", "Accept-Encoding");
+    }
+
+    @Test
+    @DisplayName("Responses under the threshold are sent as they are, with their length")
+    void doFilter_SmallResponse_PassesThrough() throws Exception {
+        filter.doFilter(request("/api/stock", "gzip"), response, writing("{\"ok\":true}"));
+
+        assertEquals("{\"ok\":true}", body.toString(StandardCharsets.UTF_8));
+        verify(response).setContentLength(11);
+        verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+    }
+
+    @Test
+    @DisplayName("Types that are not text are never compressed")
+    void doFilter_BinaryType_PassesThrough() throws Exception {
+        when(response.getContentType()).thenReturn("image/png");
+
+        filter.doFilter(request("/img/logo.png", "gzip"), response, writing(LARGE_JSON));
+
+        assertEquals(LARGE_JSON, body.toString(StandardCharsets.UTF_8));
+        verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+    }
+
+    @Test
+    @DisplayName("A static file with a build-time .gz copy is served from the copy")
+    void doFilter_PrecompressedAsset_ForwardsToGzCopy() throws Exception {
+        HttpServletRequest request = request("/js/utils.js", "gzip");
+        RequestDispatcher dispatcher = mock(RequestDispatcher.class);
+        when(request.getRequestDispatcher("/js/utils.js.gz")).thenReturn(dispatcher);
+        when(servletContext.getMimeType("/js/utils.js")).thenReturn("text/javascript");
+        when(servletContext.getResource("/js/utils.js.gz")).thenReturn(URI.create("file:/tmp/utils.js.gz").toURL());
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request, response, chain);
+        filter.doFilter(request, response, chain);
+
+        verify(dispatcher, times(2)).forward(eq(request), any());
+        verify(response, times(2)).setContentType("text/javascript");
+        verify(servletContext, times(1)).getResource(anyString());
+        verify(chain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("An error page discards the buffered body and nothing is written after it")
+    void doFilter_SendError_DiscardsBufferedBody() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            HttpServletResponse wrapped = invocation.getArgument(1, HttpServletResponse.class);
+            PrintWriter writer = wrapped.getWriter();
+            writer.write("{\"partial\":");
+            wrapped.sendError(404, "Not found");
+            writer.write(LARGE_JSON);
+            writer.flush();
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request("/api/stock", "gzip"), response, chain);
+
+        verify(response).sendError(404, "Not found");
+        assertEquals(0, body.size());
+        verify(response, never()).setHeader(eq("Content-Encoding"), anyString());
+        verify(response, never()).setContentLength(anyInt());
+    }
+
+    @Test
+    @DisplayName("A flush before the threshold does not rule out compression")
+    void doFilter_EarlyFlush_StillCompresses() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            PrintWriter writer = invocation.getArgument(1, ServletResponse.class).getWriter();
+            writer.write("[");
+            writer.flush();
+            writer.write(LARGE_JSON);
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(request("/api/reports", "gzip"), response, chain);
+
+        assertEquals("[" + LARGE_JSON, gunzip());
+        verify(response).setHeader("Content-Encoding", "gzip");
+    }
+
+    @Test
+    @DisplayName("Requests that may go asynchronous are not wrapped")
+    void doFilter_AsyncSupported_PassesThrough() throws Exception {
+        HttpServletRequest request = request("/api/reports", "gzip");
+        when(request.isAsyncSupported()).thenReturn(true);
+        FilterChain chain = mock(FilterChain.class);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verify(response, never()).addHeader(eq("Vary"), anyString());
+    }
+
+    @Test
+    @DisplayName("A request that fails leaves the response to the container")
+    void doFilter_ChainThrows_SendsNothing() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            invocation.getArgument(1, ServletResponse.class).getWriter().write("{\"ok\":");
+            throw new IOException("client went away");
+        }).when(chain).doFilter(any(), any());
+
+        assertThrows(IOException.class, () -> filter.doFilter(request("/api/stock", "gzip"), response, chain));
+
+        assertEquals(0, body.size());
+        verify(response, never()).getOutputStream();
+    }
+
+    @Test
+    @DisplayName("gzip is preferred, deflate is used otherwise, and q=0 refuses an encoding")
+    void chooseEncoding_AcceptEncodingHeader_PicksSupportedCoding() {
+        assertEquals("gzip", CompressionFilter.chooseEncoding("deflate, gzip;q=0.8"));
+        assertEquals("deflate", CompressionFilter.chooseEncoding("gzip;q=0, deflate"));
+        assertNull(CompressionFilter.chooseEncoding("br, identity"));
+        assertNull(CompressionFilter.chooseEncoding(null));
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.presentation.filters;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.core.state.DataVersions;
+import org.example.core.state.DataVersions.Domain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("HTTP Cache Filter Tests")
+public class HttpCacheFilterTest {
+    private DataVersions versions;
+    private HttpCacheFilter filter;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        versions = DataVersions.getInstance();
+        filter = new HttpCacheFilter(versions, true);
+        chain = mock(FilterChain.class);
+        // The servlet writes a body with status 200
+        doAnswer(invocation -> {
+            invocation.getArgument(1, ServletResponse.class).getWriter().write("{}");
+            return null;
+        }).when(chain).doFilter(any(), any());
+    }
+
+    private static HttpServletRequest request(String method, String path, String ifNoneMatch) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContextPath()).thenReturn("/syos");
+        when(request.getRequestURI()).thenReturn("/syos" + path);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+        return request;
+    }
+
+    private static HttpServletResponse response() throws Exception {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        when(response.getStatus()).thenReturn(200);
+        return response;
+    }
+
+    private String etagFor(String path) throws Exception {
+        HttpServletResponse response = response();
+        filter.doFilter(request("GET", path, null), response, chain);
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), etag.capture());
+        return etag.getValue();
+    }
+
+    @Test
+    @DisplayName("A matching If-None-Match gets 304 without reaching the servlet")
+    void doFilter_MatchingETag_Returns304() throws Exception {
+        String etag = etagFor("/api/store-manager/listItems");
+        reset(chain);
+
+        HttpServletResponse response = response();
+        filter.doFilter(request("GET", "/api/store-manager/listItems", "W/" + etag), response, chain);
+
+        verify(response).setStatus(304);
+        verify(response).setHeader("ETag", etag);
+        verify(chain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("A write to a domain changes the tags of endpoints that read it, and only those")
+    void doFilter_WriteRequest_BumpsRouteDomains() throws Exception {
+        String shelfTag = etagFor("/api/store-manager/listShelf");
+        String itemsTag = etagFor("/api/items");
+
+        long bills = versions.getVersion(Domain.BILLS);
+        filter.doFilter(request("POST", "/api/sales", null), response(), chain);
+
+        assertEquals(bills + 1, versions.getVersion(Domain.BILLS));
+        assertNotEquals(shelfTag, etagFor("/api/store-manager/listShelf"));
+        assertEquals(itemsTag, etagFor("/api/items"));
+    }
+
+    @Test
+    @DisplayName("Error responses are not given validators")
+    void doFilter_ErrorStatus_OmitsETag() throws Exception {
+        HttpServletResponse response = response();
+        when(response.getStatus()).thenReturn(500);
+
+        filter.doFilter(request("GET", "/api/stock", null), response, chain);
+
+        verify(response, never()).setHeader(eq("ETag"), anyString());
+    }
+
+    @Test
+    @DisplayName("Static scripts get a max-age, pages must revalidate, other API calls pass through")
+    void doFilter_StaticAndUncachedPaths_SetCacheControl() throws Exception {
+        HttpServletResponse script = response();
+        filter.doFilter(request("GET", "/js/utils.js", null), script, chain);
+        verify(script).setHeader(eq("Cache-Control"), startsWith("public, max-age="));
+
+        HttpServletResponse page = response();
+        filter.doFilter(request("GET", "/index.html", null), page, chain);
+        verify(page).setHeader("Cache-Control", "no-cache");
+
+        HttpServletResponse carts = response();
+        filter.doFilter(request("GET", "/api/carts/CART_1", "*"), carts, chain);
+        verify(carts, never()).setStatus(304);
+        verify(carts, never()).setHeader(anyString(), anyString());
+    }
+}
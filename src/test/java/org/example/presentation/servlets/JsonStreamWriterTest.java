@@ -0,0 +1,73 @@
+package org.example.presentation.servlets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JSON Stream Writer Tests")
+public class JsonStreamWriterTest {
+
+    @Test
+    @DisplayName("Nested objects and arrays are written with correct separators")
+    void write_NestedStructure_ProducesValidJson() throws Exception {
+        StringWriter out = new StringWriter();
+        JsonStreamWriter json = new JsonStreamWriter(out, 16);
+
+        json.beginObject().name("data").beginArray();
+        for (int i = 1; i <= 3; i++) {
+            json.beginObject().field("id", i).field("price", i * 1.5).field("active", i % 2 == 0).endObject();
+        }
+        json.endArray();
+        json.name("summary").beginObject().field("count", 3).endObject();
+        json.endObject();
+        json.close();
+
+        JSONObject parsed = new JSONObject(out.toString());
+        JSONArray data = parsed.getJSONArray("data");
+        assertEquals(3, data.length());
+        assertEquals(4.5, data.getJSONObject(2).getDouble("price"));
+        assertTrue(data.getJSONObject(1).getBoolean("active"));
+        assertEquals(3, parsed.getJSONObject("summary").getInt("count"));
+    }
+
+    @Test
+    @DisplayName("Strings are escaped and nulls written as JSON null")
+    void value_SpecialStrings_Escaped() throws Exception {
+        StringWriter out = new StringWriter();
+        JsonStreamWriter json = new JsonStreamWriter(out, 8192);
+
+        json.beginObject().field("name", "Tea \"Ceylon\"\nline").field("code", (String) null).endObject();
+        json.close();
+
+        JSONObject parsed = new JSONObject(out.toString());
+        assertEquals("Tea \"Ceylon\"\nline", parsed.getString("name"));
+        assertTrue(parsed.isNull("code"));
+    }
+
+    @Test
+    @DisplayName("Non-finite numbers become null instead of invalid JSON")
+    void value_NaN_WritesNull() throws Exception {
+        StringWriter out = new StringWriter();
+        JsonStreamWriter json = new JsonStreamWriter(out, 8192);
+
+        json.beginArray().value(Double.NaN).value(2.0).endArray();
+        json.close();
+
+        JSONArray parsed = new JSONArray(out.toString());
+        assertTrue(parsed.isNull(0));
+        assertEquals(2.0, parsed.getDouble(1));
+    }
+
+    @Test
+    @DisplayName("Closing more containers than were opened is rejected")
+    void endArray_NothingOpen_Throws() {
+        JsonStreamWriter json = new JsonStreamWriter(new StringWriter(), 8192);
+
+        assertThrows(IllegalStateException.class, json::endArray);
+    }
+}
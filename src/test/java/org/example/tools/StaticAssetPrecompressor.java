@@ -0,0 +1,94 @@
+package org.example.tools;
+
+import org.example.core.config.SystemConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step that writes a gzipped copy of each static text file of the web app.
+ *
+ * Run by the build during prepare-package with the webapp directory and an output
+ * directory that the WAR plugin adds to the archive. Every .js, .css, .html, .svg and
+ * .json file of at least SystemConfig.COMPRESSION_MIN_BYTES gets a .gz next to it, at
+ * the highest compression level, unless that saves less than a tenth of the size.
+ * CompressionFilter serves these copies to clients that accept gzip. WEB-INF is
+ * skipped, since nothing in it is served. It sits with the test sources so it is
+ * not packaged into the WAR.
+ */
+public class StaticAssetPrecompressor {
+    private static final List<String> EXTENSIONS = List.of(".js", ".css", ".html", ".svg", ".json");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: StaticAssetPrecompressor <webapp directory> <output directory>");
+            System.exit(2);
+        }
+        int written = precompress(Paths.get(args[0]), Paths.get(args[1]), SystemConfig.COMPRESSION_MIN_BYTES);
+        System.out.println("Pre-compressed " + written + " static assets into " + args[1]);
+    }
+
+    /**
+     * Writes the .gz copies and returns how many were written
+     */
+    public static int precompress(Path sourceDir, Path outputDir, int minBytes) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceDir)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(file -> !sourceDir.relativize(file).startsWith("WEB-INF"))
+                    .filter(StaticAssetPrecompressor::isCompressible)
+                    .collect(Collectors.toList());
+        }
+
+        int written = 0;
+        for (Path file : files) {
+            byte[] original = Files.readAllBytes(file);
+            if (original.length < minBytes) {
+                continue;
+            }
+            byte[] compressed = gzip(original);
+            if (compressed.length > original.length * 0.9) {
+                continue;
+            }
+            Path target = outputDir.resolve(sourceDir.relativize(file).toString() + ".gz");
+            Files.createDirectories(target.getParent());
+            Files.write(target, compressed);
+            // Keeps Last-Modified of the copy in line with the original
+            Files.setLastModifiedTime(target, Files.getLastModifiedTime(file));
+            written++;
+        }
+        return written;
+    }
+
+    private static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (String extension : EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 3 + 64);
+        try (OutputStream out = new GZIPOutputStream(bytes, 8192) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
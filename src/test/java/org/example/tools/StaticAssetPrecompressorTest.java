@@ -0,0 +1,36 @@
+package org.example.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Static Asset Precompressor Tests")
+public class StaticAssetPrecompressorTest {
+
+    @Test
+    @DisplayName("Large text assets get a .gz copy; small, binary and WEB-INF files do not")
+    void precompress_Webapp_WritesGzCopiesOfTextAssets(@TempDir Path source, @TempDir Path output) throws Exception {
+        String script = "function add(a, b) { return a + b; }\n".repeat(100);
+        Files.createDirectories(source.resolve("js"));
+        Files.createDirectories(source.resolve("WEB-INF"));
+        Files.writeString(source.resolve("js/app.js"), script);
+        Files.writeString(source.resolve("js/tiny.js"), "var x = 1;");
+        Files.write(source.resolve("logo.png"), new byte[4096]);
+        Files.writeString(source.resolve("WEB-INF/web.xml"), "<web-app/>".repeat(200));
+
+        assertEquals(1, StaticAssetPrecompressor.precompress(source, output, 1024));
+
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(output.resolve("js/app.js.gz")))) {
+            assertEquals(script, new String(in.readAllBytes()));
+        }
+        assertFalse(Files.exists(output.resolve("js/tiny.js.gz")));
+        assertFalse(Files.exists(output.resolve("WEB-INF")));
+    }
+}